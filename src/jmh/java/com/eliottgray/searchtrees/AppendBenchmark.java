@@ -0,0 +1,58 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion of strictly increasing Keys, as from timestamps: insert against append and a buffered TreeAppender.
+ * Each invocation builds a tree of the given size from empty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppendBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    private Long[] keys;
+
+    @Setup
+    public void setUp(){
+        keys = new Long[size];
+        for (int i = 0; i < size; i++){
+            keys[i] = 1_000_000_000L + 7L * i;
+        }
+    }
+
+    @Benchmark
+    public AVLTree<Long> insert(){
+        AVLTree<Long> tree = new AVLTree<>();
+        for (Long key : keys){
+            tree = tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Long> append(){
+        AVLTree<Long> tree = new AVLTree<>();
+        for (Long key : keys){
+            tree = tree.append(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree<Long> appender(){
+        TreeAppender<Long> appender = new TreeAppender<>(new AVLTree<Long>());
+        for (Long key : keys){
+            appender.append(key);
+        }
+        return appender.flush();
+    }
+}
@@ -0,0 +1,58 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Membership of a batch of random Keys: containsBatch against a contains call per Key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BatchLookupBenchmark {
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"1000", "100000"})
+    int batchSize;
+
+    private AVLTree<Integer> tree;
+    private Integer[] batch;
+
+    @Setup
+    public void setUp(){
+        // Even Keys are present, odd Keys absent.
+        Random random = new Random(42);
+        tree = new AVLTree<>();
+        for (int i = 0; i < size; i++){
+            tree = tree.insert(2 * i);
+        }
+        batch = new Integer[batchSize];
+        for (int i = 0; i < batchSize; i++){
+            batch[i] = random.nextInt(2 * size);
+        }
+    }
+
+    @Benchmark
+    public BitSet containsEach(){
+        BitSet result = new BitSet(batch.length);
+        for (int i = 0; i < batch.length; i++){
+            if (tree.contains(batch[i])){
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BitSet containsBatch(){
+        return tree.containsBatch(batch);
+    }
+}
@@ -0,0 +1,72 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups mostly of absent Keys: AVLTree against BloomAVLTree, whose filter turns most of them away before the tree
+ * is searched.  The share of present Keys among the queries is a parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BloomFilterBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"0.0", "0.1"})
+    double hitRate;
+
+    @Param({"0.01"})
+    double falsePositiveRate;
+
+    private AVLTree<Long> avlTree;
+    private BloomAVLTree<Long> bloomTree;
+    private Long[] queries;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        avlTree = new AVLTree<>();
+        bloomTree = new BloomAVLTree<>(falsePositiveRate);
+        long[] present = new long[size];
+        for (int i = 0; i < size; i++){
+            present[i] = random.nextLong();
+            avlTree = avlTree.insert(present[i]);
+            bloomTree = bloomTree.insert(present[i]);
+        }
+        queries = new Long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queries[i] = random.nextDouble() < hitRate ? present[random.nextInt(size)] : random.nextLong();
+        }
+    }
+
+    private Long nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public boolean containsAVLTree(){
+        return avlTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsBloomAVLTree(){
+        return bloomTree.contains(nextQuery());
+    }
+
+    @TearDown
+    public void report(){
+        System.out.printf("%nfilter: %d bytes, estimated false-positive rate %.4f%n", bloomTree.getFilterMemoryBytes(), bloomTree.getFilterFalsePositiveRate());
+    }
+}
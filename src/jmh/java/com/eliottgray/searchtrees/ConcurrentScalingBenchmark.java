@@ -0,0 +1,199 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Readers and writers sharing one sorted set: AVLTree behind an atomic root, whose writers copy a path and retry their
+ * compare-and-set when another writer got there first, against ConcurrentSkipListSet and a synchronized TreeSet.
+ *
+ * Each structure is a group of reader threads, calling contains, and writer threads, alternately adding and removing
+ * Keys so that the size holds steady.  The reader/writer ratio is the group's thread distribution, and the thread
+ * count the total across groups, both set on the command line; for example, 95/5 at 40 threads:
+ *      gradle jmh -PjmhInclude=ConcurrentScalingBenchmark -PjmhThreadGroups=19,1 -PjmhThreads=40
+ * Use 1,0 for readers only, and 1,1 for half writers.  Throughput and sampled latency, with its percentiles, are both
+ * reported; -PjmhResultFormat=CSV writes them to a file from which to plot curves across thread counts.
+ *
+ * Keys are drawn from twice the initial size, either uniformly or with Zipfian skew, whose most frequent Keys are
+ * scattered across the key space rather than clustered at one end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentScalingBenchmark {
+
+    /** Keys drawn in advance by each thread, so that drawing them is not measured. */
+    private static final int QUERY_COUNT = 1 << 16;
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"uniform", "zipfian"})
+    String distribution;
+
+    private AtomicReference<AVLTree<Integer>> atomicAVLTree;
+    private ConcurrentSkipListSet<Integer> skipList;
+    private SortedSet<Integer> synchronizedTreeSet;
+
+    /** Key of each popularity rank. */
+    private int[] keysByRank;
+    /** Cumulative probability of each popularity rank, or null for uniform Keys. */
+    private double[] zipfCumulative;
+
+    @Setup
+    public void setUp(){
+        SplittableRandom random = new SplittableRandom(42);
+        int keySpace = 2 * size;
+        keysByRank = new int[keySpace];
+        for (int i = 0; i < keySpace; i++){
+            keysByRank[i] = i;
+        }
+        for (int i = keySpace - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = keysByRank[i];
+            keysByRank[i] = keysByRank[j];
+            keysByRank[j] = swap;
+        }
+        if (distribution.equals("zipfian")){
+            zipfCumulative = new double[keySpace];
+            double total = 0;
+            for (int rank = 0; rank < keySpace; rank++){
+                total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                zipfCumulative[rank] = total;
+            }
+            for (int rank = 0; rank < keySpace; rank++){
+                zipfCumulative[rank] /= total;
+            }
+        }
+
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        skipList = new ConcurrentSkipListSet<>();
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        int count = 0;
+        while (count < size){
+            int key = random.nextInt(keySpace);
+            if (treeSet.add(key)){
+                skipList.add(key);
+                avlTree = avlTree.insert(key);
+                count++;
+            }
+        }
+        atomicAVLTree = new AtomicReference<>(avlTree);
+        synchronizedTreeSet = Collections.synchronizedSortedSet(treeSet);
+    }
+
+    /**
+     * @param random    Source of randomness.
+     * @return          Key drawn from the configured distribution.
+     */
+    private int drawKey(SplittableRandom random){
+        if (zipfCumulative == null){
+            return keysByRank[random.nextInt(keysByRank.length)];
+        }
+        double target = random.nextDouble();
+        int low = 0;
+        int high = zipfCumulative.length - 1;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (zipfCumulative[middle] < target){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return keysByRank[low];
+    }
+
+    /**
+     * Per-thread stream of Keys, and whether the next write adds or removes.
+     */
+    @State(Scope.Thread)
+    public static class Operations {
+
+        private Integer[] keys;
+        private int index;
+        private boolean add;
+
+        @Setup
+        public void setUp(ConcurrentScalingBenchmark benchmark){
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            keys = new Integer[QUERY_COUNT];
+            for (int i = 0; i < QUERY_COUNT; i++){
+                keys[i] = benchmark.drawKey(random);
+            }
+        }
+
+        Integer nextKey(){
+            index = (index + 1) & (QUERY_COUNT - 1);
+            return keys[index];
+        }
+
+        boolean nextWriteAdds(){
+            add = !add;
+            return add;
+        }
+    }
+
+    @Benchmark
+    @Group("atomicAVLTree")
+    @GroupThreads(3)
+    public boolean atomicAVLTreeRead(Operations operations){
+        return atomicAVLTree.get().contains(operations.nextKey());
+    }
+
+    @Benchmark
+    @Group("atomicAVLTree")
+    @GroupThreads(1)
+    public boolean atomicAVLTreeWrite(Operations operations){
+        Integer key = operations.nextKey();
+        boolean add = operations.nextWriteAdds();
+        AVLTree<Integer> before;
+        AVLTree<Integer> after;
+        do {
+            before = atomicAVLTree.get();
+            after = add ? before.insert(key) : before.delete(key);
+        } while (after.size() != before.size() && !atomicAVLTree.compareAndSet(before, after));
+        return after.size() != before.size();
+    }
+
+    @Benchmark
+    @Group("concurrentSkipListSet")
+    @GroupThreads(3)
+    public boolean concurrentSkipListSetRead(Operations operations){
+        return skipList.contains(operations.nextKey());
+    }
+
+    @Benchmark
+    @Group("concurrentSkipListSet")
+    @GroupThreads(1)
+    public boolean concurrentSkipListSetWrite(Operations operations){
+        Integer key = operations.nextKey();
+        return operations.nextWriteAdds() ? skipList.add(key) : skipList.remove(key);
+    }
+
+    @Benchmark
+    @Group("synchronizedTreeSet")
+    @GroupThreads(3)
+    public boolean synchronizedTreeSetRead(Operations operations){
+        return synchronizedTreeSet.contains(operations.nextKey());
+    }
+
+    @Benchmark
+    @Group("synchronizedTreeSet")
+    @GroupThreads(1)
+    public boolean synchronizedTreeSetWrite(Operations operations){
+        Integer key = operations.nextKey();
+        return operations.nextWriteAdds() ? synchronizedTreeSet.add(key) : synchronizedTreeSet.remove(key);
+    }
+}
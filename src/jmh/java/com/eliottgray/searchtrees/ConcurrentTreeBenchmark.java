@@ -0,0 +1,115 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mixed lookups, adds and removes from several threads at once: ConcurrentAVLTree, updating nodes in place,
+ * against ConcurrentSkipListSet, and against the persistent AVLTree held in an AtomicReference, whose writers copy a
+ * path and retry their compare-and-set when another writer got there first.
+ * Keys are drawn from twice the initial size, so about half of lookups and updates find their Key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+public class ConcurrentTreeBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    /** Percentage of operations which add or remove, split evenly; the rest are lookups. */
+    @Param({"10", "50"})
+    int writePercent;
+
+    private ConcurrentAVLTree<Integer> concurrentAVLTree;
+    private ConcurrentSkipListSet<Integer> skipList;
+    private AtomicReference<AVLTree<Integer>> atomicAVLTree;
+
+    @Setup
+    public void setUp(){
+        SplittableRandom random = new SplittableRandom(42);
+        concurrentAVLTree = new ConcurrentAVLTree<>();
+        skipList = new ConcurrentSkipListSet<>();
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        int count = 0;
+        while (count < size){
+            int key = random.nextInt(2 * size);
+            if (skipList.add(key)){
+                concurrentAVLTree.add(key);
+                avlTree = avlTree.insert(key);
+                count++;
+            }
+        }
+        atomicAVLTree = new AtomicReference<>(avlTree);
+    }
+
+    /**
+     * Per-thread source of operations.
+     */
+    @State(Scope.Thread)
+    public static class Operations {
+
+        private SplittableRandom random;
+
+        @Setup
+        public void setUp(){
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentAVLTree(Operations operations){
+        int roll = operations.random.nextInt(200);
+        Integer key = operations.random.nextInt(2 * size);
+        if (roll < writePercent){
+            return concurrentAVLTree.add(key);
+        } else if (roll < 2 * writePercent){
+            return concurrentAVLTree.remove(key);
+        }
+        return concurrentAVLTree.contains(key);
+    }
+
+    @Benchmark
+    public boolean concurrentSkipListSet(Operations operations){
+        int roll = operations.random.nextInt(200);
+        Integer key = operations.random.nextInt(2 * size);
+        if (roll < writePercent){
+            return skipList.add(key);
+        } else if (roll < 2 * writePercent){
+            return skipList.remove(key);
+        }
+        return skipList.contains(key);
+    }
+
+    @Benchmark
+    public boolean atomicAVLTree(Operations operations){
+        int roll = operations.random.nextInt(200);
+        Integer key = operations.random.nextInt(2 * size);
+        if (roll < writePercent){
+            AVLTree<Integer> before;
+            AVLTree<Integer> after;
+            do {
+                before = atomicAVLTree.get();
+                after = before.insert(key);
+            } while (!atomicAVLTree.compareAndSet(before, after));
+            return after.size() != before.size();
+        } else if (roll < 2 * writePercent){
+            AVLTree<Integer> before;
+            AVLTree<Integer> after;
+            do {
+                before = atomicAVLTree.get();
+                after = before.delete(key);
+            } while (after.size() != before.size() && !atomicAVLTree.compareAndSet(before, after));
+            return after.size() != before.size();
+        }
+        return atomicAVLTree.get().contains(key);
+    }
+}
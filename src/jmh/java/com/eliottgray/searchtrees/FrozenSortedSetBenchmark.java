@@ -0,0 +1,81 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point lookups of random present and absent Keys: AVLTree against its frozen Eytzinger copy.
+ * The larger sizes exceed a typical L3 cache, so that lookups are bound by memory latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FrozenSortedSetBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"10000", "1000000", "10000000"})
+    int size;
+
+    private AVLTree<Integer> tree;
+    private FrozenSortedSet<Integer> frozen;
+    private FrozenIntSortedSet frozenInts;
+    private int[] queries;
+    private Integer[] boxedQueries;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        // Even Keys are present, odd Keys absent.
+        Random random = new Random(42);
+        tree = new AVLTree<>();
+        for (int i = 0; i < size; i++){
+            tree = tree.insert(2 * i);
+        }
+        // Boxed layout, as frozen from a Tree with a custom comparator.
+        frozen = new FrozenObjectSortedSet<>(tree);
+        frozenInts = (FrozenIntSortedSet) tree.freeze();
+
+        queries = new int[QUERY_COUNT];
+        boxedQueries = new Integer[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queries[i] = random.nextInt(2 * size);
+            boxedQueries[i] = queries[i];
+        }
+    }
+
+    private int nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queryIndex;
+    }
+
+    @Benchmark
+    public boolean containsAVLTree(){
+        return tree.contains(boxedQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public boolean containsFrozenObjects(){
+        return frozen.contains(boxedQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public boolean containsFrozenInts(){
+        return frozenInts.contains(queries[nextQuery()]);
+    }
+
+    @Benchmark
+    public Integer floorAVLTree(){
+        return tree.floor(boxedQueries[nextQuery()]);
+    }
+
+    @Benchmark
+    public Integer floorFrozenInts(){
+        return frozenInts.floor(boxedQueries[nextQuery()]);
+    }
+}
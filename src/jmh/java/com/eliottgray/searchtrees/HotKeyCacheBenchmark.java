@@ -0,0 +1,112 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups drawn from a Zipfian distribution over the Keys of an AVLTree, directly and through a HotKeyCache.
+ * With an exponent of 1, the hottest 1% of the two million Keys take about 70% of lookups; with 1.3, about 95%.
+ * Half the Keys looked up are absent, so that floor has work to do.  Hit rates are printed at teardown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HotKeyCacheBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 20;
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"1024", "16384"})
+    int capacity;
+
+    @Param({"1.0", "1.3"})
+    double exponent;
+
+    private AVLTree<Integer> tree;
+    private HotKeyCache<Integer> containsCache;
+    private HotKeyCache<Integer> floorCache;
+    private Integer[] queries;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        // Even Keys are present and odd Keys absent; ranks are shuffled across the key space.
+        int keySpace = 2 * size;
+        int[] keysByRank = new int[keySpace];
+        for (int i = 0; i < keySpace; i++){
+            keysByRank[i] = i;
+        }
+        for (int i = keySpace - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = keysByRank[i];
+            keysByRank[i] = keysByRank[j];
+            keysByRank[j] = swap;
+        }
+        double[] cumulative = new double[keySpace];
+        double total = 0;
+        for (int rank = 0; rank < keySpace; rank++){
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        queries = new Integer[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            double target = random.nextDouble() * total;
+            int low = 0;
+            int high = keySpace - 1;
+            while (low < high){
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < target){
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            queries[i] = keysByRank[low];
+        }
+        TreeAppender<Integer> appender = new TreeAppender<>(new AVLTree<Integer>());
+        for (int key = 0; key < keySpace; key += 2){
+            appender.append(key);
+        }
+        tree = appender.flush();
+        containsCache = new HotKeyCache<>(capacity);
+        floorCache = new HotKeyCache<>(capacity);
+    }
+
+    private Integer nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public boolean containsTree(){
+        return tree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsCached(){
+        return containsCache.contains(tree, nextQuery());
+    }
+
+    @Benchmark
+    public Integer floorTree(){
+        return tree.floor(nextQuery());
+    }
+
+    @Benchmark
+    public Integer floorCached(){
+        return floorCache.floor(tree, nextQuery());
+    }
+
+    @TearDown
+    public void report(){
+        System.out.printf("%nhit rate: contains %.3f, floor %.3f%n", containsCache.getHitRate(), floorCache.getHitRate());
+    }
+}
@@ -0,0 +1,116 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Lookups of Integer Keys in a natural-order AVLTree, which compares Integers directly, against one whose comparator
+ * calls compareTo generically, as Comparator.naturalOrder() does.
+ *
+ * With pollute set, trees of several other Key types and comparators are queried first, so that the comparison
+ * call sites are profiled, and compiled, as megamorphic: as in a JVM hosting trees of many Key types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NaturalOrderBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+    private static final int POLLUTION_SIZE = 10000;
+    private static final int POLLUTION_QUERIES = 200000;
+
+    /** Small enough that the tree stays in cache, so that comparisons dominate, and large enough that it does not. */
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean pollute;
+
+    private AVLTree<Integer> naturalTree;
+    private AVLTree<Integer> genericTree;
+    private Integer[] queries;
+    private int queryIndex;
+    private int polluted;
+
+    /**
+     * @return  Comparator calling compareTo through the Comparable interface, shared by every Key type.
+     */
+    private static <Key extends Comparable<Key>> Comparator<Key> genericOrder(){
+        return (one, two) -> one.compareTo(two);
+    }
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        naturalTree = new AVLTree<>();
+        genericTree = new AVLTree<>(NaturalOrderBenchmark.<Integer>genericOrder());
+        for (int i = 0; i < size; i++){
+            Integer key = random.nextInt(2 * size);
+            naturalTree = naturalTree.insert(key);
+            genericTree = genericTree.insert(key);
+        }
+        queries = new Integer[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queries[i] = random.nextInt(2 * size);
+        }
+        if (pollute){
+            pollute(random, Random::nextLong);
+            pollute(random, Random::nextDouble);
+            pollute(random, r -> Long.toHexString(r.nextLong()));
+            pollute(random, r -> new UUID(r.nextLong(), r.nextLong()));
+            pollute(random, r -> BigInteger.valueOf(r.nextLong()));
+        }
+    }
+
+    /**
+     * Build and query trees of one Key type: in natural order, in generic order, and in reverse order.
+     */
+    private <Key extends Comparable<Key>> void pollute(Random random, Function<Random, Key> keys){
+        for (Comparator<Key> comparator : Arrays.<Comparator<Key>>asList(Comparator.naturalOrder(), genericOrder(), Comparator.reverseOrder())){
+            AVLTree<Key> tree = new AVLTree<>(comparator);
+            for (int i = 0; i < POLLUTION_SIZE; i++){
+                tree = tree.insert(keys.apply(random));
+            }
+            for (int i = 0; i < POLLUTION_QUERIES; i++){
+                if (tree.contains(keys.apply(random))){
+                    polluted++;
+                }
+            }
+        }
+    }
+
+    private Integer nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public boolean containsNaturalOrder(){
+        return naturalTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsGenericComparator(){
+        return genericTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public Integer floorNaturalOrder(){
+        return naturalTree.floor(nextQuery());
+    }
+
+    @Benchmark
+    public Integer floorGenericComparator(){
+        return genericTree.floor(nextQuery());
+    }
+}
@@ -0,0 +1,86 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of URL-like String Keys sharing a long lead-in: AVLTree, comparing whole Strings at every level, against
+ * PrefixedAVLTree comparing cached prefixes first, packed either from the start of each String or after the lead-in.
+ * Keys are half present and half absent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrefixBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+    private static final String LEAD_IN = "https://www.example.com/catalogue/items/";
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private AVLTree<String> avlTree;
+    private PrefixedAVLTree<String> prefixedTree;
+    private PrefixedAVLTree<String> leadInTree;
+    private String[] queries;
+    private int queryIndex;
+
+    private static String randomKey(Random random){
+        return LEAD_IN + Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        avlTree = new AVLTree<>();
+        prefixedTree = new PrefixedAVLTree<>(KeyPrefixer.STRINGS);
+        leadInTree = new PrefixedAVLTree<>(KeyPrefixer.stringsAfter(LEAD_IN));
+        String[] present = new String[size];
+        for (int i = 0; i < size; i++){
+            present[i] = randomKey(random);
+            avlTree = avlTree.insert(present[i]);
+            prefixedTree = prefixedTree.insert(present[i]);
+            leadInTree = leadInTree.insert(present[i]);
+        }
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            // Copies, so that no lookup short-circuits on String identity.
+            queries[i] = new String(random.nextBoolean() ? present[random.nextInt(size)] : randomKey(random));
+        }
+    }
+
+    private String nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public boolean containsAVLTree(){
+        return avlTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsPrefixedTree(){
+        return prefixedTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsLeadInPrefixedTree(){
+        return leadInTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public String floorAVLTree(){
+        return avlTree.floor(nextQuery());
+    }
+
+    @Benchmark
+    public String floorLeadInPrefixedTree(){
+        return leadInTree.floor(nextQuery());
+    }
+}
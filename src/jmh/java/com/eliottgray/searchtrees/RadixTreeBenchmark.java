@@ -0,0 +1,83 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and short range scans of String Keys: AVLTree, comparing whole Strings at every level, against
+ * AdaptiveRadixTree, branching on one byte per level.  Keys are UUID strings, half present and half absent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RadixTreeBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    private AVLTree<String> avlTree;
+    private AdaptiveRadixTree<String> radixTree;
+    private String[] queries;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        avlTree = new AVLTree<>();
+        radixTree = AdaptiveRadixTree.ofStrings();
+        String[] present = new String[size];
+        for (int i = 0; i < size; i++){
+            present[i] = new UUID(random.nextLong(), random.nextLong()).toString();
+            avlTree = avlTree.insert(present[i]);
+            radixTree = radixTree.insert(present[i]);
+        }
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queries[i] = random.nextBoolean() ? present[random.nextInt(size)] : new UUID(random.nextLong(), random.nextLong()).toString();
+        }
+    }
+
+    private String nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public boolean containsAVLTree(){
+        return avlTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean containsRadixTree(){
+        return radixTree.contains(nextQuery());
+    }
+
+    /**
+     * Keys sharing the query's first three hex digits; about size / 4096 of them.
+     */
+    @Benchmark
+    public List<String> getRangeAVLTree(){
+        String query = nextQuery();
+        return avlTree.getRange(query.substring(0, 3), query.substring(0, 3) + Character.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<String> getRangeRadixTree(){
+        String query = nextQuery();
+        return radixTree.getRange(query.substring(0, 3), query.substring(0, 3) + Character.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int prefixCountRadixTree(){
+        return radixTree.prefixCount(nextQuery().substring(0, 3));
+    }
+}
@@ -0,0 +1,127 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range and k-nearest-neighbor queries over random points: KDTree and RTree against a brute-force scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpatialBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"2", "3"})
+    int dimensions;
+
+    private List<double[]> points;
+    private KDTree kdTree;
+    private RTree rTree;
+    private double[][] queryMins;
+    private double[][] queryMaxes;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++){
+            points.add(randomPoint(random));
+        }
+        kdTree = KDTree.build(dimensions, points);
+        rTree = RTree.build(dimensions, points);
+
+        // Query boxes each covering roughly 0.1% of the unit cube.
+        double width = Math.pow(0.001, 1.0 / dimensions);
+        queryMins = new double[QUERY_COUNT][];
+        queryMaxes = new double[QUERY_COUNT][];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queryMins[i] = randomPoint(random);
+            queryMaxes[i] = new double[dimensions];
+            for (int j = 0; j < dimensions; j++){
+                queryMaxes[i][j] = queryMins[i][j] + width;
+            }
+        }
+    }
+
+    private double[] randomPoint(Random random){
+        double[] point = new double[dimensions];
+        for (int i = 0; i < dimensions; i++){
+            point[i] = random.nextDouble();
+        }
+        return point;
+    }
+
+    private int nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queryIndex;
+    }
+
+    @Benchmark
+    public List<double[]> rangeKDTree(){
+        int query = nextQuery();
+        return kdTree.getRange(queryMins[query], queryMaxes[query]);
+    }
+
+    @Benchmark
+    public List<double[]> rangeRTree(){
+        int query = nextQuery();
+        return rTree.getRange(queryMins[query], queryMaxes[query]);
+    }
+
+    @Benchmark
+    public List<double[]> rangeBruteForce(){
+        int query = nextQuery();
+        List<double[]> result = new ArrayList<>();
+        for (double[] point : points){
+            if (KDTree.isWithin(point, queryMins[query], queryMaxes[query])){
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<double[]> nearestKDTree(){
+        return kdTree.getNearest(queryMins[nextQuery()], 10);
+    }
+
+    @Benchmark
+    public List<double[]> nearestRTree(){
+        return rTree.getNearest(queryMins[nextQuery()], 10);
+    }
+
+    @Benchmark
+    public void nearestBruteForce(Blackhole blackhole){
+        double[] query = queryMins[nextQuery()];
+        // Track the 10 smallest distances with insertion into a small sorted array.
+        double[] best = new double[10];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        for (double[] point : points){
+            double distance = KDTree.squaredDistance(point, query);
+            if (distance < best[9]){
+                int i = 9;
+                while (i > 0 && best[i - 1] > distance){
+                    best[i] = best[i - 1];
+                    i--;
+                }
+                best[i] = distance;
+            }
+        }
+        blackhole.consume(best);
+    }
+}
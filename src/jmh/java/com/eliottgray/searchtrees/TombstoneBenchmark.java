@@ -0,0 +1,104 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delete bursts on AVLTree against TombstoneAVLTree: expiring a share of the Keys of a tree one at a time, with
+ * compaction at the default threshold included, then lookups on the tree left behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TombstoneBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"0.1", "0.6"})
+    double expiredShare;
+
+    private AVLTree<Integer> avlTree;
+    private TombstoneAVLTree<Integer> tombstoneTree;
+    private Integer[] expired;
+    private AVLTree<Integer> expiredAVLTree;
+    private TombstoneAVLTree<Integer> expiredTombstoneTree;
+    private Integer[] queries;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random random = new Random(42);
+        List<Integer> keys = new ArrayList<>(size);
+        for (int key = 0; key < size; key++){
+            keys.add(key);
+        }
+        avlTree = new AVLTree<Integer>().appendAll(keys);
+        tombstoneTree = new TombstoneAVLTree<Integer>().appendAll(keys);
+        Collections.shuffle(keys, random);
+        expired = keys.subList(0, (int) (expiredShare * size)).toArray(new Integer[0]);
+        expiredAVLTree = expireAVLTree();
+        expiredTombstoneTree = expireTombstoneTree();
+        queries = new Integer[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            queries[i] = random.nextInt(size);
+        }
+    }
+
+    private Integer nextQuery(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queries[queryIndex];
+    }
+
+    @Benchmark
+    public AVLTree<Integer> expireAVLTree(){
+        AVLTree<Integer> tree = avlTree;
+        for (Integer key : expired){
+            tree = tree.delete(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public TombstoneAVLTree<Integer> expireTombstoneTree(){
+        TombstoneAVLTree<Integer> tree = tombstoneTree;
+        for (Integer key : expired){
+            tree = tree.delete(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean containsAfterExpiryAVLTree(){
+        return expiredAVLTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean containsAfterExpiryTombstoneTree(){
+        return expiredTombstoneTree.contains(nextQuery());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer floorAfterExpiryAVLTree(){
+        return expiredAVLTree.floor(nextQuery());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer floorAfterExpiryTombstoneTree(){
+        return expiredTombstoneTree.floor(nextQuery());
+    }
+}
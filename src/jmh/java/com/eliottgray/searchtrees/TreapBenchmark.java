@@ -0,0 +1,128 @@
+package com.eliottgray.searchtrees;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Treap against AVLTree, for point updates and bulk merges.
+ * A merge adds a tree of mergeSize random Keys to a tree of size random Keys: the Treap by union, the AVLTree by
+ * inserting the smaller tree's Keys one at a time, or by merging both trees' sorted Keys into a fresh tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TreapBenchmark {
+
+    private static final int QUERY_COUNT = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"1000", "100000"})
+    int mergeSize;
+
+    private AVLTree<Integer> avlTree;
+    private AVLTree<Integer> avlMerge;
+    private Treap<Integer> treap;
+    private Treap<Integer> treapMerge;
+    private Integer[] present;
+    private Integer[] random;
+    private int queryIndex;
+
+    @Setup
+    public void setUp(){
+        Random generator = new Random(42);
+        TreeSet<Integer> keys = new TreeSet<>();
+        while (keys.size() < size){
+            keys.add(generator.nextInt());
+        }
+        TreeSet<Integer> mergeKeys = new TreeSet<>();
+        while (mergeKeys.size() < mergeSize){
+            mergeKeys.add(generator.nextInt());
+        }
+        avlTree = new AVLTree<Integer>().appendAll(keys);
+        avlMerge = new AVLTree<Integer>().appendAll(mergeKeys);
+        treap = new Treap<>();
+        for (int key : keys){
+            treap = treap.insert(key);
+        }
+        treapMerge = new Treap<>();
+        for (int key : mergeKeys){
+            treapMerge = treapMerge.insert(key);
+        }
+        List<Integer> keyList = new ArrayList<>(keys);
+        present = new Integer[QUERY_COUNT];
+        random = new Integer[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++){
+            present[i] = keyList.get(generator.nextInt(size));
+            random[i] = generator.nextInt();
+        }
+    }
+
+    private int nextIndex(){
+        queryIndex = (queryIndex + 1) & (QUERY_COUNT - 1);
+        return queryIndex;
+    }
+
+    @Benchmark
+    public Tree<Integer> insertAVLTree(){
+        return avlTree.insert(random[nextIndex()]);
+    }
+
+    @Benchmark
+    public Tree<Integer> insertTreap(){
+        return treap.insert(random[nextIndex()]);
+    }
+
+    @Benchmark
+    public Tree<Integer> deleteAVLTree(){
+        return avlTree.delete(present[nextIndex()]);
+    }
+
+    @Benchmark
+    public Tree<Integer> deleteTreap(){
+        return treap.delete(present[nextIndex()]);
+    }
+
+    @Benchmark
+    public Tree<Integer> mergeAVLTreeByInsert(){
+        AVLTree<Integer> merged = avlTree;
+        for (Integer key : avlMerge.toAscendingList()){
+            merged = merged.insert(key);
+        }
+        return merged;
+    }
+
+    @Benchmark
+    public Tree<Integer> mergeAVLTreeByRebuild(){
+        List<Integer> one = avlTree.toAscendingList();
+        List<Integer> two = avlMerge.toAscendingList();
+        List<Integer> merged = new ArrayList<>(one.size() + two.size());
+        int i = 0;
+        int j = 0;
+        while (i < one.size() || j < two.size()){
+            if (j == two.size() || (i < one.size() && one.get(i) < two.get(j))){
+                merged.add(one.get(i++));
+            } else if (i == one.size() || two.get(j) < one.get(i)){
+                merged.add(two.get(j++));
+            } else {
+                merged.add(one.get(i++));
+                j++;
+            }
+        }
+        return new AVLTree<Integer>().appendAll(merged);
+    }
+
+    @Benchmark
+    public Tree<Integer> mergeTreapByUnion(){
+        return treap.union(treapMerge);
+    }
+}
@@ -0,0 +1,304 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Arrays;
+
+/**
+ * Inner node of an AdaptiveRadixTree.
+ *
+ * Every Key beneath the node shares the bytes of the path leading to it, followed by the node's compressed prefix.
+ * A Key whose encoding ends exactly there is held as the terminal leaf; every other Key continues in the child for
+ * its next byte.  Children are stored in the smallest of three representations able to hold them:
+ *      Sparse      Up to 16 children, as sorted parallel arrays of bytes and children.
+ *      Indexed     Up to 48 children, as a 256-entry byte index into a dense array of children.
+ *      Direct      Up to 256 children, as an array indexed directly by byte.
+ * Nodes are immutable: every update returns a new node, choosing its representation afresh.
+ */
+abstract class ARTInnerNode <Key extends Comparable<Key>> extends ARTNode<Key> {
+
+    static final int SPARSE_CAPACITY = 16;
+    static final int INDEXED_CAPACITY = 48;
+
+    final byte[] prefix;
+    final ARTLeaf<Key> terminal;
+
+    /**
+     * @param prefix    Compressed path bytes, shared by every Key beneath the node.
+     * @param terminal  Leaf whose encoding ends at this node, or null.
+     * @param size      Number of Keys within this subtree.
+     */
+    ARTInnerNode(byte[] prefix, ARTLeaf<Key> terminal, int size){
+        super(size);
+        this.prefix = prefix;
+        this.terminal = terminal;
+    }
+
+    /**
+     * Construct an inner node in the smallest representation able to hold the given children.
+     * @param prefix    Compressed path bytes.
+     * @param terminal  Leaf whose encoding ends at this node, or null.
+     * @param bytes     Child bytes, ascending, each in [0, 255].
+     * @param children  Non-null children, parallel to bytes.
+     * @param count     Number of children.
+     * @return          New inner node.
+     */
+    static <Key extends Comparable<Key>> ARTInnerNode<Key> of(byte[] prefix, ARTLeaf<Key> terminal, int[] bytes, ARTNode<Key>[] children, int count){
+        int size = ARTNode.sizeOf(terminal);
+        for (int i = 0; i < count; i++){
+            size += children[i].size;
+        }
+        if (count <= SPARSE_CAPACITY){
+            return new Sparse<>(prefix, terminal, size, bytes, children, count);
+        } else if (count <= INDEXED_CAPACITY){
+            return new Indexed<>(prefix, terminal, size, bytes, children, count);
+        } else {
+            return new Direct<>(prefix, terminal, size, bytes, children, count);
+        }
+    }
+
+    /**
+     * @return  Number of children.
+     */
+    abstract int childCount();
+
+    /**
+     * @param b     Byte, in [0, 255].
+     * @return      Child for the byte, or null.
+     */
+    abstract ARTNode<Key> child(int b);
+
+    /**
+     * @param b     Byte, in [0, 256].
+     * @return      Least child byte greater than or equal to b, or -1 if none.
+     */
+    abstract int nextByte(int b);
+
+    /**
+     * @param b     Byte, in [-1, 255].
+     * @return      Greatest child byte less than or equal to b, or -1 if none.
+     */
+    abstract int previousByte(int b);
+
+    /**
+     * @return  Whether the node is held in the smallest representation able to hold its children.
+     */
+    abstract boolean hasCompactRepresentation();
+
+    /**
+     * @param b         Byte, in [0, 255].
+     * @param child     New child for the byte, or null to remove it.
+     * @return          Copy of this node, with the child replaced.
+     */
+    ARTInnerNode<Key> withChild(int b, ARTNode<Key> child){
+        int count = childCount();
+        int[] bytes = new int[count + 1];
+        ARTNode<Key>[] children = newArray(count + 1);
+        int length = 0;
+        boolean placed = false;
+        for (int current = nextByte(0); current >= 0; current = nextByte(current + 1)){
+            if (!placed && current >= b){
+                placed = true;
+                if (child != null){
+                    bytes[length] = b;
+                    children[length++] = child;
+                }
+                if (current == b){
+                    continue;
+                }
+            }
+            bytes[length] = current;
+            children[length++] = child(current);
+        }
+        if (!placed && child != null){
+            bytes[length] = b;
+            children[length++] = child;
+        }
+        return of(prefix, terminal, bytes, children, length);
+    }
+
+    /**
+     * @param terminal  New terminal leaf, or null to remove it.
+     * @return          Copy of this node, with the terminal leaf replaced.
+     */
+    ARTInnerNode<Key> withTerminal(ARTLeaf<Key> terminal){
+        return withPrefixAndTerminal(prefix, terminal);
+    }
+
+    /**
+     * @param prefix    New compressed path bytes.
+     * @return          Copy of this node, with the prefix replaced.
+     */
+    ARTInnerNode<Key> withPrefix(byte[] prefix){
+        return withPrefixAndTerminal(prefix, terminal);
+    }
+
+    private ARTInnerNode<Key> withPrefixAndTerminal(byte[] prefix, ARTLeaf<Key> terminal){
+        int count = childCount();
+        int[] bytes = new int[count];
+        ARTNode<Key>[] children = newArray(count);
+        int length = 0;
+        for (int current = nextByte(0); current >= 0; current = nextByte(current + 1)){
+            bytes[length] = current;
+            children[length++] = child(current);
+        }
+        return of(prefix, terminal, bytes, children, length);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <Key extends Comparable<Key>> ARTNode<Key>[] newArray(int length){
+        return (ARTNode<Key>[]) new ARTNode[length];
+    }
+
+    /**
+     * Up to 16 children, found by a linear scan of a short sorted array of bytes.
+     */
+    static class Sparse <Key extends Comparable<Key>> extends ARTInnerNode<Key> {
+
+        private final byte[] keys;
+        private final ARTNode<Key>[] children;
+
+        Sparse(byte[] prefix, ARTLeaf<Key> terminal, int size, int[] bytes, ARTNode<Key>[] children, int count){
+            super(prefix, terminal, size);
+            this.keys = new byte[count];
+            this.children = Arrays.copyOf(children, count);
+            for (int i = 0; i < count; i++){
+                keys[i] = (byte) bytes[i];
+            }
+        }
+
+        @Override
+        int childCount(){ return keys.length; }
+
+        @Override
+        ARTNode<Key> child(int b){
+            for (int i = 0; i < keys.length; i++){
+                int current = keys[i] & 0xFF;
+                if (current >= b){
+                    return current == b ? children[i] : null;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        int nextByte(int b){
+            for (byte key : keys){
+                if ((key & 0xFF) >= b){
+                    return key & 0xFF;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int previousByte(int b){
+            for (int i = keys.length - 1; i >= 0; i--){
+                if ((keys[i] & 0xFF) <= b){
+                    return keys[i] & 0xFF;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        boolean hasCompactRepresentation(){ return keys.length <= SPARSE_CAPACITY; }
+    }
+
+    /**
+     * Up to 48 children, found through a 256-entry index holding each child's slot plus one, or 0 if absent.
+     */
+    static class Indexed <Key extends Comparable<Key>> extends ARTInnerNode<Key> {
+
+        private final byte[] index;
+        private final ARTNode<Key>[] children;
+
+        Indexed(byte[] prefix, ARTLeaf<Key> terminal, int size, int[] bytes, ARTNode<Key>[] children, int count){
+            super(prefix, terminal, size);
+            this.index = new byte[256];
+            this.children = Arrays.copyOf(children, count);
+            for (int i = 0; i < count; i++){
+                index[bytes[i]] = (byte) (i + 1);
+            }
+        }
+
+        @Override
+        int childCount(){ return children.length; }
+
+        @Override
+        ARTNode<Key> child(int b){
+            int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        int nextByte(int b){
+            for (int current = b; current < 256; current++){
+                if (index[current] != 0){
+                    return current;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int previousByte(int b){
+            for (int current = b; current >= 0; current--){
+                if (index[current] != 0){
+                    return current;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        boolean hasCompactRepresentation(){
+            return children.length > SPARSE_CAPACITY && children.length <= INDEXED_CAPACITY;
+        }
+    }
+
+    /**
+     * Up to 256 children, indexed directly by byte.
+     */
+    static class Direct <Key extends Comparable<Key>> extends ARTInnerNode<Key> {
+
+        private final ARTNode<Key>[] children;
+        private final int count;
+
+        Direct(byte[] prefix, ARTLeaf<Key> terminal, int size, int[] bytes, ARTNode<Key>[] children, int count){
+            super(prefix, terminal, size);
+            this.children = newArray(256);
+            this.count = count;
+            for (int i = 0; i < count; i++){
+                this.children[bytes[i]] = children[i];
+            }
+        }
+
+        @Override
+        int childCount(){ return count; }
+
+        @Override
+        ARTNode<Key> child(int b){ return children[b]; }
+
+        @Override
+        int nextByte(int b){
+            for (int current = b; current < 256; current++){
+                if (children[current] != null){
+                    return current;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int previousByte(int b){
+            for (int current = b; current >= 0; current--){
+                if (children[current] != null){
+                    return current;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        boolean hasCompactRepresentation(){ return count > INDEXED_CAPACITY; }
+    }
+}
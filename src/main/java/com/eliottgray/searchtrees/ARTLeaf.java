@@ -0,0 +1,21 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Leaf of an AdaptiveRadixTree, holding one Key and its full encoding.
+ * The full encoding is kept so that the Key's position can be checked without re-encoding it.
+ */
+class ARTLeaf <Key extends Comparable<Key>> extends ARTNode<Key> {
+
+    final Key key;
+    final byte[] bytes;
+
+    /**
+     * @param key       Key.
+     * @param bytes     Encoding of the Key.
+     */
+    ARTLeaf(Key key, byte[] bytes){
+        super(1);
+        this.key = key;
+        this.bytes = bytes;
+    }
+}
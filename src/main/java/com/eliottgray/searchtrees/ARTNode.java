@@ -0,0 +1,24 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Immutable node of an AdaptiveRadixTree: either a leaf holding one Key, or an inner node branching on one byte.
+ */
+abstract class ARTNode <Key extends Comparable<Key>> {
+
+    final int size;
+
+    /**
+     * @param size  Number of Keys within this subtree.
+     */
+    ARTNode(int size){
+        this.size = size;
+    }
+
+    /**
+     * @param node  Node, or null.
+     * @return      Number of Keys within the Node's subtree, or 0 for null.
+     */
+    static int sizeOf(ARTNode<?> node){
+        return node == null ? 0 : node.size;
+    }
+}
@@ -1,6 +1,9 @@
 package com.eliottgray.searchtrees;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Why use Binary Search Trees over, say, HashTables?
@@ -36,24 +39,33 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
         super(root, comparator);
     }
 
+    @Override
+    AVLTree<Key> withRoot(BinarySearchNode<Key> root){
+        return new AVLTree<>(root, comparator);
+    }
 
     @Override
     public AVLTree<Key> delete(Key key){
         if (root == null){
             return this;
         } else {
-            BinarySearchNode<Key> newRoot = recursiveDelete(key, root);
-            return new AVLTree<>(newRoot, comparator);
+            TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.DELETE);
+            try {
+                return withRoot(recursiveDelete(key, root));
+            } finally {
+                TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.DELETE);
+            }
         }
     }
 
     private BinarySearchNode<Key> recursiveDelete(Key key, BinarySearchNode<Key> current){
+        TreeInstrumentation.RECORDER.level();
         BinarySearchNode<Key> root;
-        int comparison = comparator.compare(key, current.key);
+        int comparison = compare(key, current.key);
         if (comparison < 0) {
             if (current.left != null) {
                 BinarySearchNode<Key> newLeft = recursiveDelete(key, current.left);
-                root = new BinarySearchNode<>(current.key, newLeft, current.right);
+                root = copyNode(current, newLeft, current.right);
 
                 // Rotate if necessary, replacing this node as the head of this tree.
                 root = rotateLeftIfUnbalanced(root);
@@ -64,7 +76,7 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
         } else if (comparison > 0){
             if (current.right != null){
                 BinarySearchNode<Key> newRight = recursiveDelete(key, current.right);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                root = copyNode(current, current.left, newRight);
 
                 // Rotate if necessary, replacing this node as the head of this tree.
                 root = rotateRightIfUnbalanced(root);
@@ -76,13 +88,13 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
             // Found key!  Now to delete. (delete = return left child, right child, find a replacement from further down, or null;
             if (current.hasLeft() && current.hasRight()){
                 // Two children!  Find a replacement for this node from the longer subtree, which itself will have 1 or no children.
-                Key replacementKey = findDeletionReplacement(current);
+                BinarySearchNode<Key> replacement = findDeletionReplacement(current);
 
                 // Delete replacement child from this node's subtree, preparing it to take over for this node.
-                root = recursiveDelete(replacementKey, current);
+                root = recursiveDelete(replacement.key, current);
 
                 // Replace this with copy of replacement child.
-                root = new BinarySearchNode<>(replacementKey, root.left, root.right);
+                root = copyNode(replacement, root.left, root.right);
 
             } else {
                 if (current.hasLeft()){
@@ -99,32 +111,36 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
 
     @Override
     public AVLTree<Key> insert(Key key){
-        if (root == null){
-            BinarySearchNode<Key> newRoot = new BinarySearchNode<>(key);
-            return new AVLTree<>(newRoot, comparator);
-        } else {
-            BinarySearchNode<Key> newRoot = recursiveInsert(key, root);
-            return new AVLTree<>(newRoot, comparator);
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            if (root == null){
+                return withRoot(createNode(key, null, null));
+            } else {
+                return withRoot(recursiveInsert(key, root));
+            }
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
         }
     }
 
     private BinarySearchNode<Key> recursiveInsert(Key key, BinarySearchNode<Key> current){
+        TreeInstrumentation.RECORDER.level();
         // This position in the tree is currently occupied by current node.
         BinarySearchNode<Key> root;
-        int comparison = comparator.compare(key, current.key);
+        int comparison = compare(key, current.key);
         // If key is to left of current:
         if (comparison < 0){
             if (current.left != null) {
                 // Insert down left subtree, contains new left subtree, and attach here.
                 BinarySearchNode<Key> newLeft = recursiveInsert(key, current.left);
-                root = new BinarySearchNode<>(current.key, newLeft, current.right);
+                root = copyNode(current, newLeft, current.right);
 
                 // Rotate if necessary, replacing this node as the head of this tree.
                 root = rotateRightIfUnbalanced(root);
             } else {
                 // I have no left, so I simply set it here.
-                BinarySearchNode<Key> newLeft = new BinarySearchNode<>(key);
-                root= new BinarySearchNode<>(current.key, newLeft, current.right);
+                BinarySearchNode<Key> newLeft = createNode(key, null, null);
+                root= copyNode(current, newLeft, current.right);
             }
 
             // If key is to right of current:
@@ -132,24 +148,194 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
             // Insert down right subtree, contains new subtree head, and attach here.
             if (current.right != null){
                 BinarySearchNode<Key> newRight = recursiveInsert(key, current.right);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                root = copyNode(current, current.left, newRight);
 
                 // Rotate if necessary, replacing this node as the head of this tree.
                 root = rotateLeftIfUnbalanced(root);
             } else {
                 // I have no right, so I simply set it here.
-                BinarySearchNode<Key> newRight = new BinarySearchNode<>(key);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                BinarySearchNode<Key> newRight = createNode(key, null, null);
+                root = copyNode(current, current.left, newRight);
             }
         } else {
             // Duplicate key found; replace this.
-            root = new BinarySearchNode<>(key, current.left, current.right);
+            root = createNode(key, current.left, current.right);
         }
 
         // Return whatever occupies this position of the tree, which may still be me, or not.
         return root;
     }
 
+    /**
+     * Append a Key greater than every Key in the tree.
+     * Rather than comparing from the root, the Key is joined along the right spine, where it settles at the first
+     * subtree low enough to stay balanced; only the spine above it is copied.
+     * @param key   Key to append.
+     * @return      Updated Tree.
+     * @throws IllegalArgumentException     Key is not greater than the maximum Key.
+     */
+    public AVLTree<Key> append(Key key){
+        if (root != null && compare(key, getMax()) <= 0){
+            throw new IllegalArgumentException(String.format("Appended key %s is not greater than maximum key %s", key, getMax()));
+        }
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            return withRoot(join(root, key, null));
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
+        }
+    }
+
+    /**
+     * Append Keys in strictly ascending order, all greater than every Key in the tree.
+     * The Keys after the first are built into a perfectly balanced subtree in O(k), which is then joined to the tree
+     * along its right spine, with the first Key between them, in O(log n).
+     * @param keys  Keys to append, in strictly ascending order.
+     * @return      Updated Tree.
+     * @throws IllegalArgumentException     Keys are out of order, or not greater than the maximum Key.
+     */
+    public AVLTree<Key> appendAll(Collection<? extends Key> keys){
+        if (keys.isEmpty()){
+            return this;
+        }
+        List<Key> sorted = new ArrayList<>(keys);
+        Key previous = getMax();
+        for (Key key : sorted){
+            if (previous != null && compare(key, previous) <= 0){
+                throw new IllegalArgumentException(String.format("Appended key %s is not greater than preceding key %s", key, previous));
+            }
+            previous = key;
+        }
+        return appendSorted(sorted);
+    }
+
+    /**
+     * Append Keys already known to be in strictly ascending order, and greater than every Key in the tree.
+     * @param sorted    Non-empty Keys to append, in strictly ascending order.
+     * @return          Updated Tree.
+     */
+    AVLTree<Key> appendSorted(List<Key> sorted){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            BinarySearchNode<Key> block = build(sorted, 1, sorted.size());
+            return withRoot(join(root, sorted.get(0), block));
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
+        }
+    }
+
+    /**
+     * Split off the Keys less than the given Key, in O(log n).
+     * Each subtree left of the search path is joined back on with its parent's Key; the joins' costs telescope.
+     * Node counts are not carried across joins, so this is for sets rather than multisets.
+     * @param key   Split Key.
+     * @return      Tree of the Keys less than the given Key.
+     */
+    AVLTree<Key> headTree(Key key){
+        return withRoot(head(root, key));
+    }
+
+    /**
+     * Split off the Keys greater than or equal to the given Key, in O(log n).
+     * @param key   Split Key.
+     * @return      Tree of the Keys greater than or equal to the given Key.
+     */
+    AVLTree<Key> tailTree(Key key){
+        return withRoot(tail(root, key));
+    }
+
+    private BinarySearchNode<Key> head(BinarySearchNode<Key> current, Key key){
+        if (current == null){
+            return null;
+        } else if (compare(key, current.key) <= 0){
+            return head(current.left, key);
+        } else {
+            return join(current.left, current.key, head(current.right, key));
+        }
+    }
+
+    private BinarySearchNode<Key> tail(BinarySearchNode<Key> current, Key key){
+        if (current == null){
+            return null;
+        } else if (compare(key, current.key) <= 0){
+            return join(tail(current.left, key), current.key, current.right);
+        } else {
+            return tail(current.right, key);
+        }
+    }
+
+    /**
+     * Concatenate a tree whose Keys are all greater than this tree's, in O(log n).
+     * @param right     Tree of greater Keys.
+     * @return          Tree of the Keys of both trees.
+     */
+    AVLTree<Key> concat(AVLTree<Key> right){
+        if (right.root == null){
+            return this;
+        } else if (root == null){
+            return withRoot(right.root);
+        }
+        Key middle = right.getMin();
+        return withRoot(join(root, middle, right.delete(middle).root));
+    }
+
+    /**
+     * Build a perfectly balanced subtree from sorted Keys.
+     * @param sorted    Keys in strictly ascending order.
+     * @param start     Index of first Key, inclusive.
+     * @param end       Index of last Key, exclusive.
+     * @return          Root of subtree, or null if empty.
+     */
+    private BinarySearchNode<Key> build(List<Key> sorted, int start, int end){
+        if (start >= end){
+            return null;
+        }
+        int middle = (start + end) >>> 1;
+        return createNode(sorted.get(middle), build(sorted, start, middle), build(sorted, middle + 1, end));
+    }
+
+    /**
+     * Join two AVL subtrees and a Key between them into one AVL subtree, in O(|height(left) - height(right)|).
+     * The shorter subtree is attached along the facing spine of the taller one, at the first subtree whose height
+     * is within one of its own, then rebalanced on the way back up.
+     * @param left      Subtree of Keys less than the given Key, or null.
+     * @param key       Key between the subtrees.
+     * @param right     Subtree of Keys greater than the given Key, or null.
+     * @return          Joined subtree.
+     */
+    BinarySearchNode<Key> join(BinarySearchNode<Key> left, Key key, BinarySearchNode<Key> right){
+        int leftHeight = Node.heightOf(left);
+        int rightHeight = Node.heightOf(right);
+        if (leftHeight > rightHeight + 1){
+            return joinRight(left, key, right);
+        } else if (rightHeight > leftHeight + 1){
+            return joinLeft(left, key, right);
+        } else {
+            return createNode(key, left, right);
+        }
+    }
+
+    private BinarySearchNode<Key> joinRight(BinarySearchNode<Key> left, Key key, BinarySearchNode<Key> right){
+        TreeInstrumentation.RECORDER.level();
+        BinarySearchNode<Key> joined;
+        if (Node.heightOf(left.right) <= Node.heightOf(right) + 1){
+            joined = createNode(key, left.right, right);
+        } else {
+            joined = joinRight(left.right, key, right);
+        }
+        return rotateLeftIfUnbalanced(copyNode(left, left.left, joined));
+    }
+
+    private BinarySearchNode<Key> joinLeft(BinarySearchNode<Key> left, Key key, BinarySearchNode<Key> right){
+        TreeInstrumentation.RECORDER.level();
+        BinarySearchNode<Key> joined;
+        if (Node.heightOf(right.left) <= Node.heightOf(left) + 1){
+            joined = createNode(key, left, right.left);
+        } else {
+            joined = joinLeft(left, key, right.left);
+        }
+        return rotateRightIfUnbalanced(copyNode(right, joined, right.right));
+    }
 
     private BinarySearchNode<Key> rotateRightIfUnbalanced(BinarySearchNode<Key> root){
         if (root.getBalanceFactor() < -1){
@@ -157,11 +343,13 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
 
             // If left subtree is larger on the right, left subtree must be rotated left before this node rotates right.
             assert root.left != null;
-            if (root.left.getBalanceFactor() > 0){
+            boolean isDouble = root.left.getBalanceFactor() > 0;
+            if (isDouble){
                 BinarySearchNode<Key> oldLeft = root.left;
                 BinarySearchNode<Key> newLeft = rotateLeft(oldLeft);
-                root = new BinarySearchNode<>(root.key, newLeft, root.right);
+                root = copyNode(root, newLeft, root.right);
             }
+            TreeInstrumentation.RECORDER.rotation(isDouble);
 
             root = rotateRight(root);
         }
@@ -174,11 +362,13 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
 
             // If right subtree is larger on the left, right subtree must be rotated right before this node rotates left.
             assert root.right != null;
-            if (root.right.getBalanceFactor() < 0){
+            boolean isDouble = root.right.getBalanceFactor() < 0;
+            if (isDouble){
                 BinarySearchNode<Key> oldRight = root.right;
                 BinarySearchNode<Key> newRight = rotateRight(oldRight);
-                root = new BinarySearchNode<>(root.key, root.left, newRight);
+                root = copyNode(root, root.left, newRight);
             }
+            TreeInstrumentation.RECORDER.rotation(isDouble);
 
             root = rotateLeft(root);
         }
@@ -205,10 +395,10 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
         assert pivot != null;
 
         // Move self down and left.  My right is now pivot left.
-        BinarySearchNode<Key> newThis = new BinarySearchNode<>(current.key, current.left, pivot.left);
+        BinarySearchNode<Key> newThis = copyNode(current, current.left, pivot.left);
 
         // Move pivot up and return.  I am now the new pivot's left.
-        return new BinarySearchNode<>(pivot.key, newThis, pivot.right);
+        return copyNode(pivot, newThis, pivot.right);
     }
 
     /**
@@ -230,10 +420,10 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
         assert pivot != null;
 
         // Move self down and right.  My left is now pivot right.
-        BinarySearchNode<Key> newThis = new BinarySearchNode<>(current.key, pivot.right, current.right);
+        BinarySearchNode<Key> newThis = copyNode(current, pivot.right, current.right);
 
         // Move pivot up and return.  I am now the new pivot's right.
-        return new BinarySearchNode<>(pivot.key, pivot.left, newThis);
+        return copyNode(pivot, pivot.left, newThis);
     }
 
 //
@@ -262,4 +452,13 @@ public class AVLTree<Key extends Comparable<Key>> extends BinarySearchTree<Key>{
 //            recursiveValidate(right);
 //        }
 //    }
+
+    @Override
+    void validateNode(BinarySearchNode<Key> current, Key low, Key high) throws InvalidSearchTreeException {
+        super.validateNode(current, low, high);
+        int balanceFactor = current.getBalanceFactor();
+        if (balanceFactor < -1 || balanceFactor > 1){
+            throw new InvalidSearchTreeException(String.format("Invalid balance factor for key %s, balance factor %d", current.getKey().toString(), balanceFactor));
+        }
+    }
 }
@@ -0,0 +1,671 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Ordered adaptive radix tree, after Leis, Kemper and Neumann, "The Adaptive Radix Tree" (ICDE 2013).
+ *
+ * Keys are encoded by a KeyCodec into byte strings ordered as the Keys are.  A lookup then branches on one byte per
+ * level, with runs of single-child levels compressed into a prefix on each inner node, so that its cost depends on the
+ * length of the Key rather than the number of Keys, and no Key is compared in full until a leaf is reached.
+ *
+ * As with the other trees, updates copy the path from the root, and return a new tree sharing every untouched node.
+ * Each node records the size of its subtree, so that rank and select take a single descent.
+ * Keys are ordered by the codec; for the built-in codecs this agrees with the Keys' compareTo method.
+ */
+public class AdaptiveRadixTree<Key extends Comparable<Key>> extends Tree<Key> {
+
+    final KeyCodec<Key> codec;
+    final ARTNode<Key> root;
+
+    /**
+     * Empty tree.
+     * @param codec     Order-preserving byte encoding of Keys.
+     */
+    public AdaptiveRadixTree(KeyCodec<Key> codec){
+        this(codec, null);
+    }
+
+    private AdaptiveRadixTree(KeyCodec<Key> codec, ARTNode<Key> root){
+        super();
+        this.codec = codec;
+        this.root = root;
+    }
+
+    /**
+     * @return  Empty tree of String Keys.
+     */
+    public static AdaptiveRadixTree<String> ofStrings(){
+        return new AdaptiveRadixTree<>(KeyCodec.STRINGS);
+    }
+
+    private AdaptiveRadixTree<Key> withRoot(ARTNode<Key> root){
+        return root == this.root ? this : new AdaptiveRadixTree<>(codec, root);
+    }
+
+    @Override
+    public int size(){ return ARTNode.sizeOf(root); }
+
+    @Override
+    public boolean contains(Key key){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.CONTAINS);
+        try {
+            return find(codec.encode(key)) != null;
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.CONTAINS);
+        }
+    }
+
+    /**
+     * Descend to the leaf holding the given encoding.
+     * @param bytes     Encoded Key.
+     * @return          Leaf holding the encoding, or null.
+     */
+    private ARTLeaf<Key> find(byte[] bytes){
+        ARTNode<Key> current = root;
+        int depth = 0;
+        while (current != null){
+            TreeInstrumentation.RECORDER.level();
+            if (current instanceof ARTLeaf){
+                ARTLeaf<Key> leaf = (ARTLeaf<Key>) current;
+                return Arrays.equals(leaf.bytes, bytes) ? leaf : null;
+            }
+            ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+            if (matchPrefix(inner.prefix, bytes, depth) < inner.prefix.length){
+                return null;
+            }
+            depth += inner.prefix.length;
+            if (depth == bytes.length){
+                return inner.terminal;
+            }
+            current = inner.child(bytes[depth] & 0xFF);
+            depth++;
+        }
+        return null;
+    }
+
+    /**
+     * @param prefix    Compressed prefix of an inner node.
+     * @param bytes     Encoded Key.
+     * @param depth     Offset of the prefix within the Key.
+     * @return          Number of leading prefix bytes matched by the Key, from the given offset.
+     */
+    private static int matchPrefix(byte[] prefix, byte[] bytes, int depth){
+        int length = Math.min(prefix.length, bytes.length - depth);
+        for (int i = 0; i < length; i++){
+            if (prefix[i] != bytes[depth + i]){
+                return i;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public AdaptiveRadixTree<Key> insert(Key key){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            return withRoot(recursiveInsert(root, new ARTLeaf<>(key, codec.encode(key)), 0));
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
+        }
+    }
+
+    private ARTNode<Key> recursiveInsert(ARTNode<Key> current, ARTLeaf<Key> leaf, int depth){
+        TreeInstrumentation.RECORDER.level();
+        byte[] bytes = leaf.bytes;
+        if (current == null){
+            return leaf;
+        } else if (current instanceof ARTLeaf){
+            // Overwrite an equal Key, or split the two Keys at the first byte at which they differ.
+            ARTLeaf<Key> existing = (ARTLeaf<Key>) current;
+            if (Arrays.equals(existing.bytes, bytes)){
+                return leaf;
+            }
+            int common = depth;
+            int length = Math.min(existing.bytes.length, bytes.length);
+            while (common < length && existing.bytes[common] == bytes[common]){
+                common++;
+            }
+            return branch(Arrays.copyOfRange(bytes, depth, common), common, existing, leaf);
+        }
+
+        ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+        int matched = matchPrefix(inner.prefix, bytes, depth);
+        if (matched < inner.prefix.length){
+            // Split the compressed prefix where the Key leaves it, beneath a new node holding the shared part.
+            int splitDepth = depth + matched;
+            int existingByte = inner.prefix[matched] & 0xFF;
+            ARTInnerNode<Key> shortened = inner.withPrefix(Arrays.copyOfRange(inner.prefix, matched + 1, inner.prefix.length));
+            byte[] shared = Arrays.copyOf(inner.prefix, matched);
+            ARTNode<Key>[] children = ARTInnerNode.newArray(2);
+            if (splitDepth == bytes.length){
+                children[0] = shortened;
+                return ARTInnerNode.of(shared, leaf, new int[]{existingByte}, children, 1);
+            }
+            int newByte = bytes[splitDepth] & 0xFF;
+            boolean newFirst = newByte < existingByte;
+            children[newFirst ? 0 : 1] = leaf;
+            children[newFirst ? 1 : 0] = shortened;
+            int[] childBytes = newFirst ? new int[]{newByte, existingByte} : new int[]{existingByte, newByte};
+            return ARTInnerNode.of(shared, null, childBytes, children, 2);
+        }
+
+        depth += inner.prefix.length;
+        if (depth == bytes.length){
+            return inner.withTerminal(leaf);
+        }
+        int b = bytes[depth] & 0xFF;
+        ARTNode<Key> child = inner.child(b);
+        ARTNode<Key> newChild = recursiveInsert(child, leaf, depth + 1);
+        return newChild == child ? inner : inner.withChild(b, newChild);
+    }
+
+    /**
+     * Build an inner node separating two leaves with differing encodings.
+     * @param prefix        Bytes shared by both leaves beneath the parent.
+     * @param splitDepth    Offset of the first byte at which the leaves differ.
+     * @param one           First leaf.
+     * @param two           Second leaf.
+     * @return              Inner node holding both leaves.
+     */
+    private static <Key extends Comparable<Key>> ARTInnerNode<Key> branch(byte[] prefix, int splitDepth, ARTLeaf<Key> one, ARTLeaf<Key> two){
+        ARTNode<Key>[] children = ARTInnerNode.newArray(2);
+        if (one.bytes.length == splitDepth || two.bytes.length == splitDepth){
+            // One encoding is a prefix of the other, and ends here.
+            ARTLeaf<Key> terminal = one.bytes.length == splitDepth ? one : two;
+            ARTLeaf<Key> other = terminal == one ? two : one;
+            children[0] = other;
+            return ARTInnerNode.of(prefix, terminal, new int[]{other.bytes[splitDepth] & 0xFF}, children, 1);
+        }
+        int oneByte = one.bytes[splitDepth] & 0xFF;
+        int twoByte = two.bytes[splitDepth] & 0xFF;
+        boolean oneFirst = oneByte < twoByte;
+        children[0] = oneFirst ? one : two;
+        children[1] = oneFirst ? two : one;
+        int[] bytes = oneFirst ? new int[]{oneByte, twoByte} : new int[]{twoByte, oneByte};
+        return ARTInnerNode.of(prefix, null, bytes, children, 2);
+    }
+
+    @Override
+    public AdaptiveRadixTree<Key> delete(Key key){
+        if (root == null){
+            return this;
+        }
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.DELETE);
+        try {
+            return withRoot(recursiveDelete(root, codec.encode(key), 0));
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.DELETE);
+        }
+    }
+
+    private ARTNode<Key> recursiveDelete(ARTNode<Key> current, byte[] bytes, int depth){
+        TreeInstrumentation.RECORDER.level();
+        if (current instanceof ARTLeaf){
+            return Arrays.equals(((ARTLeaf<Key>) current).bytes, bytes) ? null : current;
+        }
+        ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+        if (matchPrefix(inner.prefix, bytes, depth) < inner.prefix.length){
+            return current;
+        }
+        depth += inner.prefix.length;
+        ARTInnerNode<Key> updated;
+        if (depth == bytes.length){
+            if (inner.terminal == null){
+                return current;
+            }
+            updated = inner.withTerminal(null);
+        } else {
+            int b = bytes[depth] & 0xFF;
+            ARTNode<Key> child = inner.child(b);
+            if (child == null){
+                return current;
+            }
+            ARTNode<Key> newChild = recursiveDelete(child, bytes, depth + 1);
+            if (newChild == child){
+                return current;
+            }
+            updated = inner.withChild(b, newChild);
+        }
+        return compress(updated);
+    }
+
+    /**
+     * Restore path compression to an inner node which may have lost a Key.
+     * A node holding a single Key collapses to its leaf; a node with a single child and no terminal leaf merges with
+     * that child, concatenating their prefixes.
+     * @param inner     Inner node.
+     * @return          Equivalent compressed node, or null if empty.
+     */
+    private static <Key extends Comparable<Key>> ARTNode<Key> compress(ARTInnerNode<Key> inner){
+        int count = inner.childCount();
+        if (count == 0){
+            return inner.terminal;
+        } else if (count > 1 || inner.terminal != null){
+            return inner;
+        }
+        int b = inner.nextByte(0);
+        ARTNode<Key> child = inner.child(b);
+        if (child instanceof ARTLeaf){
+            return child;
+        }
+        ARTInnerNode<Key> childInner = (ARTInnerNode<Key>) child;
+        byte[] prefix = new byte[inner.prefix.length + 1 + childInner.prefix.length];
+        System.arraycopy(inner.prefix, 0, prefix, 0, inner.prefix.length);
+        prefix[inner.prefix.length] = (byte) b;
+        System.arraycopy(childInner.prefix, 0, prefix, inner.prefix.length + 1, childInner.prefix.length);
+        return childInner.withPrefix(prefix);
+    }
+
+    @Override
+    public List<Key> toAscendingList(){
+        return getRange(null, true, null, true);
+    }
+
+    @Override
+    public List<Key> getRange(Key start, Key end){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.GET_RANGE);
+        try {
+            return getRange(start, true, end, true);
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.GET_RANGE);
+        }
+    }
+
+    /**
+     * Iterate over every Key whose encoding begins with the encoding of the given prefix, in ascending order.
+     * For String Keys, these are the Strings beginning with the given String.
+     * @param prefix    Prefix Key.
+     * @return          Keys with the given prefix.
+     */
+    public Iterable<Key> prefixScan(Key prefix){
+        ARTNode<Key> subtree = findPrefix(codec.encode(prefix));
+        return () -> subtree == null ? Collections.emptyIterator() : new ARTRangeIterator(subtree, null, false, null, false, false);
+    }
+
+    /**
+     * Count the Keys whose encoding begins with the encoding of the given prefix, in a single descent.
+     * @param prefix    Prefix Key.
+     * @return          Number of Keys with the given prefix.
+     */
+    public int prefixCount(Key prefix){
+        return ARTNode.sizeOf(findPrefix(codec.encode(prefix)));
+    }
+
+    /**
+     * @param prefix    Encoded prefix.
+     * @return          Smallest subtree holding every Key with the given prefix, and no other, or null if none.
+     */
+    private ARTNode<Key> findPrefix(byte[] prefix){
+        ARTNode<Key> current = root;
+        int depth = 0;
+        while (current != null){
+            if (current instanceof ARTLeaf){
+                byte[] bytes = ((ARTLeaf<Key>) current).bytes;
+                return bytes.length >= prefix.length && matchPrefix(prefix, bytes, 0) == prefix.length ? current : null;
+            }
+            ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+            int matched = matchPrefix(inner.prefix, prefix, depth);
+            if (depth + matched == prefix.length){
+                // The prefix ends within, or at the end of, this node's compressed prefix.
+                return current;
+            } else if (matched < inner.prefix.length){
+                return null;
+            }
+            depth += inner.prefix.length;
+            current = inner.child(prefix[depth] & 0xFF);
+            depth++;
+        }
+        return null;
+    }
+
+    @Override
+    public Key floor(Key key){
+        return first(rangeIterator(null, true, key, true, true));
+    }
+
+    @Override
+    public Key ceiling(Key key){
+        return first(rangeIterator(key, true, null, true, false));
+    }
+
+    @Override
+    public Key higher(Key key){
+        return first(rangeIterator(key, false, null, true, false));
+    }
+
+    @Override
+    public Key lower(Key key){
+        return first(rangeIterator(null, true, key, false, true));
+    }
+
+    @Override
+    public Key getMin(){
+        return first(rangeIterator(null, true, null, true, false));
+    }
+
+    @Override
+    public Key getMax(){
+        return first(rangeIterator(null, true, null, true, true));
+    }
+
+    private static <Key> Key first(Iterator<Key> iterator){
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    @Override
+    public int rank(Key key){
+        return countBelow(key, false);
+    }
+
+    @Override
+    int countBelow(Key key, boolean inclusive){
+        byte[] bytes = codec.encode(key);
+        int count = 0;
+        ARTNode<Key> current = root;
+        int depth = 0;
+        while (current != null){
+            if (current instanceof ARTLeaf){
+                int comparison = KeyCodec.compareBytes(((ARTLeaf<Key>) current).bytes, bytes);
+                return count + ((comparison < 0 || (inclusive && comparison == 0)) ? 1 : 0);
+            }
+            ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+            int matched = matchPrefix(inner.prefix, bytes, depth);
+            if (matched < inner.prefix.length){
+                // The Key leaves the compressed prefix: the whole subtree is either below or above it.
+                boolean subtreeBelow = depth + matched < bytes.length && (inner.prefix[matched] & 0xFF) < (bytes[depth + matched] & 0xFF);
+                return subtreeBelow ? count + inner.size : count;
+            }
+            depth += inner.prefix.length;
+            if (depth == bytes.length){
+                return count + ((inclusive && inner.terminal != null) ? 1 : 0);
+            }
+            count += ARTNode.sizeOf(inner.terminal);
+            int b = bytes[depth] & 0xFF;
+            for (int lesser = inner.nextByte(0); lesser >= 0 && lesser < b; lesser = inner.nextByte(lesser + 1)){
+                count += inner.child(lesser).size;
+            }
+            current = inner.child(b);
+            depth++;
+        }
+        return count;
+    }
+
+    @Override
+    public Key select(int index){
+        if (index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size()));
+        }
+        ARTNode<Key> current = root;
+        while (current instanceof ARTInnerNode){
+            ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+            if (inner.terminal != null){
+                if (index == 0){
+                    return inner.terminal.key;
+                }
+                index--;
+            }
+            for (int b = inner.nextByte(0); b >= 0; b = inner.nextByte(b + 1)){
+                ARTNode<Key> child = inner.child(b);
+                if (index < child.size){
+                    current = child;
+                    break;
+                }
+                index -= child.size;
+            }
+        }
+        return ((ARTLeaf<Key>) current).key;
+    }
+
+    @Override
+    Iterator<Key> rangeIterator(Key start, boolean startInclusive, Key end, boolean endInclusive, boolean descending){
+        byte[] startBytes = start == null ? null : codec.encode(start);
+        byte[] endBytes = end == null ? null : codec.encode(end);
+        if (descending){
+            return new ARTRangeIterator(root, endBytes, endInclusive, startBytes, startInclusive, true);
+        } else {
+            return new ARTRangeIterator(root, startBytes, startInclusive, endBytes, endInclusive, false);
+        }
+    }
+
+    @Override
+    public void validate() throws InvalidSearchTreeException {
+        if (root != null){
+            validateNode(root, new byte[0]);
+        }
+    }
+
+    /**
+     * Check sizes, the placement of every leaf beneath the path leading to it, path compression, and representations.
+     * @param node  Node to validate.
+     * @param path  Bytes of the path leading to the node.
+     * @throws InvalidSearchTreeException   Invalid subtree.
+     */
+    private void validateNode(ARTNode<Key> node, byte[] path) throws InvalidSearchTreeException {
+        if (node instanceof ARTLeaf){
+            ARTLeaf<Key> leaf = (ARTLeaf<Key>) node;
+            if (!Arrays.equals(leaf.bytes, codec.encode(leaf.key))){
+                throw new InvalidSearchTreeException(String.format("Invalid encoding for key %s", leaf.key.toString()));
+            }
+            if (leaf.bytes.length < path.length || matchPrefix(path, leaf.bytes, 0) < path.length){
+                throw new InvalidSearchTreeException(String.format("Invalid key %s, not beneath path %s", leaf.key.toString(), Arrays.toString(path)));
+            }
+            return;
+        }
+        ARTInnerNode<Key> inner = (ARTInnerNode<Key>) node;
+        byte[] nodePath = Arrays.copyOf(path, path.length + inner.prefix.length);
+        System.arraycopy(inner.prefix, 0, nodePath, path.length, inner.prefix.length);
+        if (inner.terminal != null && !Arrays.equals(inner.terminal.bytes, nodePath)){
+            throw new InvalidSearchTreeException(String.format("Invalid terminal key %s, not ending at path %s", inner.terminal.key.toString(), Arrays.toString(nodePath)));
+        }
+        if (inner.childCount() + ARTNode.sizeOf(inner.terminal) < 2){
+            throw new InvalidSearchTreeException(String.format("Uncompressed node at path %s", Arrays.toString(nodePath)));
+        }
+        if (!inner.hasCompactRepresentation()){
+            throw new InvalidSearchTreeException(String.format("Invalid representation for node at path %s, %d children", Arrays.toString(nodePath), inner.childCount()));
+        }
+        int size = ARTNode.sizeOf(inner.terminal);
+        int count = 0;
+        for (int b = inner.nextByte(0); b >= 0; b = inner.nextByte(b + 1)){
+            byte[] childPath = Arrays.copyOf(nodePath, nodePath.length + 1);
+            childPath[nodePath.length] = (byte) b;
+            ARTNode<Key> child = inner.child(b);
+            validateNode(child, childPath);
+            size += child.size;
+            count++;
+        }
+        if (count != inner.childCount() || size != inner.size){
+            throw new InvalidSearchTreeException(String.format("Invalid size for node at path %s, size %d, expected %d", Arrays.toString(nodePath), inner.size, size));
+        }
+    }
+
+    /**
+     * Iterates over the leaves within a range with an explicit stack, in O(depth) space.
+     * The stack holds leaves not yet returned, and frames recording the next child byte to visit within an inner node.
+     * Iteration seeks the bound it starts from in a single descent, pushing frames for the nodes along the way, and
+     * checks the bound it stops at against each leaf.
+     */
+    private class ARTRangeIterator implements Iterator<Key> {
+
+        private final Deque<Object> stack = new ArrayDeque<>();
+        private final byte[] from;
+        private final boolean fromInclusive;
+        private final byte[] to;
+        private final boolean toInclusive;
+        private final boolean descending;
+        private ARTLeaf<Key> next;
+
+        /**
+         * @param root              Subtree to iterate over.
+         * @param from              Bound to iterate from: the lower bound, or the upper if descending; null if open.
+         * @param fromInclusive     Whether the from bound is included.
+         * @param to                Bound to iterate to, or null if open.
+         * @param toInclusive       Whether the to bound is included.
+         * @param descending        Iterate in descending order.
+         */
+        ARTRangeIterator(ARTNode<Key> root, byte[] from, boolean fromInclusive, byte[] to, boolean toInclusive, boolean descending){
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+            seek(root);
+            advance();
+        }
+
+        /**
+         * Descend towards the from bound, stacking every subtree beyond it, nearest last.
+         */
+        private void seek(ARTNode<Key> current){
+            int depth = 0;
+            while (current != null){
+                if (from == null){
+                    push(current);
+                    return;
+                } else if (current instanceof ARTLeaf){
+                    int comparison = KeyCodec.compareBytes(((ARTLeaf<Key>) current).bytes, from);
+                    if (descending ? comparison <= 0 : comparison >= 0){
+                        stack.push(current);
+                    }
+                    return;
+                }
+                ARTInnerNode<Key> inner = (ARTInnerNode<Key>) current;
+                int matched = matchPrefix(inner.prefix, from, depth);
+                if (matched < inner.prefix.length){
+                    // The whole subtree lies on one side of the bound; every Key in it extends a bound ending here.
+                    boolean subtreeAbove = depth + matched == from.length || (inner.prefix[matched] & 0xFF) > (from[depth + matched] & 0xFF);
+                    if (subtreeAbove != descending){
+                        push(current);
+                    }
+                    return;
+                }
+                depth += inner.prefix.length;
+                if (depth == from.length){
+                    // The bound ends here: ascending, every Key beneath is at or above it; descending, only the terminal.
+                    if (!descending){
+                        push(current);
+                    } else if (inner.terminal != null){
+                        stack.push(inner.terminal);
+                    }
+                    return;
+                }
+                int b = from[depth] & 0xFF;
+                stack.push(new Frame<>(inner, descending ? b - 1 : b + 1, descending));
+                current = inner.child(b);
+                depth++;
+            }
+        }
+
+        /**
+         * Stack an entire subtree.
+         */
+        private void push(ARTNode<Key> node){
+            if (node instanceof ARTLeaf){
+                stack.push(node);
+            } else {
+                stack.push(new Frame<>((ARTInnerNode<Key>) node, descending ? 255 : 0, true));
+            }
+        }
+
+        /**
+         * @return  Next leaf in iteration order, ignoring the to bound, or null.
+         */
+        @SuppressWarnings("unchecked")
+        private ARTLeaf<Key> step(){
+            while (!stack.isEmpty()){
+                Object top = stack.peek();
+                if (top instanceof ARTLeaf){
+                    stack.pop();
+                    return (ARTLeaf<Key>) top;
+                }
+                Frame<Key> frame = (Frame<Key>) top;
+                ARTInnerNode<Key> inner = frame.node;
+                if (!descending){
+                    // Ascending, a terminal leaf precedes every child.
+                    if (frame.terminalPending){
+                        frame.terminalPending = false;
+                        if (inner.terminal != null){
+                            return inner.terminal;
+                        }
+                    }
+                    int b = inner.nextByte(frame.position);
+                    if (b < 0){
+                        stack.pop();
+                    } else {
+                        frame.position = b + 1;
+                        push(inner.child(b));
+                    }
+                } else {
+                    // Descending, a terminal leaf follows every child.
+                    int b = inner.previousByte(frame.position);
+                    if (b >= 0){
+                        frame.position = b - 1;
+                        push(inner.child(b));
+                    } else {
+                        stack.pop();
+                        if (frame.terminalPending && inner.terminal != null){
+                            return inner.terminal;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void advance(){
+            ARTLeaf<Key> leaf = step();
+            if (leaf != null && from != null && !fromInclusive && Arrays.equals(leaf.bytes, from)){
+                leaf = step();
+            }
+            if (leaf != null && to != null){
+                int comparison = KeyCodec.compareBytes(leaf.bytes, to);
+                if (descending){
+                    comparison = -comparison;
+                }
+                if (comparison > 0 || (comparison == 0 && !toInclusive)){
+                    leaf = null;
+                    stack.clear();
+                }
+            }
+            next = leaf;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return next != null;
+        }
+
+        @Override
+        public Key next(){
+            if (next == null){
+                throw new NoSuchElementException();
+            }
+            Key key = next.key;
+            advance();
+            return key;
+        }
+    }
+
+    /**
+     * Position of an iteration within an inner node.
+     */
+    private static class Frame <Key extends Comparable<Key>> {
+
+        final ARTInnerNode<Key> node;
+        int position;
+        boolean terminalPending;
+
+        Frame(ARTInnerNode<Key> node, int position, boolean terminalPending){
+            this.node = node;
+            this.position = position;
+            this.terminalPending = terminalPending;
+        }
+    }
+}
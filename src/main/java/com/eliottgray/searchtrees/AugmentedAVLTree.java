@@ -0,0 +1,125 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * AVL Tree in which every Node also holds an aggregate of its subtree, such as a sum, minimum or maximum.
+ *
+ * Aggregates are computed by a user-supplied Monoid as each Node is constructed, exactly as height and size are,
+ * so they survive path copying and rotation for free.  Aggregating any range of Keys then costs O(log n),
+ * rather than O(k) over the result of getRange.
+ */
+public class AugmentedAVLTree<Key extends Comparable<Key>, Value> extends AVLTree<Key> {
+
+    final Monoid<Key, Value> monoid;
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method.
+     * @param monoid    Aggregation over Keys.
+     */
+    public AugmentedAVLTree(Monoid<Key, Value> monoid){
+        super();
+        this.monoid = monoid;
+    }
+
+    /**
+     * Empty tree, with comparator override.
+     * @param monoid        Aggregation over Keys.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     */
+    public AugmentedAVLTree(Monoid<Key, Value> monoid, Comparator<Key> comparator){
+        super(comparator);
+        this.monoid = monoid;
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root          Existing root node.
+     * @param comparator    Comparator corresponding to current root node.
+     * @param monoid        Aggregation corresponding to current root node.
+     */
+    AugmentedAVLTree(BinarySearchNode<Key> root, Comparator<Key> comparator, Monoid<Key, Value> monoid){
+        super(root, comparator);
+        this.monoid = monoid;
+    }
+
+    @Override
+    AugmentedAVLTree<Key, Value> withRoot(BinarySearchNode<Key> root){
+        return new AugmentedAVLTree<>(root, comparator, monoid);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    AugmentedNode<Key, Value> createNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new AugmentedNode<>(key, (AugmentedNode<Key, Value>) left, (AugmentedNode<Key, Value>) right, monoid);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected AugmentedNode<Key, Value> getRoot(){ return (AugmentedNode<Key, Value>) root; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public AugmentedAVLTree<Key, Value> insert(Key key){
+        return (AugmentedAVLTree<Key, Value>) super.insert(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public AugmentedAVLTree<Key, Value> delete(Key key){
+        return (AugmentedAVLTree<Key, Value>) super.delete(key);
+    }
+
+    /**
+     * @return  Aggregate of every Key in the tree, in O(1).
+     */
+    public Value aggregate(){
+        return root == null ? monoid.identity() : getRoot().aggregate;
+    }
+
+    /**
+     * Aggregate the Keys between the given start and end, inclusive, in O(log n).
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @return          Aggregate of Keys within range, inclusive.
+     */
+    public Value aggregate(Key start, Key end){
+        return recursiveAggregate(getRoot(), start, end);
+    }
+
+    /**
+     * Aggregate a range within a subtree.  A null bound leaves that side of the range open.
+     *
+     * Once the range splits around a Node, each side has only one bound left, and every subtree hanging off the
+     * path towards that bound is either wholly inside the range (using its stored aggregate) or wholly outside it.
+     */
+    private Value recursiveAggregate(AugmentedNode<Key, Value> current, Key start, Key end){
+        if (current == null){
+            return monoid.identity();
+        } else if (start == null && end == null){
+            return current.aggregate;
+        } else if (start != null && compare(current.key, start) < 0){
+            return recursiveAggregate(current.getRight(), start, end);
+        } else if (end != null && compare(current.key, end) > 0){
+            return recursiveAggregate(current.getLeft(), start, end);
+        } else {
+            Value left = recursiveAggregate(current.getLeft(), start, null);
+            Value right = recursiveAggregate(current.getRight(), null, end);
+            return monoid.combine(monoid.combine(left, monoid.lift(current.key)), right);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void validateNode(BinarySearchNode<Key> node, Key low, Key high) throws InvalidSearchTreeException {
+        super.validateNode(node, low, high);
+        AugmentedNode<Key, Value> current = (AugmentedNode<Key, Value>) node;
+        Value leftAggregate = current.hasLeft() ? current.getLeft().aggregate : monoid.identity();
+        Value rightAggregate = current.hasRight() ? current.getRight().aggregate : monoid.identity();
+        Value expectedAggregate = monoid.combine(monoid.combine(leftAggregate, monoid.lift(current.key)), rightAggregate);
+        if (!Objects.equals(expectedAggregate, current.aggregate)){
+            throw new InvalidSearchTreeException(String.format("Invalid aggregate for key %s, aggregate %s, expected %s", current.getKey().toString(), current.aggregate, expectedAggregate));
+        }
+    }
+}
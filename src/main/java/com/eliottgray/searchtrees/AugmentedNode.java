@@ -0,0 +1,30 @@
+package com.eliottgray.searchtrees;
+
+class AugmentedNode<Key extends Comparable<Key>, Value> extends BinarySearchNode<Key> {
+
+    final Value aggregate;
+
+    /**
+     * Construct a Node, aggregating its subtree from its children, alongside height and size.
+     * @param key       Comparable Key for node.
+     * @param left      Existing left child, or null.
+     * @param right     Existing right child, or null.
+     * @param monoid    Aggregation over Keys.
+     */
+    AugmentedNode(Key key, AugmentedNode<Key, Value> left, AugmentedNode<Key, Value> right, Monoid<Key, Value> monoid){
+        super(key, left, right);
+        Value leftAggregate = left == null ? monoid.identity() : left.aggregate;
+        Value rightAggregate = right == null ? monoid.identity() : right.aggregate;
+        this.aggregate = monoid.combine(monoid.combine(leftAggregate, monoid.lift(key)), rightAggregate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    AugmentedNode<Key, Value> getLeft() { return (AugmentedNode<Key, Value>) this.left; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    AugmentedNode<Key, Value> getRight() { return (AugmentedNode<Key, Value>) this.right; }
+
+    Value getAggregate(){ return aggregate; }
+}
@@ -11,6 +11,7 @@ class BinarySearchNode<Key extends Comparable<Key>> extends Node<Key>{
      */
     BinarySearchNode(Key key){
         super(key);
+        TreeInstrumentation.RECORDER.allocation();
         left = null;
         right = null;
     }
@@ -23,6 +24,21 @@ class BinarySearchNode<Key extends Comparable<Key>> extends Node<Key>{
      */
     BinarySearchNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
         super(key, left, right);
+        TreeInstrumentation.RECORDER.allocation();
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Construct replacement node holding several occurrences of its Key, with existing children.
+     * @param key       Comparable Key for node.
+     * @param left      Existing left child.
+     * @param right     Existing right child.
+     * @param count     Occurrences of Key.
+     */
+    BinarySearchNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right, int count){
+        super(key, left, right, count);
+        TreeInstrumentation.RECORDER.allocation();
         this.left = left;
         this.right = right;
     }
@@ -32,6 +48,11 @@ class BinarySearchNode<Key extends Comparable<Key>> extends Node<Key>{
     boolean hasLeft(){ return getLeft() != null; }
     boolean hasRight(){ return getRight() != null; }
 
+    /**
+     * @return      Occurrences of this Node's Key: its size, less the sizes of its children.
+     */
+    int getCount(){ return size - sizeOf(left) - sizeOf(right); }
+
     /**
      * Describes the relative height of the left and right subtrees.
      * If right tree is greater, balance factor is positive.
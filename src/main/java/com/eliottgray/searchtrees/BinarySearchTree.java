@@ -1,8 +1,19 @@
 package com.eliottgray.searchtrees;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * Why use Binary Search Trees over, say, HashTables?
@@ -14,6 +25,9 @@ import java.util.List;
  * */
 public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
 
+    /** Subtrees at or below this size are validated sequentially, rather than split across the fork-join pool. */
+    static final int PARALLEL_VALIDATE_THRESHOLD = 1 << 13;
+
     final BinarySearchNode<Key> root;
 
     /**
@@ -45,6 +59,56 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
 
     protected BinarySearchNode<Key> getRoot(){ return root; }
 
+    @Override
+    public boolean isEmpty(){ return root == null; }
+
+    @Override
+    public int size(){ return Node.sizeOf(root); }
+
+    /**
+     * Construct a tree of this type from a new root, sharing this tree's comparator.
+     * Subclasses override this, so that updates return a tree of the same type.
+     * @param root  New root node.
+     * @return      New tree.
+     */
+    BinarySearchTree<Key> withRoot(BinarySearchNode<Key> root){
+        return new BinarySearchTree<>(root, comparator);
+    }
+
+    /**
+     * Construct a Node for this tree.
+     * Every Node created by an update is built here, so that subclasses may construct augmented Nodes.
+     * @param key       Key for Node.
+     * @param left      Left child, or null.
+     * @param right     Right child, or null.
+     * @return          New Node.
+     */
+    BinarySearchNode<Key> createNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new BinarySearchNode<>(key, left, right);
+    }
+
+    /**
+     * Construct a copy of an existing Node with new children, as when copying a path or rotating.
+     * Subclasses whose Nodes carry more than their Key override this, so that the copy keeps it.
+     * @param node      Node to copy.
+     * @param left      Left child, or null.
+     * @param right     Right child, or null.
+     * @return          New Node.
+     */
+    BinarySearchNode<Key> copyNode(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return createNode(node.key, left, right);
+    }
+
+    /**
+     * @return  Whether Nodes may hold more than one occurrence of their Key.
+     */
+    boolean isMultiset(){ return false; }
+
+    /**
+     * @return  Whether Nodes may hold no occurrences of their Key, remaining in the tree as tombstones.
+     */
+    boolean allowsTombstones(){ return false; }
+
     /**
      * Determine whether or not the given Key is contained within the tree.
      * @param key   Key to search for.
@@ -54,40 +118,171 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
         if (isEmpty()){
             return false;
         } else {
-            BinarySearchNode<Key> current = root;
-            Boolean contains = null;
-            while(contains == null){
-                int comparison = comparator.compare(key, current.getKey());
+            TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.CONTAINS);
+            try {
+                BinarySearchNode<Key> current = root;
+                Boolean contains = null;
+                while(contains == null){
+                    TreeInstrumentation.RECORDER.level();
+                    int comparison = compare(key, current.getKey());
+                    if (comparison == 0){
+                        contains = true;
+                    } else if (current.hasLeft() && comparison < 0){
+                        current = current.left;
+                    } else if (current.hasRight() && comparison > 0){
+                        current = current.right;
+                    } else {
+                        contains = false;
+                    }
+                }
+                return contains;
+            } finally {
+                TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.CONTAINS);
+            }
+        }
+    }
+
+    /**
+     * Sorts the batch, then descends the tree once for the whole batch, splitting it at each Node into the Keys
+     * bound left, equal and bound right.  Each Node is visited at most once, so that the many lookups sharing the
+     * upper levels of the tree pay for them only once, and the remaining lookups proceed in Key order.
+     */
+    @Override
+    public BitSet containsBatch(Key[] keys){
+        BitSet result = new BitSet(keys.length);
+        Integer[] order = sortedOrder(keys);
+        recursiveContainsBatch(root, sortedKeys(keys, order), order, 0, order.length, result);
+        return result;
+    }
+
+    private void recursiveContainsBatch(BinarySearchNode<Key> current, Key[] sorted, Integer[] order, int low, int high, BitSet result){
+        while (current != null && high - low > 1){
+            int lessEnd = partition(current.key, sorted, low, high, false);
+            int equalEnd = lessEnd;
+            while (equalEnd < high && compare(sorted[equalEnd], current.key) == 0){
+                result.set(order[equalEnd++]);
+            }
+            recursiveContainsBatch(current.left, sorted, order, low, lessEnd, result);
+            current = current.right;
+            low = equalEnd;
+        }
+        // A lone Key descends the rest of the way without partitioning.
+        if (current != null && high - low == 1){
+            while (current != null){
+                int comparison = compare(sorted[low], current.key);
                 if (comparison == 0){
-                    contains = true;
-                } else if (current.hasLeft() && comparison < 0){
-                    current = current.left;
-                } else if (current.hasRight() && comparison > 0){
-                    current = current.right;
-                } else {
-                    contains = false;
+                    result.set(order[low]);
+                    return;
                 }
+                current = comparison < 0 ? current.left : current.right;
+            }
+        }
+    }
+
+    /**
+     * Counts every range bound in a single shared descent, as in containsBatch.
+     */
+    @Override
+    public int[] rangeCountBatch(Key[] starts, Key[] ends){
+        if (starts.length != ends.length){
+            throw new IllegalArgumentException(String.format("%d range starts, but %d range ends", starts.length, ends.length));
+        }
+        int[] below = new int[starts.length];
+        int[] atOrBelow = new int[ends.length];
+        Integer[] startOrder = sortedOrder(starts);
+        Integer[] endOrder = sortedOrder(ends);
+        recursiveCountBelowBatch(root, sortedKeys(starts, startOrder), startOrder, 0, starts.length, 0, false, below);
+        recursiveCountBelowBatch(root, sortedKeys(ends, endOrder), endOrder, 0, ends.length, 0, true, atOrBelow);
+        int[] result = new int[starts.length];
+        for (int i = 0; i < starts.length; i++){
+            result[i] = Math.max(0, atOrBelow[i] - below[i]);
+        }
+        return result;
+    }
+
+    private void recursiveCountBelowBatch(BinarySearchNode<Key> current, Key[] sorted, Integer[] order, int low, int high, int offset, boolean inclusive, int[] result){
+        while (current != null && low < high){
+            // Keys bound right count the left subtree and the current Key.
+            int leftEnd = partition(current.key, sorted, low, high, !inclusive);
+            recursiveCountBelowBatch(current.left, sorted, order, low, leftEnd, offset, inclusive, result);
+            offset += Node.sizeOf(current.left) + current.getCount();
+            current = current.right;
+            low = leftEnd;
+        }
+        for (int i = low; i < high; i++){
+            result[order[i]] = offset;
+        }
+    }
+
+    /**
+     * @param keys  Batch of Keys.
+     * @return      Indexes into the batch, in ascending order of their Keys.
+     */
+    private Integer[] sortedOrder(Key[] keys){
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (one, two) -> comparator.compare(keys[one], keys[two]));
+        return order;
+    }
+
+    /**
+     * @param keys      Batch of Keys.
+     * @param order     Indexes into the batch, in ascending order of their Keys.
+     * @return          Keys of the batch, in ascending order.
+     */
+    private static <Key> Key[] sortedKeys(Key[] keys, Integer[] order){
+        Key[] sorted = Arrays.copyOf(keys, keys.length);
+        for (int i = 0; i < order.length; i++){
+            sorted[i] = keys[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Binary search a section of sorted Keys for the first Key beyond the given Key.
+     * @param key           Key at which to split.
+     * @param sorted        Keys in ascending order.
+     * @param low           Start of section, inclusive.
+     * @param high          End of section, exclusive.
+     * @param afterEqual    Whether Keys equal to the given Key fall before the split, rather than after it.
+     * @return              Index of the first Key greater than (or, unless afterEqual, equal to) the given Key.
+     */
+    private int partition(Key key, Key[] sorted, int low, int high, boolean afterEqual){
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            int comparison = compare(sorted[middle], key);
+            if (comparison < 0 || (afterEqual && comparison == 0)){
+                low = middle + 1;
+            } else {
+                high = middle;
             }
-            return contains;
         }
+        return low;
     }
 
     public BinarySearchTree<Key> delete(Key key){
         if (root == null){
             return this;
         } else {
-            BinarySearchNode<Key> newRoot = recursiveDelete(key, root);
-            return new BinarySearchTree<>(newRoot, comparator);
+            TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.DELETE);
+            try {
+                return withRoot(recursiveDelete(key, root));
+            } finally {
+                TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.DELETE);
+            }
         }
     }
 
     private BinarySearchNode<Key> recursiveDelete(Key key, BinarySearchNode<Key> current){
+        TreeInstrumentation.RECORDER.level();
         BinarySearchNode<Key> root;
-        int comparison = comparator.compare(key, current.key);
+        int comparison = compare(key, current.key);
         if (comparison < 0) {
             if (current.left != null) {
                 BinarySearchNode<Key> newLeft = recursiveDelete(key, current.left);
-                root = new BinarySearchNode<>(current.key, newLeft, current.right);
+                root = copyNode(current, newLeft, current.right);
 
             } else {
                 // Key is not in this tree; no need for change.
@@ -96,7 +291,7 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
         } else if (comparison > 0){
             if (current.right != null){
                 BinarySearchNode<Key> newRight = recursiveDelete(key, current.right);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                root = copyNode(current, current.left, newRight);
 
             } else {
                 // Key is not in this tree; no need for change.
@@ -106,13 +301,13 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
             // Found key!  Now to delete. (delete = return left child, right child, find a replacement from further down, or null;
             if (current.hasLeft() && current.hasRight()){
                 // Two children!  Find a replacement for this node from the longer subtree, which itself will have 1 or no children.
-                Key replacementKey = findDeletionReplacement(current);
+                BinarySearchNode<Key> replacement = findDeletionReplacement(current);
 
                 // Delete replacement child from this node's subtree, preparing it to take over for this node.
-                root = recursiveDelete(replacementKey, current);
+                root = recursiveDelete(replacement.key, current);
 
                 // Replace this with copy of replacement child.
-                root = new BinarySearchNode<>(replacementKey, root.left, root.right);
+                root = copyNode(replacement, root.left, root.right);
 
             } else {
                 if (current.hasLeft()){
@@ -137,7 +332,7 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
      *
      * @return      Node to replace the current node in a deletion.
      */
-    Key findDeletionReplacement(BinarySearchNode<Key> node){
+    BinarySearchNode<Key> findDeletionReplacement(BinarySearchNode<Key> node){
         if (node.getBalanceFactor() > -1){
             return findLeftMostChildOfRightSubtree(node);
         } else {
@@ -146,51 +341,55 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
     }
 
     /**
-     * @return      Key belonging to the immediate in-order successor.
+     * @return      Node holding the immediate in-order successor.
      */
-    private Key findLeftMostChildOfRightSubtree(BinarySearchNode<Key> node){
+    private BinarySearchNode<Key> findLeftMostChildOfRightSubtree(BinarySearchNode<Key> node){
         BinarySearchNode<Key> child = node.right;
         while (child.hasLeft()){
             child = child.left;
         }
-        return child.getKey();
+        return child;
     }
 
     /**
-     * @return      Key belonging to the immediate in-order predecessor.
+     * @return      Node holding the immediate in-order predecessor.
      */
-    private Key findRightMostChildOfLeftSubtree(BinarySearchNode<Key> node){
+    private BinarySearchNode<Key> findRightMostChildOfLeftSubtree(BinarySearchNode<Key> node){
         BinarySearchNode<Key> child = node.left;
         while (child.hasRight()){
             child = child.right;
         }
-        return child.getKey();
+        return child;
     }
 
     public BinarySearchTree<Key> insert(Key key){
-        if (root == null){
-            BinarySearchNode<Key> newRoot = new BinarySearchNode<>(key);
-            return new BinarySearchTree<>(newRoot, comparator);
-        } else {
-            BinarySearchNode<Key> newRoot = recursiveInsert(key, root);
-            return new BinarySearchTree<>(newRoot, comparator);
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            if (root == null){
+                return withRoot(createNode(key, null, null));
+            } else {
+                return withRoot(recursiveInsert(key, root));
+            }
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
         }
     }
 
     private BinarySearchNode<Key> recursiveInsert(Key key, BinarySearchNode<Key> current){
+        TreeInstrumentation.RECORDER.level();
         // This position in the tree is currently occupied by current node.
         BinarySearchNode<Key> root;
-        int comparison = comparator.compare(key, current.key);
+        int comparison = compare(key, current.key);
         // If key is to left of current:
         if (comparison < 0){
             if (current.left != null) {
                 // Insert down left subtree, contains new left subtree, and attach here.
                 BinarySearchNode<Key> newLeft = recursiveInsert(key, current.left);
-                root = new BinarySearchNode<>(current.key, newLeft, current.right);
+                root = copyNode(current, newLeft, current.right);
             } else {
                 // I have no left, so I simply set it here.
-                BinarySearchNode<Key> newLeft = new BinarySearchNode<>(key);
-                root= new BinarySearchNode<>(current.key, newLeft, current.right);
+                BinarySearchNode<Key> newLeft = createNode(key, null, null);
+                root= copyNode(current, newLeft, current.right);
             }
 
             // If key is to right of current:
@@ -198,15 +397,15 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
             // Insert down right subtree, contains new subtree head, and attach here.
             if (current.right != null){
                 BinarySearchNode<Key> newRight = recursiveInsert(key, current.right);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                root = copyNode(current, current.left, newRight);
             } else {
                 // I have no right, so I simply set it here.
-                BinarySearchNode<Key> newRight = new BinarySearchNode<>(key);
-                root = new BinarySearchNode<>(current.key, current.left, newRight);
+                BinarySearchNode<Key> newRight = createNode(key, null, null);
+                root = copyNode(current, current.left, newRight);
             }
         } else {
             // Duplicate key found; replace this.
-            root = new BinarySearchNode<>(key, current.left, current.right);
+            root = createNode(key, current.left, current.right);
         }
 
         // Return whatever occupies this position of the tree, which may still be me, or not.
@@ -226,7 +425,9 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
         if (current.hasLeft()){
             result = recursiveToAscendingList(current.left, result);
         }
-        result.add(current.key);
+        for (int i = current.getCount(); i > 0; i--){
+            result.add(current.key);
+        }
         if (current.hasRight()){
             result = recursiveToAscendingList(current.right, result);
         }
@@ -257,22 +458,170 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
         }
     }
 
+    public Key floor(Key key){
+        return nearest(key, false, true);
+    }
+
+    public Key ceiling(Key key){
+        return nearest(key, true, true);
+    }
+
+    public Key higher(Key key){
+        return nearest(key, true, false);
+    }
+
+    public Key lower(Key key){
+        return nearest(key, false, false);
+    }
+
+    /**
+     * Find the closest Key to the given Key, on one side of it, with a single descent from the root.
+     * @param key           Key to search for.
+     * @param above         Search for Keys above the given Key, rather than below.
+     * @param inclusive     Whether a Key equal to the given Key may be returned.
+     * @return              Closest Key, or null if there is no such Key.
+     */
+    private Key nearest(Key key, boolean above, boolean inclusive){
+        Key closest = null;
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, current.key);
+            if (comparison == 0 && inclusive){
+                return current.key;
+            } else if (comparison < 0 || (comparison == 0 && !above)){
+                // Current Key is above the given Key; it is a candidate only when searching above.
+                if (above){
+                    closest = current.key;
+                }
+                current = current.left;
+            } else {
+                // Current Key is below the given Key; it is a candidate only when searching below.
+                if (!above){
+                    closest = current.key;
+                }
+                current = current.right;
+            }
+        }
+        return closest;
+    }
+
+    public int rank(Key key){
+        return countBelow(key, false);
+    }
+
+    @Override
+    int countBelow(Key key, boolean inclusive){
+        int count = 0;
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, current.key);
+            if (comparison == 0){
+                // Every Key in the left subtree is less than the given Key.
+                return count + Node.sizeOf(current.left) + (inclusive ? current.getCount() : 0);
+            } else if (comparison < 0){
+                current = current.left;
+            } else {
+                // The left subtree and the current Key are all less than the given Key.
+                count += Node.sizeOf(current.left) + current.getCount();
+                current = current.right;
+            }
+        }
+        return count;
+    }
+
+    public Key select(int index){
+        if (index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size()));
+        }
+        BinarySearchNode<Key> current = root;
+        while (true){
+            int leftSize = Node.sizeOf(current.left);
+            if (index < leftSize){
+                current = current.left;
+            } else if (index < leftSize + current.getCount()){
+                return current.key;
+            } else {
+                index -= leftSize + current.getCount();
+                current = current.right;
+            }
+        }
+    }
+
+    /**
+     * Obtain a cursor positioned at the least Key greater than or equal to the given Key.
+     * From there, neighboring Keys and nearby Keys can be reached without descending again from the root.
+     * @param key   Key to seek.
+     * @return      Cursor into this tree; not valid if every Key is less than the given Key.
+     */
+    public TreeCursor<Key> seek(Key key){
+        TreeCursor<Key> cursor = new TreeCursor<>(root, comparator);
+        cursor.seek(key);
+        return cursor;
+    }
+
+    Iterator<Key> rangeIterator(Key start, boolean startInclusive, Key end, boolean endInclusive, boolean descending){
+        if (descending){
+            return new RangeIterator<>(root, comparator, end, endInclusive, start, startInclusive, true);
+        } else {
+            return new RangeIterator<>(root, comparator, start, startInclusive, end, endInclusive, false);
+        }
+    }
+
     public List<Key> getRange(Key start, Key end){
         if (root == null){
             return new ArrayList<>();
         } else {
-            return recursiveGetRange(start, end, new ArrayList<>(), root);
+            TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.GET_RANGE);
+            try {
+                return recursiveGetRange(start, end, new ArrayList<>(), root);
+            } finally {
+                TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.GET_RANGE);
+            }
+        }
+    }
+
+    /**
+     * Walks the tree in order, recursing only into subtrees which may hold Keys within range.
+     */
+    @Override
+    public boolean scanWhile(Key start, boolean startInclusive, Key end, boolean endInclusive, Predicate<? super Key> visitor){
+        return root == null || recursiveScanWhile(root, start, startInclusive, end, endInclusive, visitor);
+    }
+
+    private boolean recursiveScanWhile(BinarySearchNode<Key> current, Key start, boolean startInclusive, Key end, boolean endInclusive, Predicate<? super Key> visitor){
+        int startComparison = start == null ? 1 : compare(current.key, start);
+        int endComparison = end == null ? -1 : compare(current.key, end);
+        if (startComparison > 0 && current.hasLeft()){
+            if (!recursiveScanWhile(current.left, start, startInclusive, end, endInclusive, visitor)){
+                return false;
+            }
         }
+        boolean afterStart = startComparison > 0 || (startInclusive && startComparison == 0);
+        boolean beforeEnd = endComparison < 0 || (endInclusive && endComparison == 0);
+        if (afterStart && beforeEnd){
+            for (int i = current.getCount(); i > 0; i--){
+                if (!visitor.test(current.key)){
+                    return false;
+                }
+            }
+        }
+        if (endComparison < 0 && current.hasRight()){
+            return recursiveScanWhile(current.right, start, startInclusive, end, endInclusive, visitor);
+        }
+        return true;
     }
 
     private List<Key> recursiveGetRange(Key start, Key end, List<Key> result, BinarySearchNode<Key> current){
-        boolean isLessThan = comparator.compare(start, current.getKey()) <= 0;
-        boolean isGreaterThan = comparator.compare(end, current.getKey()) >= 0;
+        TreeInstrumentation.RECORDER.level();
+        boolean isLessThan = compare(start, current.getKey()) <= 0;
+        boolean isGreaterThan = compare(end, current.getKey()) >= 0;
         if (isLessThan && current.hasLeft()){
             result = recursiveGetRange(start, end, result, current.left);
         }
         if (isLessThan && isGreaterThan){
-            result.add(current.getKey());
+            for (int i = current.getCount(); i > 0; i--){
+                result.add(current.getKey());
+            }
         }
         if (isGreaterThan && current.hasRight()){
             result = recursiveGetRange(start, end, result, current.right);
@@ -280,19 +629,100 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
         return result;
     }
 
+    /**
+     * Validate every node, splitting large subtrees across the common fork-join pool.
+     * Each key is checked against the bounds of all its ancestors, using the tree's comparator.
+     * @throws InvalidSearchTreeException       Tree violates invariants.
+     */
+    @Override
     public void validate() throws InvalidSearchTreeException {
-        if (root != null){
-            recursiveValidate(root);
+        if (root == null){
+            return;
+        }
+        if (root.getSize() <= PARALLEL_VALIDATE_THRESHOLD){
+            recursiveValidate(root, null, null);
+            return;
+        }
+        try {
+            ForkJoinPool.commonPool().invoke(new ValidateTask(root, null, null));
+        } catch (InvalidTreeError error){
+            throw unwrap(error);
+        }
+    }
+
+    /**
+     * Validate the nodes along randomly chosen root-to-node paths, rather than the whole tree.
+     * Each path checks every node it passes through against the bounds of its ancestors, so that a corrupt
+     * node is found with probability proportional to the number of keys beneath it.
+     * @param fraction  Number of paths to check, as a fraction of the size of the tree; within (0, 1].
+     * @throws InvalidSearchTreeException       Tree violates invariants.
+     */
+    public void validateSampled(double fraction) throws InvalidSearchTreeException {
+        if (!(fraction > 0 && fraction <= 1)){
+            throw new IllegalArgumentException(String.format("Invalid sample fraction %f", fraction));
+        }
+        if (size() == 0){
+            // No Keys, so no paths to choose; a tree of tombstones holds Nodes all the same.
+            return;
+        }
+        int paths = (int) Math.max(1, Math.ceil(fraction * root.getSize()));
+        try {
+            IntStream.range(0, paths).parallel().forEach(path -> {
+                try {
+                    validatePath(ThreadLocalRandom.current().nextInt(root.getSize()));
+                } catch (InvalidSearchTreeException exception){
+                    throw new InvalidTreeError(exception);
+                }
+            });
+        } catch (InvalidTreeError error){
+            throw unwrap(error);
+        }
+    }
+
+    private void validatePath(int index) throws InvalidSearchTreeException {
+        BinarySearchNode<Key> current = root;
+        Key low = null;
+        Key high = null;
+        while (current != null){
+            validateNode(current, low, high);
+            int leftSize = Node.sizeOf(current.left);
+            if (index < leftSize){
+                high = current.key;
+                current = current.left;
+            } else if (index < leftSize + current.getCount()){
+                return;
+            } else {
+                index -= leftSize + current.getCount();
+                low = current.key;
+                current = current.right;
+            }
         }
     }
 
-    private void recursiveValidate(BinarySearchNode<Key> current) throws InvalidSearchTreeException{
+    private void recursiveValidate(BinarySearchNode<Key> current, Key low, Key high) throws InvalidSearchTreeException {
+        validateNode(current, low, high);
+        if (current.hasLeft()){
+            recursiveValidate(current.left, low, current.key);
+        }
+        if (current.hasRight()){
+            recursiveValidate(current.right, current.key, high);
+        }
+    }
+
+    /**
+     * Validate the invariants of a single node against its children and the bounds set by its ancestors.
+     * @param current   Node to validate.
+     * @param low       Exclusive lower bound on the node's key; null if unbounded.
+     * @param high      Exclusive upper bound on the node's key; null if unbounded.
+     * @throws InvalidSearchTreeException       Node violates invariants.
+     */
+    void validateNode(BinarySearchNode<Key> current, Key low, Key high) throws InvalidSearchTreeException {
 
         // Validate size.
         int leftSize = current.hasLeft() ? current.getLeft().getSize() : 0;
         int rightSize = current.hasRight() ? current.getRight().getSize() : 0;
-        int expectedSize = leftSize + rightSize + 1;
-        if (expectedSize != current.getSize()){
+        int count = current.getSize() - leftSize - rightSize;
+        if (count < (allowsTombstones() ? 0 : 1) || (count > 1 && !isMultiset())){
             throw new InvalidSearchTreeException(String.format("Invalid size for key %s, size %d, left size %d, right size %d", current.getKey().toString(), current.getSize(), leftSize, rightSize));
         }
 
@@ -304,20 +734,179 @@ public class BinarySearchTree<Key extends Comparable<Key>> extends Tree<Key> {
             throw new InvalidSearchTreeException(String.format("Invalid height for key %s, height %d, left height %d, right height %d", current.getKey().toString(), current.getHeight(), leftHeight, rightHeight));
         }
 
-        // Validate left subtree.
-        if (current.hasLeft()){
-            if (current.left.getKey().compareTo(current.getKey()) >= 0){
-                throw new InvalidSearchTreeException(String.format("Invalid left key for key %s, left key %s", current.getKey().toString(), current.left.getKey().toString()));
+        // Validate ordering against all ancestors.
+        if (low != null && comparator.compare(current.key, low) <= 0){
+            throw new InvalidSearchTreeException(String.format("Invalid key %s, not greater than ancestor key %s", current.getKey().toString(), low.toString()));
+        }
+        if (high != null && comparator.compare(current.key, high) >= 0){
+            throw new InvalidSearchTreeException(String.format("Invalid key %s, not less than ancestor key %s", current.getKey().toString(), high.toString()));
+        }
+    }
+
+    private static InvalidSearchTreeException unwrap(Throwable error){
+        // The fork-join pool may rethrow a copy of the original error, holding it as its cause.
+        while (!(error instanceof InvalidSearchTreeException)){
+            error = error.getCause();
+        }
+        return (InvalidSearchTreeException) error;
+    }
+
+    /**
+     * Carries an InvalidSearchTreeException out of fork-join tasks and parallel streams.
+     */
+    private static class InvalidTreeError extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvalidTreeError(InvalidSearchTreeException cause){
+            super(cause);
+        }
+    }
+
+    /**
+     * Validates a subtree, forking its children while they remain larger than the sequential threshold.
+     */
+    private class ValidateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BinarySearchNode<Key> current;
+        private final Key low;
+        private final Key high;
+
+        ValidateTask(BinarySearchNode<Key> current, Key low, Key high){
+            this.current = current;
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected void compute(){
+            try {
+                if (current.getSize() <= PARALLEL_VALIDATE_THRESHOLD){
+                    recursiveValidate(current, low, high);
+                    return;
+                }
+                validateNode(current, low, high);
+            } catch (InvalidSearchTreeException exception){
+                throw new InvalidTreeError(exception);
+            }
+            if (current.hasLeft() && current.hasRight()){
+                invokeAll(new ValidateTask(current.left, low, current.key), new ValidateTask(current.right, current.key, high));
+            } else if (current.hasLeft()){
+                new ValidateTask(current.left, low, current.key).compute();
+            } else if (current.hasRight()){
+                new ValidateTask(current.right, current.key, high).compute();
             }
-            recursiveValidate(current.left);
         }
+    }
 
-        // Validate right subtree.
-        if (current.hasRight()){
-            if (current.right.getKey().compareTo(current.getKey()) <= 0) {
-                throw new InvalidSearchTreeException(String.format("Invalid right key for key %s, right key %s", current.getKey().toString(), current.right.getKey().toString()));
+    /**
+     * Lazy in-order iterator over a range of the tree.
+     *
+     * Holds the path of not-yet-visited ancestors on a stack, so that each step costs amortized O(1)
+     * and only the starting descent costs O(log n).  Bounds are given in iteration order: when descending,
+     * iteration proceeds from the upper bound down to the lower bound.
+     */
+    private static class RangeIterator<Key extends Comparable<Key>> implements Iterator<Key> {
+
+        private final Comparator<Key> comparator;
+        private final Key from;
+        private final boolean fromInclusive;
+        private final Key to;
+        private final boolean toInclusive;
+        private final boolean descending;
+        private final Deque<BinarySearchNode<Key>> stack = new ArrayDeque<>();
+        private Key next;
+        private int repeats;
+
+        RangeIterator(BinarySearchNode<Key> root, Comparator<Key> comparator, Key from, boolean fromInclusive, Key to, boolean toInclusive, boolean descending){
+            this.comparator = comparator;
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+            this.descending = descending;
+
+            // Descend to the first Key in range, stacking every Node which will be visited on the way back up.
+            BinarySearchNode<Key> current = root;
+            while (current != null){
+                if (isBeforeFrom(current.key)){
+                    current = descending ? current.left : current.right;
+                } else {
+                    stack.push(current);
+                    current = descending ? current.right : current.left;
+                }
+            }
+            advance();
+        }
+
+        /**
+         * Compare two Keys in iteration order.
+         */
+        private int compare(Key one, Key two){
+            int comparison = comparator.compare(one, two);
+            return descending ? -comparison : comparison;
+        }
+
+        private boolean isBeforeFrom(Key key){
+            if (from == null){
+                return false;
+            }
+            int comparison = compare(key, from);
+            return comparison < 0 || (comparison == 0 && !fromInclusive);
+        }
+
+        private boolean isAfterTo(Key key){
+            if (to == null){
+                return false;
+            }
+            int comparison = compare(key, to);
+            return comparison > 0 || (comparison == 0 && !toInclusive);
+        }
+
+        private void advance(){
+            if (repeats > 0){
+                // Further occurrences of the same Key.
+                repeats--;
+                return;
+            }
+            next = null;
+            while (next == null && !stack.isEmpty()){
+                BinarySearchNode<Key> current = stack.pop();
+                if (isAfterTo(current.key)){
+                    // Every remaining Key follows this one, so iteration is complete.
+                    stack.clear();
+                } else {
+                    // A tombstone holds no occurrences, so iteration moves on past it.
+                    if (current.getCount() > 0){
+                        next = current.key;
+                        repeats = current.getCount() - 1;
+                    }
+
+                    // Stack the subtree following this Node; all of it lies after the start of the range.
+                    BinarySearchNode<Key> child = descending ? current.left : current.right;
+                    while (child != null){
+                        stack.push(child);
+                        child = descending ? child.right : child.left;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext(){
+            return next != null;
+        }
+
+        @Override
+        public Key next(){
+            if (next == null){
+                throw new NoSuchElementException();
             }
-            recursiveValidate(current.right);
+            Key result = next;
+            advance();
+            return result;
         }
     }
 }
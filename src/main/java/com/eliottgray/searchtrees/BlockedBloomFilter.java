@@ -0,0 +1,123 @@
+package com.eliottgray.searchtrees;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Blocked Bloom filter, after Putze, Sanders and Singler, "Cache-, Hash- and Space-Efficient Bloom Filters" (2007).
+ *
+ * Each Key's bits all fall within one 512-bit block, the size of a cache line, so that a lookup costs one cache miss
+ * however many bits it tests.  That costs a slightly higher false-positive rate than a plain Bloom filter of the same
+ * size.  Keys are hashed by their hashCode method, which must therefore agree with the order they are compared by.
+ *
+ * Bits are only ever set, by compare-and-set, so that trees sharing a filter may add Keys to it from several threads.
+ */
+class BlockedBloomFilter {
+
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_LONGS = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final AtomicLongArray bits;
+    private final int blocks;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    /**
+     * Empty filter, sized for a number of Keys at a false-positive rate.
+     * @param capacity              Number of Keys expected.
+     * @param falsePositiveRate     False-positive rate expected at capacity, between 0 and 1 exclusive.
+     */
+    BlockedBloomFilter(int capacity, double falsePositiveRate){
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long totalBits = (long) Math.ceil(capacity * bitsPerKey);
+        this.blocks = (int) Math.max(1, (totalBits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(bitsPerKey * Math.log(2))));
+        this.capacity = capacity;
+        this.bits = new AtomicLongArray(blocks * BLOCK_LONGS);
+    }
+
+    /**
+     * Spread a Key's hashCode over 64 bits, by the finalizer of MurmurHash3.
+     */
+    private static long hash(Object key){
+        long hash = key.hashCode();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @return  Index of the first long of the block chosen by the high half of the hash.
+     */
+    private int blockStart(long hash){
+        return (int) (((hash >>> 32) * blocks) >>> 32) * BLOCK_LONGS;
+    }
+
+    /**
+     * Add a Key.
+     * @param key   Key to add.
+     */
+    void add(Object key){
+        long hash = hash(key);
+        int start = blockStart(hash);
+        int first = (int) hash;
+        int step = ((int) (hash >>> 32) * 0x9E3779B9) | 1;
+        for (int i = 0; i < hashCount; i++){
+            int bit = (first + i * step) >>> 23;
+            int index = start + (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = bits.get(index);
+            } while ((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      False if the Key was certainly never added; true if it may have been.
+     */
+    boolean mightContain(Object key){
+        long hash = hash(key);
+        int start = blockStart(hash);
+        int first = (int) hash;
+        int step = ((int) (hash >>> 32) * 0x9E3779B9) | 1;
+        for (int i = 0; i < hashCount; i++){
+            int bit = (first + i * step) >>> 23;
+            if ((bits.get(start + (bit >>> 6)) & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return  Number of Keys the filter was sized for.
+     */
+    int getCapacity(){ return capacity; }
+
+    /**
+     * @return  Number of additions so far, counting repeated Keys.
+     */
+    int getInsertions(){ return insertions.get(); }
+
+    /**
+     * @return  Bytes of filter bits.
+     */
+    long getMemoryBytes(){ return (long) blocks * BLOCK_LONGS * Long.BYTES; }
+
+    /**
+     * @return  False-positive rate of a plain Bloom filter of this size, given the additions so far;
+     *          blocking adds a little to it.
+     */
+    double getEstimatedFalsePositiveRate(){
+        double bitCount = (double) blocks * BLOCK_BITS;
+        return Math.pow(1 - Math.exp(-hashCount * getInsertions() / bitCount), hashCount);
+    }
+}
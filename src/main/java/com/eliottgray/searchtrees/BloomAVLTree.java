@@ -0,0 +1,188 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AVL Tree with a blocked Bloom filter in front of contains, so that most lookups of absent Keys cost one cache miss
+ * rather than a walk from root to leaf.
+ *
+ * Versions of the tree share one filter, to which inserts add Keys in place: it holds the Keys of every version,
+ * so a Key missing from it is missing from each of them, and copying it on every insert is unnecessary.  A delete
+ * cannot remove its Key from the filter, so once deletes since the filter was built reach a fraction of its capacity,
+ * the deleting version builds a fresh filter of its own Keys, as it does when inserts outgrow the capacity.  Building
+ * costs O(n), amortized to O(1) per update.
+ *
+ * The filter hashes Keys by hashCode, so it is consulted only under natural order, where Keys' compareTo must agree
+ * with their equals method, as it does for String, Integer, Long, UUID and most other Keys.
+ */
+public class BloomAVLTree<Key extends Comparable<Key>> extends AVLTree<Key> {
+
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+    static final int MIN_CAPACITY = 1024;
+    /** Deletes since the filter was built, as a fraction of its capacity, beyond which it is rebuilt. */
+    static final double REBUILD_DELETE_FRACTION = 0.25;
+
+    final double falsePositiveRate;
+    final BlockedBloomFilter filter;
+    final int deletes;
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method.
+     */
+    public BloomAVLTree(){
+        this(DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Empty tree, with a false-positive rate for its filter.
+     * @param falsePositiveRate     Target rate at which absent Keys pass the filter, between 0 and 1 exclusive.
+     */
+    public BloomAVLTree(double falsePositiveRate){
+        super();
+        this.falsePositiveRate = checkFalsePositiveRate(falsePositiveRate);
+        this.filter = new BlockedBloomFilter(MIN_CAPACITY, falsePositiveRate);
+        this.deletes = 0;
+    }
+
+    /**
+     * Empty tree, with comparator override.  The filter is consulted only if the comparator is natural order.
+     * @param falsePositiveRate     Target rate at which absent Keys pass the filter, between 0 and 1 exclusive.
+     * @param comparator            Comparison function with which to override default compareTo of Key.
+     */
+    public BloomAVLTree(double falsePositiveRate, Comparator<Key> comparator){
+        super(comparator);
+        this.falsePositiveRate = checkFalsePositiveRate(falsePositiveRate);
+        this.filter = new BlockedBloomFilter(MIN_CAPACITY, falsePositiveRate);
+        this.deletes = 0;
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root                  Existing root node.
+     * @param comparator            Comparator corresponding to current root node.
+     * @param falsePositiveRate     Target false-positive rate.
+     * @param filter                Filter holding at least every Key under the root.
+     * @param deletes               Deletes since the filter was built.
+     */
+    BloomAVLTree(BinarySearchNode<Key> root, Comparator<Key> comparator, double falsePositiveRate, BlockedBloomFilter filter, int deletes){
+        super(root, comparator);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = filter;
+        this.deletes = deletes;
+    }
+
+    private static double checkFalsePositiveRate(double falsePositiveRate){
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)){
+            throw new IllegalArgumentException(String.format("False-positive rate %s is not between 0 and 1", falsePositiveRate));
+        }
+        return falsePositiveRate;
+    }
+
+    @Override
+    BloomAVLTree<Key> withRoot(BinarySearchNode<Key> root){
+        return new BloomAVLTree<>(root, comparator, falsePositiveRate, filter, deletes);
+    }
+
+    /**
+     * Build a fresh filter of this tree's Keys, sized for twice as many.
+     * @return  Tree with its own filter.
+     */
+    BloomAVLTree<Key> rebuildFilter(){
+        BlockedBloomFilter rebuilt = new BlockedBloomFilter(Math.max(MIN_CAPACITY, 2 * size()), falsePositiveRate);
+        addAll(root, rebuilt);
+        return new BloomAVLTree<>(root, comparator, falsePositiveRate, rebuilt, 0);
+    }
+
+    private static void addAll(BinarySearchNode<?> node, BlockedBloomFilter filter){
+        while (node != null){
+            addAll(node.left, filter);
+            filter.add(node.key);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Add Keys of this tree to its filter, or build a fresh filter if they would outgrow it.
+     * @param added     Keys newly added to this tree.
+     * @return          Tree whose filter holds every one of its Keys.
+     */
+    private BloomAVLTree<Key> addToFilter(List<? extends Key> added){
+        if (filter.getInsertions() + added.size() > filter.getCapacity()){
+            return rebuildFilter();
+        }
+        for (Key key : added){
+            filter.add(key);
+        }
+        return this;
+    }
+
+    @Override
+    public BloomAVLTree<Key> insert(Key key){
+        BloomAVLTree<Key> inserted = (BloomAVLTree<Key>) super.insert(key);
+        // An equal Key, already in the filter, may have been overwritten.
+        return inserted.size() == size() ? inserted : inserted.addToFilter(Collections.singletonList(key));
+    }
+
+    @Override
+    public BloomAVLTree<Key> delete(Key key){
+        BloomAVLTree<Key> deleted = (BloomAVLTree<Key>) super.delete(key);
+        if (deleted.size() == size()){
+            return deleted;
+        } else if (deletes + 1 > REBUILD_DELETE_FRACTION * filter.getCapacity()){
+            return deleted.rebuildFilter();
+        }
+        return new BloomAVLTree<>(deleted.root, comparator, falsePositiveRate, filter, deletes + 1);
+    }
+
+    @Override
+    public BloomAVLTree<Key> append(Key key){
+        return ((BloomAVLTree<Key>) super.append(key)).addToFilter(Collections.singletonList(key));
+    }
+
+    @Override
+    public BloomAVLTree<Key> appendAll(Collection<? extends Key> keys){
+        return (BloomAVLTree<Key>) super.appendAll(keys);
+    }
+
+    /**
+     * Appended Keys bypass insert, so are added to the filter here, as are those of appendAll.
+     */
+    @Override
+    BloomAVLTree<Key> appendSorted(List<Key> sorted){
+        return ((BloomAVLTree<Key>) super.appendSorted(sorted)).addToFilter(sorted);
+    }
+
+    @Override
+    BloomAVLTree<Key> concat(AVLTree<Key> right){
+        return ((BloomAVLTree<Key>) super.concat(right)).addToFilter(right.toAscendingList());
+    }
+
+    @Override
+    public boolean contains(Key key){
+        if (isNaturalOrder() && !filter.mightContain(key)){
+            return false;
+        }
+        return super.contains(key);
+    }
+
+    /**
+     * @return  Bytes held by the filter, in addition to the tree itself.
+     */
+    public long getFilterMemoryBytes(){ return filter.getMemoryBytes(); }
+
+    /**
+     * @return  Estimated rate at which absent Keys currently pass the filter, and must be searched for in the tree.
+     */
+    public double getFilterFalsePositiveRate(){ return filter.getEstimatedFalsePositiveRate(); }
+
+    @Override
+    void validateNode(BinarySearchNode<Key> node, Key low, Key high) throws InvalidSearchTreeException {
+        super.validateNode(node, low, high);
+        if (!filter.mightContain(node.key)){
+            throw new InvalidSearchTreeException(String.format("Key %s is missing from the Bloom filter", node.key));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Mutable node of a ConcurrentAVLTree.
+ *
+ * Every field but the Key is volatile, as readers traverse without locks.  A node whose Key has been removed while
+ * it still had two children stays in the tree as a routing node, with present false, until it can be unlinked.
+ *
+ * The change version ("OVL") lets readers detect that a node's subtree lost Keys while they were searching it:
+ *      bit 0       Unlinked: the node has been removed from the tree, and will never change again.
+ *      bit 1       Shrinking: a rotation is moving the node down, and Keys are leaving its subtree.
+ *      bits 2+     Count of completed shrinks.
+ * Growth, as when a rotation moves a node up, never invalidates a search, and so is not recorded.
+ */
+class ConcurrentAVLNode <Key extends Comparable<Key>> {
+
+    static final long UNLINKED = 1;
+    static final long SHRINKING = 2;
+    static final long SHRINK_COUNT_UNIT = 4;
+
+    private static final int SPIN_COUNT = 100;
+    private static final int YIELD_COUNT = 10;
+
+    final Key key;
+    volatile int height;
+    volatile boolean present;
+    volatile long changeOVL;
+    volatile ConcurrentAVLNode<Key> parent;
+    volatile ConcurrentAVLNode<Key> left;
+    volatile ConcurrentAVLNode<Key> right;
+
+    /**
+     * Construct a childless Node.
+     * @param key       Key for Node.
+     * @param present   Whether the Key is present, rather than the Node only routing searches.
+     * @param parent    Parent Node.
+     */
+    ConcurrentAVLNode(Key key, boolean present, ConcurrentAVLNode<Key> parent){
+        this.key = key;
+        this.height = 1;
+        this.present = present;
+        this.parent = parent;
+    }
+
+    /**
+     * @param direction     Negative for the left child, otherwise the right.
+     * @return              Child in the given direction.
+     */
+    ConcurrentAVLNode<Key> child(int direction){
+        return direction < 0 ? left : right;
+    }
+
+    /**
+     * @param direction     Negative for the left child, otherwise the right.
+     * @param child         New child in the given direction.
+     */
+    void setChild(int direction, ConcurrentAVLNode<Key> child){
+        if (direction < 0){
+            left = child;
+        } else {
+            right = child;
+        }
+    }
+
+    /**
+     * Wait for a shrink observed in the given version to complete.
+     * Shrinks are short and made holding this node's lock, so spin, then yield, then block on the lock.
+     * @param ovl   Version observed.
+     */
+    void waitUntilShrinkCompleted(long ovl){
+        if ((ovl & SHRINKING) == 0){
+            return;
+        }
+        for (int i = 0; i < SPIN_COUNT; i++){
+            if (changeOVL != ovl){
+                return;
+            }
+        }
+        for (int i = 0; i < YIELD_COUNT; i++){
+            Thread.yield();
+            if (changeOVL != ovl){
+                return;
+            }
+        }
+        synchronized (this){
+            assert changeOVL != ovl;
+        }
+    }
+
+    static boolean isUnlinked(long ovl){
+        return ovl == UNLINKED;
+    }
+
+    static boolean isShrinkingOrUnlinked(long ovl){
+        return (ovl & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    static long beginShrink(long ovl){
+        return ovl | SHRINKING;
+    }
+
+    static long endShrink(long ovl){
+        return ovl + SHRINK_COUNT_UNIT;
+    }
+
+    static int heightOf(ConcurrentAVLNode<?> node){
+        return node == null ? 0 : node.height;
+    }
+}
@@ -0,0 +1,861 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mutable AVL tree for concurrent use, after Bronson, Casper, Chafi and Olukotun,
+ * "A Practical Concurrent Binary Search Tree" (PPoPP 2010).
+ *
+ * Unlike the other trees, this one is not persistent: add and remove change nodes in place, allocating at most one
+ * node, rather than copying a path of O(log n) nodes.  In exchange there are no snapshots; see ConcurrentShardedTree
+ * where those are needed.
+ *
+ * Reads take no locks.  They descend hand over hand, checking each node's change version (see ConcurrentAVLNode)
+ * before and after following a child link, and retry from the last valid ancestor if a rotation shrank the subtree
+ * they were in.  Writers lock only the nodes they change, always parent before child: an insert locks the node it
+ * attaches to, a removal its node and parent, and a rotation the two or three nodes it moves plus their parent.
+ * Removing a Key with two children only marks its node as a routing node, to be unlinked once it has fewer children.
+ * Balance is relaxed while writers are active, and restored to strict AVL balance once they finish.
+ *
+ * Navigation and range queries are weakly consistent: each Key returned was present at some time during the call.
+ */
+public class ConcurrentAVLTree<Key extends Comparable<Key>> {
+
+    /** Result of an attempt invalidated by a concurrent change, to be retried from a valid ancestor. */
+    private static final Object RETRY = new Object();
+
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private final Comparator<Key> comparator;
+    private final boolean naturalOrder;
+
+    /** Sentinel above the root, which is its right child.  The holder is never rotated, so never changes version. */
+    private final ConcurrentAVLNode<Key> holder = new ConcurrentAVLNode<>(null, false, null);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method.
+     */
+    public ConcurrentAVLTree(){
+        this(Comparator.naturalOrder());
+    }
+
+    /**
+     * Empty tree, with comparator override.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     */
+    public ConcurrentAVLTree(Comparator<Key> comparator){
+        this.comparator = comparator;
+        this.naturalOrder = KeyComparators.isNaturalOrder(comparator);
+    }
+
+    private int compare(Key one, Key two){
+        TreeInstrumentation.RECORDER.comparison();
+        return naturalOrder ? KeyComparators.compareNaturally(one, two) : comparator.compare(one, two);
+    }
+
+    /**
+     * @return  Number of Keys; exact only while no writer is active.
+     */
+    public int size(){
+        return size.intValue();
+    }
+
+    /**
+     * @return  Whether the tree is empty.
+     */
+    public boolean isEmpty(){
+        return getMin() == null;
+    }
+
+    /**
+     * Determine whether or not the given Key is contained within the tree.
+     * @param key   Key to search for.
+     * @return      Presence of Key in tree.
+     */
+    public boolean contains(Key key){
+        while (true){
+            ConcurrentAVLNode<Key> right = holder.right;
+            if (right == null){
+                return false;
+            }
+            int c = compare(key, right.key);
+            if (c == 0){
+                return right.present;
+            }
+            long ovl = right.changeOVL;
+            if (ConcurrentAVLNode.isShrinkingOrUnlinked(ovl)){
+                right.waitUntilShrinkCompleted(ovl);
+            } else if (right == holder.right){
+                Object result = attemptGet(key, right, c, ovl);
+                if (result != RETRY){
+                    return (Boolean) result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Search beneath a node reached with the given version.
+     * @param key           Key to search for.
+     * @param node          Node reached.
+     * @param direction     Direction of the Key from the node.
+     * @param nodeOVL       Version of the node when reached.
+     * @return              Presence of Key, or RETRY if the node has since shrunk.
+     */
+    private Object attemptGet(Key key, ConcurrentAVLNode<Key> node, int direction, long nodeOVL){
+        while (true){
+            ConcurrentAVLNode<Key> child = node.child(direction);
+            if (node.changeOVL != nodeOVL){
+                return RETRY;
+            }
+            if (child == null){
+                return false;
+            }
+            TreeInstrumentation.RECORDER.level();
+            int c = compare(key, child.key);
+            if (c == 0){
+                return child.present;
+            }
+            long childOVL = child.changeOVL;
+            if (ConcurrentAVLNode.isShrinkingOrUnlinked(childOVL)){
+                child.waitUntilShrinkCompleted(childOVL);
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+            } else if (child != node.child(direction)){
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+            } else {
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+                Object result = attemptGet(key, child, c, childOVL);
+                if (result != RETRY){
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a Key to the tree, in place.
+     * @param key   Key to add.
+     * @return      Whether the Key was added, rather than already present.
+     */
+    public boolean add(Key key){
+        boolean previous = update(key, true);
+        if (!previous){
+            size.increment();
+        }
+        return !previous;
+    }
+
+    /**
+     * Remove a Key from the tree, in place.
+     * @param key   Key to remove.
+     * @return      Whether the Key was removed, rather than absent.
+     */
+    public boolean remove(Key key){
+        boolean previous = update(key, false);
+        if (previous){
+            size.decrement();
+        }
+        return previous;
+    }
+
+    /**
+     * @param key       Key to add or remove.
+     * @param present   Whether to add the Key, rather than remove it.
+     * @return          Whether the Key was previously present.
+     */
+    private boolean update(Key key, boolean present){
+        while (true){
+            ConcurrentAVLNode<Key> right = holder.right;
+            if (right == null){
+                if (!present){
+                    return false;
+                }
+                synchronized (holder){
+                    if (holder.right == null){
+                        holder.right = new ConcurrentAVLNode<>(key, true, holder);
+                        return false;
+                    }
+                }
+            } else {
+                long ovl = right.changeOVL;
+                if (ConcurrentAVLNode.isShrinkingOrUnlinked(ovl)){
+                    right.waitUntilShrinkCompleted(ovl);
+                } else if (right == holder.right){
+                    Object result = attemptUpdate(key, present, holder, right, ovl);
+                    if (result != RETRY){
+                        return (Boolean) result;
+                    }
+                }
+            }
+        }
+    }
+
+    private Object attemptUpdate(Key key, boolean present, ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, long nodeOVL){
+        int c = compare(key, node.key);
+        if (c == 0){
+            return attemptNodeUpdate(present, parent, node);
+        }
+        while (true){
+            ConcurrentAVLNode<Key> child = node.child(c);
+            if (node.changeOVL != nodeOVL){
+                return RETRY;
+            }
+            if (child == null){
+                if (!present){
+                    return false;
+                }
+                ConcurrentAVLNode<Key> damaged;
+                synchronized (node){
+                    if (node.changeOVL != nodeOVL){
+                        return RETRY;
+                    }
+                    if (node.child(c) != null){
+                        // Lost a race to insert here; search again from this node.
+                        continue;
+                    }
+                    node.setChild(c, new ConcurrentAVLNode<>(key, true, node));
+                    damaged = fixHeight_nl(node);
+                }
+                fixHeightAndRebalance(damaged);
+                return false;
+            }
+            TreeInstrumentation.RECORDER.level();
+            long childOVL = child.changeOVL;
+            if (ConcurrentAVLNode.isShrinkingOrUnlinked(childOVL)){
+                child.waitUntilShrinkCompleted(childOVL);
+            } else if (child == node.child(c)){
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+                Object result = attemptUpdate(key, present, node, child, childOVL);
+                if (result != RETRY){
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add or remove the Key of a node found by search.
+     * A node with fewer than two children is unlinked on removal, holding both its parent's lock and its own;
+     * otherwise only its presence changes.
+     */
+    private Object attemptNodeUpdate(boolean present, ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node){
+        if (!present){
+            if (!node.present){
+                return false;
+            }
+            if (node.left == null || node.right == null){
+                ConcurrentAVLNode<Key> damaged;
+                synchronized (parent){
+                    if (ConcurrentAVLNode.isUnlinked(parent.changeOVL) || node.parent != parent){
+                        return RETRY;
+                    }
+                    synchronized (node){
+                        if (!node.present){
+                            return false;
+                        }
+                        if (!attemptUnlink_nl(parent, node)){
+                            return RETRY;
+                        }
+                    }
+                    damaged = fixHeight_nl(parent);
+                }
+                fixHeightAndRebalance(damaged);
+                return true;
+            }
+        }
+        synchronized (node){
+            if (ConcurrentAVLNode.isUnlinked(node.changeOVL)){
+                return RETRY;
+            }
+            boolean previous = node.present;
+            if (!present && previous && (node.left == null || node.right == null)){
+                // Lost a child since it was checked, so the node must be unlinked instead.
+                return RETRY;
+            }
+            node.present = present;
+            return previous;
+        }
+    }
+
+    /**
+     * Splice a node with fewer than two children out of the tree.  Requires the locks of parent and node.
+     * @return  Whether the node could be unlinked.
+     */
+    private boolean attemptUnlink_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node){
+        ConcurrentAVLNode<Key> parentLeft = parent.left;
+        ConcurrentAVLNode<Key> parentRight = parent.right;
+        if (parentLeft != node && parentRight != node){
+            return false;
+        }
+        ConcurrentAVLNode<Key> left = node.left;
+        ConcurrentAVLNode<Key> right = node.right;
+        if (left != null && right != null){
+            return false;
+        }
+        ConcurrentAVLNode<Key> splice = left != null ? left : right;
+        if (parentLeft == node){
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null){
+            splice.parent = parent;
+        }
+        node.changeOVL = ConcurrentAVLNode.UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    /**
+     * @return  UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED, or else the node's corrected height.
+     */
+    private int nodeCondition(ConcurrentAVLNode<Key> node){
+        ConcurrentAVLNode<Key> left = node.left;
+        ConcurrentAVLNode<Key> right = node.right;
+        if ((left == null || right == null) && !node.present){
+            return UNLINK_REQUIRED;
+        }
+        int height = node.height;
+        int leftHeight = ConcurrentAVLNode.heightOf(left);
+        int rightHeight = ConcurrentAVLNode.heightOf(right);
+        int balance = leftHeight - rightHeight;
+        if (balance < -1 || balance > 1){
+            return REBALANCE_REQUIRED;
+        }
+        int correctHeight = 1 + Math.max(leftHeight, rightHeight);
+        return height != correctHeight ? correctHeight : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Correct a node's height, if that is all it needs.  Requires the node's lock.
+     * @return  Node needing further repair: this node, its parent, or null if none.
+     */
+    private ConcurrentAVLNode<Key> fixHeight_nl(ConcurrentAVLNode<Key> node){
+        int condition = nodeCondition(node);
+        switch (condition){
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent;
+        }
+    }
+
+    /**
+     * Repair heights, balance and routing nodes from a damaged node up towards the root.
+     * A rotation may leave one of the nodes it moved down still damaged, and report that node rather than its parent;
+     * the parent is then revisited once repairs beneath it stop, as the height of its subtree may have changed.
+     */
+    private void fixHeightAndRebalance(ConcurrentAVLNode<Key> node){
+        ArrayDeque<ConcurrentAVLNode<Key>> pending = null;
+        while (true){
+            if (node == null || node.parent == null || ConcurrentAVLNode.isUnlinked(node.changeOVL)
+                    || nodeCondition(node) == NOTHING_REQUIRED){
+                if (pending == null || pending.isEmpty()){
+                    return;
+                }
+                node = pending.pop();
+                continue;
+            }
+            int condition = nodeCondition(node);
+            if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED){
+                synchronized (node){
+                    node = fixHeight_nl(node);
+                }
+            } else {
+                ConcurrentAVLNode<Key> parent = node.parent;
+                synchronized (parent){
+                    if (!ConcurrentAVLNode.isUnlinked(parent.changeOVL) && node.parent == parent){
+                        ConcurrentAVLNode<Key> damaged;
+                        synchronized (node){
+                            damaged = rebalance_nl(parent, node);
+                        }
+                        if (damaged != null && damaged != parent && damaged != parent.parent){
+                            if (pending == null){
+                                pending = new ArrayDeque<>();
+                            }
+                            if (pending.peek() != parent){
+                                pending.push(parent);
+                            }
+                        }
+                        node = damaged;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Unlink, rotate or correct the height of a node.  Requires the locks of parent and node.
+     * @return  Node needing further repair, or null if none.
+     */
+    private ConcurrentAVLNode<Key> rebalance_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node){
+        ConcurrentAVLNode<Key> left = node.left;
+        ConcurrentAVLNode<Key> right = node.right;
+        if ((left == null || right == null) && !node.present){
+            return attemptUnlink_nl(parent, node) ? fixHeight_nl(parent) : node;
+        }
+        int height = node.height;
+        int leftHeight = ConcurrentAVLNode.heightOf(left);
+        int rightHeight = ConcurrentAVLNode.heightOf(right);
+        int correctHeight = 1 + Math.max(leftHeight, rightHeight);
+        int balance = leftHeight - rightHeight;
+        if (balance > 1){
+            return rebalanceToRight_nl(parent, node, left, rightHeight);
+        } else if (balance < -1){
+            return rebalanceToLeft_nl(parent, node, right, leftHeight);
+        } else if (correctHeight != height){
+            node.height = correctHeight;
+            return fixHeight_nl(parent);
+        } else {
+            return null;
+        }
+    }
+
+    private ConcurrentAVLNode<Key> rebalanceToRight_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, ConcurrentAVLNode<Key> left, int rightHeight){
+        synchronized (left){
+            // A routing node one out of balance is rotated anyway, when a double rotation above it was declined.
+            if (left.height - rightHeight <= (node.present ? 1 : 0)){
+                return node;
+            }
+            ConcurrentAVLNode<Key> leftRight = left.right;
+            int leftLeftHeight = ConcurrentAVLNode.heightOf(left.left);
+            int leftRightHeight = ConcurrentAVLNode.heightOf(leftRight);
+            if (leftLeftHeight >= leftRightHeight){
+                return rotateRight_nl(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+            }
+            synchronized (leftRight){
+                leftRightHeight = leftRight.height;
+                if (leftLeftHeight >= leftRightHeight){
+                    return rotateRight_nl(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+                }
+                int leftRightLeftHeight = ConcurrentAVLNode.heightOf(leftRight.left);
+                int balance = leftLeftHeight - leftRightLeftHeight;
+                if (balance >= -1 && balance <= 1 && !((leftLeftHeight == 0 || leftRightLeftHeight == 0) && !left.present)){
+                    return rotateRightOverLeft_nl(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightLeftHeight);
+                }
+            }
+            // A double rotation would leave the left child unbalanced, or as a routing node with one child: rotate
+            // the left child on its own first, which unlinks it in the routing case, and return to this node later.
+            return rebalanceToLeft_nl(node, left, leftRight, leftLeftHeight);
+        }
+    }
+
+    private ConcurrentAVLNode<Key> rebalanceToLeft_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, ConcurrentAVLNode<Key> right, int leftHeight){
+        synchronized (right){
+            if (leftHeight - right.height >= (node.present ? -1 : 0)){
+                return node;
+            }
+            ConcurrentAVLNode<Key> rightLeft = right.left;
+            int rightLeftHeight = ConcurrentAVLNode.heightOf(rightLeft);
+            int rightRightHeight = ConcurrentAVLNode.heightOf(right.right);
+            if (rightRightHeight >= rightLeftHeight){
+                return rotateLeft_nl(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+            }
+            synchronized (rightLeft){
+                rightLeftHeight = rightLeft.height;
+                if (rightRightHeight >= rightLeftHeight){
+                    return rotateLeft_nl(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+                }
+                int rightLeftRightHeight = ConcurrentAVLNode.heightOf(rightLeft.right);
+                int balance = rightRightHeight - rightLeftRightHeight;
+                if (balance >= -1 && balance <= 1 && !((rightRightHeight == 0 || rightLeftRightHeight == 0) && !right.present)){
+                    return rotateLeftOverRight_nl(parent, node, leftHeight, right, rightLeft, rightRightHeight, rightLeftRightHeight);
+                }
+            }
+            return rebalanceToRight_nl(node, right, rightLeft, rightRightHeight);
+        }
+    }
+
+    private ConcurrentAVLNode<Key> rotateRight_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, ConcurrentAVLNode<Key> left,
+                                                  int rightHeight, int leftLeftHeight, ConcurrentAVLNode<Key> leftRight, int leftRightHeight){
+        TreeInstrumentation.RECORDER.rotation(false);
+        long nodeOVL = node.changeOVL;
+        ConcurrentAVLNode<Key> parentLeft = parent.left;
+        node.changeOVL = ConcurrentAVLNode.beginShrink(nodeOVL);
+
+        node.left = leftRight;
+        if (leftRight != null){
+            leftRight.parent = node;
+        }
+        left.right = node;
+        node.parent = left;
+        if (parentLeft == node){
+            parent.left = left;
+        } else {
+            parent.right = left;
+        }
+        left.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+        node.height = nodeHeight;
+        left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+        node.changeOVL = ConcurrentAVLNode.endShrink(nodeOVL);
+
+        // Report whichever of the moved nodes still needs repair, else carry on up.
+        int nodeBalance = leftRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1){
+            return node;
+        }
+        if ((leftRight == null || rightHeight == 0) && !node.present){
+            return node;
+        }
+        int leftBalance = leftLeftHeight - nodeHeight;
+        if (leftBalance < -1 || leftBalance > 1){
+            return left;
+        }
+        if (leftLeftHeight == 0 && !left.present){
+            return left;
+        }
+        return fixHeight_nl(parent);
+    }
+
+    private ConcurrentAVLNode<Key> rotateLeft_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, int leftHeight,
+                                                 ConcurrentAVLNode<Key> right, ConcurrentAVLNode<Key> rightLeft, int rightLeftHeight, int rightRightHeight){
+        TreeInstrumentation.RECORDER.rotation(false);
+        long nodeOVL = node.changeOVL;
+        ConcurrentAVLNode<Key> parentLeft = parent.left;
+        node.changeOVL = ConcurrentAVLNode.beginShrink(nodeOVL);
+
+        node.right = rightLeft;
+        if (rightLeft != null){
+            rightLeft.parent = node;
+        }
+        right.left = node;
+        node.parent = right;
+        if (parentLeft == node){
+            parent.left = right;
+        } else {
+            parent.right = right;
+        }
+        right.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+        node.height = nodeHeight;
+        right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+        node.changeOVL = ConcurrentAVLNode.endShrink(nodeOVL);
+
+        int nodeBalance = rightLeftHeight - leftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1){
+            return node;
+        }
+        if ((rightLeft == null || leftHeight == 0) && !node.present){
+            return node;
+        }
+        int rightBalance = rightRightHeight - nodeHeight;
+        if (rightBalance < -1 || rightBalance > 1){
+            return right;
+        }
+        if (rightRightHeight == 0 && !right.present){
+            return right;
+        }
+        return fixHeight_nl(parent);
+    }
+
+    private ConcurrentAVLNode<Key> rotateRightOverLeft_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, ConcurrentAVLNode<Key> left,
+                                                          int rightHeight, int leftLeftHeight, ConcurrentAVLNode<Key> leftRight, int leftRightLeftHeight){
+        TreeInstrumentation.RECORDER.rotation(true);
+        long nodeOVL = node.changeOVL;
+        long leftOVL = left.changeOVL;
+        ConcurrentAVLNode<Key> parentLeft = parent.left;
+        ConcurrentAVLNode<Key> leftRightLeft = leftRight.left;
+        ConcurrentAVLNode<Key> leftRightRight = leftRight.right;
+        int leftRightRightHeight = ConcurrentAVLNode.heightOf(leftRightRight);
+        node.changeOVL = ConcurrentAVLNode.beginShrink(nodeOVL);
+        left.changeOVL = ConcurrentAVLNode.beginShrink(leftOVL);
+
+        node.left = leftRightRight;
+        if (leftRightRight != null){
+            leftRightRight.parent = node;
+        }
+        left.right = leftRightLeft;
+        if (leftRightLeft != null){
+            leftRightLeft.parent = left;
+        }
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+        if (parentLeft == node){
+            parent.left = leftRight;
+        } else {
+            parent.right = leftRight;
+        }
+        leftRight.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+        node.height = nodeHeight;
+        int leftNewHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+        left.height = leftNewHeight;
+        leftRight.height = 1 + Math.max(leftNewHeight, nodeHeight);
+        node.changeOVL = ConcurrentAVLNode.endShrink(nodeOVL);
+        left.changeOVL = ConcurrentAVLNode.endShrink(leftOVL);
+
+        int nodeBalance = leftRightRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1){
+            return node;
+        }
+        if ((leftRightRight == null || rightHeight == 0) && !node.present){
+            return node;
+        }
+        int leftRightBalance = leftNewHeight - nodeHeight;
+        if (leftRightBalance < -1 || leftRightBalance > 1){
+            return leftRight;
+        }
+        return fixHeight_nl(parent);
+    }
+
+    private ConcurrentAVLNode<Key> rotateLeftOverRight_nl(ConcurrentAVLNode<Key> parent, ConcurrentAVLNode<Key> node, int leftHeight,
+                                                          ConcurrentAVLNode<Key> right, ConcurrentAVLNode<Key> rightLeft, int rightRightHeight, int rightLeftRightHeight){
+        TreeInstrumentation.RECORDER.rotation(true);
+        long nodeOVL = node.changeOVL;
+        long rightOVL = right.changeOVL;
+        ConcurrentAVLNode<Key> parentLeft = parent.left;
+        ConcurrentAVLNode<Key> rightLeftLeft = rightLeft.left;
+        ConcurrentAVLNode<Key> rightLeftRight = rightLeft.right;
+        int rightLeftLeftHeight = ConcurrentAVLNode.heightOf(rightLeftLeft);
+        node.changeOVL = ConcurrentAVLNode.beginShrink(nodeOVL);
+        right.changeOVL = ConcurrentAVLNode.beginShrink(rightOVL);
+
+        node.right = rightLeftLeft;
+        if (rightLeftLeft != null){
+            rightLeftLeft.parent = node;
+        }
+        right.left = rightLeftRight;
+        if (rightLeftRight != null){
+            rightLeftRight.parent = right;
+        }
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+        if (parentLeft == node){
+            parent.left = rightLeft;
+        } else {
+            parent.right = rightLeft;
+        }
+        rightLeft.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+        node.height = nodeHeight;
+        int rightNewHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+        right.height = rightNewHeight;
+        rightLeft.height = 1 + Math.max(nodeHeight, rightNewHeight);
+        node.changeOVL = ConcurrentAVLNode.endShrink(nodeOVL);
+        right.changeOVL = ConcurrentAVLNode.endShrink(rightOVL);
+
+        int nodeBalance = rightLeftLeftHeight - leftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1){
+            return node;
+        }
+        if ((rightLeftLeft == null || leftHeight == 0) && !node.present){
+            return node;
+        }
+        int rightLeftBalance = rightNewHeight - nodeHeight;
+        if (rightLeftBalance < -1 || rightLeftBalance > 1){
+            return rightLeft;
+        }
+        return fixHeight_nl(parent);
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Greatest Key less than or equal to the given Key, or null if there is no such Key.
+     */
+    public Key floor(Key key){
+        return nearest(key, false, true);
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Least Key greater than or equal to the given Key, or null if there is no such Key.
+     */
+    public Key ceiling(Key key){
+        return nearest(key, true, true);
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Least Key strictly greater than the given Key, or null if there is no such Key.
+     */
+    public Key higher(Key key){
+        return nearest(key, true, false);
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Greatest Key strictly less than the given Key, or null if there is no such Key.
+     */
+    public Key lower(Key key){
+        return nearest(key, false, false);
+    }
+
+    /**
+     * @return  Least Key, or null if empty.
+     */
+    public Key getMin(){
+        return nearest(null, true, true);
+    }
+
+    /**
+     * @return  Greatest Key, or null if empty.
+     */
+    public Key getMax(){
+        return nearest(null, false, true);
+    }
+
+    /**
+     * Find the closest present Key to a bound, on one side of it.
+     * @param bound         Bound, or null to find the least or greatest Key.
+     * @param above         Search above the bound, rather than below.
+     * @param inclusive     Whether a Key equal to the bound may be returned.
+     * @return              Closest Key, or null if none.
+     */
+    private Key nearest(Key bound, boolean above, boolean inclusive){
+        while (true){
+            Object result = attemptNearestBelow(holder, 0, 1, bound, above, inclusive);
+            if (result != RETRY){
+                @SuppressWarnings("unchecked")
+                Key key = (Key) result;
+                return key;
+            }
+        }
+    }
+
+    /**
+     * Search the subtree of one child of a validated node, following the hand-over-hand protocol of attemptGet.
+     * @return  Closest present Key within the child's subtree, null if none, or RETRY if the node has shrunk.
+     */
+    private Object attemptNearestBelow(ConcurrentAVLNode<Key> node, long nodeOVL, int direction, Key bound, boolean above, boolean inclusive){
+        while (true){
+            ConcurrentAVLNode<Key> child = node.child(direction);
+            if (node.changeOVL != nodeOVL){
+                return RETRY;
+            }
+            if (child == null){
+                return null;
+            }
+            long childOVL = child.changeOVL;
+            if (ConcurrentAVLNode.isShrinkingOrUnlinked(childOVL)){
+                child.waitUntilShrinkCompleted(childOVL);
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+            } else if (child != node.child(direction)){
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+            } else {
+                if (node.changeOVL != nodeOVL){
+                    return RETRY;
+                }
+                Object result = attemptNearest(child, childOVL, bound, above, inclusive);
+                if (result != RETRY){
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Search the subtree of a validated node.  Where the node lies on the wanted side of the bound, Keys nearer the
+     * bound are searched first, then the node itself; a routing node defers to the subtree beyond it.
+     */
+    private Object attemptNearest(ConcurrentAVLNode<Key> node, long nodeOVL, Key bound, boolean above, boolean inclusive){
+        TreeInstrumentation.RECORDER.level();
+        int c = bound == null ? (above ? 1 : -1) : compare(node.key, bound);
+        boolean qualifies = above ? (c > 0 || (c == 0 && inclusive)) : (c < 0 || (c == 0 && inclusive));
+        int near = above ? -1 : 1;
+        if (!qualifies){
+            return attemptNearestBelow(node, nodeOVL, -near, bound, above, inclusive);
+        }
+        Object result = attemptNearestBelow(node, nodeOVL, near, bound, above, inclusive);
+        if (result != null){
+            return result;
+        } else if (node.present){
+            return node.key;
+        } else {
+            return attemptNearestBelow(node, nodeOVL, -near, bound, above, inclusive);
+        }
+    }
+
+    /**
+     * Return a List of Keys between the given start and end, inclusive, found by successive searches.
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @return          List of Keys within range, inclusive.
+     */
+    public List<Key> getRange(Key start, Key end){
+        List<Key> result = new ArrayList<>();
+        Key key = start == null ? getMin() : ceiling(start);
+        while (key != null && (end == null || compare(key, end) <= 0)){
+            result.add(key);
+            key = higher(key);
+        }
+        return result;
+    }
+
+    /**
+     * @return  List of Keys in ascending order.
+     */
+    public List<Key> toAscendingList(){
+        return getRange(null, null);
+    }
+
+    /**
+     * Validate ordering, parent links, heights, strict AVL balance and the absence of unlinkable routing nodes.
+     * Balance is only restored once writers finish, so the tree must be quiescent.
+     * @throws InvalidSearchTreeException   Invalid tree.
+     */
+    public void validate() throws InvalidSearchTreeException {
+        int count = validateNode(holder.right, holder, null, null);
+        if (count != size()){
+            throw new InvalidSearchTreeException(String.format("Invalid size %d, tree holds %d", size(), count));
+        }
+    }
+
+    private int validateNode(ConcurrentAVLNode<Key> node, ConcurrentAVLNode<Key> parent, Key low, Key high) throws InvalidSearchTreeException {
+        if (node == null){
+            return 0;
+        }
+        if (node.parent != parent){
+            throw new InvalidSearchTreeException(String.format("Invalid parent link for key %s", node.key.toString()));
+        }
+        if (node.changeOVL == ConcurrentAVLNode.UNLINKED || (node.changeOVL & ConcurrentAVLNode.SHRINKING) != 0){
+            throw new InvalidSearchTreeException(String.format("Invalid version %d for key %s", node.changeOVL, node.key.toString()));
+        }
+        if ((low != null && compare(node.key, low) <= 0) || (high != null && compare(node.key, high) >= 0)){
+            throw new InvalidSearchTreeException(String.format("Invalid key %s, outside ancestor bounds %s, %s", node.key.toString(), low, high));
+        }
+        if (!node.present && (node.left == null || node.right == null)){
+            throw new InvalidSearchTreeException(String.format("Unlinkable routing node for key %s", node.key.toString()));
+        }
+        int leftHeight = ConcurrentAVLNode.heightOf(node.left);
+        int rightHeight = ConcurrentAVLNode.heightOf(node.right);
+        if (node.height != 1 + Math.max(leftHeight, rightHeight)){
+            throw new InvalidSearchTreeException(String.format("Invalid height for key %s, height %d, left height %d, right height %d", node.key.toString(), node.height, leftHeight, rightHeight));
+        }
+        if (Math.abs(leftHeight - rightHeight) > 1){
+            throw new InvalidSearchTreeException(String.format("Invalid balance factor for key %s, balance factor %d", node.key.toString(), rightHeight - leftHeight));
+        }
+        return (node.present ? 1 : 0) + validateNode(node.left, node, low, node.key) + validateNode(node.right, node, node.key, high);
+    }
+}
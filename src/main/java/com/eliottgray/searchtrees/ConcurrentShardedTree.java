@@ -0,0 +1,174 @@
+package com.eliottgray.searchtrees;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mutable, thread-safe holder of a ShardedTree, whose writers contend only with writers to the same shard.
+ *
+ * Each shard's current AVLTree sits in its own atomic slot, updated by compare-and-set; writers to different shards
+ * never retry against each other, unlike writers sharing a single atomic root.  Writers share a read lock, which
+ * snapshot() and shard splits and merges take exclusively: a snapshot therefore copies every shard at one instant,
+ * and is consistent across shards.  Point lookups take no lock at all.  The total size, against which writers check
+ * their shard for skew, is kept in a striped counter, so that a write touches no other shard.
+ */
+public class ConcurrentShardedTree<Key extends Comparable<Key>> {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Layout<Key> layout;
+
+    /**
+     * Hold the given tree, which becomes the first snapshot.
+     * @param tree  Initial tree.
+     */
+    public ConcurrentShardedTree(ShardedTree<Key> tree){
+        this.layout = new Layout<>(tree);
+    }
+
+    /**
+     * Boundaries of a ShardedTree, with an atomic slot for the current tree of each shard, and their total size.
+     * Replaced as a whole when shards are split or merged.
+     */
+    private static class Layout<Key extends Comparable<Key>> {
+
+        final ShardedTree<Key> routing;
+        final AtomicReferenceArray<AVLTree<Key>> shards;
+
+        // Adjusted by each writer once its compare-and-set succeeds.
+        final LongAdder size = new LongAdder();
+
+        Layout(ShardedTree<Key> tree){
+            this.routing = tree;
+            this.shards = new AtomicReferenceArray<>(tree.shards);
+            this.size.add(tree.size());
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ShardedTree<Key> snapshot(){
+            AVLTree<Key>[] copy = (AVLTree<Key>[]) new AVLTree[shards.length()];
+            for (int i = 0; i < copy.length; i++){
+                copy[i] = shards.get(i);
+            }
+            return new ShardedTree<>(routing.comparator, routing.boundaries, copy, routing.targetShards);
+        }
+
+        int size(){
+            return size.intValue();
+        }
+    }
+
+    /**
+     * Insert a Key, overwriting an equal Key.
+     * @param key   Key to insert.
+     */
+    public void insert(Key key){
+        boolean skewed;
+        lock.readLock().lock();
+        try {
+            Layout<Key> current = layout;
+            int index = current.routing.shardOf(key);
+            AVLTree<Key> before;
+            AVLTree<Key> after;
+            do {
+                before = current.shards.get(index);
+                after = before.insert(key);
+            } while (!current.shards.compareAndSet(index, before, after));
+            current.size.add(after.size() - before.size());
+            skewed = current.routing.isOversized(after.size(), current.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (skewed){
+            rebalance();
+        }
+    }
+
+    /**
+     * Delete a Key.
+     * @param key   Key to delete.
+     * @return      Whether the Key was present.
+     */
+    public boolean delete(Key key){
+        boolean deleted;
+        boolean skewed = false;
+        lock.readLock().lock();
+        try {
+            Layout<Key> current = layout;
+            int index = current.routing.shardOf(key);
+            AVLTree<Key> before;
+            AVLTree<Key> after;
+            do {
+                before = current.shards.get(index);
+                after = before.delete(key);
+            } while (after.size() != before.size() && !current.shards.compareAndSet(index, before, after));
+            deleted = after.size() != before.size();
+            if (deleted){
+                current.size.decrement();
+            }
+            if (deleted && current.shards.length() > 1){
+                int neighbour = index == 0 ? 1 : index - 1;
+                skewed = current.routing.isUndersized(after.size() + current.shards.get(neighbour).size(), current.size());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (skewed){
+            rebalance();
+        }
+        return deleted;
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Presence of Key.
+     */
+    public boolean contains(Key key){
+        Layout<Key> current = layout;
+        return current.shards.get(current.routing.shardOf(key)).contains(key);
+    }
+
+    /**
+     * @return  Number of Keys; not atomic across shards while writers are active.
+     */
+    public int size(){
+        return layout.size();
+    }
+
+    /**
+     * @return  Current number of shards.
+     */
+    public int getShardCount(){
+        return layout.shards.length();
+    }
+
+    /**
+     * Copy every shard at a single instant, briefly excluding writers.
+     * @return  Immutable tree, consistent across every shard.
+     */
+    public ShardedTree<Key> snapshot(){
+        lock.writeLock().lock();
+        try {
+            return layout.snapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Split and merge skewed shards, excluding writers while the new layout is built.
+     */
+    void rebalance(){
+        lock.writeLock().lock();
+        try {
+            ShardedTree<Key> current = layout.snapshot();
+            ShardedTree<Key> rebalanced = current.rebalance();
+            if (rebalanced != current){
+                layout = new Layout<>(rebalanced);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
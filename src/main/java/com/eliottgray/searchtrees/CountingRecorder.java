@@ -0,0 +1,131 @@
+package com.eliottgray.searchtrees;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Recorder which counts the events of each operation, and records the counts into per-operation histograms.
+ *
+ * Counts accumulate in a per-thread scratch area while an operation runs, and are published when it ends.
+ * Optionally, every operation slower than a threshold is also emitted as a Java Flight Recorder event.
+ */
+public class CountingRecorder implements TreeRecorder {
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final long slowThresholdNanos;
+    private final SlowOperationEvents slowOperationEvents;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Counts for the operation in progress on one thread.
+     */
+    private static class Scratch {
+        int nesting;
+        long startNanos;
+        long comparisons;
+        long allocations;
+        long singleRotations;
+        long doubleRotations;
+        long levels;
+    }
+
+    /**
+     * Recorder which only counts.
+     */
+    public CountingRecorder(){
+        this(Long.MAX_VALUE, false);
+    }
+
+    /**
+     * @param slowThresholdNanos        Latency above which an operation is emitted as a flight recorder event.
+     * @param emitFlightRecorderEvents  Whether to emit flight recorder events for slow operations.
+     * @throws IllegalStateException    If events are to be emitted, but the runtime has no flight recorder.
+     */
+    public CountingRecorder(long slowThresholdNanos, boolean emitFlightRecorderEvents){
+        this.slowThresholdNanos = slowThresholdNanos;
+        try {
+            this.slowOperationEvents = emitFlightRecorderEvents ? SlowOperationEvents.create() : null;
+        } catch (ReflectiveOperationException exception){
+            throw new IllegalStateException("Flight recorder events require a runtime with jdk.jfr", exception);
+        }
+        for (Operation operation : Operation.values()){
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * @param operation     Operation type.
+     * @return              Histograms of work done by that operation.
+     */
+    public OperationStats getStats(Operation operation){
+        return stats.get(operation);
+    }
+
+    /**
+     * Discard all recorded values.
+     */
+    public void reset(){
+        for (OperationStats operationStats : stats.values()){
+            operationStats.reset();
+        }
+    }
+
+    @Override
+    public void begin(Operation operation){
+        Scratch current = scratch.get();
+        if (current.nesting++ == 0){
+            current.startNanos = System.nanoTime();
+            current.comparisons = 0;
+            current.allocations = 0;
+            current.singleRotations = 0;
+            current.doubleRotations = 0;
+            current.levels = 0;
+        }
+    }
+
+    @Override
+    public void end(Operation operation){
+        Scratch current = scratch.get();
+        if (--current.nesting > 0){
+            return;
+        }
+        long latencyNanos = System.nanoTime() - current.startNanos;
+        OperationStats operationStats = stats.get(operation);
+        operationStats.comparisons.record(current.comparisons);
+        operationStats.allocations.record(current.allocations);
+        operationStats.singleRotations.record(current.singleRotations);
+        operationStats.doubleRotations.record(current.doubleRotations);
+        operationStats.levels.record(current.levels);
+        operationStats.latencyNanos.record(latencyNanos);
+
+        if (slowOperationEvents != null && latencyNanos > slowThresholdNanos){
+            slowOperationEvents.commit(operation, latencyNanos, current.comparisons, current.allocations,
+                    current.singleRotations + current.doubleRotations, current.levels);
+        }
+    }
+
+    @Override
+    public void comparison(){
+        scratch.get().comparisons++;
+    }
+
+    @Override
+    public void allocation(){
+        scratch.get().allocations++;
+    }
+
+    @Override
+    public void rotation(boolean isDouble){
+        Scratch current = scratch.get();
+        if (isDouble){
+            current.doubleRotations++;
+        } else {
+            current.singleRotations++;
+        }
+    }
+
+    @Override
+    public void level(){
+        scratch.get().levels++;
+    }
+}
@@ -0,0 +1,69 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Iterator;
+
+/**
+ * Frozen set of Integer Keys in natural order, stored unboxed in an int array.
+ */
+public class FrozenIntSortedSet extends FrozenSortedSet<Integer> {
+
+    private final int[] keys;
+
+    FrozenIntSortedSet(Tree<Integer> tree){
+        super(tree.size());
+        this.keys = new int[size + 1];
+        Iterator<Integer> iterator = tree.rangeIterator(null, true, null, true, false);
+        for (int index = first(size); index != 0; index = successor(index, size)){
+            keys[index] = iterator.next();
+        }
+    }
+
+    /**
+     * Determine whether or not the given Key is contained within the set, without boxing.
+     * @param key   Key to search for.
+     * @return      Presence of Key in set.
+     */
+    public boolean contains(int key){
+        int index = ceilingIndex(key);
+        return index != 0 && keys[index] == key;
+    }
+
+    @Override
+    public boolean contains(Integer key){
+        return contains(key.intValue());
+    }
+
+    @Override
+    int floorIndex(Integer key){
+        return floorIndex(key.intValue());
+    }
+
+    private int floorIndex(int key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (keys[index] <= key ? 1 : 0);
+        }
+        return lastRightTurn(index);
+    }
+
+    @Override
+    int ceilingIndex(Integer key){
+        return ceilingIndex(key.intValue());
+    }
+
+    private int ceilingIndex(int key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (keys[index] < key ? 1 : 0);
+        }
+        return lastLeftTurn(index);
+    }
+
+    @Override
+    Integer keyAt(int index){ return keys[index]; }
+
+    @Override
+    int compareAt(int index, Integer key){
+        return Integer.compare(keys[index], key);
+    }
+}
@@ -0,0 +1,69 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Iterator;
+
+/**
+ * Frozen set of Long Keys in natural order, stored unboxed in a long array.
+ */
+public class FrozenLongSortedSet extends FrozenSortedSet<Long> {
+
+    private final long[] keys;
+
+    FrozenLongSortedSet(Tree<Long> tree){
+        super(tree.size());
+        this.keys = new long[size + 1];
+        Iterator<Long> iterator = tree.rangeIterator(null, true, null, true, false);
+        for (int index = first(size); index != 0; index = successor(index, size)){
+            keys[index] = iterator.next();
+        }
+    }
+
+    /**
+     * Determine whether or not the given Key is contained within the set, without boxing.
+     * @param key   Key to search for.
+     * @return      Presence of Key in set.
+     */
+    public boolean contains(long key){
+        int index = ceilingIndex(key);
+        return index != 0 && keys[index] == key;
+    }
+
+    @Override
+    public boolean contains(Long key){
+        return contains(key.longValue());
+    }
+
+    @Override
+    int floorIndex(Long key){
+        return floorIndex(key.longValue());
+    }
+
+    private int floorIndex(long key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (keys[index] <= key ? 1 : 0);
+        }
+        return lastRightTurn(index);
+    }
+
+    @Override
+    int ceilingIndex(Long key){
+        return ceilingIndex(key.longValue());
+    }
+
+    private int ceilingIndex(long key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (keys[index] < key ? 1 : 0);
+        }
+        return lastLeftTurn(index);
+    }
+
+    @Override
+    Long keyAt(int index){ return keys[index]; }
+
+    @Override
+    int compareAt(int index, Long key){
+        return Long.compare(keys[index], key);
+    }
+}
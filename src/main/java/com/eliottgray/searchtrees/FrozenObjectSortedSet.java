@@ -0,0 +1,56 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Frozen set of arbitrary Keys, compared with the comparator of the Tree they were copied from.
+ */
+class FrozenObjectSortedSet<Key extends Comparable<Key>> extends FrozenSortedSet<Key> {
+
+    private final Comparator<Key> comparator;
+    private final Object[] keys;
+
+    FrozenObjectSortedSet(Tree<Key> tree){
+        super(tree.size());
+        this.comparator = tree.comparator;
+        this.keys = new Object[size + 1];
+        Iterator<Key> iterator = tree.rangeIterator(null, true, null, true, false);
+        for (int index = first(size); index != 0; index = successor(index, size)){
+            keys[index] = iterator.next();
+        }
+    }
+
+    @Override
+    public boolean contains(Key key){
+        int index = ceilingIndex(key);
+        return index != 0 && compareAt(index, key) == 0;
+    }
+
+    @Override
+    int floorIndex(Key key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (compareAt(index, key) <= 0 ? 1 : 0);
+        }
+        return lastRightTurn(index);
+    }
+
+    @Override
+    int ceilingIndex(Key key){
+        int index = 1;
+        while (index <= size){
+            index = 2 * index + (compareAt(index, key) < 0 ? 1 : 0);
+        }
+        return lastLeftTurn(index);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Key keyAt(int index){ return (Key) keys[index]; }
+
+    @Override
+    int compareAt(int index, Key key){
+        return comparator.compare(keyAt(index), key);
+    }
+}
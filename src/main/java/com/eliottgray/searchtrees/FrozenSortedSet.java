@@ -0,0 +1,251 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, array-backed sorted set, for read-mostly lookups.
+ *
+ * Keys are stored in Eytzinger (breadth-first) order: the root of an implicit balanced tree sits at index 1,
+ * and the children of index k sit at 2k and 2k + 1.  The top levels of every search share the same few cache
+ * lines, and each search step is a single array access with no pointer to chase.  Searches descend without
+ * branching on the comparison, accumulating the path taken in the bits of the index; the answer is then
+ * recovered from the path by stripping its trailing turns.
+ *
+ * Index 0 is unused, and stands for "no such Key".
+ */
+public abstract class FrozenSortedSet<Key extends Comparable<Key>> implements Iterable<Key> {
+
+    /** Largest supported size, such that indexes 2k + 1 never overflow an int. */
+    static final int MAX_SIZE = (1 << 30) - 1;
+
+    final int size;
+
+    FrozenSortedSet(int size){
+        if (size > MAX_SIZE){
+            throw new IllegalArgumentException(String.format("Size %d exceeds maximum frozen size %d", size, MAX_SIZE));
+        }
+        this.size = size;
+    }
+
+    /**
+     * Copy a Tree into a frozen set.
+     * Trees of Integer or Long Keys in their natural order are stored in primitive arrays.
+     * @param tree  Tree to copy.
+     * @return      Frozen copy of the Tree.
+     */
+    @SuppressWarnings("unchecked")
+    static <Key extends Comparable<Key>> FrozenSortedSet<Key> of(Tree<Key> tree){
+        if (tree.isNaturalOrder() && !tree.isEmpty()){
+            Key min = tree.getMin();
+            if (min instanceof Integer){
+                return (FrozenSortedSet<Key>) (FrozenSortedSet<?>) new FrozenIntSortedSet((Tree<Integer>) tree);
+            } else if (min instanceof Long){
+                return (FrozenSortedSet<Key>) (FrozenSortedSet<?>) new FrozenLongSortedSet((Tree<Long>) tree);
+            }
+        }
+        return new FrozenObjectSortedSet<>(tree);
+    }
+
+    /**
+     * @return  Number of Keys in the set.
+     */
+    public int size(){ return size; }
+
+    /**
+     * @return  Whether the set is empty or not.
+     */
+    public boolean isEmpty(){ return size == 0; }
+
+    /**
+     * Determine whether or not the given Key is contained within the set.
+     * @param key   Key to search for.
+     * @return      Presence of Key in set.
+     */
+    public abstract boolean contains(Key key);
+
+    /**
+     * @param key   Key to search for.
+     * @return      Greatest Key less than or equal to the given Key, or null if there is no such Key.
+     */
+    public Key floor(Key key){
+        int index = floorIndex(key);
+        return index == 0 ? null : keyAt(index);
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Least Key greater than or equal to the given Key, or null if there is no such Key.
+     */
+    public Key ceiling(Key key){
+        int index = ceilingIndex(key);
+        return index == 0 ? null : keyAt(index);
+    }
+
+    /**
+     * @return  Minimum Key, or null if empty.
+     */
+    public Key getMin(){
+        return isEmpty() ? null : keyAt(first(size));
+    }
+
+    /**
+     * @return  Maximum Key, or null if empty.
+     */
+    public Key getMax(){
+        return isEmpty() ? null : keyAt(last(size));
+    }
+
+    /**
+     * @return  Iterator over all Keys in ascending order.
+     */
+    @Override
+    public Iterator<Key> iterator(){
+        return new AscendingIterator(first(size), null);
+    }
+
+    /**
+     * Iterate lazily over the Keys between the given start and end, inclusive.
+     * A null bound leaves that side of the range open.
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @return          Iterator over Keys within range, in ascending order.
+     */
+    public Iterator<Key> rangeIterator(Key start, Key end){
+        return new AscendingIterator(start == null ? first(size) : ceilingIndex(start), end);
+    }
+
+    /**
+     * @return  List of Keys in ascending order.
+     */
+    public List<Key> toAscendingList(){
+        List<Key> result = new ArrayList<>(size);
+        for (Key key : this){
+            result.add(key);
+        }
+        return result;
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Index of the greatest Key less than or equal to the given Key, or 0 if there is no such Key.
+     */
+    abstract int floorIndex(Key key);
+
+    /**
+     * @param key   Key to search for.
+     * @return      Index of the least Key greater than or equal to the given Key, or 0 if there is no such Key.
+     */
+    abstract int ceilingIndex(Key key);
+
+    /**
+     * @param index     Index within the Eytzinger layout.
+     * @return          Key at index.
+     */
+    abstract Key keyAt(int index);
+
+    /**
+     * Compare the Key at the given index against another Key.
+     * @param index     Index within the Eytzinger layout.
+     * @param key       Key to compare against.
+     * @return          Negative, zero or positive, as the Key at index is less than, equal to or greater than the given Key.
+     */
+    abstract int compareAt(int index, Key key);
+
+    /**
+     * Recover the last node at which a search turned left, from the index at which it fell off the tree.
+     * A search for the least Key not less than its target turns left at exactly such Keys.
+     * @param index     Index past the bottom of the tree.
+     * @return          Index of the last left turn, or 0 if the search never turned left.
+     */
+    static int lastLeftTurn(int index){
+        return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+    }
+
+    /**
+     * Recover the last node at which a search turned right, from the index at which it fell off the tree.
+     * A search for the greatest Key not greater than its target turns right at exactly such Keys.
+     * @param index     Index past the bottom of the tree.
+     * @return          Index of the last right turn, or 0 if the search never turned right.
+     */
+    static int lastRightTurn(int index){
+        return index >>> (Integer.numberOfTrailingZeros(index) + 1);
+    }
+
+    /**
+     * @return  Index of the least Key in a layout of the given size, or 0 if empty.
+     */
+    static int first(int size){
+        if (size == 0){
+            return 0;
+        }
+        int index = 1;
+        while (2 * index <= size){
+            index = 2 * index;
+        }
+        return index;
+    }
+
+    /**
+     * @return  Index of the greatest Key in a layout of the given size, or 0 if empty.
+     */
+    static int last(int size){
+        if (size == 0){
+            return 0;
+        }
+        int index = 1;
+        while (2 * index + 1 <= size){
+            index = 2 * index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * In-order successor within the Eytzinger layout: the leftmost node of the right subtree if there is one,
+     * otherwise the nearest ancestor whose left subtree holds the given index.
+     * @param index     Index of current Key.
+     * @param size      Size of layout.
+     * @return          Index of the next Key, or 0 if the given index holds the greatest Key.
+     */
+    static int successor(int index, int size){
+        if (2 * index + 1 <= size){
+            index = 2 * index + 1;
+            while (2 * index <= size){
+                index = 2 * index;
+            }
+            return index;
+        }
+        return lastLeftTurn(index);
+    }
+
+    private class AscendingIterator implements Iterator<Key> {
+
+        private final Key end;
+        private int index;
+
+        AscendingIterator(int index, Key end){
+            this.end = end;
+            this.index = (index != 0 && end != null && compareAt(index, end) > 0) ? 0 : index;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return index != 0;
+        }
+
+        @Override
+        public Key next(){
+            if (index == 0){
+                throw new NoSuchElementException();
+            }
+            Key key = keyAt(index);
+            index = successor(index, size);
+            if (index != 0 && end != null && compareAt(index, end) > 0){
+                index = 0;
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.eliottgray.searchtrees;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of non-negative values, in power-of-two buckets.
+ *
+ * Bucket 0 counts zeros, and bucket i counts values in [2^(i-1), 2^i).  Percentiles are therefore reported as the
+ * upper bound of the bucket in which they fall, which is accurate to within a factor of two.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param value     Value to record; negative values are recorded as zero.
+     */
+    public void record(long value){
+        value = Math.max(0, value);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * @return  Number of values recorded.
+     */
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * @return  Sum of values recorded.
+     */
+    public long getSum(){
+        return sum.sum();
+    }
+
+    /**
+     * @return  Mean of values recorded, or zero if none.
+     */
+    public double getMean(){
+        long count = getCount();
+        return count == 0 ? 0 : getSum() / (double) count;
+    }
+
+    /**
+     * @param percentile    Percentile, between 0 and 100.
+     * @return              Upper bound of the bucket holding the given percentile, or zero if no values are recorded.
+     */
+    public long getPercentile(double percentile){
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            total += buckets.get(i);
+        }
+        long threshold = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++){
+            seen += buckets.get(i);
+            if (seen >= threshold && seen > 0){
+                return i == 0 ? 0 : (i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return  Count of values within each bucket.
+     */
+    public long[] getBuckets(){
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++){
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Discard all recorded values.
+     */
+    public void reset(){
+        for (int i = 0; i < BUCKETS; i++){
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    @Override
+    public String toString(){
+        return String.format("count=%d mean=%.2f p50=%d p99=%d", getCount(), getMean(), getPercentile(50), getPercentile(99));
+    }
+}
@@ -0,0 +1,255 @@
+package com.eliottgray.searchtrees;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of contains, floor and ceiling results, in front of a BinarySearchTree, for skewed workloads in which
+ * a few hot Keys take most lookups.  A hit costs one hash lookup rather than a walk from root to leaf.
+ *
+ * Each entry holds the root it was computed against, and is used only for a tree with that root; since roots are
+ * immutable, a cached result can never be stale.  Looking up against another version recomputes the entry, so a new
+ * version invalidates the cache wholesale, unless advance re-stamps the entries that a single-Key update leaves valid.
+ *
+ * Eviction is by CLOCK: each hit marks its entry referenced, and the hand sweeping for a victim clears marks until it
+ * finds an entry not referenced since its last pass, which approximates LRU without reordering on every hit.
+ *
+ * A cache is mutable, and is not safe for use by multiple threads; keep one per thread.
+ */
+public class HotKeyCache<Key extends Comparable<Key>> {
+
+    private enum Lookup { CONTAINS, FLOOR, CEILING }
+
+    /** Stands in for the null root of an empty tree. */
+    private static final Object EMPTY_ROOT = new Object();
+
+    private static class Entry<Key> {
+        private Key key;
+        private Lookup lookup;
+        private Object root;
+        private Object result;
+        private boolean referenced;
+
+        @Override
+        public int hashCode(){
+            return 31 * key.hashCode() + lookup.ordinal();
+        }
+
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof Entry)){
+                return false;
+            }
+            Entry<?> entry = (Entry<?>) other;
+            return lookup == entry.lookup && key.equals(entry.key);
+        }
+    }
+
+    private final int capacity;
+    private final Map<Entry<Key>, Entry<Key>> entries;
+    private final Entry<Key>[] clock;
+    private final Entry<Key> probe = new Entry<>();
+    private int hand;
+    private int count;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Empty cache.
+     * @param capacity  Maximum number of results held.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HotKeyCache(int capacity){
+        if (capacity < 1){
+            throw new IllegalArgumentException(String.format("Invalid capacity %d", capacity));
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(2 * capacity);
+        this.clock = (Entry<Key>[]) new Entry[capacity];
+    }
+
+    private static Object rootOf(BinarySearchTree<?> tree){
+        Object root = tree.getRoot();
+        return root == null ? EMPTY_ROOT : root;
+    }
+
+    /**
+     * @param tree  Tree to search.
+     * @param key   Key to search for.
+     * @return      Whether the tree contains the Key.
+     */
+    public boolean contains(BinarySearchTree<Key> tree, Key key){
+        Object root = rootOf(tree);
+        Entry<Key> entry = find(key, Lookup.CONTAINS);
+        if (isCurrent(entry, root)){
+            return (Boolean) entry.result;
+        }
+        boolean result = tree.contains(key);
+        store(entry, root, key, Lookup.CONTAINS, result);
+        return result;
+    }
+
+    /**
+     * @param tree  Tree to search.
+     * @param key   Key to search for.
+     * @return      Greatest Key less than or equal to the given Key, or null if there is no such Key.
+     */
+    @SuppressWarnings("unchecked")
+    public Key floor(BinarySearchTree<Key> tree, Key key){
+        Object root = rootOf(tree);
+        Entry<Key> entry = find(key, Lookup.FLOOR);
+        if (isCurrent(entry, root)){
+            return (Key) entry.result;
+        }
+        Key result = tree.floor(key);
+        store(entry, root, key, Lookup.FLOOR, result);
+        return result;
+    }
+
+    /**
+     * @param tree  Tree to search.
+     * @param key   Key to search for.
+     * @return      Least Key greater than or equal to the given Key, or null if there is no such Key.
+     */
+    @SuppressWarnings("unchecked")
+    public Key ceiling(BinarySearchTree<Key> tree, Key key){
+        Object root = rootOf(tree);
+        Entry<Key> entry = find(key, Lookup.CEILING);
+        if (isCurrent(entry, root)){
+            return (Key) entry.result;
+        }
+        Key result = tree.ceiling(key);
+        store(entry, root, key, Lookup.CEILING, result);
+        return result;
+    }
+
+    /**
+     * @return  Entry for the Key and lookup, against any root, or null if there is none.
+     */
+    private Entry<Key> find(Key key, Lookup lookup){
+        probe.key = key;
+        probe.lookup = lookup;
+        Entry<Key> entry = entries.get(probe);
+        probe.key = null;
+        return entry;
+    }
+
+    /**
+     * Count a hit, marking the entry referenced, or a miss.
+     * @return  Whether the entry exists and was computed against the root.
+     */
+    private boolean isCurrent(Entry<Key> entry, Object root){
+        if (entry != null && entry.root == root){
+            entry.referenced = true;
+            hits++;
+            return true;
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Store a result, refreshing an entry computed against another root in place, or else taking a free slot or
+     * evicting a victim.
+     */
+    private void store(Entry<Key> entry, Object root, Key key, Lookup lookup, Object result){
+        if (entry == null){
+            if (count < capacity){
+                entry = new Entry<>();
+                clock[count++] = entry;
+            } else {
+                while (clock[hand].referenced){
+                    clock[hand].referenced = false;
+                    hand = (hand + 1) % capacity;
+                }
+                entry = clock[hand];
+                entries.remove(entry);
+                hand = (hand + 1) % capacity;
+                evictions++;
+            }
+            entry.key = key;
+            entry.lookup = lookup;
+            entries.put(entry, entry);
+        }
+        entry.root = root;
+        entry.result = result;
+        entry.referenced = false;
+    }
+
+    /**
+     * Carry entries over from one version of a tree to the next, where the versions differ by the insert or delete of
+     * a single Key.  Entries whose result that Key may change are left behind, to be recomputed: contains of the Key,
+     * and floor or ceiling of any Key whose result lies on the far side of it, or at it.  Costs O(capacity).
+     * @param from      Older version, against which entries were computed.
+     * @param to        Newer version.
+     * @param changed   Key inserted or deleted between the versions.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(BinarySearchTree<Key> from, BinarySearchTree<Key> to, Key changed){
+        Object fromRoot = rootOf(from);
+        Object toRoot = rootOf(to);
+        for (int i = 0; i < count; i++){
+            Entry<Key> entry = clock[i];
+            if (entry.root != fromRoot){
+                continue;
+            }
+            Key result = entry.lookup == Lookup.CONTAINS ? null : (Key) entry.result;
+            boolean affected;
+            switch (entry.lookup){
+                case CONTAINS:
+                    affected = to.compare(entry.key, changed) == 0;
+                    break;
+                case FLOOR:
+                    affected = to.compare(changed, entry.key) <= 0 && (result == null || to.compare(changed, result) >= 0);
+                    break;
+                default:
+                    affected = to.compare(changed, entry.key) >= 0 && (result == null || to.compare(changed, result) <= 0);
+                    break;
+            }
+            if (!affected){
+                entry.root = toRoot;
+            }
+        }
+    }
+
+    /**
+     * Drop every entry, keeping the counts of hits, misses and evictions.
+     */
+    public void clear(){
+        entries.clear();
+        for (int i = 0; i < count; i++){
+            clock[i] = null;
+        }
+        count = 0;
+        hand = 0;
+    }
+
+    /**
+     * @return  Number of results held.
+     */
+    public int size(){ return count; }
+
+    /**
+     * @return  Number of lookups answered from the cache.
+     */
+    public long getHits(){ return hits; }
+
+    /**
+     * @return  Number of lookups passed to the tree.
+     */
+    public long getMisses(){ return misses; }
+
+    /**
+     * @return  Number of entries evicted to make room for others.
+     */
+    public long getEvictions(){ return evictions; }
+
+    /**
+     * @return  Fraction of lookups answered from the cache, or 0 before any lookup.
+     */
+    public double getHitRate(){
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
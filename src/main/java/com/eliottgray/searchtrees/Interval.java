@@ -0,0 +1,66 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Objects;
+
+/**
+ * Closed interval between two Points, inclusive.
+ * Intervals are ordered by start Point, then by end Point.
+ */
+public final class Interval<Point extends Comparable<Point>> implements Comparable<Interval<Point>> {
+
+    final Point start;
+    final Point end;
+
+    /**
+     * @param start     Start Point, inclusive.
+     * @param end       End Point, inclusive.
+     * @throws IllegalArgumentException     End is before start.
+     */
+    public Interval(Point start, Point end){
+        if (start.compareTo(end) > 0){
+            throw new IllegalArgumentException(String.format("Interval end %s is before start %s", end, start));
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    public Point getStart(){ return start; }
+    public Point getEnd(){ return end; }
+
+    /**
+     * @param otherStart    Start of other range, inclusive.
+     * @param otherEnd      End of other range, inclusive.
+     * @return              Whether this Interval shares at least one Point with the given range.
+     */
+    public boolean overlaps(Point otherStart, Point otherEnd){
+        return start.compareTo(otherEnd) <= 0 && end.compareTo(otherStart) >= 0;
+    }
+
+    @Override
+    public int compareTo(Interval<Point> other){
+        int comparison = start.compareTo(other.start);
+        return comparison != 0 ? comparison : end.compareTo(other.end);
+    }
+
+    @Override
+    public boolean equals(Object other){
+        if (this == other){
+            return true;
+        } else if (!(other instanceof Interval)){
+            return false;
+        } else {
+            Interval<?> interval = (Interval<?>) other;
+            return start.equals(interval.start) && end.equals(interval.end);
+        }
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(start, end);
+    }
+
+    @Override
+    public String toString(){
+        return "[" + start + ", " + end + "]";
+    }
+}
@@ -0,0 +1,86 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AVL Tree of Intervals, answering overlap and stabbing queries in O(log n + k).
+ *
+ * Intervals are ordered by start Point, and every Node is augmented with the maximum end Point within its subtree.
+ * The maximum is computed in the Node constructor, alongside height and size, and so is maintained through
+ * path copying and through every rotation.  A query skips any subtree whose maximum end Point falls before the
+ * query range, and stops at any Node whose start Point falls after it.
+ */
+public class IntervalAVLTree<Point extends Comparable<Point>> extends AugmentedAVLTree<Interval<Point>, Point> {
+
+    /**
+     * Empty tree.
+     */
+    public IntervalAVLTree(){
+        super(Monoid.maximum(Interval::getEnd));
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root          Existing root node.
+     * @param comparator    Comparator corresponding to current root node.
+     * @param monoid        Aggregation corresponding to current root node.
+     */
+    IntervalAVLTree(BinarySearchNode<Interval<Point>> root, Comparator<Interval<Point>> comparator, Monoid<Interval<Point>, Point> monoid){
+        super(root, comparator, monoid);
+    }
+
+    @Override
+    IntervalAVLTree<Point> withRoot(BinarySearchNode<Interval<Point>> root){
+        return new IntervalAVLTree<>(root, comparator, monoid);
+    }
+
+    @Override
+    public IntervalAVLTree<Point> insert(Interval<Point> interval){
+        return (IntervalAVLTree<Point>) super.insert(interval);
+    }
+
+    @Override
+    public IntervalAVLTree<Point> delete(Interval<Point> interval){
+        return (IntervalAVLTree<Point>) super.delete(interval);
+    }
+
+    /**
+     * Return all Intervals which share at least one Point with the given range, in ascending order.
+     * @param start     Start of range, inclusive.
+     * @param end       End of range, inclusive.
+     * @return          List of overlapping Intervals.
+     */
+    public List<Interval<Point>> getOverlapping(Point start, Point end){
+        List<Interval<Point>> result = new ArrayList<>();
+        recursiveGetOverlapping(start, end, result, getRoot());
+        return result;
+    }
+
+    /**
+     * Return all Intervals containing the given Point, in ascending order.
+     * @param point     Point to stab.
+     * @return          List of Intervals containing Point.
+     */
+    public List<Interval<Point>> getStabbing(Point point){
+        return getOverlapping(point, point);
+    }
+
+    private void recursiveGetOverlapping(Point start, Point end, List<Interval<Point>> result, AugmentedNode<Interval<Point>, Point> current){
+        // No Interval within this subtree reaches the start of the range.
+        if (current == null || current.aggregate.compareTo(start) < 0){
+            return;
+        }
+        recursiveGetOverlapping(start, end, result, current.getLeft());
+
+        // Intervals from here rightward start after the range ends, once this one does.
+        Interval<Point> interval = current.getKey();
+        if (interval.start.compareTo(end) <= 0){
+            if (interval.end.compareTo(start) >= 0){
+                result.add(interval);
+            }
+            recursiveGetOverlapping(start, end, result, current.getRight());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.eliottgray.searchtrees;
+
+class KDNode {
+
+    final double[] point;
+    final KDNode left;
+    final KDNode right;
+    final int size;
+
+    /**
+     * Construct new leaf node, with no children.
+     * @param point     Coordinates of node.
+     */
+    KDNode(double[] point){
+        this.point = point;
+        this.left = null;
+        this.right = null;
+        this.size = 1;
+    }
+
+    /**
+     * Construct replacement node, with existing children.
+     * @param point     Coordinates of node.
+     * @param left      Existing left child, with lesser coordinate along this node's axis.
+     * @param right     Existing right child, with greater or equal coordinate along this node's axis.
+     */
+    KDNode(double[] point, KDNode left, KDNode right){
+        this.point = point;
+        this.left = left;
+        this.right = right;
+        this.size = 1 + (left == null ? 0 : left.size) + (right == null ? 0 : right.size);
+    }
+
+    boolean hasLeft(){ return left != null; }
+    boolean hasRight(){ return right != null; }
+}
@@ -0,0 +1,428 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * K-dimensional tree of points, for spatial range queries and k-nearest-neighbor queries.
+ *
+ * Each level of the tree splits on one axis in turn: points with a lesser coordinate along the axis lie to the left,
+ * and points with a greater or equal coordinate lie to the right.
+ *
+ * Like the one-dimensional trees, a KDTree is immutable.  Insertion and deletion copy only the path to the changed node,
+ * and return a new tree.  Bulk construction with build() splits at the median of each axis, for a balanced tree in
+ * O(n log n) expected time; insertion and deletion do not rebalance.
+ *
+ * Points are arrays of coordinates, which must not be modified once added.  Equal points are stored once.
+ */
+public class KDTree {
+
+    final int dimensions;
+    final KDNode root;
+
+    /**
+     * Empty tree.
+     * @param dimensions    Number of coordinates of each point.
+     */
+    public KDTree(int dimensions){
+        this(dimensions, null);
+        if (dimensions < 1){
+            throw new IllegalArgumentException(String.format("Invalid number of dimensions %d", dimensions));
+        }
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param dimensions    Number of coordinates of each point.
+     * @param root          Existing root node.
+     */
+    KDTree(int dimensions, KDNode root){
+        this.dimensions = dimensions;
+        this.root = root;
+    }
+
+    /**
+     * Construct a balanced tree from a collection of points, in O(n log n) expected time.
+     * @param dimensions    Number of coordinates of each point.
+     * @param points        Points to add.
+     * @return              New tree.
+     */
+    public static KDTree build(int dimensions, Collection<double[]> points){
+        KDTree empty = new KDTree(dimensions);
+        double[][] array = points.toArray(new double[0][]);
+        for (double[] point : array){
+            empty.checkDimensions(point);
+        }
+
+        // Remove duplicate points.
+        Arrays.sort(array, KDTree::compareLexicographically);
+        int distinct = 0;
+        for (int i = 0; i < array.length; i++){
+            if (i == 0 || !Arrays.equals(array[i], array[distinct - 1])){
+                array[distinct++] = array[i];
+            }
+        }
+        return new KDTree(dimensions, buildBalanced(array, 0, distinct, 0, dimensions));
+    }
+
+    private static int compareLexicographically(double[] one, double[] two){
+        for (int i = 0; i < one.length; i++){
+            int comparison = Double.compare(one[i], two[i]);
+            if (comparison != 0){
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Build a balanced subtree from the points in the given range of the array, splitting at the median along the axis.
+     * The array is reordered in place.
+     */
+    private static KDNode buildBalanced(double[][] points, int from, int to, int depth, int dimensions){
+        if (from >= to){
+            return null;
+        }
+        int axis = depth % dimensions;
+        int median = partitionAtMedian(points, from, to, axis);
+        KDNode left = buildBalanced(points, from, median, depth + 1, dimensions);
+        KDNode right = buildBalanced(points, median + 1, to, depth + 1, dimensions);
+        return new KDNode(points[median], left, right);
+    }
+
+    /**
+     * Quickselect the median along the axis, with three-way partitioning so that every point left of the returned index
+     * has a strictly lesser coordinate, and every point right of it a greater or equal one.
+     * @return      Index of the splitting point.
+     */
+    private static int partitionAtMedian(double[][] points, int from, int to, int axis){
+        int target = (from + to) >>> 1;
+        int low = from;
+        int high = to;
+        while (true){
+            double pivot = points[ThreadLocalRandom.current().nextInt(low, high)][axis];
+
+            // Partition into [less than pivot][equal to pivot][greater than pivot].
+            int lessEnd = low;
+            int greaterStart = high;
+            int i = low;
+            while (i < greaterStart){
+                double coordinate = points[i][axis];
+                if (coordinate < pivot){
+                    swap(points, i++, lessEnd++);
+                } else if (coordinate > pivot){
+                    swap(points, i, --greaterStart);
+                } else {
+                    i++;
+                }
+            }
+
+            if (target < lessEnd){
+                high = lessEnd;
+            } else if (target >= greaterStart){
+                low = greaterStart;
+            } else {
+                // The median is the pivot; split at the first point equal to it.
+                return lessEnd;
+            }
+        }
+    }
+
+    private static void swap(double[][] points, int one, int two){
+        double[] temporary = points[one];
+        points[one] = points[two];
+        points[two] = temporary;
+    }
+
+    private void checkDimensions(double[] point){
+        if (point.length != dimensions){
+            throw new IllegalArgumentException(String.format("Point has %d dimensions; expected %d", point.length, dimensions));
+        }
+    }
+
+    /**
+     * @return  Whether the tree is empty or not.
+     */
+    public boolean isEmpty(){
+        return root == null;
+    }
+
+    /**
+     * @return  Number of points in the tree.
+     */
+    public int size(){
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * @return  Number of coordinates of each point.
+     */
+    public int getDimensions(){
+        return dimensions;
+    }
+
+    /**
+     * Determine whether or not the given point is contained within the tree.
+     * @param point     Point to search for.
+     * @return          Presence of point in tree.
+     */
+    public boolean contains(double[] point){
+        checkDimensions(point);
+        KDNode current = root;
+        int depth = 0;
+        while (current != null){
+            if (Arrays.equals(point, current.point)){
+                return true;
+            }
+            int axis = depth % dimensions;
+            current = point[axis] < current.point[axis] ? current.left : current.right;
+            depth++;
+        }
+        return false;
+    }
+
+    /**
+     * Insert a new point into the tree.
+     * A new tree is returned which contains the change.
+     * If the point is already contained within the tree, the returned tree will be the same object as the original.
+     * @param point     Point to insert.
+     * @return          Updated tree.
+     */
+    public KDTree insert(double[] point){
+        checkDimensions(point);
+        KDNode newRoot = recursiveInsert(point, root, 0);
+        return newRoot == root ? this : new KDTree(dimensions, newRoot);
+    }
+
+    private KDNode recursiveInsert(double[] point, KDNode current, int depth){
+        if (current == null){
+            return new KDNode(point);
+        } else if (Arrays.equals(point, current.point)){
+            // Duplicate point; no need for change.
+            return current;
+        }
+        int axis = depth % dimensions;
+        if (point[axis] < current.point[axis]){
+            KDNode newLeft = recursiveInsert(point, current.left, depth + 1);
+            return newLeft == current.left ? current : new KDNode(current.point, newLeft, current.right);
+        } else {
+            KDNode newRight = recursiveInsert(point, current.right, depth + 1);
+            return newRight == current.right ? current : new KDNode(current.point, current.left, newRight);
+        }
+    }
+
+    /**
+     * Delete a point from the tree.
+     * A new tree is returned which contains the change.
+     * If the point is not contained within the tree, the returned tree will be the same object as the original.
+     * @param point     Point to delete.
+     * @return          Updated tree.
+     */
+    public KDTree delete(double[] point){
+        checkDimensions(point);
+        KDNode newRoot = recursiveDelete(point, root, 0);
+        return newRoot == root ? this : new KDTree(dimensions, newRoot);
+    }
+
+    private KDNode recursiveDelete(double[] point, KDNode current, int depth){
+        if (current == null){
+            // Point is not in this tree; no need for change.
+            return null;
+        }
+        int axis = depth % dimensions;
+        if (Arrays.equals(point, current.point)){
+            // Found point!  Replace it with the least point along this axis from a subtree, which then becomes the right subtree.
+            if (current.hasRight()){
+                double[] replacement = findMinimum(current.right, axis, depth + 1);
+                return new KDNode(replacement, current.left, recursiveDelete(replacement, current.right, depth + 1));
+            } else if (current.hasLeft()){
+                double[] replacement = findMinimum(current.left, axis, depth + 1);
+                return new KDNode(replacement, null, recursiveDelete(replacement, current.left, depth + 1));
+            } else {
+                return null;
+            }
+        } else if (point[axis] < current.point[axis]){
+            KDNode newLeft = recursiveDelete(point, current.left, depth + 1);
+            return newLeft == current.left ? current : new KDNode(current.point, newLeft, current.right);
+        } else {
+            KDNode newRight = recursiveDelete(point, current.right, depth + 1);
+            return newRight == current.right ? current : new KDNode(current.point, current.left, newRight);
+        }
+    }
+
+    /**
+     * @return      Point with the least coordinate along the given axis, within the subtree.
+     */
+    private double[] findMinimum(KDNode current, int axis, int depth){
+        if (current == null){
+            return null;
+        }
+        if (depth % dimensions == axis){
+            // Only the left subtree can hold lesser coordinates along this axis.
+            return current.hasLeft() ? findMinimum(current.left, axis, depth + 1) : current.point;
+        }
+        double[] minimum = current.point;
+        for (double[] candidate : new double[][]{findMinimum(current.left, axis, depth + 1), findMinimum(current.right, axis, depth + 1)}){
+            if (candidate != null && candidate[axis] < minimum[axis]){
+                minimum = candidate;
+            }
+        }
+        return minimum;
+    }
+
+    /**
+     * Return all points within the axis-aligned box between the given corners, inclusive.
+     * @param min   Corner of box with least coordinates.
+     * @param max   Corner of box with greatest coordinates.
+     * @return      List of points within box.
+     */
+    public List<double[]> getRange(double[] min, double[] max){
+        checkDimensions(min);
+        checkDimensions(max);
+        List<double[]> result = new ArrayList<>();
+        recursiveGetRange(min, max, result, root, 0);
+        return result;
+    }
+
+    private void recursiveGetRange(double[] min, double[] max, List<double[]> result, KDNode current, int depth){
+        if (current == null){
+            return;
+        }
+        int axis = depth % dimensions;
+        double coordinate = current.point[axis];
+        if (min[axis] < coordinate){
+            recursiveGetRange(min, max, result, current.left, depth + 1);
+        }
+        if (isWithin(current.point, min, max)){
+            result.add(current.point);
+        }
+        if (max[axis] >= coordinate){
+            recursiveGetRange(min, max, result, current.right, depth + 1);
+        }
+    }
+
+    static boolean isWithin(double[] point, double[] min, double[] max){
+        for (int i = 0; i < point.length; i++){
+            if (point[i] < min[i] || point[i] > max[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static double squaredDistance(double[] one, double[] two){
+        double sum = 0;
+        for (int i = 0; i < one.length; i++){
+            double difference = one[i] - two[i];
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    /**
+     * Return the k points nearest to the given point, by Euclidean distance.
+     * @param query     Point to search around.
+     * @param k         Number of points to return.
+     * @return          List of up to k points, nearest first.
+     */
+    public List<double[]> getNearest(double[] query, int k){
+        checkDimensions(query);
+        // Max-heap of the best points found so far, farthest first.
+        PriorityQueue<double[]> best = new PriorityQueue<>(Math.max(1, k), (one, two) -> Double.compare(squaredDistance(two, query), squaredDistance(one, query)));
+        if (k > 0){
+            recursiveGetNearest(query, k, best, root, 0);
+        }
+        List<double[]> result = new ArrayList<>(best);
+        result.sort((one, two) -> Double.compare(squaredDistance(one, query), squaredDistance(two, query)));
+        return result;
+    }
+
+    private void recursiveGetNearest(double[] query, int k, PriorityQueue<double[]> best, KDNode current, int depth){
+        if (current == null){
+            return;
+        }
+        if (best.size() < k){
+            best.add(current.point);
+        } else if (squaredDistance(current.point, query) < squaredDistance(best.peek(), query)){
+            best.poll();
+            best.add(current.point);
+        }
+
+        // Search the side of the splitting plane holding the query first; search the far side only if it may be closer.
+        int axis = depth % dimensions;
+        double difference = query[axis] - current.point[axis];
+        KDNode near = difference < 0 ? current.left : current.right;
+        KDNode far = difference < 0 ? current.right : current.left;
+        recursiveGetNearest(query, k, best, near, depth + 1);
+        if (best.size() < k || difference * difference < squaredDistance(best.peek(), query)){
+            recursiveGetNearest(query, k, best, far, depth + 1);
+        }
+    }
+
+    /**
+     * @return  List of all points, in no particular order.
+     */
+    public List<double[]> toList(){
+        if (root == null){
+            return Collections.emptyList();
+        }
+        List<double[]> result = new ArrayList<>(root.size);
+        recursiveToList(root, result);
+        return result;
+    }
+
+    private void recursiveToList(KDNode current, List<double[]> result){
+        if (current.hasLeft()){
+            recursiveToList(current.left, result);
+        }
+        result.add(current.point);
+        if (current.hasRight()){
+            recursiveToList(current.right, result);
+        }
+    }
+
+    /**
+     * Validate that tree maintains invariants.
+     * @throws InvalidSearchTreeException       Tree violates invariants.
+     */
+    public void validate() throws InvalidSearchTreeException {
+        if (root != null){
+            double[] lower = new double[dimensions];
+            double[] upper = new double[dimensions];
+            Arrays.fill(lower, Double.NEGATIVE_INFINITY);
+            Arrays.fill(upper, Double.POSITIVE_INFINITY);
+            recursiveValidate(root, 0, lower, upper);
+        }
+    }
+
+    /**
+     * Validate a subtree, all of whose points must lie within [lower, upper) along every axis.
+     */
+    private void recursiveValidate(KDNode current, int depth, double[] lower, double[] upper) throws InvalidSearchTreeException {
+        int expectedSize = 1 + (current.hasLeft() ? current.left.size : 0) + (current.hasRight() ? current.right.size : 0);
+        if (expectedSize != current.size){
+            throw new InvalidSearchTreeException(String.format("Invalid size for point %s, size %d, expected %d", Arrays.toString(current.point), current.size, expectedSize));
+        }
+        for (int i = 0; i < dimensions; i++){
+            if (current.point[i] < lower[i] || current.point[i] >= upper[i]){
+                throw new InvalidSearchTreeException(String.format("Point %s lies outside the bounds of its subtree", Arrays.toString(current.point)));
+            }
+        }
+        int axis = depth % dimensions;
+        if (current.hasLeft()){
+            double[] leftUpper = upper.clone();
+            leftUpper[axis] = current.point[axis];
+            recursiveValidate(current.left, depth + 1, lower, leftUpper);
+        }
+        if (current.hasRight()){
+            double[] rightLower = lower.clone();
+            rightLower[axis] = current.point[axis];
+            recursiveValidate(current.right, depth + 1, rightLower, upper);
+        }
+    }
+}
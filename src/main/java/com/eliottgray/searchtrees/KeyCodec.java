@@ -0,0 +1,87 @@
+package com.eliottgray.searchtrees;
+
+import java.util.UUID;
+
+/**
+ * Encodes Keys as byte strings whose unsigned lexicographic order agrees with the Keys' compareTo method.
+ *
+ * Such an encoding lets an AdaptiveRadixTree branch on one byte at a time, rather than comparing whole Keys.
+ * Encodings must also be prefix-consistent: if one Key's encoding is a proper prefix of another's, it must sort first,
+ * as it does under lexicographic order.
+ */
+@FunctionalInterface
+public interface KeyCodec<Key> {
+
+    /**
+     * Strings, as big-endian UTF-16 code units; this matches String.compareTo exactly, unpaired surrogates included.
+     * A string prefix encodes to a byte prefix, so that prefix scans by String are prefix scans by bytes.
+     */
+    KeyCodec<String> STRINGS = key -> {
+        byte[] bytes = new byte[2 * key.length()];
+        for (int i = 0; i < key.length(); i++){
+            char c = key.charAt(i);
+            bytes[2 * i] = (byte) (c >>> 8);
+            bytes[2 * i + 1] = (byte) c;
+        }
+        return bytes;
+    };
+
+    /**
+     * Integers, as four big-endian bytes with the sign bit flipped, so that negative values sort first.
+     */
+    KeyCodec<Integer> INTEGERS = key -> {
+        int value = key ^ Integer.MIN_VALUE;
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    };
+
+    /**
+     * Longs, as eight big-endian bytes with the sign bit flipped, so that negative values sort first.
+     */
+    KeyCodec<Long> LONGS = key -> {
+        long value = key ^ Long.MIN_VALUE;
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = 0; i < Long.BYTES; i++){
+            bytes[i] = (byte) (value >>> (8 * (Long.BYTES - 1 - i)));
+        }
+        return bytes;
+    };
+
+    /**
+     * UUIDs, as sixteen bytes: each half big-endian with its sign bit flipped, matching UUID.compareTo,
+     * which compares the halves as signed longs.
+     */
+    KeyCodec<UUID> UUIDS = key -> {
+        long most = key.getMostSignificantBits() ^ Long.MIN_VALUE;
+        long least = key.getLeastSignificantBits() ^ Long.MIN_VALUE;
+        byte[] bytes = new byte[2 * Long.BYTES];
+        for (int i = 0; i < Long.BYTES; i++){
+            int shift = 8 * (Long.BYTES - 1 - i);
+            bytes[i] = (byte) (most >>> shift);
+            bytes[Long.BYTES + i] = (byte) (least >>> shift);
+        }
+        return bytes;
+    };
+
+    /**
+     * @param key   Key to encode.
+     * @return      Order-preserving byte encoding of the Key.
+     */
+    byte[] encode(Key key);
+
+    /**
+     * Compare two byte strings lexicographically, treating each byte as unsigned.
+     * @param one   First byte string.
+     * @param two   Second byte string.
+     * @return      Negative, zero or positive, as the first byte string is less than, equal to or greater than the second.
+     */
+    static int compareBytes(byte[] one, byte[] two){
+        int length = Math.min(one.length, two.length);
+        for (int i = 0; i < length; i++){
+            if (one[i] != two[i]){
+                return (one[i] & 0xFF) - (two[i] & 0xFF);
+            }
+        }
+        return one.length - two.length;
+    }
+}
+
@@ -0,0 +1,72 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+
+/**
+ * Comparators for common Key types, and the natural-order comparison which trees use in place of Comparator.naturalOrder().
+ *
+ * A call through a Comparator, or through Comparable.compareTo, is an interface call.  Once a JVM holds trees of
+ * several Key types, each such call site sees several receivers and can no longer be inlined.  Natural-order trees
+ * instead test the Key's exact class against the common types, and compare those directly: each test is a single
+ * predictable branch, and the comparisons themselves inline.  Keys of other types fall back to compareTo.
+ */
+public final class KeyComparators {
+
+    /** Integers, compared as primitives; the same order as their compareTo method. */
+    public static final Comparator<Integer> INTEGERS = Integer::compare;
+
+    /** Longs, compared as primitives; the same order as their compareTo method. */
+    public static final Comparator<Long> LONGS = Long::compare;
+
+    /** Strings, by String.compareTo. */
+    public static final Comparator<String> STRINGS = String::compareTo;
+
+    /** Natural order, by compareNaturally. */
+    private static final Comparator<Comparable<Object>> NATURAL = KeyComparators::compareNaturally;
+
+    private KeyComparators(){}
+
+    /**
+     * @return  Natural-order comparator, comparing common Key types directly.
+     */
+    @SuppressWarnings("unchecked")
+    static <Key extends Comparable<Key>> Comparator<Key> natural(){
+        return (Comparator<Key>) (Comparator<?>) NATURAL;
+    }
+
+    /**
+     * @param comparator    Comparator, which may be null.
+     * @return              Whether the comparator orders Keys exactly as their compareTo method does.
+     */
+    static boolean isNaturalOrder(Comparator<?> comparator){
+        return comparator == NATURAL || comparator == Comparator.naturalOrder()
+                || comparator == INTEGERS || comparator == LONGS || comparator == STRINGS;
+    }
+
+    /**
+     * @param comparator    Comparator for a tree.
+     * @return              The natural-order comparator in place of any comparator equivalent to it, else the comparator.
+     */
+    static <Key extends Comparable<Key>> Comparator<Key> resolve(Comparator<Key> comparator){
+        return isNaturalOrder(comparator) ? natural() : comparator;
+    }
+
+    /**
+     * Compare two Keys by their compareTo method, directly for Integer, Long and String Keys.
+     * @param one   First Key.
+     * @param two   Second Key.
+     * @return      Negative, zero or positive, as the first Key is less than, equal to or greater than the second.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareNaturally(Object one, Object two){
+        Class<?> type = one.getClass();
+        if (type == Integer.class){
+            return Integer.compare((Integer) one, (Integer) two);
+        } else if (type == Long.class){
+            return Long.compare((Long) one, (Long) two);
+        } else if (type == String.class){
+            return ((String) one).compareTo((String) two);
+        }
+        return ((Comparable<Object>) one).compareTo(two);
+    }
+}
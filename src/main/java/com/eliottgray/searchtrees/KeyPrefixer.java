@@ -0,0 +1,92 @@
+package com.eliottgray.searchtrees;
+
+import java.util.UUID;
+
+/**
+ * Normalizes Keys to 8-byte prefixes, as longs whose unsigned order agrees with the Keys' compareTo method wherever
+ * they differ: if one Key's prefix is less than another's, the Key itself must be less.  Equal prefixes say nothing,
+ * and the Keys must then be compared in full.
+ *
+ * A PrefixedAVLTree caches each Key's prefix in its Node, so that most levels of a search cost a single primitive
+ * comparison rather than a call to compareTo, which for long Strings sharing a lead-in is a scan of that lead-in.
+ */
+@FunctionalInterface
+public interface KeyPrefixer<Key> {
+
+    /**
+     * @param key   Key to normalize.
+     * @return      Prefix of the Key, to be compared as unsigned.
+     */
+    long prefix(Key key);
+
+    /**
+     * Strings, by their first UTF-16 code units, packed one byte for each unit below 0x80, and three bytes otherwise;
+     * so that up to eight ASCII characters fit in a prefix.  Shorter Strings are padded with zero bytes.
+     */
+    KeyPrefixer<String> STRINGS = key -> packString(key, 0);
+
+    /**
+     * UUIDs, by their most significant half with the sign bit flipped, as UUID.compareTo compares it as signed.
+     */
+    KeyPrefixer<UUID> UUIDS = key -> key.getMostSignificantBits() ^ Long.MIN_VALUE;
+
+    /**
+     * Strings which mostly begin with the same lead-in, such as the scheme and host of URLs, or a root directory.
+     * Strings beginning with the lead-in are packed as by STRINGS from the character after it, where they can
+     * differ; all other Strings have the least or greatest prefix, depending on which side of the lead-in they sort.
+     * @param leadIn    Common beginning of Strings.
+     * @return          Prefixer for Strings sharing the lead-in.
+     */
+    static KeyPrefixer<String> stringsAfter(String leadIn){
+        return key -> {
+            if (key.startsWith(leadIn)){
+                return packString(key, leadIn.length());
+            }
+            return key.compareTo(leadIn) < 0 ? 0L : -1L;
+        };
+    }
+
+    /**
+     * Keys with a byte encoding, by its first eight bytes, big-endian, padded with zero bytes.
+     * This covers any byte-string Key, such as a wrapped byte[], once it has a KeyCodec.
+     * @param codec     Encoding of Keys, whose unsigned lexicographic order agrees with compareTo.
+     * @return          Prefixer by the encoding.
+     */
+    static <Key> KeyPrefixer<Key> fromCodec(KeyCodec<Key> codec){
+        return key -> {
+            byte[] bytes = codec.encode(key);
+            long prefix = 0;
+            for (int i = 0; i < Long.BYTES; i++){
+                prefix = (prefix << 8) | (i < bytes.length ? bytes[i] & 0xFF : 0);
+            }
+            return prefix;
+        };
+    }
+
+    /**
+     * Pack the UTF-16 code units of a String from a given index, as STRINGS does.
+     * Units below 0x80 take one byte, and others three: a byte from 0x80 to 0x83 holding the top two bits, then two
+     * bytes of seven bits each.  Either way byte order follows unit order, and a String which is a prefix of another
+     * packs to a prefix of its bytes, so the zero-padded prefix never contradicts String.compareTo.
+     * @param key       String to pack.
+     * @param start     Index of the first unit to pack.
+     * @return          Prefix of the units from the start index.
+     */
+    static long packString(String key, int start){
+        long prefix = 0;
+        int bytes = 0;
+        for (int i = start; i < key.length() && bytes < Long.BYTES; i++){
+            char unit = key.charAt(i);
+            if (unit < 0x80){
+                prefix = (prefix << 8) | unit;
+                bytes++;
+            } else {
+                long packed = (0x80L | (unit >>> 14)) << 16 | ((unit >>> 7) & 0x7F) << 8 | (unit & 0x7F);
+                int fit = Math.min(3, Long.BYTES - bytes);
+                prefix = (prefix << (8 * fit)) | (packed >>> (8 * (3 - fit)));
+                bytes += fit;
+            }
+        }
+        return bytes == Long.BYTES ? prefix : prefix << (8 * (Long.BYTES - bytes));
+    }
+}
@@ -0,0 +1,86 @@
+package com.eliottgray.searchtrees;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Associative aggregation over the Keys of a tree, with an identity element.
+ *
+ * An AugmentedAVLTree stores the aggregate of every subtree within its root Node, combining children in Key order.
+ * The combine function must therefore be associative, but need not be commutative.
+ *
+ * @param <Key>     Key type.
+ * @param <Value>   Aggregate type.
+ */
+public interface Monoid<Key, Value> {
+
+    /**
+     * @return  Aggregate of no Keys, such that combining it with any aggregate leaves that aggregate unchanged.
+     */
+    Value identity();
+
+    /**
+     * @param key   Key to aggregate.
+     * @return      Aggregate of a single Key.
+     */
+    Value lift(Key key);
+
+    /**
+     * @param left      Aggregate of lesser Keys.
+     * @param right     Aggregate of greater Keys.
+     * @return          Aggregate of both.
+     */
+    Value combine(Value left, Value right);
+
+    /**
+     * @param valueOf   Function from Key to the quantity to sum.
+     * @return          Monoid summing a quantity over Keys.
+     */
+    static <Key> Monoid<Key, Long> summing(ToLongFunction<Key> valueOf){
+        return new Monoid<Key, Long>() {
+            public Long identity(){ return 0L; }
+            public Long lift(Key key){ return valueOf.applyAsLong(key); }
+            public Long combine(Long left, Long right){ return left + right; }
+        };
+    }
+
+    /**
+     * @param valueOf   Function from Key to the quantity to minimize.
+     * @return          Monoid finding the minimum of a quantity over Keys; the identity is null.
+     */
+    static <Key, Value extends Comparable<Value>> Monoid<Key, Value> minimum(Function<Key, Value> valueOf){
+        return new Monoid<Key, Value>() {
+            public Value identity(){ return null; }
+            public Value lift(Key key){ return valueOf.apply(key); }
+            public Value combine(Value left, Value right){
+                if (left == null){
+                    return right;
+                } else if (right == null){
+                    return left;
+                } else {
+                    return left.compareTo(right) <= 0 ? left : right;
+                }
+            }
+        };
+    }
+
+    /**
+     * @param valueOf   Function from Key to the quantity to maximize.
+     * @return          Monoid finding the maximum of a quantity over Keys; the identity is null.
+     */
+    static <Key, Value extends Comparable<Value>> Monoid<Key, Value> maximum(Function<Key, Value> valueOf){
+        return new Monoid<Key, Value>() {
+            public Value identity(){ return null; }
+            public Value lift(Key key){ return valueOf.apply(key); }
+            public Value combine(Value left, Value right){
+                if (left == null){
+                    return right;
+                } else if (right == null){
+                    return left;
+                } else {
+                    return left.compareTo(right) >= 0 ? left : right;
+                }
+            }
+        };
+    }
+}
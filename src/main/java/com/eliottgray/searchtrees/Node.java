@@ -24,6 +24,17 @@ abstract class Node <Key extends Comparable<Key>> {
      * @param right     Right child.
      */
     Node(Key key, Node<Key> left, Node<Key> right){
+        this(key, left, right, 1);
+    }
+
+    /**
+     * Construct a Node holding several occurrences of its Key, which count towards its size.
+     * @param key       Key for node.
+     * @param left      Left child.
+     * @param right     Right child.
+     * @param count     Occurrences of Key.
+     */
+    Node(Key key, Node<Key> left, Node<Key> right, int count){
         this.key = key;
 
         int leftHeight = 0;
@@ -38,10 +49,26 @@ abstract class Node <Key extends Comparable<Key>> {
             rightHeight = right.height;
             rightSize = right.size;
         }
-        this.size = 1 + leftSize + rightSize;
+        this.size = count + leftSize + rightSize;
         this.height = (rightHeight > leftHeight) ? (rightHeight + 1) : (leftHeight + 1);
     }
 
+    /**
+     * @param node  Node, or null.
+     * @return      Size of the given Node, where a missing Node has size zero.
+     */
+    static int sizeOf(Node<?> node){
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * @param node  Node, or null.
+     * @return      Height of the given Node, where a missing Node has height zero.
+     */
+    static int heightOf(Node<?> node){
+        return node == null ? 0 : node.height;
+    }
+
     int getHeight(){ return height; }
     int getSize(){ return size; }
     Key getKey(){ return key; }
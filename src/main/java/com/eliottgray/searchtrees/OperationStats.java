@@ -0,0 +1,39 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Histograms of the work done per call of one type of operation.
+ */
+public class OperationStats {
+
+    final Histogram comparisons = new Histogram();
+    final Histogram allocations = new Histogram();
+    final Histogram singleRotations = new Histogram();
+    final Histogram doubleRotations = new Histogram();
+    final Histogram levels = new Histogram();
+    final Histogram latencyNanos = new Histogram();
+
+    public Histogram getComparisons(){ return comparisons; }
+    public Histogram getAllocations(){ return allocations; }
+    public Histogram getSingleRotations(){ return singleRotations; }
+    public Histogram getDoubleRotations(){ return doubleRotations; }
+    public Histogram getLevels(){ return levels; }
+    public Histogram getLatencyNanos(){ return latencyNanos; }
+
+    /**
+     * Discard all recorded values.
+     */
+    public void reset(){
+        comparisons.reset();
+        allocations.reset();
+        singleRotations.reset();
+        doubleRotations.reset();
+        levels.reset();
+        latencyNanos.reset();
+    }
+
+    @Override
+    public String toString(){
+        return "comparisons[" + comparisons + "] allocations[" + allocations + "] singleRotations[" + singleRotations +
+                "] doubleRotations[" + doubleRotations + "] levels[" + levels + "] latencyNanos[" + latencyNanos + "]";
+    }
+}
@@ -0,0 +1,167 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+
+/**
+ * AVL Tree whose Nodes cache a normalized 8-byte prefix of their Key, from a KeyPrefixer.
+ *
+ * Lookups normalize the searched Key once, then compare prefixes at each level as unsigned longs, calling the
+ * comparator only where the prefixes tie.  With long Keys that share a lead-in, such as URLs or file paths, that spares
+ * most levels a scan of the lead-in, and a cache miss on the Key itself.  Each Node costs one long more.
+ *
+ * Prefixes describe the Keys' natural order, so a tree with any other comparator compares Keys in full.
+ */
+public class PrefixedAVLTree<Key extends Comparable<Key>> extends AVLTree<Key> {
+
+    final KeyPrefixer<Key> prefixer;
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method, after their prefixes.
+     * @param prefixer  Normalization of Keys to prefixes.
+     */
+    public PrefixedAVLTree(KeyPrefixer<Key> prefixer){
+        super();
+        this.prefixer = prefixer;
+    }
+
+    /**
+     * Empty tree, with comparator override.  Prefixes are compared only if the comparator is natural order.
+     * @param prefixer      Normalization of Keys to prefixes.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     */
+    public PrefixedAVLTree(KeyPrefixer<Key> prefixer, Comparator<Key> comparator){
+        super(comparator);
+        this.prefixer = prefixer;
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root          Existing root node.
+     * @param comparator    Comparator corresponding to current root node.
+     * @param prefixer      Normalization corresponding to current root node.
+     */
+    PrefixedAVLTree(BinarySearchNode<Key> root, Comparator<Key> comparator, KeyPrefixer<Key> prefixer){
+        super(root, comparator);
+        this.prefixer = prefixer;
+    }
+
+    @Override
+    PrefixedAVLTree<Key> withRoot(BinarySearchNode<Key> root){
+        return new PrefixedAVLTree<>(root, comparator, prefixer);
+    }
+
+    @Override
+    PrefixedNode<Key> createNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new PrefixedNode<>(key, left, right, prefixer.prefix(key));
+    }
+
+    @Override
+    PrefixedNode<Key> copyNode(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new PrefixedNode<>(node.key, left, right, ((PrefixedNode<Key>) node).prefix);
+    }
+
+    @Override
+    public PrefixedAVLTree<Key> insert(Key key){
+        return (PrefixedAVLTree<Key>) super.insert(key);
+    }
+
+    @Override
+    public PrefixedAVLTree<Key> delete(Key key){
+        return (PrefixedAVLTree<Key>) super.delete(key);
+    }
+
+    /**
+     * Compare a Key to a Node's Key, by prefix first.
+     * @param key       Key.
+     * @param prefix    Prefix of the Key.
+     * @param node      Node.
+     * @return          Negative, zero or positive, as the Key is less than, equal to or greater than the Node's Key.
+     */
+    private int compare(Key key, long prefix, BinarySearchNode<Key> node){
+        int comparison = Long.compareUnsigned(prefix, ((PrefixedNode<Key>) node).prefix);
+        return comparison != 0 ? comparison : compare(key, node.key);
+    }
+
+    @Override
+    public boolean contains(Key key){
+        if (!isNaturalOrder()){
+            return super.contains(key);
+        }
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.CONTAINS);
+        try {
+            long prefix = prefixer.prefix(key);
+            BinarySearchNode<Key> current = root;
+            while (current != null){
+                TreeInstrumentation.RECORDER.level();
+                int comparison = compare(key, prefix, current);
+                if (comparison == 0){
+                    return true;
+                }
+                current = comparison < 0 ? current.left : current.right;
+            }
+            return false;
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.CONTAINS);
+        }
+    }
+
+    @Override
+    public Key floor(Key key){
+        return isNaturalOrder() ? nearest(key, false, true) : super.floor(key);
+    }
+
+    @Override
+    public Key ceiling(Key key){
+        return isNaturalOrder() ? nearest(key, true, true) : super.ceiling(key);
+    }
+
+    @Override
+    public Key higher(Key key){
+        return isNaturalOrder() ? nearest(key, true, false) : super.higher(key);
+    }
+
+    @Override
+    public Key lower(Key key){
+        return isNaturalOrder() ? nearest(key, false, false) : super.lower(key);
+    }
+
+    /**
+     * Find the closest Key to the given Key, on one side of it, comparing by prefix first.
+     * @param key           Key to search for.
+     * @param above         Search for Keys above the given Key, rather than below.
+     * @param inclusive     Whether a Key equal to the given Key may be returned.
+     * @return              Closest Key, or null if there is no such Key.
+     */
+    private Key nearest(Key key, boolean above, boolean inclusive){
+        long prefix = prefixer.prefix(key);
+        Key closest = null;
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, prefix, current);
+            if (comparison == 0 && inclusive){
+                return current.key;
+            } else if (comparison < 0 || (comparison == 0 && !above)){
+                if (above){
+                    closest = current.key;
+                }
+                current = current.left;
+            } else {
+                if (!above){
+                    closest = current.key;
+                }
+                current = current.right;
+            }
+        }
+        return closest;
+    }
+
+    @Override
+    void validateNode(BinarySearchNode<Key> node, Key low, Key high) throws InvalidSearchTreeException {
+        super.validateNode(node, low, high);
+        long expected = prefixer.prefix(node.key);
+        long prefix = ((PrefixedNode<Key>) node).prefix;
+        if (prefix != expected){
+            throw new InvalidSearchTreeException(String.format("Invalid prefix for key %s, prefix %016x, expected %016x", node.key, prefix, expected));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.eliottgray.searchtrees;
+
+class PrefixedNode<Key extends Comparable<Key>> extends BinarySearchNode<Key> {
+
+    final long prefix;
+
+    /**
+     * Construct a Node caching the normalized prefix of its Key.
+     * @param key       Comparable Key for node.
+     * @param left      Existing left child, or null.
+     * @param right     Existing right child, or null.
+     * @param prefix    Prefix of the Key, from the tree's KeyPrefixer.
+     */
+    PrefixedNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right, long prefix){
+        super(key, left, right);
+        this.prefix = prefix;
+    }
+}
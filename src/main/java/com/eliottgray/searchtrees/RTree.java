@@ -0,0 +1,404 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * R-Tree of points, for spatial range queries and k-nearest-neighbor queries.
+ *
+ * Every node bounds its entries with an axis-aligned box; leaves hold points, and all leaves lie at the same depth.
+ * Bulk construction with build() uses Sort-Tile-Recursive packing: points are sorted into slabs along each axis in turn
+ * and then into full nodes, giving nearly full nodes with little overlap between their boxes.
+ *
+ * Like the other trees, an RTree is immutable.  Insertion copies only the path to the changed leaf, splitting any node
+ * which overflows, and returns a new tree.
+ *
+ * Points are arrays of coordinates, which must not be modified once added.  Equal points are stored separately.
+ */
+public class RTree {
+
+    static final int DEFAULT_NODE_CAPACITY = 16;
+
+    final int dimensions;
+    final int nodeCapacity;
+    final RTreeNode root;
+
+    /**
+     * Empty tree, with default node capacity.
+     * @param dimensions    Number of coordinates of each point.
+     */
+    public RTree(int dimensions){
+        this(dimensions, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * Empty tree.
+     * @param dimensions    Number of coordinates of each point.
+     * @param nodeCapacity  Maximum number of entries per node.
+     */
+    public RTree(int dimensions, int nodeCapacity){
+        this(dimensions, nodeCapacity, null);
+        if (dimensions < 1){
+            throw new IllegalArgumentException(String.format("Invalid number of dimensions %d", dimensions));
+        }
+        if (nodeCapacity < 2){
+            throw new IllegalArgumentException(String.format("Invalid node capacity %d", nodeCapacity));
+        }
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param dimensions    Number of coordinates of each point.
+     * @param nodeCapacity  Maximum number of entries per node.
+     * @param root          Existing root node.
+     */
+    RTree(int dimensions, int nodeCapacity, RTreeNode root){
+        this.dimensions = dimensions;
+        this.nodeCapacity = nodeCapacity;
+        this.root = root;
+    }
+
+    /**
+     * Construct a packed tree from a collection of points, with default node capacity.
+     * @param dimensions    Number of coordinates of each point.
+     * @param points        Points to add.
+     * @return              New tree.
+     */
+    public static RTree build(int dimensions, Collection<double[]> points){
+        return build(dimensions, DEFAULT_NODE_CAPACITY, points);
+    }
+
+    /**
+     * Construct a packed tree from a collection of points, using Sort-Tile-Recursive packing, in O(n log n).
+     * @param dimensions    Number of coordinates of each point.
+     * @param nodeCapacity  Maximum number of entries per node.
+     * @param points        Points to add.
+     * @return              New tree.
+     */
+    public static RTree build(int dimensions, int nodeCapacity, Collection<double[]> points){
+        RTree empty = new RTree(dimensions, nodeCapacity);
+        if (points.isEmpty()){
+            return empty;
+        }
+        List<double[]> pointList = new ArrayList<>(points);
+        for (double[] point : pointList){
+            empty.checkDimensions(point);
+        }
+
+        // Pack points into leaves, then pack each level of nodes into the level above, until a single root remains.
+        List<RTreeNode> level = new ArrayList<>();
+        for (List<double[]> group : tile(pointList, nodeCapacity, dimensions, (point, axis) -> point[axis])){
+            level.add(new RTreeNode(group.toArray(new double[0][])));
+        }
+        while (level.size() > 1){
+            List<RTreeNode> parents = new ArrayList<>();
+            for (List<RTreeNode> group : tile(level, nodeCapacity, dimensions, RTreeNode::getCenter)){
+                parents.add(new RTreeNode(group.toArray(new RTreeNode[0])));
+            }
+            level = parents;
+        }
+        return new RTree(dimensions, nodeCapacity, level.get(0));
+    }
+
+    /**
+     * Center of an entry along an axis.
+     */
+    private interface Center<Entry> {
+        double along(Entry entry, int axis);
+    }
+
+    /**
+     * Sort-Tile-Recursive: group entries into nodes of the given capacity, tiling space into slabs along each axis in turn.
+     * @return      Groups of entries, each of which will form one node.
+     */
+    private static <Entry> List<List<Entry>> tile(List<Entry> entries, int capacity, int dimensions, Center<Entry> center){
+        List<List<Entry>> groups = new ArrayList<>();
+        recursiveTile(entries, capacity, dimensions, 0, center, groups);
+        return groups;
+    }
+
+    private static <Entry> void recursiveTile(List<Entry> entries, int capacity, int dimensions, int axis, Center<Entry> center, List<List<Entry>> groups){
+        entries.sort(Comparator.comparingDouble(entry -> center.along(entry, axis)));
+        int remainingAxes = dimensions - axis;
+        if (remainingAxes == 1 || entries.size() <= capacity){
+            // Last axis: cut the sorted run into full nodes.
+            for (int from = 0; from < entries.size(); from += capacity){
+                groups.add(new ArrayList<>(entries.subList(from, Math.min(entries.size(), from + capacity))));
+            }
+        } else {
+            // Cut into slabs, each holding enough nodes to be tiled evenly along the remaining axes.
+            double nodeCount = Math.ceil(entries.size() / (double) capacity);
+            int slabSize = capacity * (int) Math.ceil(Math.pow(nodeCount, (remainingAxes - 1) / (double) remainingAxes));
+            for (int from = 0; from < entries.size(); from += slabSize){
+                List<Entry> slab = new ArrayList<>(entries.subList(from, Math.min(entries.size(), from + slabSize)));
+                recursiveTile(slab, capacity, dimensions, axis + 1, center, groups);
+            }
+        }
+    }
+
+    private void checkDimensions(double[] point){
+        if (point.length != dimensions){
+            throw new IllegalArgumentException(String.format("Point has %d dimensions; expected %d", point.length, dimensions));
+        }
+    }
+
+    /**
+     * @return  Whether the tree is empty or not.
+     */
+    public boolean isEmpty(){
+        return root == null;
+    }
+
+    /**
+     * @return  Number of points in the tree.
+     */
+    public int size(){
+        return root == null ? 0 : root.size;
+    }
+
+    /**
+     * @return  Number of coordinates of each point.
+     */
+    public int getDimensions(){
+        return dimensions;
+    }
+
+    /**
+     * Insert a new point into the tree.
+     * A new tree is returned which contains the change.
+     * @param point     Point to insert.
+     * @return          Updated tree.
+     */
+    public RTree insert(double[] point){
+        checkDimensions(point);
+        if (root == null){
+            return new RTree(dimensions, nodeCapacity, new RTreeNode(new double[][]{point}));
+        }
+        RTreeNode[] replacements = recursiveInsert(point, root);
+        RTreeNode newRoot = replacements.length == 1 ? replacements[0] : new RTreeNode(replacements);
+        return new RTree(dimensions, nodeCapacity, newRoot);
+    }
+
+    /**
+     * Insert into a subtree, copying the path to the leaf.
+     * @return      Replacement for the subtree; two nodes if the subtree root overflowed and was split.
+     */
+    private RTreeNode[] recursiveInsert(double[] point, RTreeNode current){
+        if (current.isLeaf()){
+            double[][] points = Arrays.copyOf(current.points, current.points.length + 1);
+            points[points.length - 1] = point;
+            if (points.length <= nodeCapacity){
+                return new RTreeNode[]{new RTreeNode(points)};
+            }
+            double[][] sorted = sortForSplit(points, (entry, axis) -> entry[axis]);
+            int half = sorted.length / 2;
+            return new RTreeNode[]{new RTreeNode(Arrays.copyOfRange(sorted, 0, half)), new RTreeNode(Arrays.copyOfRange(sorted, half, sorted.length))};
+        }
+
+        // Descend into the child needing least enlargement to contain the point; break ties by smaller volume.
+        int chosen = 0;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestVolume = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < current.children.length; i++){
+            RTreeNode child = current.children[i];
+            double volume = child.volume();
+            double enlargement = child.enlargedVolume(point) - volume;
+            if (enlargement < bestEnlargement || (enlargement == bestEnlargement && volume < bestVolume)){
+                chosen = i;
+                bestEnlargement = enlargement;
+                bestVolume = volume;
+            }
+        }
+
+        RTreeNode[] replacements = recursiveInsert(point, current.children[chosen]);
+        RTreeNode[] children = Arrays.copyOf(current.children, current.children.length + replacements.length - 1);
+        children[chosen] = replacements[0];
+        if (replacements.length > 1){
+            children[children.length - 1] = replacements[1];
+        }
+        if (children.length <= nodeCapacity){
+            return new RTreeNode[]{new RTreeNode(children)};
+        }
+        RTreeNode[] sorted = sortForSplit(children, RTreeNode::getCenter);
+        int half = sorted.length / 2;
+        return new RTreeNode[]{new RTreeNode(Arrays.copyOfRange(sorted, 0, half)), new RTreeNode(Arrays.copyOfRange(sorted, half, sorted.length))};
+    }
+
+    /**
+     * Sort overflowing entries along the axis on which their centers spread widest, so that they may be split in half.
+     * The spread is taken over the entries themselves, including the one which caused the overflow, rather than from
+     * the bounds of the node before it overflowed.
+     */
+    private <Entry> Entry[] sortForSplit(Entry[] entries, Center<Entry> center){
+        int widestAxis = 0;
+        double widestSpread = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < dimensions; i++){
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (Entry entry : entries){
+                double along = center.along(entry, i);
+                low = Math.min(low, along);
+                high = Math.max(high, along);
+            }
+            if (high - low > widestSpread){
+                widestAxis = i;
+                widestSpread = high - low;
+            }
+        }
+        int axis = widestAxis;
+        Arrays.sort(entries, Comparator.comparingDouble(entry -> center.along(entry, axis)));
+        return entries;
+    }
+
+    /**
+     * Return all points within the axis-aligned box between the given corners, inclusive.
+     * @param min   Corner of box with least coordinates.
+     * @param max   Corner of box with greatest coordinates.
+     * @return      List of points within box.
+     */
+    public List<double[]> getRange(double[] min, double[] max){
+        checkDimensions(min);
+        checkDimensions(max);
+        List<double[]> result = new ArrayList<>();
+        if (root != null){
+            recursiveGetRange(min, max, result, root);
+        }
+        return result;
+    }
+
+    private void recursiveGetRange(double[] min, double[] max, List<double[]> result, RTreeNode current){
+        if (!current.intersects(min, max)){
+            return;
+        }
+        if (current.isLeaf()){
+            for (double[] point : current.points){
+                if (KDTree.isWithin(point, min, max)){
+                    result.add(point);
+                }
+            }
+        } else {
+            for (RTreeNode child : current.children){
+                recursiveGetRange(min, max, result, child);
+            }
+        }
+    }
+
+    /**
+     * Candidate for nearest-neighbor search: either a node or a point, with its least possible distance to the query.
+     */
+    private static class Candidate {
+        final double distance;
+        final RTreeNode node;
+        final double[] point;
+
+        Candidate(double distance, RTreeNode node, double[] point){
+            this.distance = distance;
+            this.node = node;
+            this.point = point;
+        }
+    }
+
+    /**
+     * Return the k points nearest to the given point, by Euclidean distance.
+     * Searches best-first, expanding nodes in order of their distance from the query.
+     * @param query     Point to search around.
+     * @param k         Number of points to return.
+     * @return          List of up to k points, nearest first.
+     */
+    public List<double[]> getNearest(double[] query, int k){
+        checkDimensions(query);
+        List<double[]> result = new ArrayList<>(Math.max(0, Math.min(k, size())));
+        if (root == null || k <= 0){
+            return result;
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble((Candidate candidate) -> candidate.distance));
+        queue.add(new Candidate(root.squaredDistance(query), root, null));
+        while (!queue.isEmpty() && result.size() < k){
+            Candidate candidate = queue.poll();
+            if (candidate.point != null){
+                // No remaining node or point can be closer than this point.
+                result.add(candidate.point);
+            } else if (candidate.node.isLeaf()){
+                for (double[] point : candidate.node.points){
+                    queue.add(new Candidate(KDTree.squaredDistance(point, query), null, point));
+                }
+            } else {
+                for (RTreeNode child : candidate.node.children){
+                    queue.add(new Candidate(child.squaredDistance(query), child, null));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return  List of all points, in no particular order.
+     */
+    public List<double[]> toList(){
+        List<double[]> result = new ArrayList<>(size());
+        if (root != null){
+            recursiveToList(root, result);
+        }
+        return result;
+    }
+
+    private void recursiveToList(RTreeNode current, List<double[]> result){
+        if (current.isLeaf()){
+            result.addAll(Arrays.asList(current.points));
+        } else {
+            for (RTreeNode child : current.children){
+                recursiveToList(child, result);
+            }
+        }
+    }
+
+    /**
+     * Validate that tree maintains invariants.
+     * @throws InvalidSearchTreeException       Tree violates invariants.
+     */
+    public void validate() throws InvalidSearchTreeException {
+        if (root != null){
+            recursiveValidate(root);
+        }
+    }
+
+    /**
+     * @return      Depth of leaves beneath the given node.
+     */
+    private int recursiveValidate(RTreeNode current) throws InvalidSearchTreeException {
+        int entryCount = current.getEntryCount();
+        if (entryCount == 0 || entryCount > nodeCapacity){
+            throw new InvalidSearchTreeException(String.format("Invalid entry count %d for node with capacity %d", entryCount, nodeCapacity));
+        }
+        if (current.isLeaf()){
+            for (double[] point : current.points){
+                if (!KDTree.isWithin(point, current.min, current.max)){
+                    throw new InvalidSearchTreeException(String.format("Point %s lies outside the bounds of its leaf", Arrays.toString(point)));
+                }
+            }
+            return 1;
+        }
+
+        int size = 0;
+        int depth = -1;
+        for (RTreeNode child : current.children){
+            if (!KDTree.isWithin(child.min, current.min, current.max) || !KDTree.isWithin(child.max, current.min, current.max)){
+                throw new InvalidSearchTreeException("Child box lies outside the bounds of its parent");
+            }
+            int childDepth = recursiveValidate(child);
+            if (depth != -1 && childDepth != depth){
+                throw new InvalidSearchTreeException(String.format("Leaves at unequal depths %d and %d", depth, childDepth));
+            }
+            depth = childDepth;
+            size += child.size;
+        }
+        if (size != current.size){
+            throw new InvalidSearchTreeException(String.format("Invalid size %d, expected %d", current.size, size));
+        }
+        return depth + 1;
+    }
+}
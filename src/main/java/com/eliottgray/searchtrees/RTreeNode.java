@@ -0,0 +1,106 @@
+package com.eliottgray.searchtrees;
+
+class RTreeNode {
+
+    final double[] min;
+    final double[] max;
+    final RTreeNode[] children;
+    final double[][] points;
+    final int size;
+
+    /**
+     * Construct a leaf node, bounding its points.
+     * @param points    Points held by leaf.
+     */
+    RTreeNode(double[][] points){
+        this.points = points;
+        this.children = null;
+        this.min = points[0].clone();
+        this.max = points[0].clone();
+        for (double[] point : points){
+            for (int i = 0; i < min.length; i++){
+                min[i] = Math.min(min[i], point[i]);
+                max[i] = Math.max(max[i], point[i]);
+            }
+        }
+        this.size = points.length;
+    }
+
+    /**
+     * Construct an internal node, bounding its children.
+     * @param children  Child nodes.
+     */
+    RTreeNode(RTreeNode[] children){
+        this.points = null;
+        this.children = children;
+        this.min = children[0].min.clone();
+        this.max = children[0].max.clone();
+        int size = 0;
+        for (RTreeNode child : children){
+            for (int i = 0; i < min.length; i++){
+                min[i] = Math.min(min[i], child.min[i]);
+                max[i] = Math.max(max[i], child.max[i]);
+            }
+            size += child.size;
+        }
+        this.size = size;
+    }
+
+    boolean isLeaf(){ return children == null; }
+
+    /**
+     * @return  Number of points or children held directly by this node.
+     */
+    int getEntryCount(){ return isLeaf() ? points.length : children.length; }
+
+    /**
+     * @return  Center of bounding box along the given axis.
+     */
+    double getCenter(int axis){ return (min[axis] + max[axis]) / 2; }
+
+    /**
+     * @return  Whether the bounding box intersects the box between the given corners.
+     */
+    boolean intersects(double[] otherMin, double[] otherMax){
+        for (int i = 0; i < min.length; i++){
+            if (max[i] < otherMin[i] || min[i] > otherMax[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return  Least squared distance from the given point to the bounding box.
+     */
+    double squaredDistance(double[] point){
+        double sum = 0;
+        for (int i = 0; i < min.length; i++){
+            double difference = point[i] < min[i] ? min[i] - point[i] : (point[i] > max[i] ? point[i] - max[i] : 0);
+            sum += difference * difference;
+        }
+        return sum;
+    }
+
+    /**
+     * @return  Volume of the bounding box, after enlarging it to contain the given point.
+     */
+    double enlargedVolume(double[] point){
+        double volume = 1;
+        for (int i = 0; i < min.length; i++){
+            volume *= Math.max(max[i], point[i]) - Math.min(min[i], point[i]);
+        }
+        return volume;
+    }
+
+    /**
+     * @return  Volume of the bounding box.
+     */
+    double volume(){
+        double volume = 1;
+        for (int i = 0; i < min.length; i++){
+            volume *= max[i] - min[i];
+        }
+        return volume;
+    }
+}
@@ -0,0 +1,523 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Range-partitioned tree: Keys are divided between independent AVLTree shards by a sorted array of boundary Keys.
+ *
+ * Shard i holds the Keys in [boundary i - 1, boundary i), the first and last shards being open below and above.
+ * Point operations descend a short boundary search and then a single shard of height log(n / shards); range queries
+ * and aggregations spanning several shards run on each shard in parallel.
+ *
+ * Like every Tree, a ShardedTree is immutable: updates copy the path within one shard and the array of shards, and
+ * a ShardedTree is therefore always a consistent snapshot across every shard.  For concurrent writers, each updating
+ * their own shard, see ConcurrentShardedTree.
+ *
+ * Shards are kept near an even share of the Keys.  A shard growing past twice its share of the target shard count is
+ * split at its median; adjacent shards falling together below half of one share are merged.  Both take O(log n).
+ */
+public class ShardedTree<Key extends Comparable<Key>> extends Tree<Key> {
+
+    static final int DEFAULT_SHARD_COUNT = 16;
+
+    /** Shards at or below this size are never split, so that small trees stay in few shards. */
+    static final int MIN_SPLIT_SIZE = 1 << 10;
+
+    /** Ranges spanning fewer Keys than this are scanned on the calling thread. */
+    static final int PARALLEL_SCAN_THRESHOLD = 1 << 13;
+
+    final Key[] boundaries;
+    final AVLTree<Key>[] shards;
+    final int targetShards;
+    private final int size;
+
+    /**
+     * Empty tree, with the default target shard count.
+     * Comparison of Keys to be performed with default compareTo method.
+     */
+    public ShardedTree(){
+        this(Comparator.naturalOrder(), DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * Empty tree, holding a single shard until it grows large enough to split.
+     * @param comparator        Comparison function with which to override default compareTo of Key.
+     * @param targetShards      Number of shards among which to divide the Keys once the tree is large.
+     * @throws IllegalArgumentException     Target shard count less than one.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedTree(Comparator<Key> comparator, int targetShards){
+        this(comparator, (Key[]) new Comparable[0], newShards(1, comparator), checkTargetShards(targetShards));
+    }
+
+    ShardedTree(Comparator<Key> comparator, Key[] boundaries, AVLTree<Key>[] shards, int targetShards){
+        super(comparator);
+        this.boundaries = boundaries;
+        this.shards = shards;
+        this.targetShards = targetShards;
+        int total = 0;
+        for (AVLTree<Key> shard : shards){
+            total += shard.size();
+        }
+        this.size = total;
+    }
+
+    /**
+     * Empty tree, with boundaries chosen at the quantiles of a sample of the Keys expected, so that the shards fill
+     * evenly from the start.
+     * @param sample        Sample of expected Keys, in any order.
+     * @param shardCount    Number of shards.
+     * @return              Empty tree.
+     * @throws IllegalArgumentException     Shard count less than one.
+     */
+    public static <Key extends Comparable<Key>> ShardedTree<Key> fromSample(Collection<Key> sample, int shardCount){
+        return fromSample(sample, shardCount, Comparator.naturalOrder());
+    }
+
+    /**
+     * Empty tree, with boundaries chosen at the quantiles of a sample of the Keys expected.
+     * Fewer shards are created if the sample holds too few distinct Keys.
+     * @param sample        Sample of expected Keys, in any order.
+     * @param shardCount    Number of shards.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     * @return              Empty tree.
+     * @throws IllegalArgumentException     Shard count less than one.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <Key extends Comparable<Key>> ShardedTree<Key> fromSample(Collection<Key> sample, int shardCount, Comparator<Key> comparator){
+        checkTargetShards(shardCount);
+        List<Key> sorted = new ArrayList<>(sample);
+        sorted.sort(comparator);
+        List<Key> boundaries = new ArrayList<>();
+        for (int i = 1; i < shardCount; i++){
+            Key boundary = sorted.isEmpty() ? null : sorted.get((int) ((long) i * sorted.size() / shardCount));
+            if (boundary != null && (boundaries.isEmpty() || comparator.compare(boundary, boundaries.get(boundaries.size() - 1)) > 0)){
+                boundaries.add(boundary);
+            }
+        }
+        Key[] boundaryArray = boundaries.toArray((Key[]) new Comparable[0]);
+        return new ShardedTree<>(comparator, boundaryArray, newShards(boundaryArray.length + 1, comparator), shardCount);
+    }
+
+    private static int checkTargetShards(int targetShards){
+        if (targetShards < 1){
+            throw new IllegalArgumentException(String.format("Invalid shard count %d", targetShards));
+        }
+        return targetShards;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <Key extends Comparable<Key>> AVLTree<Key>[] newShards(int count, Comparator<Key> comparator){
+        AVLTree<Key>[] shards = (AVLTree<Key>[]) new AVLTree[count];
+        for (int i = 0; i < count; i++){
+            shards[i] = new AVLTree<>(comparator);
+        }
+        return shards;
+    }
+
+    /**
+     * @return  Number of shards.
+     */
+    public int getShardCount(){ return shards.length; }
+
+    /**
+     * @param key   Key to route.
+     * @return      Index of the shard whose range holds the Key: the number of boundaries less than or equal to it.
+     */
+    int shardOf(Key key){
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (compare(boundaries[middle], key) <= 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param shardSize     Size of a shard.
+     * @param totalSize     Size of the whole tree.
+     * @return              Whether the shard holds more than twice its share of the Keys, and should be split.
+     */
+    boolean isOversized(int shardSize, int totalSize){
+        return shardSize > MIN_SPLIT_SIZE && shardSize > 2L * totalSize / targetShards;
+    }
+
+    /**
+     * @param pairSize      Combined size of two adjacent shards.
+     * @param totalSize     Size of the whole tree.
+     * @return              Whether the shards hold together less than half of one share of the Keys, and should be merged.
+     */
+    boolean isUndersized(int pairSize, int totalSize){
+        return 2L * pairSize * targetShards < totalSize;
+    }
+
+    /**
+     * @param index     Index of shard to replace.
+     * @param shard     New shard.
+     * @return          Copy of this tree, with the shard replaced.
+     */
+    private ShardedTree<Key> withShard(int index, AVLTree<Key> shard){
+        AVLTree<Key>[] newShards = Arrays.copyOf(shards, shards.length);
+        newShards[index] = shard;
+        return new ShardedTree<>(comparator, boundaries, newShards, targetShards);
+    }
+
+    @Override
+    public ShardedTree<Key> insert(Key key){
+        int index = shardOf(key);
+        ShardedTree<Key> result = withShard(index, shards[index].insert(key));
+        return result.isOversized(result.shards[index].size(), result.size) ? result.split(index) : result;
+    }
+
+    @Override
+    public ShardedTree<Key> delete(Key key){
+        int index = shardOf(key);
+        AVLTree<Key> shard = shards[index].delete(key);
+        if (shard.size() == shards[index].size()){
+            return this;
+        }
+        ShardedTree<Key> result = withShard(index, shard);
+        int neighbour = result.smallerNeighbour(index);
+        if (neighbour >= 0 && result.isUndersized(shard.size() + result.shards[neighbour].size(), result.size)){
+            return result.merge(Math.min(index, neighbour));
+        }
+        return result;
+    }
+
+    /**
+     * @param index     Index of a shard.
+     * @return          Index of the smaller adjacent shard, or -1 if the tree has a single shard.
+     */
+    private int smallerNeighbour(int index){
+        if (shards.length == 1){
+            return -1;
+        } else if (index == 0){
+            return 1;
+        } else if (index == shards.length - 1){
+            return index - 1;
+        } else {
+            return shards[index - 1].size() <= shards[index + 1].size() ? index - 1 : index + 1;
+        }
+    }
+
+    /**
+     * Split a shard at its median Key, which becomes a new boundary.
+     * @param index     Index of shard to split.
+     * @return          Updated tree, with one more shard.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ShardedTree<Key> split(int index){
+        AVLTree<Key> shard = shards[index];
+        Key median = shard.select(shard.size() / 2);
+        Key[] newBoundaries = (Key[]) new Comparable[boundaries.length + 1];
+        System.arraycopy(boundaries, 0, newBoundaries, 0, index);
+        newBoundaries[index] = median;
+        System.arraycopy(boundaries, index, newBoundaries, index + 1, boundaries.length - index);
+        AVLTree<Key>[] newShards = (AVLTree<Key>[]) new AVLTree[shards.length + 1];
+        System.arraycopy(shards, 0, newShards, 0, index);
+        newShards[index] = shard.headTree(median);
+        newShards[index + 1] = shard.tailTree(median);
+        System.arraycopy(shards, index + 1, newShards, index + 2, shards.length - index - 1);
+        return new ShardedTree<>(comparator, newBoundaries, newShards, targetShards);
+    }
+
+    /**
+     * Merge a shard with the shard following it, dropping the boundary between them.
+     * @param index     Index of the first of the two shards.
+     * @return          Updated tree, with one fewer shard.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ShardedTree<Key> merge(int index){
+        Key[] newBoundaries = (Key[]) new Comparable[boundaries.length - 1];
+        System.arraycopy(boundaries, 0, newBoundaries, 0, index);
+        System.arraycopy(boundaries, index + 1, newBoundaries, index, boundaries.length - index - 1);
+        AVLTree<Key>[] newShards = (AVLTree<Key>[]) new AVLTree[shards.length - 1];
+        System.arraycopy(shards, 0, newShards, 0, index);
+        newShards[index] = shards[index].concat(shards[index + 1]);
+        System.arraycopy(shards, index + 2, newShards, index + 1, shards.length - index - 2);
+        return new ShardedTree<>(comparator, newBoundaries, newShards, targetShards);
+    }
+
+    /**
+     * Split every oversized shard and merge every undersized pair, until no shard is skewed.
+     * @return  Rebalanced tree, or this tree if no shard is skewed.
+     */
+    ShardedTree<Key> rebalance(){
+        ShardedTree<Key> result = this;
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            for (int i = 0; i < result.shards.length; i++){
+                if (result.isOversized(result.shards[i].size(), result.size)){
+                    result = result.split(i);
+                    changed = true;
+                } else if (i + 1 < result.shards.length && result.isUndersized(result.shards[i].size() + result.shards[i + 1].size(), result.size)){
+                    result = result.merge(i);
+                    changed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int size(){ return size; }
+
+    @Override
+    public boolean contains(Key key){
+        return shards[shardOf(key)].contains(key);
+    }
+
+    @Override
+    public List<Key> toAscendingList(){
+        return getRange(null, true, null, true);
+    }
+
+    @Override
+    public List<Key> getRange(Key start, Key end){
+        return getRange(start, true, end, true);
+    }
+
+    /**
+     * Return a List of Keys between the given start and end, including or excluding each bound.
+     * Where the range spans several shards and many Keys, each shard's part is collected in parallel.
+     * A null bound leaves that side of the range open.
+     * @param start             Start Key.
+     * @param startInclusive    Whether the start Key is included.
+     * @param end               End Key.
+     * @param endInclusive      Whether the end Key is included.
+     * @return                  List of Keys within range.
+     */
+    @Override
+    public List<Key> getRange(Key start, boolean startInclusive, Key end, boolean endInclusive){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.GET_RANGE);
+        try {
+            List<Key> result = new ArrayList<>();
+            for (List<Key> part : mapShards(start, end, shard -> shard.getRange(start, startInclusive, end, endInclusive))){
+                result.addAll(part);
+            }
+            return result;
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.GET_RANGE);
+        }
+    }
+
+    /**
+     * Fold the Keys between the given start and end, inclusive, as Stream.reduce would: each shard's Keys are
+     * accumulated in ascending order, in parallel where the range spans several shards and many Keys, and the
+     * shards' results are then combined in ascending order.
+     * A null bound leaves that side of the range open.
+     * @param start         Start Key.
+     * @param end           End Key.
+     * @param identity      Identity of the combiner, and initial value of each shard's accumulation.
+     * @param accumulator   Function folding a Key into a partial result.
+     * @param combiner      Associative function combining two partial results.
+     * @return              Result of the reduction.
+     */
+    public <R> R reduceRange(Key start, Key end, R identity, BiFunction<R, ? super Key, R> accumulator, BinaryOperator<R> combiner){
+        List<R> parts = mapShards(start, end, shard -> {
+            R partial = identity;
+            Iterator<Key> iterator = shard.rangeIterator(start, true, end, true, false);
+            while (iterator.hasNext()){
+                partial = accumulator.apply(partial, iterator.next());
+            }
+            return partial;
+        });
+        R result = identity;
+        for (R part : parts){
+            result = combiner.apply(result, part);
+        }
+        return result;
+    }
+
+    /**
+     * Apply a function to every shard overlapping a range, in parallel if the range holds enough Keys.
+     * @param start     Start Key, or null.
+     * @param end       End Key, or null.
+     * @param function  Function to apply to each shard.
+     * @return          Results for each overlapping shard, in ascending order.
+     */
+    private <R> List<R> mapShards(Key start, Key end, Function<AVLTree<Key>, R> function){
+        int first = start == null ? 0 : shardOf(start);
+        int last = end == null ? shards.length - 1 : shardOf(end);
+        if (first > last){
+            return Collections.emptyList();
+        }
+        IntStream indices = IntStream.rangeClosed(first, last);
+        if (first < last && spannedSize(first, last) >= PARALLEL_SCAN_THRESHOLD){
+            indices = indices.parallel();
+        }
+        return indices.mapToObj(i -> function.apply(shards[i])).collect(Collectors.toList());
+    }
+
+    private int spannedSize(int first, int last){
+        int total = 0;
+        for (int i = first; i <= last; i++){
+            total += shards[i].size();
+        }
+        return total;
+    }
+
+    @Override
+    public Key floor(Key key){
+        int index = shardOf(key);
+        Key result = shards[index].floor(key);
+        while (result == null && --index >= 0){
+            result = shards[index].getMax();
+        }
+        return result;
+    }
+
+    @Override
+    public Key ceiling(Key key){
+        int index = shardOf(key);
+        Key result = shards[index].ceiling(key);
+        while (result == null && ++index < shards.length){
+            result = shards[index].getMin();
+        }
+        return result;
+    }
+
+    @Override
+    public Key higher(Key key){
+        int index = shardOf(key);
+        Key result = shards[index].higher(key);
+        while (result == null && ++index < shards.length){
+            result = shards[index].getMin();
+        }
+        return result;
+    }
+
+    @Override
+    public Key lower(Key key){
+        int index = shardOf(key);
+        Key result = shards[index].lower(key);
+        while (result == null && --index >= 0){
+            result = shards[index].getMax();
+        }
+        return result;
+    }
+
+    @Override
+    public int rank(Key key){
+        return countBelow(key, false);
+    }
+
+    @Override
+    int countBelow(Key key, boolean inclusive){
+        int index = shardOf(key);
+        int count = 0;
+        for (int i = 0; i < index; i++){
+            count += shards[i].size();
+        }
+        return count + shards[index].countBelow(key, inclusive);
+    }
+
+    @Override
+    public Key select(int index){
+        if (index < 0 || index >= size){
+            throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size));
+        }
+        for (AVLTree<Key> shard : shards){
+            if (index < shard.size()){
+                return shard.select(index);
+            }
+            index -= shard.size();
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public Key getMin(){
+        for (AVLTree<Key> shard : shards){
+            if (!shard.isEmpty()){
+                return shard.getMin();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Key getMax(){
+        for (int i = shards.length - 1; i >= 0; i--){
+            if (!shards[i].isEmpty()){
+                return shards[i].getMax();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    Iterator<Key> rangeIterator(Key start, boolean startInclusive, Key end, boolean endInclusive, boolean descending){
+        int first = start == null ? 0 : shardOf(start);
+        int last = end == null ? shards.length - 1 : shardOf(end);
+        return new Iterator<Key>() {
+            private int index = descending ? last : first;
+            private Iterator<Key> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext(){
+                while (!current.hasNext() && first <= index && index <= last){
+                    current = shards[index].rangeIterator(start, startInclusive, end, endInclusive, descending);
+                    index += descending ? -1 : 1;
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Key next(){
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public void validate() throws InvalidSearchTreeException {
+        if (shards.length != boundaries.length + 1){
+            throw new InvalidSearchTreeException(String.format("Invalid shard count %d for %d boundaries", shards.length, boundaries.length));
+        }
+        for (int i = 1; i < boundaries.length; i++){
+            if (compare(boundaries[i - 1], boundaries[i]) >= 0){
+                throw new InvalidSearchTreeException(String.format("Invalid boundary %s, not greater than boundary %s", boundaries[i].toString(), boundaries[i - 1].toString()));
+            }
+        }
+        int total = 0;
+        for (int i = 0; i < shards.length; i++){
+            AVLTree<Key> shard = shards[i];
+            shard.validate();
+            total += shard.size();
+            if (shard.isEmpty()){
+                continue;
+            }
+            if (i > 0 && compare(shard.getMin(), boundaries[i - 1]) < 0){
+                throw new InvalidSearchTreeException(String.format("Invalid key %s in shard %d, less than boundary %s", shard.getMin().toString(), i, boundaries[i - 1].toString()));
+            }
+            if (i < boundaries.length && compare(shard.getMax(), boundaries[i]) >= 0){
+                throw new InvalidSearchTreeException(String.format("Invalid key %s in shard %d, not less than boundary %s", shard.getMax().toString(), i, boundaries[i].toString()));
+            }
+        }
+        if (total != size){
+            throw new InvalidSearchTreeException(String.format("Invalid size %d, shards hold %d", size, total));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.eliottgray.searchtrees;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Factory of flight recorder events for tree operations slower than the configured threshold.
+ *
+ * jdk.jfr is not part of the Java SE 8 API, so the event type is defined at runtime through jdk.jfr.EventFactory,
+ * looked up reflectively; the library builds against Java SE 8, and only needs jdk.jfr at runtime when
+ * CountingRecorder emits flight recorder events.
+ */
+final class SlowOperationEvents {
+
+    private static final String PACKAGE = "jdk.jfr.";
+
+    private final Object factory;
+    private final Method newEvent;
+    private final Method set;
+    private final Method commit;
+
+    private SlowOperationEvents(Object factory, Method newEvent, Method set, Method commit){
+        this.factory = factory;
+        this.newEvent = newEvent;
+        this.set = set;
+        this.commit = commit;
+    }
+
+    /**
+     * Define and register the slow operation event type.
+     * @return                                  Factory of slow operation events.
+     * @throws ReflectiveOperationException     If the runtime has no flight recorder.
+     */
+    static SlowOperationEvents create() throws ReflectiveOperationException {
+        Class<?> annotationElement = Class.forName(PACKAGE + "AnnotationElement");
+        Class<?> valueDescriptor = Class.forName(PACKAGE + "ValueDescriptor");
+        Class<?> eventFactory = Class.forName(PACKAGE + "EventFactory");
+        Class<?> event = Class.forName(PACKAGE + "Event");
+        Constructor<?> newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+        Constructor<?> newField = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+
+        List<Object> eventAnnotations = Arrays.asList(
+                annotation(newAnnotation, "Name", "com.eliottgray.searchtrees.SlowOperation"),
+                annotation(newAnnotation, "Label", "Slow Tree Operation"),
+                annotation(newAnnotation, "Category", new String[]{"Search Trees"}),
+                annotation(newAnnotation, "Description", "Tree operation slower than the configured threshold"));
+        // Fields are set by index, in this order.
+        List<Object> fields = new ArrayList<>();
+        fields.add(newField.newInstance(String.class, "operation",
+                Collections.singletonList(annotation(newAnnotation, "Label", "Operation"))));
+        fields.add(newField.newInstance(long.class, "latencyNanos",
+                Arrays.asList(annotation(newAnnotation, "Label", "Latency"), annotation(newAnnotation, "Timespan", "NANOSECONDS"))));
+        for (String name : new String[]{"comparisons", "allocations", "rotations", "levels"}){
+            String label = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            fields.add(newField.newInstance(long.class, name, Collections.singletonList(annotation(newAnnotation, "Label", label))));
+        }
+
+        Object factory = eventFactory.getMethod("create", List.class, List.class).invoke(null, eventAnnotations, fields);
+        return new SlowOperationEvents(factory, eventFactory.getMethod("newEvent"),
+                event.getMethod("set", int.class, Object.class), event.getMethod("commit"));
+    }
+
+    private static Object annotation(Constructor<?> newAnnotation, String type, Object value) throws ReflectiveOperationException {
+        return newAnnotation.newInstance(Class.forName(PACKAGE + type), value);
+    }
+
+    /**
+     * Commit one slow operation event.
+     * @param operation     Operation type.
+     * @param latencyNanos  Latency of the operation.
+     * @param comparisons   Comparisons made.
+     * @param allocations   Nodes allocated.
+     * @param rotations     Rotations, single or double.
+     * @param levels        Levels descended.
+     */
+    void commit(TreeRecorder.Operation operation, long latencyNanos, long comparisons, long allocations, long rotations, long levels){
+        try {
+            Object event = newEvent.invoke(factory);
+            Object[] values = {operation.name(), latencyNanos, comparisons, allocations, rotations, levels};
+            for (int i = 0; i < values.length; i++){
+                set.invoke(event, i, values[i]);
+            }
+            commit.invoke(event);
+        } catch (IllegalAccessException | InvocationTargetException exception){
+            throw new IllegalStateException("Failed to commit flight recorder event", exception);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+
+/**
+ * AVL Tree holding every occurrence of each Key in a single Node, with a count.
+ *
+ * A Node's count is its size less the sizes of its children, so that counts cost no extra field, and are kept
+ * through path copying and rotation by copyNode.  The size of the multiset, rank, select, range counts and
+ * iteration all count every occurrence, while the number of Nodes stays the number of distinct Keys.
+ * Cursors step over distinct Keys.
+ */
+public class SortedMultiset<Key extends Comparable<Key>> extends AVLTree<Key> {
+
+    /**
+     * Empty multiset. Comparison of Keys to be performed with default compareTo method.
+     */
+    public SortedMultiset(){
+        super();
+    }
+
+    /**
+     * Empty multiset, with comparator override.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     */
+    public SortedMultiset(Comparator<Key> comparator){
+        super(comparator);
+    }
+
+    /**
+     * Construct a new multiset from an older multiset.
+     * @param root          Existing root node.
+     * @param comparator    Comparator corresponding to current root node.
+     */
+    SortedMultiset(BinarySearchNode<Key> root, Comparator<Key> comparator){
+        super(root, comparator);
+    }
+
+    @Override
+    SortedMultiset<Key> withRoot(BinarySearchNode<Key> root){
+        return new SortedMultiset<>(root, comparator);
+    }
+
+    @Override
+    BinarySearchNode<Key> copyNode(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new BinarySearchNode<>(node.key, left, right, node.getCount());
+    }
+
+    @Override
+    boolean isMultiset(){ return true; }
+
+    /**
+     * Add one occurrence of the Key, rather than overwriting an equal Key.
+     * @param key   Key to insert.
+     * @return      Updated multiset.
+     */
+    @Override
+    public SortedMultiset<Key> insert(Key key){
+        return add(key, 1);
+    }
+
+    /**
+     * Remove every occurrence of the Key.
+     * @param key   Key to delete.
+     * @return      Updated multiset, or the same multiset if the Key is not contained.
+     */
+    @Override
+    public SortedMultiset<Key> delete(Key key){
+        return (SortedMultiset<Key>) super.delete(key);
+    }
+
+    /**
+     * Add occurrences of a Key, in O(log n).
+     * @param key           Key to add.
+     * @param occurrences   Number of occurrences to add.
+     * @return              Updated multiset.
+     * @throws IllegalArgumentException     Negative occurrences, or the size would exceed Integer.MAX_VALUE.
+     */
+    public SortedMultiset<Key> add(Key key, int occurrences){
+        if (occurrences < 0 || (long) size() + occurrences > Integer.MAX_VALUE){
+            throw new IllegalArgumentException(String.format("Invalid occurrences %d, for size %d", occurrences, size()));
+        }
+        if (occurrences == 0){
+            return this;
+        }
+        int count = count(key);
+        if (count == 0){
+            SortedMultiset<Key> inserted = (SortedMultiset<Key>) super.insert(key);
+            return occurrences == 1 ? inserted : inserted.withCount(key, occurrences);
+        } else {
+            return withCount(key, count + occurrences);
+        }
+    }
+
+    /**
+     * Remove occurrences of a Key, in O(log n).  The Key's Node is deleted once no occurrences remain.
+     * @param key           Key to remove.
+     * @param occurrences   Maximum number of occurrences to remove.
+     * @return              Updated multiset, or the same multiset if the Key is not contained.
+     * @throws IllegalArgumentException     Negative occurrences.
+     */
+    public SortedMultiset<Key> remove(Key key, int occurrences){
+        if (occurrences < 0){
+            throw new IllegalArgumentException(String.format("Invalid occurrences %d", occurrences));
+        }
+        int count = count(key);
+        if (count == 0 || occurrences == 0){
+            return this;
+        } else if (occurrences >= count){
+            return delete(key);
+        } else {
+            return withCount(key, count - occurrences);
+        }
+    }
+
+    /**
+     * Count the occurrences of a Key, in O(log n).
+     * @param key   Key to count.
+     * @return      Number of occurrences, or zero if the Key is not contained.
+     */
+    public int count(Key key){
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, current.key);
+            if (comparison == 0){
+                return current.getCount();
+            }
+            current = comparison < 0 ? current.left : current.right;
+        }
+        return 0;
+    }
+
+    /**
+     * View the distinct Keys of the multiset as an unmodifiable NavigableSet.
+     * Navigation runs in O(log n), but size() counts the occurrences within range, in O(k).
+     * @return      NavigableSet view of the distinct Keys.
+     */
+    @Override
+    public NavigableSet<Key> asNavigableSet(){
+        return new TreeNavigableSet<>(this, true);
+    }
+
+    /**
+     * Replace the count of a contained Key, copying the path to its Node.  The shape of the tree is unchanged.
+     */
+    private SortedMultiset<Key> withCount(Key key, int count){
+        return withRoot(recursiveWithCount(key, count, root));
+    }
+
+    private BinarySearchNode<Key> recursiveWithCount(Key key, int count, BinarySearchNode<Key> current){
+        int comparison = compare(key, current.key);
+        if (comparison < 0){
+            return copyNode(current, recursiveWithCount(key, count, current.left), current.right);
+        } else if (comparison > 0){
+            return copyNode(current, current.left, recursiveWithCount(key, count, current.right));
+        } else {
+            return new BinarySearchNode<>(current.key, current.left, current.right, count);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.eliottgray.searchtrees;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AVL Tree whose deletes leave tombstones: the deleted Key's Node stays in place, holding no occurrences.
+ *
+ * A delete copies only the path to its Node, with no rotations and no search for a replacement, so that a burst of
+ * deletes, as when expiring many Keys, does not set off a storm of rebalancing.  Tombstones are counted out of Node
+ * sizes as SortedMultiset counts occurrences, so size, rank, select, range counts and iteration skip them at no cost;
+ * floor, ceiling and the other searches for a nearest Key fall back on rank and select only where they land on a
+ * tombstone.  Inserting a buried Key revives it.
+ *
+ * Once tombstones exceed the compaction threshold, as a fraction of all Nodes, the deleting version compacts itself:
+ * its live Keys are rebuilt into a perfectly balanced tree in O(n), amortized to O(1) per delete.  compact may also
+ * be called at any time; as it only reads this version, it may run on another thread, while writers carry on with
+ * versions of their own.
+ *
+ * Cursors step over tombstones, as iteration does.
+ */
+public class TombstoneAVLTree<Key extends Comparable<Key>> extends AVLTree<Key> {
+
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    final double compactionThreshold;
+    final int tombstones;
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method.
+     */
+    public TombstoneAVLTree(){
+        this(DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Empty tree, with a compaction threshold.
+     * @param compactionThreshold   Fraction of Nodes which may be tombstones before a delete compacts the tree,
+     *                              within (0, 1]; at 1, the tree is compacted only on demand.
+     */
+    public TombstoneAVLTree(double compactionThreshold){
+        super();
+        this.compactionThreshold = checkCompactionThreshold(compactionThreshold);
+        this.tombstones = 0;
+    }
+
+    /**
+     * Empty tree, with a compaction threshold and comparator override.
+     * @param compactionThreshold   Fraction of Nodes which may be tombstones before a delete compacts the tree,
+     *                              within (0, 1]; at 1, the tree is compacted only on demand.
+     * @param comparator            Comparison function with which to override default compareTo of Key.
+     */
+    public TombstoneAVLTree(double compactionThreshold, Comparator<Key> comparator){
+        super(comparator);
+        this.compactionThreshold = checkCompactionThreshold(compactionThreshold);
+        this.tombstones = 0;
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root                  Existing root node.
+     * @param comparator            Comparator corresponding to current root node.
+     * @param compactionThreshold   Compaction threshold.
+     * @param tombstones            Number of tombstones under the root.
+     */
+    TombstoneAVLTree(BinarySearchNode<Key> root, Comparator<Key> comparator, double compactionThreshold, int tombstones){
+        super(root, comparator);
+        this.compactionThreshold = compactionThreshold;
+        this.tombstones = tombstones;
+    }
+
+    private static double checkCompactionThreshold(double compactionThreshold){
+        if (!(compactionThreshold > 0 && compactionThreshold <= 1)){
+            throw new IllegalArgumentException(String.format("Invalid compaction threshold %s", compactionThreshold));
+        }
+        return compactionThreshold;
+    }
+
+    @Override
+    TombstoneAVLTree<Key> withRoot(BinarySearchNode<Key> root){
+        return new TombstoneAVLTree<>(root, comparator, compactionThreshold, tombstones);
+    }
+
+    @Override
+    BinarySearchNode<Key> copyNode(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new BinarySearchNode<>(node.key, left, right, node.getCount());
+    }
+
+    @Override
+    boolean allowsTombstones(){ return true; }
+
+    /**
+     * @return  Number of deleted Keys still holding Nodes.
+     */
+    public int getTombstoneCount(){ return tombstones; }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Node holding the Key, live or buried, or null if there is none.
+     */
+    private BinarySearchNode<Key> findNode(Key key){
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, current.key);
+            if (comparison == 0){
+                return current;
+            }
+            current = comparison < 0 ? current.left : current.right;
+        }
+        return null;
+    }
+
+    /**
+     * Insert a Key, reviving it if it was deleted.
+     * @param key   Key to insert.
+     * @return      Updated tree.
+     */
+    @Override
+    public TombstoneAVLTree<Key> insert(Key key){
+        BinarySearchNode<Key> existing = findNode(key);
+        TombstoneAVLTree<Key> inserted = (TombstoneAVLTree<Key>) super.insert(key);
+        if (existing != null && existing.getCount() == 0){
+            return new TombstoneAVLTree<>(inserted.root, comparator, compactionThreshold, tombstones - 1);
+        }
+        return inserted;
+    }
+
+    /**
+     * Bury a Key, copying the path to its Node, and compact the tree if tombstones exceed the threshold.
+     * @param key   Key to delete.
+     * @return      Updated tree, or the same tree if the Key is not contained.
+     */
+    @Override
+    public TombstoneAVLTree<Key> delete(Key key){
+        if (root == null){
+            return this;
+        }
+        BinarySearchNode<Key> newRoot;
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.DELETE);
+        try {
+            newRoot = bury(key, root);
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.DELETE);
+        }
+        if (newRoot == root){
+            return this;
+        }
+        TombstoneAVLTree<Key> buried = new TombstoneAVLTree<>(newRoot, comparator, compactionThreshold, tombstones + 1);
+        return buried.tombstones > compactionThreshold * (buried.size() + buried.tombstones) ? buried.compact() : buried;
+    }
+
+    /**
+     * @return  Subtree with the Key's Node emptied, or the same subtree if the Key is absent or already buried.
+     */
+    private BinarySearchNode<Key> bury(Key key, BinarySearchNode<Key> current){
+        if (current == null){
+            return null;
+        }
+        TreeInstrumentation.RECORDER.level();
+        int comparison = compare(key, current.key);
+        if (comparison < 0){
+            BinarySearchNode<Key> newLeft = bury(key, current.left);
+            return newLeft == current.left ? current : copyNode(current, newLeft, current.right);
+        } else if (comparison > 0){
+            BinarySearchNode<Key> newRight = bury(key, current.right);
+            return newRight == current.right ? current : copyNode(current, current.left, newRight);
+        } else if (current.getCount() == 0){
+            return current;
+        } else {
+            return new BinarySearchNode<>(current.key, current.left, current.right, 0);
+        }
+    }
+
+    /**
+     * Rebuild the live Keys into a perfectly balanced tree without tombstones, in O(n).
+     * @return  Compacted tree, or this tree if it has no tombstones.
+     */
+    public TombstoneAVLTree<Key> compact(){
+        if (tombstones == 0){
+            return this;
+        }
+        TombstoneAVLTree<Key> empty = new TombstoneAVLTree<>(null, comparator, compactionThreshold, 0);
+        List<Key> live = toAscendingList();
+        return live.isEmpty() ? empty : empty.appendSorted(live);
+    }
+
+    /**
+     * @return  Greatest Key of any Node, live or buried.
+     */
+    private Key lastNodeKey(){
+        return root == null ? null : super.getMax();
+    }
+
+    /**
+     * Appending below a buried Key would misplace it, so such a Key is inserted instead.
+     */
+    @Override
+    public TombstoneAVLTree<Key> append(Key key){
+        if (root != null && compare(key, lastNodeKey()) <= 0){
+            Key max = getMax();
+            if (max != null && compare(key, max) <= 0){
+                throw new IllegalArgumentException(String.format("Appended key %s is not greater than maximum key %s", key, max));
+            }
+            return insert(key);
+        }
+        return (TombstoneAVLTree<Key>) super.append(key);
+    }
+
+    @Override
+    public TombstoneAVLTree<Key> appendAll(Collection<? extends Key> keys){
+        return (TombstoneAVLTree<Key>) super.appendAll(keys);
+    }
+
+    @Override
+    TombstoneAVLTree<Key> appendSorted(List<Key> sorted){
+        if (root != null && compare(sorted.get(0), lastNodeKey()) <= 0){
+            TombstoneAVLTree<Key> result = this;
+            for (Key key : sorted){
+                result = result.insert(key);
+            }
+            return result;
+        }
+        return (TombstoneAVLTree<Key>) super.appendSorted(sorted);
+    }
+
+    /**
+     * Splits rejoin the Keys of Nodes along their path, so they work on the compacted tree.
+     */
+    @Override
+    TombstoneAVLTree<Key> headTree(Key key){
+        return tombstones > 0 ? compact().headTree(key) : (TombstoneAVLTree<Key>) super.headTree(key);
+    }
+
+    @Override
+    TombstoneAVLTree<Key> tailTree(Key key){
+        return tombstones > 0 ? compact().tailTree(key) : (TombstoneAVLTree<Key>) super.tailTree(key);
+    }
+
+    @Override
+    TombstoneAVLTree<Key> concat(AVLTree<Key> right){
+        if (tombstones > 0){
+            return compact().concat(right);
+        }
+        if (right instanceof TombstoneAVLTree){
+            // Concatenation deletes from the right tree, which must not leave a tombstone behind.
+            right = new AVLTree<>(((TombstoneAVLTree<Key>) right).compact().root, right.comparator);
+        }
+        return (TombstoneAVLTree<Key>) super.concat(right);
+    }
+
+    @Override
+    public boolean isEmpty(){ return size() == 0; }
+
+    @Override
+    public boolean contains(Key key){
+        BinarySearchNode<Key> node = findNode(key);
+        return node != null && node.getCount() > 0;
+    }
+
+    @Override
+    public BitSet containsBatch(Key[] keys){
+        BitSet result = super.containsBatch(keys);
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)){
+            if (!contains(keys[i])){
+                result.clear(i);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Key getMin(){
+        return isEmpty() ? null : select(0);
+    }
+
+    @Override
+    public Key getMax(){
+        return isEmpty() ? null : select(size() - 1);
+    }
+
+    @Override
+    public Key floor(Key key){
+        return nearest(key, false, true);
+    }
+
+    @Override
+    public Key ceiling(Key key){
+        return nearest(key, true, true);
+    }
+
+    @Override
+    public Key higher(Key key){
+        return nearest(key, true, false);
+    }
+
+    @Override
+    public Key lower(Key key){
+        return nearest(key, false, false);
+    }
+
+    /**
+     * Find the closest Key to the given Key, on one side of it, with a single descent as BinarySearchTree does.
+     * Should the closest Node be a tombstone, the closest live Key may lie in any subtree passed over on the way, so
+     * it is found instead by counting the live Keys below the given Key, and selecting by rank.
+     * @param key           Key to search for.
+     * @param above         Search for Keys above the given Key, rather than below.
+     * @param inclusive     Whether a Key equal to the given Key may be returned.
+     * @return              Closest live Key, or null if there is no such Key.
+     */
+    private Key nearest(Key key, boolean above, boolean inclusive){
+        BinarySearchNode<Key> closest = null;
+        BinarySearchNode<Key> current = root;
+        while (current != null){
+            int comparison = compare(key, current.key);
+            if (comparison == 0 && inclusive){
+                closest = current;
+                break;
+            } else if (comparison < 0 || (comparison == 0 && !above)){
+                if (above){
+                    closest = current;
+                }
+                current = current.left;
+            } else {
+                if (!above){
+                    closest = current;
+                }
+                current = current.right;
+            }
+        }
+        if (closest == null){
+            return null;
+        } else if (closest.getCount() > 0){
+            return closest.key;
+        }
+        // Live Keys below the given Key, counting an equal Key where it is above the range searched.
+        int below = countBelow(key, above != inclusive);
+        if (above){
+            return below == size() ? null : select(below);
+        } else {
+            return below == 0 ? null : select(below - 1);
+        }
+    }
+
+    @Override
+    public void validate() throws InvalidSearchTreeException {
+        super.validate();
+        int counted = countTombstones(root);
+        if (counted != tombstones){
+            throw new InvalidSearchTreeException(String.format("Invalid tombstone count %d, counted %d", tombstones, counted));
+        }
+    }
+
+    private static int countTombstones(BinarySearchNode<?> node){
+        int count = 0;
+        while (node != null){
+            count += countTombstones(node.left) + (node.getCount() == 0 ? 1 : 0);
+            node = node.right;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,369 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+
+/**
+ * Treap: a binary search tree by Key which is also a heap by priority, so that each Node outranks its children.
+ * With random priorities the shape is that of a tree built by inserting the Keys in random order, of expected height
+ * O(log n), without any balance information to maintain.
+ *
+ * Priorities are hashed from the Keys' hashCode, rather than drawn at random, so that a set of Keys has exactly one
+ * shape however it was built; ties are broken by Key, lesser first.  Keys with adversarial hashCodes can unbalance
+ * the tree, as they can a HashMap.
+ *
+ * In place of rotations, updates split and join subtrees along a single path, each in expected O(log n).  That makes
+ * split, concatenation and the set operations simple: union of trees of sizes m and n, m no greater than n, costs
+ * expected O(m log(n / m + 1)), and subtrees the two trees share, as versions of one tree do, are not descended into.
+ */
+public class Treap<Key extends Comparable<Key>> extends BinarySearchTree<Key> {
+
+    /**
+     * Empty tree. Comparison of Keys to be performed with default compareTo method.
+     */
+    public Treap(){
+        super();
+    }
+
+    /**
+     * Empty tree, with comparator override.
+     * @param comparator    Comparison function with which to override default compareTo of Key.
+     */
+    public Treap(Comparator<Key> comparator){
+        super(comparator);
+    }
+
+    /**
+     * Construct a new tree from an older tree.
+     * @param root          Existing root node.
+     * @param comparator    Comparator corresponding to current root node.
+     */
+    Treap(BinarySearchNode<Key> root, Comparator<Key> comparator){
+        super(root, comparator);
+    }
+
+    @Override
+    Treap<Key> withRoot(BinarySearchNode<Key> root){
+        return new Treap<>(root, comparator);
+    }
+
+    @Override
+    TreapNode<Key> createNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new TreapNode<>(key, left, right, priority(key));
+    }
+
+    @Override
+    TreapNode<Key> copyNode(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        return new TreapNode<>(node.key, left, right, ((TreapNode<Key>) node).priority);
+    }
+
+    /**
+     * Hash a Key's hashCode to a priority, by the finalizer of MurmurHash3.
+     * @param key   Key.
+     * @return      Priority of the Key.
+     */
+    static int priority(Object key){
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * @return  Whether the first Node belongs above the second: it has the higher priority, or the lesser Key on a tie.
+     */
+    private boolean outranks(BinarySearchNode<Key> one, BinarySearchNode<Key> two){
+        int priorityOne = ((TreapNode<Key>) one).priority;
+        int priorityTwo = ((TreapNode<Key>) two).priority;
+        return priorityOne != priorityTwo ? priorityOne > priorityTwo : compare(one.key, two.key) < 0;
+    }
+
+    /**
+     * Subtrees of the Keys less than and greater than a split Key, and the Node holding the split Key, if any.
+     */
+    private static class Split<Key extends Comparable<Key>> {
+        private BinarySearchNode<Key> left;
+        private BinarySearchNode<Key> found;
+        private BinarySearchNode<Key> right;
+    }
+
+    /**
+     * Split a subtree about a Key, copying only the search path.
+     * @param current   Subtree to split, or null.
+     * @param key       Split Key.
+     * @param split     Receives the subtrees either side of the Key, and its Node.
+     */
+    private void split(BinarySearchNode<Key> current, Key key, Split<Key> split){
+        if (current == null){
+            split.left = null;
+            split.found = null;
+            split.right = null;
+            return;
+        }
+        TreeInstrumentation.RECORDER.level();
+        int comparison = compare(key, current.key);
+        if (comparison < 0){
+            split(current.left, key, split);
+            split.right = copyNode(current, split.right, current.right);
+        } else if (comparison > 0){
+            split(current.right, key, split);
+            split.left = copyNode(current, current.left, split.left);
+        } else {
+            split.left = current.left;
+            split.found = current;
+            split.right = current.right;
+        }
+    }
+
+    /**
+     * Join two subtrees, every Key of the first less than every Key of the second, along their facing spines.
+     * @param left      Subtree of lesser Keys, or null.
+     * @param right     Subtree of greater Keys, or null.
+     * @return          Joined subtree.
+     */
+    private BinarySearchNode<Key> join(BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        if (left == null){
+            return right;
+        } else if (right == null){
+            return left;
+        }
+        TreeInstrumentation.RECORDER.level();
+        if (outranks(left, right)){
+            return copyNode(left, left.left, join(left.right, right));
+        } else {
+            return copyNode(right, join(left, right.left), right.right);
+        }
+    }
+
+    @Override
+    public Treap<Key> insert(Key key){
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.INSERT);
+        try {
+            return withRoot(recursiveInsert(createNode(key, null, null), root));
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.INSERT);
+        }
+    }
+
+    /**
+     * Descend to where the new Node outranks the subtree, then split the subtree beneath it.
+     * @param node      Childless Node to insert.
+     * @param current   Subtree to insert into, or null.
+     * @return          Subtree holding the Node.
+     */
+    private BinarySearchNode<Key> recursiveInsert(BinarySearchNode<Key> node, BinarySearchNode<Key> current){
+        if (current == null){
+            return node;
+        }
+        TreeInstrumentation.RECORDER.level();
+        if (outranks(node, current)){
+            Split<Key> split = new Split<>();
+            split(current, node.key, split);
+            return copyNode(node, split.left, split.right);
+        }
+        int comparison = compare(node.key, current.key);
+        if (comparison < 0){
+            return copyNode(current, recursiveInsert(node, current.left), current.right);
+        } else if (comparison > 0){
+            return copyNode(current, current.left, recursiveInsert(node, current.right));
+        } else {
+            // Duplicate key found; replace it.
+            return replace(node, current.left, current.right);
+        }
+    }
+
+    /**
+     * Place a Node over the children of an equal Key's Node.  Under a comparator, equal Keys' hashCodes and so their
+     * priorities may differ; if so, the Node is inserted below the children's join instead.
+     * @param node      Node whose Key replaces an equal Key.
+     * @param left      Left child of the replaced Node.
+     * @param right     Right child of the replaced Node.
+     * @return          Subtree holding the Node and both children.
+     */
+    private BinarySearchNode<Key> replace(BinarySearchNode<Key> node, BinarySearchNode<Key> left, BinarySearchNode<Key> right){
+        if ((left == null || outranks(node, left)) && (right == null || outranks(node, right))){
+            return copyNode(node, left, right);
+        }
+        return recursiveInsert(copyNode(node, null, null), join(left, right));
+    }
+
+    @Override
+    public Treap<Key> delete(Key key){
+        if (root == null){
+            return this;
+        }
+        BinarySearchNode<Key> newRoot;
+        TreeInstrumentation.RECORDER.begin(TreeRecorder.Operation.DELETE);
+        try {
+            newRoot = recursiveDelete(key, root);
+        } finally {
+            TreeInstrumentation.RECORDER.end(TreeRecorder.Operation.DELETE);
+        }
+        return newRoot == root ? this : withRoot(newRoot);
+    }
+
+    private BinarySearchNode<Key> recursiveDelete(Key key, BinarySearchNode<Key> current){
+        if (current == null){
+            return null;
+        }
+        TreeInstrumentation.RECORDER.level();
+        int comparison = compare(key, current.key);
+        if (comparison < 0){
+            BinarySearchNode<Key> newLeft = recursiveDelete(key, current.left);
+            return newLeft == current.left ? current : copyNode(current, newLeft, current.right);
+        } else if (comparison > 0){
+            BinarySearchNode<Key> newRight = recursiveDelete(key, current.right);
+            return newRight == current.right ? current : copyNode(current, current.left, newRight);
+        } else {
+            return join(current.left, current.right);
+        }
+    }
+
+    /**
+     * Split off the Keys less than the given Key, in expected O(log n).
+     * @param key   Split Key.
+     * @return      Tree of the Keys less than the given Key.
+     */
+    public Treap<Key> headTree(Key key){
+        Split<Key> split = new Split<>();
+        split(root, key, split);
+        return withRoot(split.left);
+    }
+
+    /**
+     * Split off the Keys greater than or equal to the given Key, in expected O(log n).
+     * @param key   Split Key.
+     * @return      Tree of the Keys greater than or equal to the given Key.
+     */
+    public Treap<Key> tailTree(Key key){
+        Split<Key> split = new Split<>();
+        split(root, key, split);
+        return withRoot(split.found == null ? split.right : join(copyNode(split.found, null, null), split.right));
+    }
+
+    /**
+     * Concatenate a tree whose Keys are all greater than this tree's, in expected O(log n).
+     * @param right     Tree of greater Keys, with the same comparator.
+     * @return          Tree of the Keys of both trees.
+     * @throws IllegalArgumentException     Trees' comparators differ, or their Keys overlap.
+     */
+    public Treap<Key> concat(Treap<Key> right){
+        checkComparator(right);
+        if (root != null && right.root != null && compare(getMax(), right.getMin()) >= 0){
+            throw new IllegalArgumentException(String.format("Concatenated key %s is not greater than maximum key %s", right.getMin(), getMax()));
+        }
+        return withRoot(join(root, right.root));
+    }
+
+    /**
+     * Union with another tree, keeping this tree's Key where both hold equal Keys.
+     * @param other     Tree with the same comparator.
+     * @return          Tree of the Keys in either tree.
+     * @throws IllegalArgumentException     Trees' comparators differ.
+     */
+    public Treap<Key> union(Treap<Key> other){
+        checkComparator(other);
+        return withRoot(union(root, other.root, new Split<>()));
+    }
+
+    /**
+     * Intersection with another tree, keeping this tree's Keys.
+     * @param other     Tree with the same comparator.
+     * @return          Tree of the Keys in both trees.
+     * @throws IllegalArgumentException     Trees' comparators differ.
+     */
+    public Treap<Key> intersection(Treap<Key> other){
+        checkComparator(other);
+        return withRoot(intersection(root, other.root, new Split<>()));
+    }
+
+    /**
+     * Difference from another tree.
+     * @param other     Tree with the same comparator.
+     * @return          Tree of the Keys in this tree but not the other.
+     * @throws IllegalArgumentException     Trees' comparators differ.
+     */
+    public Treap<Key> difference(Treap<Key> other){
+        checkComparator(other);
+        return withRoot(difference(root, other.root, new Split<>()));
+    }
+
+    private void checkComparator(Treap<Key> other){
+        if (comparator != other.comparator){
+            throw new IllegalArgumentException("Treaps have different comparators");
+        }
+    }
+
+    /**
+     * Split the lower-ranked subtree about the root of the higher-ranked, and recurse either side.
+     * Each call reads what it needs from the split before recursing, so that one Split serves the whole operation.
+     * @param mine      Subtree of this tree, whose Keys win ties.
+     * @param other     Subtree of the other tree.
+     * @param split     Scratch split.
+     */
+    private BinarySearchNode<Key> union(BinarySearchNode<Key> mine, BinarySearchNode<Key> other, Split<Key> split){
+        if (mine == null || mine == other){
+            return other;
+        } else if (other == null){
+            return mine;
+        }
+        if (outranks(mine, other)){
+            split(other, mine.key, split);
+            BinarySearchNode<Key> otherRight = split.right;
+            BinarySearchNode<Key> left = union(mine.left, split.left, split);
+            return copyNode(mine, left, union(mine.right, otherRight, split));
+        } else {
+            split(mine, other.key, split);
+            BinarySearchNode<Key> found = split.found;
+            BinarySearchNode<Key> mineRight = split.right;
+            BinarySearchNode<Key> left = union(split.left, other.left, split);
+            BinarySearchNode<Key> right = union(mineRight, other.right, split);
+            return found == null ? copyNode(other, left, right) : replace(found, left, right);
+        }
+    }
+
+    private BinarySearchNode<Key> intersection(BinarySearchNode<Key> mine, BinarySearchNode<Key> other, Split<Key> split){
+        if (mine == null || other == null){
+            return null;
+        } else if (mine == other){
+            return mine;
+        }
+        split(mine, other.key, split);
+        BinarySearchNode<Key> found = split.found;
+        BinarySearchNode<Key> mineRight = split.right;
+        BinarySearchNode<Key> left = intersection(split.left, other.left, split);
+        BinarySearchNode<Key> right = intersection(mineRight, other.right, split);
+        return found == null ? join(left, right) : replace(found, left, right);
+    }
+
+    private BinarySearchNode<Key> difference(BinarySearchNode<Key> mine, BinarySearchNode<Key> other, Split<Key> split){
+        if (mine == null || mine == other){
+            return null;
+        } else if (other == null){
+            return mine;
+        }
+        split(other, mine.key, split);
+        boolean found = split.found != null;
+        BinarySearchNode<Key> otherRight = split.right;
+        BinarySearchNode<Key> left = difference(mine.left, split.left, split);
+        BinarySearchNode<Key> right = difference(mine.right, otherRight, split);
+        return found ? join(left, right) : copyNode(mine, left, right);
+    }
+
+    @Override
+    void validateNode(BinarySearchNode<Key> node, Key low, Key high) throws InvalidSearchTreeException {
+        super.validateNode(node, low, high);
+        int priority = ((TreapNode<Key>) node).priority;
+        if (priority != priority(node.key)){
+            throw new InvalidSearchTreeException(String.format("Invalid priority for key %s, priority %d, expected %d", node.key, priority, priority(node.key)));
+        }
+        if (node.hasLeft() && !outranks(node, node.left)){
+            throw new InvalidSearchTreeException(String.format("Invalid priority for key %s, outranked by left child key %s", node.key, node.left.key));
+        }
+        if (node.hasRight() && !outranks(node, node.right)){
+            throw new InvalidSearchTreeException(String.format("Invalid priority for key %s, outranked by right child key %s", node.key, node.right.key));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.eliottgray.searchtrees;
+
+class TreapNode<Key extends Comparable<Key>> extends BinarySearchNode<Key> {
+
+    final int priority;
+
+    /**
+     * Construct a Node caching the heap priority of its Key.
+     * @param key           Comparable Key for node.
+     * @param left          Existing left child, or null.
+     * @param right         Existing right child, or null.
+     * @param priority      Priority of the Key, hashed from it by the Treap.
+     */
+    TreapNode(Key key, BinarySearchNode<Key> left, BinarySearchNode<Key> right, int priority){
+        super(key, left, right);
+        this.priority = priority;
+    }
+}
@@ -1,33 +1,57 @@
 package com.eliottgray.searchtrees;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public abstract class Tree <Key extends Comparable<Key>> {
 
     final Comparator<Key> comparator;
+    private final boolean naturalOrder;
 
     /**
      * Create an empty tree.
      * Comparison of Keys will be performed with the default compareTo method of the Key.
      */
     public Tree(){
-        this.comparator = Comparable::compareTo;
+        this(Comparator.naturalOrder());
     }
 
     /**
      * Create an empty tree, with overridden comparator.
-     * The default compareTo method of the Key class will not be used.
+     * The default compareTo method of the Key class will not be used, unless the comparator is equivalent to it:
+     * Comparator.naturalOrder(), or one of those in KeyComparators.
      * @param comparator    Key comparison method.
      */
     public Tree(Comparator<Key> comparator){
-        this.comparator = comparator;
+        this.comparator = KeyComparators.resolve(comparator);
+        this.naturalOrder = KeyComparators.isNaturalOrder(comparator);
     }
 
     /**
-     * @return  Root Node of Tree..
+     * Compare two Keys with this Tree's comparator.
+     * Natural-order trees compare common Key types directly, rather than through an interface call.
+     * @param one   First Key.
+     * @param two   Second Key.
+     * @return      Negative, zero or positive, as the first Key is less than, equal to or greater than the second.
      */
-    abstract Node<Key> getRoot();
+    int compare(Key one, Key two){
+        TreeInstrumentation.RECORDER.comparison();
+        return naturalOrder ? KeyComparators.compareNaturally(one, two) : comparator.compare(one, two);
+    }
+
+    /**
+     * @return  Whether Keys are compared by their default compareTo method, rather than an overridden comparator.
+     */
+    boolean isNaturalOrder(){
+        return naturalOrder;
+    }
 
     /**
      * Insert a new Key into the Tree.
@@ -51,19 +75,13 @@ public abstract class Tree <Key extends Comparable<Key>> {
      * @return  Whether the Tree is empty or not.
      */
     public boolean isEmpty(){
-        return getRoot() == null;
+        return size() == 0;
     }
 
     /**
      * @return  Number of Keys in the tree.
      */
-    public int size(){
-        if (isEmpty()) {
-            return 0;
-        } else {
-            return getRoot().getSize();
-        }
-    }
+    public abstract int size();
 
     /**
      * Determine whether or not the given Key is contained within the tree.
@@ -72,6 +90,21 @@ public abstract class Tree <Key extends Comparable<Key>> {
      */
     public abstract boolean contains(Key key);
 
+    /**
+     * Determine which of a batch of Keys are contained within the tree.
+     * @param keys  Keys to search for.
+     * @return      Set with bit i set if and only if keys[i] is contained within the tree.
+     */
+    public BitSet containsBatch(Key[] keys){
+        BitSet result = new BitSet(keys.length);
+        for (int i = 0; i < keys.length; i++){
+            if (contains(keys[i])){
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
     /**
      * @return  List of Keys in ascending order.
      */
@@ -85,6 +118,319 @@ public abstract class Tree <Key extends Comparable<Key>> {
      */
     public abstract List<Key> getRange(Key start, Key end);
 
+    /**
+     * Return a List of Keys between the given start and end, including or excluding each bound.
+     * A null bound leaves that side of the range open.
+     * @param start             Start Key.
+     * @param startInclusive    Whether the start Key is included.
+     * @param end               End Key.
+     * @param endInclusive      Whether the end Key is included.
+     * @return                  List of Keys within range.
+     */
+    public List<Key> getRange(Key start, boolean startInclusive, Key end, boolean endInclusive){
+        List<Key> result = new ArrayList<>();
+        forEachInRange(start, startInclusive, end, endInclusive, result::add);
+        return result;
+    }
+
+    /**
+     * Return one page of the Keys between the given start and end, inclusive.
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @param offset    Number of Keys within range to skip.
+     * @param limit     Maximum number of Keys to return.
+     * @return          List of at most limit Keys within range, beginning with the Key at offset.
+     */
+    public List<Key> getRange(Key start, Key end, int offset, int limit){
+        return getRange(start, true, end, true, offset, limit);
+    }
+
+    /**
+     * Return one page of the Keys between the given start and end, including or excluding each bound.
+     * Skipped Keys are not visited: the first Key of the page is found by rank in O(log n).
+     * A null bound leaves that side of the range open.
+     * @param start             Start Key.
+     * @param startInclusive    Whether the start Key is included.
+     * @param end               End Key.
+     * @param endInclusive      Whether the end Key is included.
+     * @param offset            Number of Keys within range to skip.
+     * @param limit             Maximum number of Keys to return.
+     * @return                  List of at most limit Keys within range, beginning with the Key at offset.
+     * @throws IllegalArgumentException     Negative offset or limit.
+     */
+    public List<Key> getRange(Key start, boolean startInclusive, Key end, boolean endInclusive, int offset, int limit){
+        if (offset < 0 || limit < 0){
+            throw new IllegalArgumentException(String.format("Invalid offset %d or limit %d", offset, limit));
+        }
+        List<Key> result = new ArrayList<>(Math.min(limit, size()));
+        int before = start == null ? 0 : countBelow(start, !startInclusive);
+        if (limit == 0 || (long) before + offset >= size()){
+            return result;
+        }
+        Key first = select(before + offset);
+
+        // Where Keys repeat, the page may begin part way through the occurrences of its first Key.
+        int[] skip = {before + offset - rank(first)};
+        scanWhile(first, true, end, endInclusive, key -> {
+            if (skip[0] > 0){
+                skip[0]--;
+                return true;
+            }
+            result.add(key);
+            return result.size() < limit;
+        });
+        return result;
+    }
+
+    /**
+     * Iterate lazily over the Keys between the given start and end, inclusive, from the end down.
+     * A null bound leaves that side of the range open.
+     * @param start     Start (least) Key.
+     * @param end       End (greatest) Key.
+     * @return          Keys within range, in descending order.
+     */
+    public Iterable<Key> descendingRange(Key start, Key end){
+        return () -> rangeIterator(start, true, end, true, true);
+    }
+
+    /**
+     * Iterate lazily over the k greatest Keys, in O(log n + k).
+     * @param k     Maximum number of Keys.
+     * @return      At most k greatest Keys, in descending order.
+     * @throws IllegalArgumentException     Negative k.
+     */
+    public Iterable<Key> topK(int k){
+        return limit(null, false, null, false, true, k);
+    }
+
+    /**
+     * Iterate lazily over the k least Keys, in O(log n + k).
+     * @param k     Maximum number of Keys.
+     * @return      At most k least Keys, in ascending order.
+     * @throws IllegalArgumentException     Negative k.
+     */
+    public Iterable<Key> bottomK(int k){
+        return limit(null, false, null, false, false, k);
+    }
+
+    /**
+     * Iterate lazily over the n greatest Keys strictly less than the given Key, in O(log n + n).
+     * @param before    Exclusive upper bound.
+     * @param n         Maximum number of Keys.
+     * @return          At most n Keys preceding the given Key, in descending order.
+     * @throws IllegalArgumentException     Negative n.
+     */
+    public Iterable<Key> lastN(Key before, int n){
+        return limit(null, false, before, false, true, n);
+    }
+
+    private Iterable<Key> limit(Key start, boolean startInclusive, Key end, boolean endInclusive, boolean descending, int limit){
+        if (limit < 0){
+            throw new IllegalArgumentException(String.format("Invalid limit %d", limit));
+        }
+        return () -> new Iterator<Key>() {
+            private final Iterator<Key> iterator = rangeIterator(start, startInclusive, end, endInclusive, descending);
+            private int remaining = limit;
+
+            @Override
+            public boolean hasNext(){
+                return remaining > 0 && iterator.hasNext();
+            }
+
+            @Override
+            public Key next(){
+                if (remaining == 0){
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * Visit each Key between the given start and end, inclusive, in ascending order.
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @param action    Action to perform on each Key.
+     */
+    public void forEachInRange(Key start, Key end, Consumer<? super Key> action){
+        forEachInRange(start, true, end, true, action);
+    }
+
+    /**
+     * Visit each Key between the given start and end, including or excluding each bound, in ascending order.
+     * A null bound leaves that side of the range open.
+     * @param start             Start Key.
+     * @param startInclusive    Whether the start Key is included.
+     * @param end               End Key.
+     * @param endInclusive      Whether the end Key is included.
+     * @param action            Action to perform on each Key.
+     */
+    public void forEachInRange(Key start, boolean startInclusive, Key end, boolean endInclusive, Consumer<? super Key> action){
+        scanWhile(start, startInclusive, end, endInclusive, key -> {
+            action.accept(key);
+            return true;
+        });
+    }
+
+    /**
+     * Visit Keys between the given start and end, inclusive, in ascending order, until the visitor returns false.
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @param visitor   Visitor of each Key; returns whether to continue the scan.
+     * @return          Whether every Key within range was visited, without the visitor stopping the scan.
+     */
+    public boolean scanWhile(Key start, Key end, Predicate<? super Key> visitor){
+        return scanWhile(start, true, end, true, visitor);
+    }
+
+    /**
+     * Visit Keys between the given start and end, including or excluding each bound, in ascending order,
+     * until the visitor returns false.  A null bound leaves that side of the range open.
+     * @param start             Start Key.
+     * @param startInclusive    Whether the start Key is included.
+     * @param end               End Key.
+     * @param endInclusive      Whether the end Key is included.
+     * @param visitor           Visitor of each Key; returns whether to continue the scan.
+     * @return                  Whether every Key within range was visited, without the visitor stopping the scan.
+     */
+    public boolean scanWhile(Key start, boolean startInclusive, Key end, boolean endInclusive, Predicate<? super Key> visitor){
+        Iterator<Key> iterator = rangeIterator(start, startInclusive, end, endInclusive, false);
+        while (iterator.hasNext()){
+            if (!visitor.test(iterator.next())){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param key   Key to search for.
+     * @return      Greatest Key less than or equal to the given Key, or null if there is no such Key.
+     */
+    public abstract Key floor(Key key);
+
+    /**
+     * @param key   Key to search for.
+     * @return      Least Key greater than or equal to the given Key, or null if there is no such Key.
+     */
+    public abstract Key ceiling(Key key);
+
+    /**
+     * @param key   Key to search for.
+     * @return      Least Key strictly greater than the given Key, or null if there is no such Key.
+     */
+    public abstract Key higher(Key key);
+
+    /**
+     * @param key   Key to search for.
+     * @return      Greatest Key strictly less than the given Key, or null if there is no such Key.
+     */
+    public abstract Key lower(Key key);
+
+    /**
+     * Count the Keys strictly less than the given Key.
+     * The given Key need not be contained within the Tree.
+     * @param key   Key to rank.
+     * @return      Number of Keys less than the given Key.
+     */
+    public abstract int rank(Key key);
+
+    /**
+     * Select the Key of the given rank; the inverse of rank for contained Keys.
+     * @param index     Number of Keys less than the Key to select.
+     * @return          Key at index, in ascending order.
+     * @throws IndexOutOfBoundsException    Index is negative, or not less than the size of the Tree.
+     */
+    public abstract Key select(int index);
+
+    /**
+     * Count the Keys between the given start and end, inclusive, in O(log n).
+     * @param start     Start Key.
+     * @param end       End Key.
+     * @return          Number of Keys within range.
+     */
+    public int rangeCount(Key start, Key end){
+        return Math.max(0, countBelow(end, true) - rank(start));
+    }
+
+    /**
+     * Count the Keys within each of a batch of ranges.
+     * @param starts    Start Key of each range.
+     * @param ends      End Key of each range.
+     * @return          Number of Keys between starts[i] and ends[i], inclusive, for each range i.
+     * @throws IllegalArgumentException     Different numbers of starts and ends.
+     */
+    public int[] rangeCountBatch(Key[] starts, Key[] ends){
+        if (starts.length != ends.length){
+            throw new IllegalArgumentException(String.format("%d range starts, but %d range ends", starts.length, ends.length));
+        }
+        int[] result = new int[starts.length];
+        for (int i = 0; i < starts.length; i++){
+            result[i] = rangeCount(starts[i], ends[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Count the Keys below the given Key, optionally counting the Key itself.
+     * @param key           Key to rank.
+     * @param inclusive     Whether a Key equal to the given Key is counted.
+     * @return              Number of Keys below (or at) the given Key.
+     */
+    int countBelow(Key key, boolean inclusive){
+        return rank(key) + ((inclusive && contains(key)) ? 1 : 0);
+    }
+
+    /**
+     * Iterate lazily over the Keys within a range, without materializing the range as a List.
+     * A null bound leaves that side of the range open.
+     * @param start             Lower bound of range.
+     * @param startInclusive    Whether the lower bound is included.
+     * @param end               Upper bound of range.
+     * @param endInclusive      Whether the upper bound is included.
+     * @param descending        Iterate from the upper bound down, rather than from the lower bound up.
+     * @return                  Iterator over Keys within range.
+     */
+    abstract Iterator<Key> rangeIterator(Key start, boolean startInclusive, Key end, boolean endInclusive, boolean descending);
+
+    /**
+     * Delete the minimum Key from the Tree.
+     * A new Tree is returned which contains the change.
+     * @return      Updated Tree, or the same Tree if empty.
+     */
+    public Tree<Key> pollFirst(){
+        return isEmpty() ? this : delete(getMin());
+    }
+
+    /**
+     * Delete the maximum Key from the Tree.
+     * A new Tree is returned which contains the change.
+     * @return      Updated Tree, or the same Tree if empty.
+     */
+    public Tree<Key> pollLast(){
+        return isEmpty() ? this : delete(getMax());
+    }
+
+    /**
+     * View the Tree as an unmodifiable NavigableSet.
+     * The view does not copy the Tree; navigation, sub-set views and their sizes all run in O(log n).
+     * @return      NavigableSet view of the Tree.
+     */
+    public NavigableSet<Key> asNavigableSet(){
+        return new TreeNavigableSet<>(this);
+    }
+
+    /**
+     * Copy the Tree into an immutable, array-backed set laid out for fast searching.
+     * Trees of Integer or Long Keys in their natural order are stored in primitive arrays.
+     * @return      Frozen copy of the Tree.
+     */
+    public FrozenSortedSet<Key> freeze(){
+        return FrozenSortedSet.of(this);
+    }
+
     /**
      * @return  Minimum Key.
      */
@@ -0,0 +1,79 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers Keys appended in strictly ascending order, merging them into an AVLTree a block at a time.
+ *
+ * Appending a Key costs one comparison and an array store.  Each full block is built into a balanced subtree in
+ * O(blockSize), then joined to the tree in O(log n), so that the amortized cost per Key is O(1 + log n / blockSize).
+ * Buffered Keys are not visible in the tree until the appender is flushed.
+ *
+ * An appender is mutable, and is not safe for use by multiple threads; the trees it produces are immutable as usual.
+ */
+public class TreeAppender<Key extends Comparable<Key>> {
+
+    static final int DEFAULT_BLOCK_SIZE = 256;
+
+    private final int blockSize;
+    private final List<Key> buffer;
+    private AVLTree<Key> tree;
+    private Key last;
+
+    /**
+     * Append to the given tree, with the default block size.
+     * @param tree  Tree to append to.
+     */
+    public TreeAppender(AVLTree<Key> tree){
+        this(tree, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Append to the given tree.
+     * @param tree          Tree to append to.
+     * @param blockSize     Number of Keys buffered before merging into the tree.
+     */
+    public TreeAppender(AVLTree<Key> tree, int blockSize){
+        if (blockSize < 1){
+            throw new IllegalArgumentException(String.format("Invalid block size %d", blockSize));
+        }
+        this.blockSize = blockSize;
+        this.buffer = new ArrayList<>(blockSize);
+        this.tree = tree;
+        this.last = tree.getMax();
+    }
+
+    /**
+     * Buffer a Key greater than every Key appended so far, merging the buffer into the tree once it is full.
+     * @param key   Key to append.
+     * @throws IllegalArgumentException     Key is not greater than the last Key appended.
+     */
+    public void append(Key key){
+        if (last != null && tree.compare(key, last) <= 0){
+            throw new IllegalArgumentException(String.format("Appended key %s is not greater than preceding key %s", key, last));
+        }
+        buffer.add(key);
+        last = key;
+        if (buffer.size() >= blockSize){
+            flush();
+        }
+    }
+
+    /**
+     * Merge every buffered Key into the tree.
+     * @return  Tree holding every Key appended so far.
+     */
+    public AVLTree<Key> flush(){
+        if (!buffer.isEmpty()){
+            tree = tree.appendSorted(buffer);
+            buffer.clear();
+        }
+        return tree;
+    }
+
+    /**
+     * @return  Number of Keys buffered, and not yet merged into the tree.
+     */
+    public int getBufferedCount(){ return buffer.size(); }
+}
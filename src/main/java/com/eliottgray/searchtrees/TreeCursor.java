@@ -0,0 +1,223 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor (or "finger") into a BinarySearchTree, positioned at a single Key.
+ *
+ * The cursor holds the full path from the root down to its current Node.  Moving to the next or previous Key
+ * walks only as far up or down that path as necessary, so a sequential walk costs amortized O(1) per step.
+ * Seeking to a new Key climbs only until reaching a subtree which must contain the new Key, so seeking
+ * near the current position costs in proportion to the distance moved rather than the height of the tree.
+ *
+ * Tombstones, Nodes holding no occurrences of their Key, are stepped over, as iteration does.
+ *
+ * Since trees are immutable, a cursor remains valid for the tree it was created from, regardless of later updates.
+ * A cursor is not thread-safe.
+ */
+public class TreeCursor<Key extends Comparable<Key>> {
+
+    private final Comparator<Key> comparator;
+    private final BinarySearchNode<Key> root;
+
+    // Path from the root to the current Node; the current Node is at depth - 1.
+    private final BinarySearchNode<Key>[] path;
+
+    // Exclusive Key bounds of the subtree at each depth of the path; null bounds are open.
+    private final Key[] lowBounds;
+    private final Key[] highBounds;
+    private int depth;
+
+    /**
+     * Construct an unpositioned cursor.
+     * @param root          Root Node of tree.
+     * @param comparator    Comparator corresponding to root Node.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TreeCursor(BinarySearchNode<Key> root, Comparator<Key> comparator){
+        this.comparator = comparator;
+        this.root = root;
+        int height = root == null ? 0 : root.getHeight();
+        this.path = (BinarySearchNode<Key>[]) new BinarySearchNode[height];
+        this.lowBounds = (Key[]) new Comparable[height];
+        this.highBounds = (Key[]) new Comparable[height];
+        this.depth = 0;
+    }
+
+    /**
+     * @return  Whether the cursor is positioned at a Key.
+     */
+    public boolean isValid(){
+        return depth > 0;
+    }
+
+    /**
+     * @return      Key at the current position.
+     * @throws NoSuchElementException   Cursor is not positioned at a Key.
+     */
+    public Key getKey(){
+        if (depth == 0){
+            throw new NoSuchElementException();
+        }
+        return path[depth - 1].key;
+    }
+
+    /**
+     * Position the cursor at the least Key greater than or equal to the given Key.
+     * Only the part of the path which cannot contain the given Key is discarded, so nearby seeks are cheap.
+     * @param key   Key to seek.
+     * @return      Whether the cursor is positioned at a Key; false if every Key is less than the given Key.
+     */
+    public boolean seek(Key key){
+        if (depth == 0){
+            if (root == null){
+                return false;
+            }
+            pushRoot();
+        } else {
+            // Climb until the subtree beneath the cursor must contain the Key, if the Key is in the tree at all.
+            while (depth > 1 && !isWithinSubtree(key, depth - 1)){
+                depth--;
+            }
+        }
+
+        // Descend towards the Key.
+        BinarySearchNode<Key> current = path[depth - 1];
+        while (current != null){
+            int comparison = comparator.compare(key, current.key);
+            if (comparison == 0){
+                return skipTombstones(true);
+            }
+            BinarySearchNode<Key> child = comparison < 0 ? current.left : current.right;
+            if (child != null){
+                push(child);
+            }
+            current = child;
+        }
+
+        // The Key is absent; climb back to its in-order successor.
+        while (depth > 0 && comparator.compare(path[depth - 1].key, key) < 0){
+            depth--;
+        }
+        return skipTombstones(true);
+    }
+
+    /**
+     * Position the cursor at the minimum Key.
+     * @return      Whether the cursor is positioned at a Key; false if the tree is empty.
+     */
+    public boolean seekFirst(){
+        depth = 0;
+        if (root != null){
+            pushRoot();
+            pushSpine(root.left, true);
+        }
+        return skipTombstones(true);
+    }
+
+    /**
+     * Position the cursor at the maximum Key.
+     * @return      Whether the cursor is positioned at a Key; false if the tree is empty.
+     */
+    public boolean seekLast(){
+        depth = 0;
+        if (root != null){
+            pushRoot();
+            pushSpine(root.right, false);
+        }
+        return skipTombstones(false);
+    }
+
+    /**
+     * Move the cursor to the in-order successor of the current Key.
+     * @return      Whether the cursor is positioned at a Key; false once the maximum Key has been passed.
+     */
+    public boolean next(){
+        return step(true);
+    }
+
+    /**
+     * Move the cursor to the in-order predecessor of the current Key.
+     * @return      Whether the cursor is positioned at a Key; false once the minimum Key has been passed.
+     */
+    public boolean prev(){
+        return step(false);
+    }
+
+    private boolean step(boolean forward){
+        if (depth == 0){
+            return false;
+        }
+        move(forward);
+        return skipTombstones(forward);
+    }
+
+    /**
+     * Step over Nodes holding no occurrences of their Key, in the given direction.
+     * @return      Whether the cursor is positioned at a Key.
+     */
+    private boolean skipTombstones(boolean forward){
+        while (depth > 0 && path[depth - 1].getCount() == 0){
+            move(forward);
+        }
+        return depth > 0;
+    }
+
+    /**
+     * Move the cursor to the in-order successor (or predecessor) of the current Node, live or not.
+     */
+    private void move(boolean forward){
+        BinarySearchNode<Key> current = path[depth - 1];
+        BinarySearchNode<Key> child = forward ? current.right : current.left;
+        if (child != null){
+            // Successor is the nearest Node at the end of the following subtree.
+            pushSpine(child, forward);
+        } else {
+            // Successor is the first ancestor which this subtree does not follow.
+            BinarySearchNode<Key> popped;
+            do {
+                popped = path[--depth];
+            } while (depth > 0 && (forward ? path[depth - 1].right : path[depth - 1].left) == popped);
+        }
+    }
+
+    /**
+     * Push a Node, followed by its leftmost (or rightmost) descendants.
+     */
+    private void pushSpine(BinarySearchNode<Key> node, boolean leftward){
+        while (node != null){
+            push(node);
+            node = leftward ? node.left : node.right;
+        }
+    }
+
+    private void pushRoot(){
+        path[0] = root;
+        lowBounds[0] = null;
+        highBounds[0] = null;
+        depth = 1;
+    }
+
+    /**
+     * Push a child of the current Node, narrowing the subtree bounds by the current Key.
+     */
+    private void push(BinarySearchNode<Key> child){
+        BinarySearchNode<Key> parent = path[depth - 1];
+        if (child == parent.left){
+            lowBounds[depth] = lowBounds[depth - 1];
+            highBounds[depth] = parent.key;
+        } else {
+            lowBounds[depth] = parent.key;
+            highBounds[depth] = highBounds[depth - 1];
+        }
+        path[depth] = child;
+        depth++;
+    }
+
+    private boolean isWithinSubtree(Key key, int index){
+        Key low = lowBounds[index];
+        Key high = highBounds[index];
+        return (low == null || comparator.compare(key, low) > 0) && (high == null || comparator.compare(key, high) < 0);
+    }
+}
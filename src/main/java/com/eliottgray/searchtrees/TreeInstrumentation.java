@@ -0,0 +1,57 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Selects the TreeRecorder to which every tree reports, once, when this class is initialized.
+ *
+ * Instrumentation is opt-in, through the system property "searchtrees.instrumentation":
+ *      unset or "none"     No-op recorder.  Calls compile to nothing, so disabled instrumentation costs nothing.
+ *      "counting"          CountingRecorder, recording per-operation histograms.
+ *      "jfr"               CountingRecorder, also emitting flight recorder events for operations slower than
+ *                          "searchtrees.instrumentation.slowNanos" (default 1ms).  Needs a runtime with
+ *                          jdk.jfr (Java 11, or 8u262 and later), though the library itself builds against Java 8.
+ *      Any other value     Class name of a TreeRecorder implementation with a public no-argument constructor.
+ */
+public final class TreeInstrumentation {
+
+    static final String PROPERTY = "searchtrees.instrumentation";
+    static final String SLOW_NANOS_PROPERTY = "searchtrees.instrumentation.slowNanos";
+    static final long DEFAULT_SLOW_NANOS = 1_000_000;
+
+    /**
+     * Recorder to which every tree reports.  Static and final, so that the JIT may inline it.
+     */
+    public static final TreeRecorder RECORDER = selectRecorder(System.getProperty(PROPERTY), Long.getLong(SLOW_NANOS_PROPERTY, DEFAULT_SLOW_NANOS));
+
+    private TreeInstrumentation(){}
+
+    static TreeRecorder selectRecorder(String setting, long slowNanos){
+        if (setting == null || setting.isEmpty() || setting.equals("none")){
+            return TreeRecorder.NO_OP;
+        } else if (setting.equals("counting")){
+            return new CountingRecorder();
+        } else if (setting.equals("jfr")){
+            return new CountingRecorder(slowNanos, true);
+        } else {
+            try {
+                return (TreeRecorder) Class.forName(setting).getConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException exception){
+                throw new IllegalArgumentException(String.format("Invalid %s setting %s", PROPERTY, setting), exception);
+            }
+        }
+    }
+
+    /**
+     * @return  Whether instrumentation is enabled.
+     */
+    public static boolean isEnabled(){
+        return RECORDER != TreeRecorder.NO_OP;
+    }
+
+    /**
+     * @param operation     Operation type.
+     * @return              Histograms of work done by that operation, or null if the recorder does not count.
+     */
+    public static OperationStats getStats(TreeRecorder.Operation operation){
+        return RECORDER instanceof CountingRecorder ? ((CountingRecorder) RECORDER).getStats(operation) : null;
+    }
+}
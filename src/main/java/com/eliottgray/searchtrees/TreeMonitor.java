@@ -0,0 +1,122 @@
+package com.eliottgray.searchtrees;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the versions of a tree as they are published, and reports statistics on the current version.
+ *
+ * Publish each new version of the tree as it is created.  Statistics are computed on demand and cached against the
+ * current root, so repeated reads of an unchanged tree are free.  Earlier versions are held only weakly, so counting
+ * the versions retained reveals old versions which are still reachable, and therefore still occupying memory.
+ *
+ * Register a monitor with TreeStatsExporter to publish its statistics over JMX.
+ */
+public class TreeMonitor implements TreeStatsMXBean {
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final Set<Reference<Object>> versions = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile BinarySearchTree<?> current;
+    private volatile CachedStats cached;
+
+    /**
+     * Stands in for the root of an empty tree, which has none to refer to.
+     */
+    private static final Object EMPTY_ROOT = new Object();
+
+    /**
+     * Statistics, with the root they describe, held weakly so that caching does not retain a superseded version.
+     * Published in one volatile write, so that racing readers never pair statistics with another version's root.
+     */
+    private static final class CachedStats {
+        final WeakReference<Object> root;
+        final TreeStats stats;
+
+        CachedStats(Object root, TreeStats stats){
+            this.root = new WeakReference<>(root);
+            this.stats = stats;
+        }
+    }
+
+    /**
+     * @param tree  Initial version of tree.
+     */
+    public TreeMonitor(BinarySearchTree<?> tree){
+        publish(tree);
+    }
+
+    /**
+     * Publish a new version of the tree, replacing the current version.
+     * @param tree  New version of tree.
+     */
+    public synchronized void publish(BinarySearchTree<?> tree){
+        expungeCollected();
+        current = tree;
+        if (tree.getRoot() != null){
+            versions.add(new WeakReference<>(tree.getRoot(), collected));
+        }
+    }
+
+    /**
+     * @return  Current version of tree.
+     */
+    public BinarySearchTree<?> getCurrent(){
+        return current;
+    }
+
+    /**
+     * @return  Statistics for the current version, computed once per version.
+     */
+    public TreeStats getStats(){
+        BinarySearchTree<?> tree = current;
+        Object root = tree.getRoot() == null ? EMPTY_ROOT : tree.getRoot();
+        CachedStats stats = cached;
+        if (stats == null || stats.root.get() != root){
+            stats = new CachedStats(root, TreeStats.compute(tree));
+            cached = stats;
+        }
+        return stats.stats;
+    }
+
+    private synchronized void expungeCollected(){
+        Reference<?> reference;
+        while ((reference = collected.poll()) != null){
+            versions.remove(reference);
+        }
+    }
+
+    @Override
+    public int getSize(){ return current.size(); }
+
+    @Override
+    public int getHeight(){ return getStats().getHeight(); }
+
+    @Override
+    public double getHeightBound(){ return getStats().getHeightBound(); }
+
+    @Override
+    public double getAverageDepth(){ return getStats().getAverageDepth(); }
+
+    @Override
+    public Map<Integer, Long> getBalanceFactors(){ return getStats().getBalanceFactors(); }
+
+    @Override
+    public boolean isSampled(){ return getStats().isSampled(); }
+
+    @Override
+    public synchronized int getVersionsRetained(){
+        expungeCollected();
+        int retained = 0;
+        for (Reference<Object> version : versions){
+            if (version.get() != null){
+                retained++;
+            }
+        }
+        return retained;
+    }
+}
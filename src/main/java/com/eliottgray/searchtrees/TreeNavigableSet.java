@@ -0,0 +1,361 @@
+package com.eliottgray.searchtrees;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * Unmodifiable NavigableSet view over a Tree.
+ *
+ * The view never copies the Tree.  Sub-set, head-set, tail-set and descending views only record their bounds,
+ * navigation descends the Tree once per call, and size() is answered from the size of each subtree in O(log n).
+ * Since a Tree is immutable, the view never changes; to remove Keys, use Tree.delete, Tree.pollFirst or Tree.pollLast.
+ *
+ * Bounds are held in ascending Key order regardless of the direction of the view; a null bound is open.
+ *
+ * A distinct view, over a Tree which repeats Keys as SortedMultiset does, visits each Key once.  Its size() is then
+ * counted by iterating over the range, in O(k) for the k occurrences within it.
+ */
+class TreeNavigableSet<Key extends Comparable<Key>> extends AbstractSet<Key> implements NavigableSet<Key> {
+
+    private final Tree<Key> tree;
+    private final Key low;
+    private final boolean lowInclusive;
+    private final Key high;
+    private final boolean highInclusive;
+    private final boolean descending;
+    private final boolean distinct;
+
+    /**
+     * View an entire Tree, in ascending order.
+     * @param tree  Tree to view.
+     */
+    TreeNavigableSet(Tree<Key> tree){
+        this(tree, false);
+    }
+
+    /**
+     * View an entire Tree, in ascending order.
+     * @param tree      Tree to view.
+     * @param distinct  Whether to visit each Key once, where the Tree repeats Keys.
+     */
+    TreeNavigableSet(Tree<Key> tree, boolean distinct){
+        this(tree, null, false, null, false, false, distinct);
+    }
+
+    private TreeNavigableSet(Tree<Key> tree, Key low, boolean lowInclusive, Key high, boolean highInclusive, boolean descending, boolean distinct){
+        this.tree = tree;
+        this.distinct = distinct;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.descending = descending;
+    }
+
+    private boolean tooLow(Key key){
+        if (low == null){
+            return false;
+        }
+        int comparison = tree.comparator.compare(key, low);
+        return comparison < 0 || (comparison == 0 && !lowInclusive);
+    }
+
+    private boolean tooHigh(Key key){
+        if (high == null){
+            return false;
+        }
+        int comparison = tree.comparator.compare(key, high);
+        return comparison > 0 || (comparison == 0 && !highInclusive);
+    }
+
+    private boolean inRange(Key key){
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    /**
+     * @return  Least Key within bounds, or null.
+     */
+    private Key absoluteLowest(){
+        Key key;
+        if (low == null){
+            key = tree.getMin();
+        } else {
+            key = lowInclusive ? tree.ceiling(low) : tree.higher(low);
+        }
+        return (key == null || tooHigh(key)) ? null : key;
+    }
+
+    /**
+     * @return  Greatest Key within bounds, or null.
+     */
+    private Key absoluteHighest(){
+        Key key;
+        if (high == null){
+            key = tree.getMax();
+        } else {
+            key = highInclusive ? tree.floor(high) : tree.lower(high);
+        }
+        return (key == null || tooLow(key)) ? null : key;
+    }
+
+    /**
+     * @return  Greatest Key within bounds, below (or at) the given Key; or null.
+     */
+    private Key absoluteBelow(Key key, boolean inclusive){
+        if (tooHigh(key)){
+            return absoluteHighest();
+        }
+        Key result = inclusive ? tree.floor(key) : tree.lower(key);
+        return (result == null || tooLow(result)) ? null : result;
+    }
+
+    /**
+     * @return  Least Key within bounds, above (or at) the given Key; or null.
+     */
+    private Key absoluteAbove(Key key, boolean inclusive){
+        if (tooLow(key)){
+            return absoluteLowest();
+        }
+        Key result = inclusive ? tree.ceiling(key) : tree.higher(key);
+        return (result == null || tooHigh(result)) ? null : result;
+    }
+
+    @Override
+    public int size(){
+        if (distinct){
+            int count = 0;
+            for (Iterator<Key> iterator = iterator(); iterator.hasNext(); iterator.next()){
+                count++;
+            }
+            return count;
+        }
+        int upperCount = high == null ? tree.size() : tree.countBelow(high, highInclusive);
+        int lowerCount = low == null ? 0 : tree.countBelow(low, !lowInclusive);
+        return Math.max(0, upperCount - lowerCount);
+    }
+
+    @Override
+    public boolean isEmpty(){
+        return absoluteLowest() == null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object object){
+        Key key = (Key) object;
+        return inRange(key) && tree.contains(key);
+    }
+
+    @Override
+    public Iterator<Key> iterator(){
+        return viewIterator(descending);
+    }
+
+    @Override
+    public Iterator<Key> descendingIterator(){
+        return viewIterator(!descending);
+    }
+
+    private Iterator<Key> viewIterator(boolean descending){
+        Iterator<Key> keys = tree.rangeIterator(low, lowInclusive, high, highInclusive, descending);
+        return distinct ? new DistinctIterator<>(keys, tree.comparator) : keys;
+    }
+
+    @Override
+    public Comparator<? super Key> comparator(){
+        if (tree.isNaturalOrder()){
+            // SortedSet reports natural ordering as a null comparator.
+            return descending ? Collections.reverseOrder() : null;
+        }
+        return descending ? tree.comparator.reversed() : tree.comparator;
+    }
+
+    @Override
+    public Key lower(Key key){
+        return descending ? absoluteAbove(key, false) : absoluteBelow(key, false);
+    }
+
+    @Override
+    public Key floor(Key key){
+        return descending ? absoluteAbove(key, true) : absoluteBelow(key, true);
+    }
+
+    @Override
+    public Key ceiling(Key key){
+        return descending ? absoluteBelow(key, true) : absoluteAbove(key, true);
+    }
+
+    @Override
+    public Key higher(Key key){
+        return descending ? absoluteBelow(key, false) : absoluteAbove(key, false);
+    }
+
+    @Override
+    public Key first(){
+        Key key = descending ? absoluteHighest() : absoluteLowest();
+        if (key == null){
+            throw new NoSuchElementException();
+        }
+        return key;
+    }
+
+    @Override
+    public Key last(){
+        Key key = descending ? absoluteLowest() : absoluteHighest();
+        if (key == null){
+            throw new NoSuchElementException();
+        }
+        return key;
+    }
+
+    /**
+     * Unsupported; the view is unmodifiable.  Use Tree.pollFirst to obtain a new Tree without its first Key.
+     */
+    @Override
+    public Key pollFirst(){
+        throw new UnsupportedOperationException("View is unmodifiable; use Tree.pollFirst.");
+    }
+
+    /**
+     * Unsupported; the view is unmodifiable.  Use Tree.pollLast to obtain a new Tree without its last Key.
+     */
+    @Override
+    public Key pollLast(){
+        throw new UnsupportedOperationException("View is unmodifiable; use Tree.pollLast.");
+    }
+
+    @Override
+    public NavigableSet<Key> descendingSet(){
+        return new TreeNavigableSet<>(tree, low, lowInclusive, high, highInclusive, !descending, distinct);
+    }
+
+    @Override
+    public NavigableSet<Key> subSet(Key fromElement, boolean fromInclusive, Key toElement, boolean toInclusive){
+        if (descending){
+            return bounded(toElement, toInclusive, fromElement, fromInclusive, true, true);
+        } else {
+            return bounded(fromElement, fromInclusive, toElement, toInclusive, true, true);
+        }
+    }
+
+    @Override
+    public NavigableSet<Key> headSet(Key toElement, boolean inclusive){
+        if (descending){
+            return bounded(toElement, inclusive, high, highInclusive, true, false);
+        } else {
+            return bounded(low, lowInclusive, toElement, inclusive, false, true);
+        }
+    }
+
+    @Override
+    public NavigableSet<Key> tailSet(Key fromElement, boolean inclusive){
+        if (descending){
+            return bounded(low, lowInclusive, fromElement, inclusive, false, true);
+        } else {
+            return bounded(fromElement, inclusive, high, highInclusive, true, false);
+        }
+    }
+
+    @Override
+    public SortedSet<Key> subSet(Key fromElement, Key toElement){
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<Key> headSet(Key toElement){
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<Key> tailSet(Key fromElement){
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Narrow this view to new absolute bounds.  New bounds must lie within the bounds of this view.
+     * @param newLow            New lower bound.
+     * @param newLowInclusive   Whether the new lower bound is included.
+     * @param newHigh           New upper bound.
+     * @param newHighInclusive  Whether the new upper bound is included.
+     * @param checkLow          Whether the lower bound is new, and must be checked.
+     * @param checkHigh         Whether the upper bound is new, and must be checked.
+     * @return                  Narrowed view.
+     */
+    private NavigableSet<Key> bounded(Key newLow, boolean newLowInclusive, Key newHigh, boolean newHighInclusive, boolean checkLow, boolean checkHigh){
+        if (checkLow && outOfBounds(newLow, newLowInclusive)){
+            throw new IllegalArgumentException(String.format("Lower bound %s is out of range", newLow));
+        }
+        if (checkHigh && outOfBounds(newHigh, newHighInclusive)){
+            throw new IllegalArgumentException(String.format("Upper bound %s is out of range", newHigh));
+        }
+        if (newLow != null && newHigh != null && tree.comparator.compare(newLow, newHigh) > 0){
+            throw new IllegalArgumentException(String.format("Lower bound %s is greater than upper bound %s", newLow, newHigh));
+        }
+        return new TreeNavigableSet<>(tree, newLow, newLowInclusive, newHigh, newHighInclusive, descending, distinct);
+    }
+
+    private boolean outOfBounds(Key key, boolean inclusive){
+        if (key == null){
+            throw new NullPointerException();
+        }
+        if (low != null){
+            int comparison = tree.comparator.compare(key, low);
+            if (comparison < 0 || (comparison == 0 && !lowInclusive && inclusive)){
+                return true;
+            }
+        }
+        if (high != null){
+            int comparison = tree.comparator.compare(key, high);
+            if (comparison > 0 || (comparison == 0 && !highInclusive && inclusive)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the first of each run of equal Keys.
+     */
+    private static final class DistinctIterator<Key> implements Iterator<Key> {
+
+        private final Iterator<Key> keys;
+        private final Comparator<Key> comparator;
+        private Key previous;
+        private Key pending;
+        private boolean started;
+        private boolean hasPending;
+
+        DistinctIterator(Iterator<Key> keys, Comparator<Key> comparator){
+            this.keys = keys;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public boolean hasNext(){
+            while (!hasPending && keys.hasNext()){
+                Key key = keys.next();
+                if (!started || comparator.compare(key, previous) != 0){
+                    pending = key;
+                    hasPending = true;
+                }
+            }
+            return hasPending;
+        }
+
+        @Override
+        public Key next(){
+            if (!hasNext()){
+                throw new NoSuchElementException();
+            }
+            hasPending = false;
+            started = true;
+            previous = pending;
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.eliottgray.searchtrees;
+
+/**
+ * Receives events from the hot paths of the trees: comparisons, Node allocations, rotations and levels descended.
+ *
+ * Every tree reports to the single recorder held in TreeInstrumentation.RECORDER, which is selected once at startup.
+ * When instrumentation is disabled, that recorder is a no-op; since the field is static and final, the JIT compiles
+ * each call to nothing.
+ */
+public interface TreeRecorder {
+
+    /**
+     * Operations whose events are recorded.
+     */
+    enum Operation {
+        INSERT,
+        DELETE,
+        CONTAINS,
+        GET_RANGE
+    }
+
+    /**
+     * Begin an operation on the current thread.  Events until the matching end() are attributed to this operation.
+     * Operations begun within another operation are attributed to the outer operation.
+     * @param operation     Operation beginning.
+     */
+    void begin(Operation operation);
+
+    /**
+     * End the operation most recently begun on the current thread.
+     * @param operation     Operation ending.
+     */
+    void end(Operation operation);
+
+    /**
+     * One comparison of two Keys.
+     */
+    void comparison();
+
+    /**
+     * One Node allocated.
+     */
+    void allocation();
+
+    /**
+     * One rebalancing rotation.
+     * @param isDouble  Whether the rotation was a double rotation; that is, a rotation of a child followed by the parent.
+     */
+    void rotation(boolean isDouble);
+
+    /**
+     * One level of the tree descended.
+     */
+    void level();
+
+    /**
+     * Recorder which ignores every event.
+     */
+    TreeRecorder NO_OP = new TreeRecorder() {
+        public void begin(Operation operation){}
+        public void end(Operation operation){}
+        public void comparison(){}
+        public void allocation(){}
+        public void rotation(boolean isDouble){}
+        public void level(){}
+    };
+}
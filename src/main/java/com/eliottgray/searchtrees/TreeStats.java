@@ -0,0 +1,202 @@
+package com.eliottgray.searchtrees;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the shape of a tree.
+ *
+ * Size and height are read in O(1) from the root Node.  Node count, average depth and the distribution of balance
+ * factors require visiting Nodes: small trees are walked exactly, while large trees are sampled, by descending to Keys
+ * of uniformly random rank using the size of each subtree.  Each sample costs O(log n), regardless of the size of the
+ * tree.  Where Nodes hold more than one occurrence of their Key, as in a SortedMultiset, a Node is sampled in
+ * proportion to its count, so each sample is weighted by the inverse of its count to describe Nodes rather than Keys.
+ * Tombstones hold no occurrences, so are never sampled: sampled statistics describe only the Nodes of live Keys.
+ */
+public class TreeStats {
+
+    /**
+     * Trees up to this size are walked exactly by compute(); larger trees are sampled.
+     */
+    public static final int EXACT_THRESHOLD = 100_000;
+
+    /**
+     * Number of Nodes sampled by compute() for large trees.
+     */
+    public static final int DEFAULT_SAMPLES = 4096;
+
+    private final int size;
+    private final int nodeCount;
+    private final int height;
+    private final double averageDepth;
+    private final Map<Integer, Long> balanceFactors;
+    private final boolean sampled;
+
+    private TreeStats(int size, int nodeCount, int height, double averageDepth, Map<Integer, Long> balanceFactors, boolean sampled){
+        this.size = size;
+        this.nodeCount = nodeCount;
+        this.height = height;
+        this.averageDepth = averageDepth;
+        this.balanceFactors = Collections.unmodifiableMap(balanceFactors);
+        this.sampled = sampled;
+    }
+
+    /**
+     * Compute statistics, exactly for small trees and by sampling for large trees.
+     * @param tree  Tree to describe.
+     * @return      Snapshot of statistics.
+     */
+    public static TreeStats compute(BinarySearchTree<?> tree){
+        return tree.size() <= EXACT_THRESHOLD ? exact(tree) : sampled(tree, DEFAULT_SAMPLES, new Random());
+    }
+
+    /**
+     * Compute statistics exactly, visiting every Node in O(n).
+     * @param tree  Tree to describe.
+     * @return      Snapshot of statistics.
+     */
+    public static TreeStats exact(BinarySearchTree<?> tree){
+        return exactOf(tree.getRoot());
+    }
+
+    private static <Key extends Comparable<Key>> TreeStats exactOf(BinarySearchNode<Key> root){
+        Map<Integer, Long> balanceFactors = new TreeMap<>();
+        if (root == null){
+            return new TreeStats(0, 0, 0, 0, balanceFactors, false);
+        }
+
+        // Walk with an explicit stack, since an unbalanced tree may be too deep to recurse.
+        int nodeCount = 0;
+        long totalDepth = 0;
+        Deque<BinarySearchNode<Key>> nodes = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(1);
+        while (!nodes.isEmpty()){
+            BinarySearchNode<Key> current = nodes.pop();
+            int depth = depths.pop();
+            nodeCount++;
+            totalDepth += depth;
+            balanceFactors.merge(current.getBalanceFactor(), 1L, Long::sum);
+            if (current.hasLeft()){
+                nodes.push(current.left);
+                depths.push(depth + 1);
+            }
+            if (current.hasRight()){
+                nodes.push(current.right);
+                depths.push(depth + 1);
+            }
+        }
+        return new TreeStats(root.size, nodeCount, root.height, totalDepth / (double) nodeCount, balanceFactors, false);
+    }
+
+    /**
+     * Estimate statistics from Nodes sampled uniformly at random, in O(samples * log n).
+     * Counts of balance factors are scaled up to estimate counts across the whole tree.
+     * A tree of tombstones alone has no Keys to sample, so is walked exactly instead.
+     * @param tree      Tree to describe.
+     * @param samples   Number of Nodes to sample.
+     * @param random    Source of randomness.
+     * @return          Snapshot of statistics.
+     */
+    public static TreeStats sampled(BinarySearchTree<?> tree, int samples, Random random){
+        return sampledOf(tree.getRoot(), samples, random);
+    }
+
+    private static <Key extends Comparable<Key>> TreeStats sampledOf(BinarySearchNode<Key> root, int samples, Random random){
+        Map<Integer, Double> sampledFactors = new TreeMap<>();
+        if (root == null || samples <= 0){
+            return new TreeStats(Node.sizeOf(root), Node.sizeOf(root), root == null ? 0 : root.height, 0, new TreeMap<>(), true);
+        } else if (root.size == 0){
+            return exactOf(root);
+        }
+
+        // Sums of sample weights, the inverse of the sampled Node's count, and of weighted depths.
+        double totalWeight = 0;
+        double totalDepth = 0;
+        for (int i = 0; i < samples; i++){
+            // Descend to the Node of a random rank.
+            int rank = random.nextInt(root.size);
+            BinarySearchNode<Key> current = root;
+            int depth = 1;
+            int leftSize = Node.sizeOf(current.left);
+            while (rank < leftSize || rank >= leftSize + current.getCount()){
+                if (rank < leftSize){
+                    current = current.left;
+                } else {
+                    rank -= leftSize + current.getCount();
+                    current = current.right;
+                }
+                depth++;
+                leftSize = Node.sizeOf(current.left);
+            }
+            double weight = 1.0 / current.getCount();
+            totalWeight += weight;
+            totalDepth += depth * weight;
+            sampledFactors.merge(current.getBalanceFactor(), weight, Double::sum);
+        }
+
+        // Each Key stands for 1 / count of a Node, so the mean weight per Key scales Keys to Nodes.
+        double keysPerWeight = root.size / (double) samples;
+        Map<Integer, Long> balanceFactors = new TreeMap<>();
+        for (Map.Entry<Integer, Double> entry : sampledFactors.entrySet()){
+            balanceFactors.put(entry.getKey(), Math.round(entry.getValue() * keysPerWeight));
+        }
+        int nodeCount = (int) Math.round(totalWeight * keysPerWeight);
+        return new TreeStats(root.size, nodeCount, root.height, totalDepth / totalWeight, balanceFactors, true);
+    }
+
+    /**
+     * Upper bound on the height of an AVL tree of the given size: 1.4405 * log2(n + 1.0657) - 0.3277.
+     * @param size  Number of Nodes.
+     * @return      Greatest possible height of a balanced tree.
+     */
+    public static double avlHeightBound(int size){
+        return 1.4405 * (Math.log(size + 1.0657) / Math.log(2)) - 0.3277;
+    }
+
+    /**
+     * @return  Number of Keys.
+     */
+    public int getSize(){ return size; }
+
+    /**
+     * @return  Number of Nodes, which may be fewer than Keys where Nodes count occurrences; estimated if sampled.
+     */
+    public int getNodeCount(){ return nodeCount; }
+
+    /**
+     * @return  Height of the root; zero for an empty tree.
+     */
+    public int getHeight(){ return height; }
+
+    /**
+     * @return  Upper bound on height for an AVL tree with this many Nodes.
+     */
+    public double getHeightBound(){ return avlHeightBound(nodeCount); }
+
+    /**
+     * @return  Mean depth of Nodes, where the root has depth 1; estimated if sampled.
+     */
+    public double getAverageDepth(){ return averageDepth; }
+
+    /**
+     * @return  Number of Nodes with each balance factor; estimated if sampled.
+     */
+    public Map<Integer, Long> getBalanceFactors(){ return balanceFactors; }
+
+    /**
+     * @return  Whether depth and balance factors were estimated by sampling.
+     */
+    public boolean isSampled(){ return sampled; }
+
+    @Override
+    public String toString(){
+        return String.format("TreeStats[size=%d nodeCount=%d height=%d heightBound=%.2f averageDepth=%.2f balanceFactors=%s sampled=%b]",
+                size, nodeCount, height, getHeightBound(), averageDepth, balanceFactors, sampled);
+    }
+}
@@ -0,0 +1,62 @@
+package com.eliottgray.searchtrees;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Publishes the statistics of monitored trees as MXBeans, named "com.eliottgray.searchtrees:type=Tree,name=[name]".
+ */
+public class TreeStatsExporter {
+
+    static final String DOMAIN = "com.eliottgray.searchtrees";
+
+    private final MBeanServer server;
+
+    /**
+     * Exporter to the platform MBean server.
+     */
+    public TreeStatsExporter(){
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * @param server    MBean server to export to.
+     */
+    public TreeStatsExporter(MBeanServer server){
+        this.server = server;
+    }
+
+    /**
+     * Register a monitored tree, replacing any tree already registered with the same name.
+     * @param name      Name of tree.
+     * @param monitor   Monitor of tree.
+     * @return          Name of registered MXBean.
+     * @throws JMException  Registration failed.
+     */
+    public ObjectName register(String name, TreeMonitor monitor) throws JMException {
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)){
+            server.unregisterMBean(objectName);
+        }
+        server.registerMBean(monitor, objectName);
+        return objectName;
+    }
+
+    /**
+     * Unregister a monitored tree, if registered.
+     * @param name      Name of tree.
+     * @throws JMException  Unregistration failed.
+     */
+    public void unregister(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)){
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Tree,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,44 @@
+package com.eliottgray.searchtrees;
+
+import java.util.Map;
+
+/**
+ * Management interface publishing the shape and health of a monitored tree.
+ */
+public interface TreeStatsMXBean {
+
+    /**
+     * @return  Number of Keys in the current version.
+     */
+    int getSize();
+
+    /**
+     * @return  Height of the current version.
+     */
+    int getHeight();
+
+    /**
+     * @return  Upper bound on height for an AVL tree of the current size.
+     */
+    double getHeightBound();
+
+    /**
+     * @return  Mean depth of Nodes in the current version; estimated for large trees.
+     */
+    double getAverageDepth();
+
+    /**
+     * @return  Number of Nodes with each balance factor in the current version; estimated for large trees.
+     */
+    Map<Integer, Long> getBalanceFactors();
+
+    /**
+     * @return  Whether depth and balance factors were estimated by sampling.
+     */
+    boolean isSampled();
+
+    /**
+     * @return  Number of published versions which remain reachable, including the current version.
+     */
+    int getVersionsRetained();
+}
@@ -344,4 +344,86 @@ public class AVLTreeTest extends TreeTestSkeleton {
         assertNotEquals(testTree.getRoot(), postDelete.getRoot());
         assertEquals(testTree.getRoot().right, postDelete.getRoot().right);
     }
+
+    /**
+     * Appending ascending Keys one at a time should keep the tree balanced, as if each had been inserted.
+     */
+    @Test
+    public void testAppend() throws InvalidSearchTreeException{
+        List<Integer> expected = new ArrayList<>();
+        for (int key = 0; key < 1000; key++){
+            testTree = testTree.append(key);
+            expected.add(key);
+        }
+        testTree.validate();
+        assertEquals(expected, testTree.toAscendingList());
+        assertTrue(testTree.getRoot().height <= TreeStats.avlHeightBound(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAppend_notGreater(){
+        testTree.insert(5).append(5);
+    }
+
+    /**
+     * Appended blocks may be far shorter or far taller than the tree they are joined to.
+     */
+    @Test
+    public void testAppendAll() throws InvalidSearchTreeException{
+        int[] sizes = {0, 1, 2, 3, 7, 100, 1000};
+        for (int treeSize : sizes){
+            for (int blockSize : sizes){
+                AVLTree<Integer> tree = new AVLTree<>();
+                List<Integer> block = new ArrayList<>();
+                List<Integer> expected = new ArrayList<>();
+                for (int key = 0; key < treeSize; key++){
+                    tree = tree.insert(key);
+                    expected.add(key);
+                }
+                for (int key = treeSize; key < treeSize + blockSize; key++){
+                    block.add(key);
+                    expected.add(key);
+                }
+                AVLTree<Integer> appended = tree.appendAll(block);
+                appended.validate();
+                assertEquals(expected, appended.toAscendingList());
+
+                // The original tree is unchanged.
+                assertEquals(treeSize, tree.size());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAppendAll_outOfOrder(){
+        List<Integer> block = new ArrayList<>();
+        block.add(7);
+        block.add(6);
+        testTree.insert(5).appendAll(block);
+    }
+
+    /**
+     * Splitting at every position yields balanced halves, which concatenate back into the whole.
+     */
+    @Test
+    public void testHeadTailConcat() throws InvalidSearchTreeException{
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int key = 0; key < 200; key += 2){
+            tree = tree.insert(key);
+        }
+        for (int split = -1; split <= 200; split++){
+            AVLTree<Integer> head = tree.headTree(split);
+            AVLTree<Integer> tail = tree.tailTree(split);
+            head.validate();
+            tail.validate();
+            assertEquals(tree.rank(split), head.size());
+            assertEquals(tree.size() - head.size(), tail.size());
+            if (!tail.isEmpty()){
+                assertTrue(tail.getMin() >= split);
+            }
+            AVLTree<Integer> joined = head.concat(tail);
+            joined.validate();
+            assertEquals(tree.toAscendingList(), joined.toAscendingList());
+        }
+    }
 }
@@ -0,0 +1,197 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveRadixTreeTest {
+
+    private static final String[] WORDS = {"", "a", "ab", "abc", "abd", "abcdef", "b", "ba", "bab", "zebra", "\uFFFF", "\uD800"};
+
+    /**
+     * Keys which are prefixes of other Keys end at inner nodes; order must still match String.compareTo.
+     */
+    @Test
+    public void insert_prefixKeys() throws InvalidSearchTreeException {
+        AdaptiveRadixTree<String> tree = AdaptiveRadixTree.ofStrings();
+        for (String word : WORDS){
+            tree = tree.insert(word);
+        }
+        tree.validate();
+        List<String> expected = new ArrayList<>(Arrays.asList(WORDS));
+        expected.sort(String::compareTo);
+        assertEquals(expected, tree.toAscendingList());
+        assertEquals(WORDS.length, tree.size());
+        for (String word : WORDS){
+            assertTrue(tree.contains(word));
+        }
+        assertFalse(tree.contains("abcd"));
+        assertFalse(tree.contains("c"));
+
+        // Inserting an equal Key keeps the size.
+        assertEquals(WORDS.length, tree.insert("ab").size());
+    }
+
+    /**
+     * Deletion restores path compression, and leaves the original tree unchanged.
+     */
+    @Test
+    public void delete() throws InvalidSearchTreeException {
+        AdaptiveRadixTree<String> tree = AdaptiveRadixTree.ofStrings();
+        for (String word : WORDS){
+            tree = tree.insert(word);
+        }
+        assertSame(tree, tree.delete("missing"));
+        assertSame(tree, tree.delete("abcd"));
+
+        AdaptiveRadixTree<String> deleted = tree;
+        for (String word : WORDS){
+            deleted = deleted.delete(word);
+            deleted.validate();
+            assertFalse(deleted.contains(word));
+        }
+        assertTrue(deleted.isEmpty());
+        assertEquals(WORDS.length, tree.size());
+    }
+
+    /**
+     * Nodes grow from sparse to indexed to direct, and shrink back, as children are added and removed.
+     */
+    @Test
+    public void representations() throws InvalidSearchTreeException {
+        AdaptiveRadixTree<Integer> tree = new AdaptiveRadixTree<>(KeyCodec.INTEGERS);
+        for (int i = 0; i < 256; i++){
+            tree = tree.insert(i);
+            tree.validate();
+        }
+        assertTrue(tree.root instanceof ARTInnerNode.Direct);
+        assertEquals(3, ((ARTInnerNode<Integer>) tree.root).prefix.length);
+        for (int i = 255; i >= 40; i--){
+            tree = tree.delete(i);
+            tree.validate();
+        }
+        assertTrue(tree.root instanceof ARTInnerNode.Indexed);
+        for (int i = 39; i >= 3; i--){
+            tree = tree.delete(i);
+            tree.validate();
+        }
+        assertTrue(tree.root instanceof ARTInnerNode.Sparse);
+        assertEquals(Arrays.asList(0, 1, 2), tree.toAscendingList());
+    }
+
+    /**
+     * Every query agrees with a TreeSet over a random mix of inserts and deletes of Keys sharing prefixes.
+     */
+    @Test
+    public void randomOperations_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(23);
+        AdaptiveRadixTree<String> tree = AdaptiveRadixTree.ofStrings();
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 4000; i++){
+            String key = randomKey(random);
+            if (random.nextInt(3) == 0){
+                tree = tree.delete(key);
+                expected.remove(key);
+            } else {
+                tree = tree.insert(key);
+                expected.add(key);
+            }
+        }
+        tree.validate();
+        assertEquals(new ArrayList<>(expected), tree.toAscendingList());
+        assertEquals(expected.size(), tree.size());
+
+        for (int i = 0; i < 500; i++){
+            String key = randomKey(random);
+            String other = randomKey(random);
+            String low = key.compareTo(other) <= 0 ? key : other;
+            String high = key.compareTo(other) <= 0 ? other : key;
+            assertEquals(expected.contains(key), tree.contains(key));
+            assertEquals(expected.floor(key), tree.floor(key));
+            assertEquals(expected.ceiling(key), tree.ceiling(key));
+            assertEquals(expected.higher(key), tree.higher(key));
+            assertEquals(expected.lower(key), tree.lower(key));
+            assertEquals(expected.headSet(key).size(), tree.rank(key));
+            assertEquals(new ArrayList<>(expected.subSet(low, true, high, true)), tree.getRange(low, high));
+            assertEquals(new ArrayList<>(expected.subSet(low, false, high, false)), tree.getRange(low, false, high, false));
+            assertEquals(new ArrayList<>(expected.subSet(low, true, high, true).descendingSet()), toList(tree.descendingRange(low, high)));
+            assertEquals(new ArrayList<>(expected.subSet(key, true, key + Character.MAX_VALUE, true)), toList(tree.prefixScan(key)));
+            assertEquals(expected.subSet(key, true, key + Character.MAX_VALUE, true).size(), tree.prefixCount(key));
+        }
+        int index = 0;
+        for (String key : expected){
+            assertEquals(key, tree.select(index++));
+        }
+    }
+
+    /**
+     * Integer, Long and UUID Keys iterate in compareTo order, negative values included.
+     */
+    @Test
+    public void codecs_order(){
+        Random random = new Random(5);
+        AdaptiveRadixTree<Long> longs = new AdaptiveRadixTree<>(KeyCodec.LONGS);
+        AdaptiveRadixTree<UUID> uuids = new AdaptiveRadixTree<>(KeyCodec.UUIDS);
+        NavigableSet<Long> expectedLongs = new TreeSet<>(Arrays.asList(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE));
+        NavigableSet<UUID> expectedUuids = new TreeSet<>();
+        for (int i = 0; i < 1000; i++){
+            expectedLongs.add(random.nextLong());
+            expectedUuids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        for (Long key : expectedLongs){
+            longs = longs.insert(key);
+        }
+        for (UUID key : expectedUuids){
+            uuids = uuids.insert(key);
+        }
+        assertEquals(new ArrayList<>(expectedLongs), longs.toAscendingList());
+        assertEquals(new ArrayList<>(expectedUuids), uuids.toAscendingList());
+        assertEquals(new ArrayList<>(expectedLongs.headSet(0L, true)), longs.getRange(Long.MIN_VALUE, 0L));
+    }
+
+    @Test
+    public void empty(){
+        AdaptiveRadixTree<String> tree = AdaptiveRadixTree.ofStrings();
+        assertTrue(tree.isEmpty());
+        assertNull(tree.getMin());
+        assertNull(tree.floor("a"));
+        assertFalse(tree.contains("a"));
+        assertEquals(0, tree.rank("a"));
+        assertFalse(tree.prefixScan("a").iterator().hasNext());
+        assertTrue(tree.getRange("a", "z").isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void select_outOfBounds(){
+        AdaptiveRadixTree.ofStrings().insert("a").select(1);
+    }
+
+    /**
+     * Keys drawn from a small alphabet, so that many share prefixes or are prefixes of one another.
+     */
+    private static String randomKey(Random random){
+        char[] chars = new char[random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++){
+            chars[i] = random.nextInt(8) == 0 ? (char) (0x100 + random.nextInt(3)) : (char) ('a' + random.nextInt(4));
+        }
+        return new String(chars);
+    }
+
+    private static <Key> List<Key> toList(Iterable<Key> iterable){
+        List<Key> result = new ArrayList<>();
+        Iterator<Key> iterator = iterable.iterator();
+        while (iterator.hasNext()){
+            result.add(iterator.next());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Bytes allocated per operation, measured on the calling thread, against budgets in Nodes:
+ * queries allocate nothing, updates copy one Node per level, and iteration holds only a path.
+ *
+ * Each operation is repeated until compiled, then measured over many repetitions, so that the cost of measuring
+ * is spread thin; budgets are upper bounds, which allocations removed by the compiler only help to meet.
+ */
+public class AllocationBudgetTest {
+
+    private static final int[] SIZES = {1000, 10000, 100000};
+    private static final int REPETITIONS = 20000;
+    private static final int ITERATION_REPETITIONS = 50;
+    private static final int ROUNDS = 3;
+
+    /** Nodes allowed per level for an insert or delete: the copied path.  One more per level would double churn. */
+    private static final int UPDATE_NODES_PER_LEVEL = 1;
+    /** Fixed Nodes allowed for an insert or delete: the new leaf, Nodes moved by rotations, and the new tree itself. */
+    private static final int UPDATE_NODES_FIXED = 6;
+    /** Bytes allowed per level of an iterator's path, for the references stacked and the stack's growth. */
+    private static final int ITERATION_BYTES_PER_LEVEL = 32;
+    /** Fixed bytes allowed for an iterator and its stack. */
+    private static final int ITERATION_BYTES_FIXED = 512;
+
+    private com.sun.management.ThreadMXBean threads;
+    private long nodeBytes;
+    private Object sink;
+
+    @Before
+    public void setUp(){
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        nodeBytes = bytesPerOperation(() -> new BinarySearchNode<>(0, null, null));
+        assertTrue(nodeBytes > 0);
+    }
+
+    private long bytesPerOperation(Supplier<?> operation){
+        return bytesPerOperation(operation, REPETITIONS);
+    }
+
+    /**
+     * @param operation     Operation to measure, whose result is kept so that it cannot be optimized away.
+     * @param repetitions   Calls to warm up with, and then to measure in each of several rounds.
+     * @return              Mean bytes allocated per call, rounded down, in the least allocating round.
+     */
+    private long bytesPerOperation(Supplier<?> operation, int repetitions){
+        for (int i = 0; i < repetitions; i++){
+            sink = operation.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long least = Long.MAX_VALUE;
+        // Taking the least round discards one-off allocations, such as the measurement's own first-time setup.
+        for (int round = 0; round < ROUNDS; round++){
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < repetitions; i++){
+                sink = operation.get();
+            }
+            long after = threads.getThreadAllocatedBytes(threadId);
+            // The measurement itself allocates a little; that is less than a byte per repetition.
+            least = Math.min(least, (after - before) / repetitions);
+        }
+        return least;
+    }
+
+    /**
+     * @param size  Number of Keys.
+     * @return      AVLTree of even Keys from 0 inclusive to 2 * size exclusive, inserted in random order.
+     */
+    private static AVLTree<Integer> buildTree(int size){
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++){
+            keys[i] = 2 * i;
+        }
+        Random random = new Random(size);
+        for (int i = size - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            Integer swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (Integer key : keys){
+            tree = tree.insert(key);
+        }
+        return tree;
+    }
+
+    private static int heightOf(AVLTree<Integer> tree){
+        return Node.heightOf(tree.getRoot());
+    }
+
+    @Test
+    public void queries_allocateNothing(){
+        for (int size : SIZES){
+            AVLTree<Integer> tree = buildTree(size);
+            Integer present = size;
+            Integer absent = size + 1;
+            assertEquals("contains present, size " + size, 0, bytesPerOperation(() -> tree.contains(present)));
+            assertEquals("contains absent, size " + size, 0, bytesPerOperation(() -> tree.contains(absent)));
+            assertEquals("getMin, size " + size, 0, bytesPerOperation(tree::getMin));
+            assertEquals("getMax, size " + size, 0, bytesPerOperation(tree::getMax));
+        }
+    }
+
+    @Test
+    public void updates_allocateOneNodePerLevel(){
+        for (int size : SIZES){
+            AVLTree<Integer> tree = buildTree(size);
+            long budget = (UPDATE_NODES_PER_LEVEL * heightOf(tree) + UPDATE_NODES_FIXED) * nodeBytes;
+            Integer absent = size + 1;
+            Integer present = size;
+            long insert = bytesPerOperation(() -> tree.insert(absent));
+            long delete = bytesPerOperation(() -> tree.delete(present));
+            assertTrue("insert allocated " + insert + " bytes, budget " + budget + ", size " + size, insert <= budget);
+            assertTrue("delete allocated " + delete + " bytes, budget " + budget + ", size " + size, delete <= budget);
+            // Neither is free: every level on the path is copied.
+            assertTrue("insert allocated " + insert + " bytes, node " + nodeBytes + " bytes, size " + size, insert >= heightOf(tree) / 2 * nodeBytes);
+        }
+    }
+
+    @Test
+    public void iteration_allocatesOnlyAPath(){
+        for (int size : SIZES){
+            AVLTree<Integer> tree = buildTree(size);
+            long budget = ITERATION_BYTES_PER_LEVEL * heightOf(tree) + ITERATION_BYTES_FIXED;
+            long iteration = bytesPerOperation(() -> {
+                long total = 0;
+                for (Integer key : tree.asNavigableSet()){
+                    total += key;
+                }
+                return total;
+            }, ITERATION_REPETITIONS);
+            assertTrue("iteration allocated " + iteration + " bytes, budget " + budget + ", size " + size, iteration <= budget);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class AugmentedAVLTreeTest extends TreeTestSkeleton {
+
+    @Override
+    public AugmentedAVLTree<Integer, Long> buildEmptyTree(Comparator<Integer> comparator){
+        return new AugmentedAVLTree<>(Monoid.summing(Integer::longValue), comparator);
+    }
+
+    /**
+     * An empty tree aggregates to the identity.
+     */
+    @Test
+    public void emptyTree(){
+        AugmentedAVLTree<Integer, Long> sumTree = buildEmptyTree(Integer::compareTo);
+        assertEquals(Long.valueOf(0), sumTree.aggregate());
+        assertEquals(Long.valueOf(0), sumTree.aggregate(0, 10));
+    }
+
+    /**
+     * Range sums, minimums and maximums should match a brute-force scan, through insertions, deletions and rotations.
+     */
+    @Test
+    public void rangeAggregates() throws InvalidSearchTreeException{
+        Random random = new Random(5);
+        AugmentedAVLTree<Integer, Long> sumTree = new AugmentedAVLTree<>(Monoid.summing(Integer::longValue));
+        AugmentedAVLTree<Integer, Integer> minTree = new AugmentedAVLTree<>(Monoid.minimum((Integer key) -> key % 97));
+        AugmentedAVLTree<Integer, Integer> maxTree = new AugmentedAVLTree<>(Monoid.maximum((Integer key) -> key % 97));
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 3000; i++){
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0){
+                sumTree = sumTree.delete(key);
+                minTree = minTree.delete(key);
+                maxTree = maxTree.delete(key);
+                expected.remove(key);
+            } else {
+                sumTree = sumTree.insert(key);
+                minTree = minTree.insert(key);
+                maxTree = maxTree.insert(key);
+                expected.add(key);
+            }
+        }
+        sumTree.validate();
+        minTree.validate();
+        maxTree.validate();
+
+        assertEquals(Long.valueOf(expected.stream().mapToLong(Integer::longValue).sum()), sumTree.aggregate());
+
+        for (int i = 0; i < 500; i++){
+            int start = random.nextInt(2100) - 50;
+            int end = start + random.nextInt(600);
+            long expectedSum = 0;
+            Integer expectedMin = null;
+            Integer expectedMax = null;
+            for (Integer key : expected.subSet(start, true, end, true)){
+                expectedSum += key;
+                expectedMin = expectedMin == null ? key % 97 : Math.min(expectedMin, key % 97);
+                expectedMax = expectedMax == null ? key % 97 : Math.max(expectedMax, key % 97);
+            }
+            assertEquals(Long.valueOf(expectedSum), sumTree.aggregate(start, end));
+            assertEquals(expectedMin, minTree.aggregate(start, end));
+            assertEquals(expectedMax, maxTree.aggregate(start, end));
+        }
+    }
+
+    /**
+     * Aggregates of a non-commutative monoid combine Keys in ascending order.
+     */
+    @Test
+    public void nonCommutativeAggregate(){
+        Monoid<Integer, String> concatenation = new Monoid<Integer, String>() {
+            public String identity(){ return ""; }
+            public String lift(Integer key){ return key.toString(); }
+            public String combine(String left, String right){ return left + right; }
+        };
+        AugmentedAVLTree<Integer, String> tree = new AugmentedAVLTree<>(concatenation);
+        for (int key : new int[]{5, 3, 8, 1, 4, 7, 9, 2, 6}){
+            tree = tree.insert(key);
+        }
+        assertEquals("123456789", tree.aggregate());
+        assertEquals("3456", tree.aggregate(3, 6));
+    }
+}
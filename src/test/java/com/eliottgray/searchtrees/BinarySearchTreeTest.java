@@ -150,4 +150,67 @@ public class BinarySearchTreeTest extends TreeTestSkeleton {
         assertEquals(4, testTree.getRoot().size);
         testTree.validate();
     }
+
+    /**
+     * Keys must be ordered against every ancestor, not only their parent.
+     *
+     *        5
+     *       /
+     *      2
+     *       \
+     *       [7]
+     */
+    @Test(expected = InvalidSearchTreeException.class)
+    public void testValidate_keyOutsideAncestorBounds() throws InvalidSearchTreeException{
+        BinarySearchNode<Integer> left = new BinarySearchNode<>(2, null, new BinarySearchNode<>(7));
+        BinarySearchNode<Integer> root = new BinarySearchNode<>(5, left, null);
+        new BinarySearchTree<>(root, Integer::compareTo).validate();
+    }
+
+    /**
+     * Trees larger than the parallel threshold are split across tasks; an invalid key deep within one
+     * of those tasks must still surface as an InvalidSearchTreeException.
+     */
+    @Test
+    public void testValidate_parallel() throws InvalidSearchTreeException{
+        AVLTree<Integer> avlTree = new AVLTree<>();
+        for (int i = 0; i < 4 * BinarySearchTree.PARALLEL_VALIDATE_THRESHOLD; i++){
+            avlTree = avlTree.insert(i);
+        }
+        avlTree.validate();
+
+        // Replace the left child of the root's right child with a key lesser than the root.
+        BinarySearchNode<Integer> root = avlTree.getRoot();
+        BinarySearchNode<Integer> corruptRight = new BinarySearchNode<>(root.right.key, new BinarySearchNode<>(-1), root.right.right);
+        BinarySearchTree<Integer> corruptTree = new BinarySearchTree<>(new BinarySearchNode<>(root.key, root.left, corruptRight), Integer::compareTo);
+        try {
+            corruptTree.validate();
+            fail();
+        } catch (InvalidSearchTreeException exception){
+            assertTrue(exception.getMessage().contains("-1"));
+        }
+    }
+
+    /**
+     * Sampled validation of a valid tree passes; with a corrupt root key, the whole right subtree falls
+     * outside its bounds, so that any of the sampled paths descending right will find it.
+     */
+    @Test(expected = InvalidSearchTreeException.class)
+    public void testValidateSampled() throws InvalidSearchTreeException{
+        for (int i = 0; i < 1000; i++){
+            testTree = testTree.insert((i * 7919) % 1000);
+        }
+        testTree.validateSampled(0.1);
+        testTree.validateSampled(1.0);
+
+        BinarySearchNode<Integer> root = testTree.getRoot();
+        BinarySearchNode<Integer> corruptRoot = new BinarySearchNode<>(Integer.MAX_VALUE, root.left, root.right);
+        BinarySearchTree<Integer> corruptTree = new BinarySearchTree<>(corruptRoot, Integer::compareTo);
+        corruptTree.validateSampled(0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateSampled_invalidFraction() throws InvalidSearchTreeException{
+        testTree.validateSampled(0);
+    }
 }
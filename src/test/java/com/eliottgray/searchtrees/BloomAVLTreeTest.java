@@ -0,0 +1,165 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class BloomAVLTreeTest extends TreeTestSkeleton {
+
+    @Override
+    public BloomAVLTree<Integer> buildEmptyTree(Comparator<Integer> comparator){
+        return new BloomAVLTree<>(BloomAVLTree.DEFAULT_FALSE_POSITIVE_RATE, comparator);
+    }
+
+    /**
+     * Inserts and deletes against a TreeSet, through filter rebuilds on both growth and deletes; the filter must
+     * never turn away a present Key.
+     */
+    @Test
+    public void randomUpdates_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(7);
+        BloomAVLTree<Integer> tree = new BloomAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<BlockedBloomFilter> filters = new ArrayList<>();
+        for (int i = 0; i < 20000; i++){
+            int key = random.nextInt(8000);
+            if (random.nextInt(3) == 0){
+                tree = tree.delete(key);
+                expected.remove(key);
+            } else {
+                tree = tree.insert(key);
+                expected.add(key);
+            }
+            if (!filters.contains(tree.filter)){
+                filters.add(tree.filter);
+            }
+        }
+        assertTrue(filters.size() > 2);
+        tree.validate();
+        assertEquals(new ArrayList<>(expected), tree.toAscendingList());
+        for (int key = -100; key < 8100; key++){
+            assertEquals(expected.contains(key), tree.contains(key));
+        }
+    }
+
+    /**
+     * Older versions share the filter with newer ones, and still find all their own Keys.
+     */
+    @Test
+    public void olderVersions_stillFindTheirKeys() throws InvalidSearchTreeException {
+        BloomAVLTree<Integer> older = new BloomAVLTree<>();
+        for (int key = 0; key < 100; key++){
+            older = older.insert(key);
+        }
+        BloomAVLTree<Integer> newer = older;
+        for (int key = 0; key < 5000; key++){
+            newer = newer.insert(key + 1000).delete(key % 100);
+        }
+        older.validate();
+        newer.validate();
+        for (int key = 0; key < 100; key++){
+            assertTrue(older.contains(key));
+            assertFalse(newer.contains(key));
+        }
+    }
+
+    /**
+     * Appended and concatenated Keys bypass insert, and must reach the filter all the same.
+     */
+    @Test
+    public void appendAndConcat_addToFilter() throws InvalidSearchTreeException {
+        BloomAVLTree<Integer> tree = new BloomAVLTree<Integer>().append(1).append(2);
+        List<Integer> block = new ArrayList<>();
+        for (int key = 3; key < 3000; key++){
+            block.add(key);
+        }
+        tree = tree.appendAll(block);
+        tree.validate();
+        BloomAVLTree<Integer> right = new BloomAVLTree<Integer>().appendAll(Arrays.asList(5000, 5001, 5002));
+        tree = tree.concat(right);
+        tree.validate();
+        for (int key = 1; key < 3000; key++){
+            assertTrue(tree.contains(key));
+        }
+        assertTrue(tree.contains(5001));
+        assertFalse(tree.contains(4000));
+    }
+
+    /**
+     * Absent Keys pass the filter at about the requested rate, which the tree reports along with its memory use.
+     */
+    @Test
+    public void falsePositiveRate_nearTarget(){
+        Random random = new Random(11);
+        for (double rate : new double[]{0.1, 0.01, 0.001}){
+            BloomAVLTree<Long> tree = new BloomAVLTree<>(rate);
+            TreeSet<Long> present = new TreeSet<>();
+            while (present.size() < 10000){
+                long key = random.nextLong();
+                present.add(key);
+                tree = tree.insert(key);
+            }
+            int passed = 0;
+            int trials = 200000;
+            for (int i = 0; i < trials; i++){
+                long key = random.nextLong();
+                if (!present.contains(key) && tree.filter.mightContain(key)){
+                    passed++;
+                }
+            }
+            double measured = (double) passed / trials;
+            assertTrue(rate + ": " + measured, measured < 2 * rate);
+            assertTrue(tree.getFilterFalsePositiveRate() < 2 * rate);
+            assertTrue(tree.getFilterMemoryBytes() > 0);
+        }
+        // A lower rate costs more bits per Key.
+        assertTrue(new BloomAVLTree<>(0.001).getFilterMemoryBytes() > new BloomAVLTree<>(0.1).getFilterMemoryBytes());
+    }
+
+    /**
+     * Deleting a quarter of the filter's capacity rebuilds it, clearing the deleted Keys.
+     */
+    @Test
+    public void deletes_rebuildFilter(){
+        BloomAVLTree<Integer> tree = new BloomAVLTree<>();
+        for (int key = 0; key < 1000; key++){
+            tree = tree.insert(key);
+        }
+        BlockedBloomFilter filter = tree.filter;
+        int threshold = (int) (BloomAVLTree.REBUILD_DELETE_FRACTION * filter.getCapacity());
+        for (int key = 0; key < threshold; key++){
+            tree = tree.delete(key);
+        }
+        assertSame(filter, tree.filter);
+        tree = tree.delete(threshold);
+        assertNotSame(filter, tree.filter);
+        assertEquals(0, tree.deletes);
+        assertEquals(tree.size(), tree.filter.getInsertions());
+        // Deleting an absent Key changes nothing.
+        assertEquals(0, tree.delete(-1).deletes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falsePositiveRate_outOfRange(){
+        new BloomAVLTree<Integer>(1.0);
+    }
+
+    @Test
+    public void validate_detectsMissingKey(){
+        BloomAVLTree<Integer> tree = new BloomAVLTree<Integer>().insert(1);
+        BloomAVLTree<Integer> corrupt = new BloomAVLTree<>(new BloomAVLTree<Integer>().insert(2).getRoot(), tree.comparator, tree.falsePositiveRate, tree.filter, 0);
+        try {
+            corrupt.validate();
+            fail();
+        } catch (InvalidSearchTreeException e){
+            assertTrue(e.getMessage().contains("Bloom filter"));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentAVLTreeTest {
+
+    /**
+     * Single-threaded, every operation agrees with a TreeSet, and the tree stays strictly balanced.
+     */
+    @Test
+    public void randomOperations_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(11);
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++){
+            int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0){
+                assertEquals(expected.remove(key), tree.remove(key));
+            } else {
+                assertEquals(expected.add(key), tree.add(key));
+            }
+            if (i % 1000 == 0){
+                tree.validate();
+            }
+        }
+        tree.validate();
+        assertEquals(new ArrayList<>(expected), tree.toAscendingList());
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected.first(), tree.getMin());
+        assertEquals(expected.last(), tree.getMax());
+        for (int key = -1; key <= 2001; key++){
+            assertEquals(expected.contains(key), tree.contains(key));
+            assertEquals(expected.floor(key), tree.floor(key));
+            assertEquals(expected.ceiling(key), tree.ceiling(key));
+            assertEquals(expected.higher(key), tree.higher(key));
+            assertEquals(expected.lower(key), tree.lower(key));
+        }
+        assertEquals(new ArrayList<>(expected.subSet(500, true, 700, true)), tree.getRange(500, 700));
+    }
+
+    @Test
+    public void empty() throws InvalidSearchTreeException {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        assertTrue(tree.isEmpty());
+        assertNull(tree.getMin());
+        assertNull(tree.floor(3));
+        assertFalse(tree.contains(3));
+        assertFalse(tree.remove(3));
+        assertTrue(tree.add(3));
+        assertFalse(tree.add(3));
+        assertTrue(tree.remove(3));
+        assertTrue(tree.isEmpty());
+        tree.validate();
+    }
+
+    @Test
+    public void customComparator() throws InvalidSearchTreeException {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>(Comparator.<Integer>reverseOrder());
+        for (int i = 0; i < 100; i++){
+            tree.add(i);
+        }
+        tree.validate();
+        assertEquals(Integer.valueOf(99), tree.getMin());
+        assertEquals(Integer.valueOf(10), tree.ceiling(10));
+        assertEquals(Integer.valueOf(9), tree.higher(10));
+    }
+
+    /**
+     * Writers add and remove overlapping Keys while readers search for Keys which are never removed; readers must
+     * always find them, however the tree rotates around them.  Once writers finish, the tree is strictly balanced
+     * and holds exactly the stable Keys plus those whose last update was an add.
+     */
+    @Test
+    public void concurrentWritersAndReaders() throws Exception {
+        int threads = 4;
+        int range = 4096;
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        // Even Keys are stable; odd Keys churn.
+        for (int key = 0; key < range; key += 2){
+            tree.add(key);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2 * threads);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++){
+                int owner = thread;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 50000; i++){
+                        // Each writer owns the odd Keys congruent to its index, so that its final state is known.
+                        int key = 2 * (threads * random.nextInt(range / (2 * threads)) + owner) + 1;
+                        if (random.nextBoolean()){
+                            tree.add(key);
+                        } else {
+                            tree.remove(key);
+                        }
+                    }
+                    return null;
+                }));
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int misses = 0;
+                    while (writing.get()){
+                        int key = 2 * random.nextInt(range / 2);
+                        if (!tree.contains(key)){
+                            misses++;
+                        }
+                        Integer floor = tree.floor(key + 1);
+                        if (floor == null || floor < key){
+                            misses++;
+                        }
+                    }
+                    return misses;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers){
+                writer.get();
+            }
+            writing.set(false);
+            for (Future<Integer> reader : readers){
+                assertEquals(Integer.valueOf(0), reader.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        tree.validate();
+        List<Integer> keys = tree.toAscendingList();
+        assertEquals(keys.size(), tree.size());
+        for (int key = 0; key < range; key += 2){
+            assertTrue(tree.contains(key));
+        }
+    }
+}
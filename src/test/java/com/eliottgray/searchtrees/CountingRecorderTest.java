@@ -0,0 +1,137 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CountingRecorderTest {
+
+    private CountingRecorder recorder;
+
+    @Before
+    public void setUp(){
+        recorder = new CountingRecorder();
+    }
+
+    /**
+     * Events between begin and end are counted towards the operation, and recorded once it ends.
+     */
+    @Test
+    public void countsPerOperation(){
+        recorder.begin(TreeRecorder.Operation.INSERT);
+        recorder.level();
+        recorder.comparison();
+        recorder.level();
+        recorder.comparison();
+        recorder.allocation();
+        recorder.allocation();
+        recorder.allocation();
+        recorder.rotation(false);
+        recorder.rotation(true);
+        recorder.end(TreeRecorder.Operation.INSERT);
+
+        OperationStats stats = recorder.getStats(TreeRecorder.Operation.INSERT);
+        assertEquals(1, stats.getComparisons().getCount());
+        assertEquals(2, stats.getComparisons().getSum());
+        assertEquals(3, stats.getAllocations().getSum());
+        assertEquals(1, stats.getSingleRotations().getSum());
+        assertEquals(1, stats.getDoubleRotations().getSum());
+        assertEquals(2, stats.getLevels().getSum());
+        assertEquals(1, stats.getLatencyNanos().getCount());
+
+        // Other operations are unaffected.
+        assertEquals(0, recorder.getStats(TreeRecorder.Operation.CONTAINS).getComparisons().getCount());
+    }
+
+    /**
+     * An operation begun within another is attributed to the outer operation.
+     */
+    @Test
+    public void nestedOperations(){
+        recorder.begin(TreeRecorder.Operation.DELETE);
+        recorder.comparison();
+        recorder.begin(TreeRecorder.Operation.CONTAINS);
+        recorder.comparison();
+        recorder.end(TreeRecorder.Operation.CONTAINS);
+        recorder.end(TreeRecorder.Operation.DELETE);
+
+        assertEquals(0, recorder.getStats(TreeRecorder.Operation.CONTAINS).getComparisons().getCount());
+        assertEquals(2, recorder.getStats(TreeRecorder.Operation.DELETE).getComparisons().getSum());
+    }
+
+    /**
+     * Counts restart with each operation.
+     */
+    @Test
+    public void countsReset(){
+        for (int i = 1; i <= 3; i++){
+            recorder.begin(TreeRecorder.Operation.CONTAINS);
+            for (int j = 0; j < i; j++){
+                recorder.comparison();
+            }
+            recorder.end(TreeRecorder.Operation.CONTAINS);
+        }
+        Histogram comparisons = recorder.getStats(TreeRecorder.Operation.CONTAINS).getComparisons();
+        assertEquals(3, comparisons.getCount());
+        assertEquals(6, comparisons.getSum());
+        assertEquals(2.0, comparisons.getMean(), 0);
+
+        recorder.reset();
+        assertEquals(0, comparisons.getCount());
+    }
+
+    /**
+     * Values fall in power-of-two buckets; percentiles report the upper bound of their bucket.
+     */
+    @Test
+    public void histogramBuckets(){
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(5);
+        histogram.record(6);
+        histogram.record(1000);
+        long[] buckets = histogram.getBuckets();
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(2, buckets[3]);
+        assertEquals(1, buckets[10]);
+
+        assertEquals(0, histogram.getPercentile(20));
+        assertEquals(7, histogram.getPercentile(60));
+        assertEquals(1023, histogram.getPercentile(100));
+    }
+
+    /**
+     * Slow operations are committed as flight recorder events, whose type is defined at runtime.
+     */
+    @Test
+    public void flightRecorderEvents(){
+        CountingRecorder emitting = new CountingRecorder(0, true);
+        emitting.begin(TreeRecorder.Operation.GET_RANGE);
+        emitting.comparison();
+        emitting.rotation(true);
+        emitting.end(TreeRecorder.Operation.GET_RANGE);
+        assertEquals(1, emitting.getStats(TreeRecorder.Operation.GET_RANGE).getComparisons().getSum());
+    }
+
+    /**
+     * The recorder is selected from the instrumentation setting.
+     */
+    @Test
+    public void selectRecorder(){
+        assertSame(TreeRecorder.NO_OP, TreeInstrumentation.selectRecorder(null, 0));
+        assertSame(TreeRecorder.NO_OP, TreeInstrumentation.selectRecorder("none", 0));
+        assertTrue(TreeInstrumentation.selectRecorder("counting", 0) instanceof CountingRecorder);
+        assertTrue(TreeInstrumentation.selectRecorder("jfr", 0) instanceof CountingRecorder);
+        assertTrue(TreeInstrumentation.selectRecorder(CountingRecorder.class.getName(), 0) instanceof CountingRecorder);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void selectInvalidRecorder(){
+        TreeInstrumentation.selectRecorder("com.example.Missing", 0);
+    }
+}
@@ -0,0 +1,148 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class FrozenSortedSetTest {
+
+    /**
+     * Integer and Long trees in natural order freeze into primitive arrays; anything else keeps its objects.
+     */
+    @Test
+    public void freeze_selectsLayout(){
+        assertTrue(new AVLTree<Integer>().insert(1).freeze() instanceof FrozenIntSortedSet);
+        assertTrue(new AVLTree<Long>().insert(1L).freeze() instanceof FrozenLongSortedSet);
+        assertTrue(new AVLTree<String>().insert("a").freeze() instanceof FrozenObjectSortedSet);
+        assertTrue(new AVLTree<>(Comparator.<Integer>reverseOrder()).insert(1).freeze() instanceof FrozenObjectSortedSet);
+    }
+
+    @Test
+    public void freeze_empty(){
+        FrozenSortedSet<Integer> frozen = new AVLTree<Integer>().freeze();
+        assertTrue(frozen.isEmpty());
+        assertEquals(0, frozen.size());
+        assertFalse(frozen.contains(1));
+        assertNull(frozen.floor(1));
+        assertNull(frozen.ceiling(1));
+        assertNull(frozen.getMin());
+        assertNull(frozen.getMax());
+        assertFalse(frozen.iterator().hasNext());
+    }
+
+    /**
+     * Every size up to a few complete levels, so that each shape of the last level is covered.
+     */
+    @Test
+    public void freeze_allSmallSizes(){
+        for (int size = 1; size <= 64; size++){
+            Tree<Integer> tree = new AVLTree<>();
+            NavigableSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < size; i++){
+                tree = tree.insert(2 * i);
+                expected.add(2 * i);
+            }
+            assertMatches(expected, tree.freeze(), -2, 2 * size + 1);
+        }
+    }
+
+    @Test
+    public void freeze_int(){
+        Random random = new Random(3);
+        Tree<Integer> tree = new AVLTree<>();
+        NavigableSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++){
+            int key = random.nextInt(20000) - 10000;
+            tree = tree.insert(key);
+            expected.add(key);
+        }
+        FrozenIntSortedSet frozen = (FrozenIntSortedSet) tree.freeze();
+        assertMatches(expected, frozen, -10001, 10001);
+        for (int key = -10001; key <= 10001; key++){
+            assertEquals(expected.contains(key), frozen.contains(key));
+        }
+    }
+
+    @Test
+    public void freeze_long(){
+        Random random = new Random(5);
+        Tree<Long> tree = new BinarySearchTree<>();
+        NavigableSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 2000; i++){
+            long key = random.nextLong();
+            tree = tree.insert(key);
+            expected.add(key);
+        }
+        FrozenLongSortedSet frozen = (FrozenLongSortedSet) tree.freeze();
+        assertEquals(new ArrayList<>(expected), frozen.toAscendingList());
+        for (Long key : expected){
+            assertTrue(frozen.contains(key.longValue()));
+            assertEquals(key, frozen.floor(key));
+            assertEquals(expected.higher(key), frozen.ceiling(key + 1));
+            assertEquals(expected.lower(key), frozen.floor(key - 1));
+        }
+        assertEquals(Long.valueOf(expected.first()), frozen.ceiling(Long.MIN_VALUE));
+        assertEquals(Long.valueOf(expected.last()), frozen.floor(Long.MAX_VALUE));
+    }
+
+    /**
+     * Object layouts search with the comparator of the frozen Tree.
+     */
+    @Test
+    public void freeze_customComparator(){
+        Tree<Integer> tree = new AVLTree<>(Comparator.<Integer>reverseOrder());
+        NavigableSet<Integer> expected = new TreeSet<>(Comparator.reverseOrder());
+        for (int i = 0; i < 300; i += 3){
+            tree = tree.insert(i);
+            expected.add(i);
+        }
+        assertMatches(expected, tree.freeze(), 301, -1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void rangeIterator_exhausted(){
+        Iterator<Integer> iterator = new AVLTree<Integer>().insert(1).freeze().rangeIterator(0, 2);
+        iterator.next();
+        iterator.next();
+    }
+
+    /**
+     * Compare a frozen set against a TreeSet, probing every integer Key from low to high, in the set's order.
+     */
+    private static void assertMatches(NavigableSet<Integer> expected, FrozenSortedSet<Integer> actual, int low, int high){
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected), actual.toAscendingList());
+        assertEquals(expected.first(), actual.getMin());
+        assertEquals(expected.last(), actual.getMax());
+
+        int step = low < high ? 1 : -1;
+        for (int key = low; key != high + step; key += step){
+            assertEquals(expected.contains(key), actual.contains(key));
+            assertEquals(expected.floor(key), actual.floor(key));
+            assertEquals(expected.ceiling(key), actual.ceiling(key));
+        }
+
+        // Ranges, including open and empty ranges.
+        int quarter = low + (high - low) / 4;
+        int threeQuarters = low + 3 * (high - low) / 4;
+        assertEquals(new ArrayList<>(expected.subSet(quarter, true, threeQuarters, true)), toList(actual.rangeIterator(quarter, threeQuarters)));
+        assertEquals(new ArrayList<>(expected.headSet(quarter, true)), toList(actual.rangeIterator(null, quarter)));
+        assertEquals(new ArrayList<>(expected.tailSet(quarter, true)), toList(actual.rangeIterator(quarter, null)));
+        assertEquals(new ArrayList<Integer>(), toList(actual.rangeIterator(threeQuarters, quarter)));
+    }
+
+    private static List<Integer> toList(Iterator<Integer> iterator){
+        List<Integer> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
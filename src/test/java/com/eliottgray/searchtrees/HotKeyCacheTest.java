@@ -0,0 +1,140 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HotKeyCacheTest {
+
+    private static AVLTree<Integer> treeOf(int... keys){
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int key : keys){
+            tree = tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Test
+    public void repeatedLookups_hit(){
+        AVLTree<Integer> tree = treeOf(10, 20, 30);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(8);
+        assertTrue(cache.contains(tree, 20));
+        assertTrue(cache.contains(tree, 20));
+        assertEquals(Integer.valueOf(20), cache.floor(tree, 25));
+        assertEquals(Integer.valueOf(20), cache.floor(tree, 25));
+        assertNull(cache.ceiling(tree, 31));
+        assertNull(cache.ceiling(tree, 31));
+        assertEquals(3, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0);
+        assertEquals(3, cache.size());
+    }
+
+    /**
+     * Entries are keyed on the root they were computed against, so another version never sees them.
+     */
+    @Test
+    public void newVersion_missesWithoutAdvance(){
+        AVLTree<Integer> older = treeOf(10, 20, 30);
+        AVLTree<Integer> newer = older.delete(20);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(8);
+        assertTrue(cache.contains(older, 20));
+        assertFalse(cache.contains(newer, 20));
+        assertTrue(cache.contains(older, 20));
+        assertEquals(0, cache.getHits());
+
+        // Empty trees share a null root.
+        AVLTree<Integer> empty = new AVLTree<>();
+        assertFalse(cache.contains(empty, 5));
+        assertFalse(cache.contains(new AVLTree<>(), 5));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void advance_keepsOnlyUnaffectedEntries(){
+        AVLTree<Integer> older = treeOf(10, 20, 30);
+        AVLTree<Integer> newer = older.insert(25);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(8);
+        cache.contains(older, 10);
+        cache.contains(older, 25);
+        cache.floor(older, 22);
+        cache.floor(older, 28);
+        cache.ceiling(older, 12);
+        cache.ceiling(older, 22);
+        cache.advance(older, newer, 25);
+
+        long misses = cache.getMisses();
+        assertTrue(cache.contains(newer, 10));
+        assertEquals(Integer.valueOf(20), cache.floor(newer, 22));
+        assertEquals(Integer.valueOf(20), cache.ceiling(newer, 12));
+        assertEquals(misses, cache.getMisses());
+
+        assertTrue(cache.contains(newer, 25));
+        assertEquals(Integer.valueOf(25), cache.floor(newer, 28));
+        assertEquals(Integer.valueOf(25), cache.ceiling(newer, 22));
+        assertEquals(misses + 3, cache.getMisses());
+    }
+
+    /**
+     * Random updates and skewed lookups, advancing the cache over each update, against the tree itself.
+     */
+    @Test
+    public void randomVersions_matchTree(){
+        Random random = new Random(17);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(128);
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 20000; i++){
+            int key = random.nextInt(200);
+            if (random.nextInt(10) == 0){
+                AVLTree<Integer> next = random.nextBoolean() ? tree.insert(key) : tree.delete(key);
+                cache.advance(tree, next, key);
+                tree = next;
+            }
+            // The fourth power skews lookups towards low Keys.
+            int query = (int) (200 * Math.pow(random.nextDouble(), 4)) - 5;
+            assertEquals(tree.contains(query), cache.contains(tree, query));
+            assertEquals(tree.floor(query), cache.floor(tree, query));
+            assertEquals(tree.ceiling(query), cache.ceiling(tree, query));
+        }
+        assertTrue(cache.getHitRate() > 0.5);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(128, cache.size());
+    }
+
+    /**
+     * CLOCK spares an entry referenced since the hand last passed it.
+     */
+    @Test
+    public void eviction_sparesReferencedEntries(){
+        AVLTree<Integer> tree = treeOf(1, 2, 3);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(2);
+        cache.contains(tree, 1);
+        cache.contains(tree, 2);
+        cache.contains(tree, 1);
+        cache.contains(tree, 3);
+        assertEquals(1, cache.getEvictions());
+        long hits = cache.getHits();
+        cache.contains(tree, 1);
+        cache.contains(tree, 3);
+        assertEquals(hits + 2, cache.getHits());
+    }
+
+    @Test
+    public void clear_dropsEntries(){
+        AVLTree<Integer> tree = treeOf(1);
+        HotKeyCache<Integer> cache = new HotKeyCache<>(4);
+        cache.contains(tree, 1);
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.contains(tree, 1);
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacity(){
+        new HotKeyCache<Integer>(0);
+    }
+}
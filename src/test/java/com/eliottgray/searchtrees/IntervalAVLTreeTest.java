@@ -0,0 +1,104 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class IntervalAVLTreeTest {
+
+    private IntervalAVLTree<Integer> testTree;
+
+    @Before
+    public void setUp(){
+        testTree = new IntervalAVLTree<>();
+    }
+
+    /**
+     * Test overlap and stabbing queries on a small set of Intervals.
+     *
+     *      [1 ---- 5]
+     *           [4 -- 7]
+     *                      [10 ---- 15]
+     *         [3 ------------------------ 20]
+     */
+    @Test
+    public void smallTree() throws InvalidSearchTreeException{
+        Interval<Integer> one = new Interval<>(1, 5);
+        Interval<Integer> two = new Interval<>(4, 7);
+        Interval<Integer> three = new Interval<>(10, 15);
+        Interval<Integer> four = new Interval<>(3, 20);
+        testTree = testTree.insert(one).insert(two).insert(three).insert(four);
+        testTree.validate();
+
+        assertEquals(listOf(one, four), testTree.getStabbing(3));
+        assertEquals(listOf(four, two), testTree.getStabbing(6));
+        assertEquals(listOf(four, three), testTree.getStabbing(10));
+        assertEquals(listOf(), testTree.getStabbing(21));
+        assertEquals(listOf(), testTree.getStabbing(0));
+        assertEquals(listOf(one, four, two), testTree.getOverlapping(5, 8));
+        assertEquals(Integer.valueOf(20), testTree.aggregate());
+
+        // Deleting the longest Interval lowers the maximum end Point.
+        testTree = testTree.delete(four);
+        testTree.validate();
+        assertEquals(Integer.valueOf(15), testTree.aggregate());
+        assertEquals(listOf(), testTree.getOverlapping(8, 9));
+    }
+
+    /**
+     * Overlap queries should match a brute-force scan, through insertions, deletions and rotations.
+     */
+    @Test
+    public void randomIntervals() throws InvalidSearchTreeException{
+        Random random = new Random(13);
+        TreeSet<Interval<Integer>> expected = new TreeSet<>();
+        for (int i = 0; i < 3000; i++){
+            int start = random.nextInt(10000);
+            Interval<Integer> interval = new Interval<>(start, start + random.nextInt(200));
+            if (random.nextInt(4) == 0 && !expected.isEmpty()){
+                Interval<Integer> existing = expected.ceiling(interval);
+                if (existing != null){
+                    testTree = testTree.delete(existing);
+                    expected.remove(existing);
+                }
+            } else {
+                testTree = testTree.insert(interval);
+                expected.add(interval);
+            }
+        }
+        testTree.validate();
+        assertEquals(expected.size(), testTree.size());
+
+        for (int i = 0; i < 300; i++){
+            int start = random.nextInt(10500) - 200;
+            int end = start + random.nextInt(100);
+            List<Interval<Integer>> expectedOverlap = new ArrayList<>();
+            for (Interval<Integer> interval : expected){
+                if (interval.overlaps(start, end)){
+                    expectedOverlap.add(interval);
+                }
+            }
+            assertEquals(expectedOverlap, testTree.getOverlapping(start, end));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidInterval(){
+        new Interval<>(5, 4);
+    }
+
+    @SafeVarargs
+    private static List<Interval<Integer>> listOf(Interval<Integer>... intervals){
+        List<Interval<Integer>> list = new ArrayList<>();
+        for (Interval<Integer> interval : intervals){
+            list.add(interval);
+        }
+        return list;
+    }
+}
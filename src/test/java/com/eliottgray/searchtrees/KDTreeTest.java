@@ -0,0 +1,165 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class KDTreeTest {
+
+    /**
+     * Build random points, on a coarse grid so that equal coordinates are common.
+     */
+    static List<double[]> randomPoints(Random random, int count, int dimensions){
+        List<double[]> points = new ArrayList<>();
+        for (int i = 0; i < count; i++){
+            double[] point = new double[dimensions];
+            for (int j = 0; j < dimensions; j++){
+                point[j] = random.nextInt(200) / 2.0;
+            }
+            points.add(point);
+        }
+        return points;
+    }
+
+    static List<double[]> bruteForceRange(List<double[]> points, double[] min, double[] max){
+        List<double[]> result = new ArrayList<>();
+        for (double[] point : points){
+            if (KDTree.isWithin(point, min, max)){
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compare lists of points irrespective of order.
+     */
+    static void assertSamePoints(List<double[]> expected, List<double[]> actual){
+        Comparator<double[]> lexicographic = (one, two) -> {
+            for (int i = 0; i < one.length; i++){
+                int comparison = Double.compare(one[i], two[i]);
+                if (comparison != 0){
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+        List<double[]> sortedExpected = new ArrayList<>(expected);
+        List<double[]> sortedActual = new ArrayList<>(actual);
+        sortedExpected.sort(lexicographic);
+        sortedActual.sort(lexicographic);
+        assertEquals(sortedExpected.size(), sortedActual.size());
+        for (int i = 0; i < sortedExpected.size(); i++){
+            assertArrayEquals(sortedExpected.get(i), sortedActual.get(i), 0);
+        }
+    }
+
+    /**
+     * Nearest neighbors should match a brute-force sort by distance; compare distances, since ties may be broken either way.
+     */
+    static void assertNearest(List<double[]> points, double[] query, int k, List<double[]> actual){
+        List<double[]> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingDouble(point -> KDTree.squaredDistance(point, query)));
+        assertEquals(Math.min(k, sorted.size()), actual.size());
+        for (int i = 0; i < actual.size(); i++){
+            assertEquals(KDTree.squaredDistance(sorted.get(i), query), KDTree.squaredDistance(actual.get(i), query), 0);
+        }
+    }
+
+    @Test
+    public void emptyTree() throws InvalidSearchTreeException{
+        KDTree tree = new KDTree(2);
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+        assertFalse(tree.contains(new double[]{0, 0}));
+        assertTrue(tree.getRange(new double[]{0, 0}, new double[]{1, 1}).isEmpty());
+        assertTrue(tree.getNearest(new double[]{0, 0}, 3).isEmpty());
+        tree.validate();
+    }
+
+    /**
+     * Bulk-built and incrementally-built trees should answer range and nearest-neighbor queries as a brute-force scan does.
+     */
+    @Test
+    public void queriesMatchBruteForce() throws InvalidSearchTreeException{
+        for (int dimensions = 2; dimensions <= 3; dimensions++){
+            Random random = new Random(dimensions);
+            List<double[]> points = randomPoints(random, 3000, dimensions);
+            KDTree built = KDTree.build(dimensions, points);
+            KDTree inserted = new KDTree(dimensions);
+            for (double[] point : points){
+                inserted = inserted.insert(point);
+            }
+            built.validate();
+            inserted.validate();
+
+            // Duplicate points are stored once.
+            List<double[]> distinct = built.toList();
+            assertEquals(distinct.size(), inserted.size());
+            assertSamePoints(distinct, inserted.toList());
+
+            for (int i = 0; i < 100; i++){
+                double[] min = randomPoints(random, 1, dimensions).get(0);
+                double[] max = min.clone();
+                for (int j = 0; j < dimensions; j++){
+                    max[j] += random.nextInt(40);
+                }
+                List<double[]> expected = bruteForceRange(distinct, min, max);
+                assertSamePoints(expected, built.getRange(min, max));
+                assertSamePoints(expected, inserted.getRange(min, max));
+
+                int k = 1 + random.nextInt(10);
+                assertNearest(distinct, min, k, built.getNearest(min, k));
+                assertNearest(distinct, min, k, inserted.getNearest(min, k));
+            }
+        }
+    }
+
+    /**
+     * Deletion should remove exactly the deleted point, leaving older trees unchanged.
+     */
+    @Test
+    public void delete() throws InvalidSearchTreeException{
+        Random random = new Random(17);
+        List<double[]> points = randomPoints(random, 2000, 2);
+        KDTree original = KDTree.build(2, points);
+        KDTree tree = original;
+        List<double[]> remaining = new ArrayList<>(original.toList());
+        while (!remaining.isEmpty()){
+            double[] point = remaining.remove(random.nextInt(remaining.size()));
+            tree = tree.delete(point);
+            assertFalse(tree.contains(point));
+            if (remaining.size() % 100 == 0){
+                tree.validate();
+                assertEquals(remaining.size(), tree.size());
+                for (double[] other : remaining){
+                    assertTrue(tree.contains(other));
+                }
+            }
+        }
+        assertTrue(tree.isEmpty());
+
+        // Deleting an absent point returns the same tree.
+        assertSame(original, original.delete(new double[]{-1, -1}));
+        original.validate();
+        assertSamePoints(KDTree.build(2, points).toList(), original.toList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongDimensions(){
+        new KDTree(2).insert(new double[]{1, 2, 3});
+    }
+
+    @Test
+    public void insertDuplicate(){
+        KDTree tree = new KDTree(2).insert(new double[]{1, 2});
+        assertSame(tree, tree.insert(new double[]{1, 2}));
+        assertTrue(Arrays.equals(new double[]{1, 2}, tree.getNearest(new double[]{0, 0}, 1).get(0)));
+    }
+}
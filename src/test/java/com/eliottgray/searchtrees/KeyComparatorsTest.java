@@ -0,0 +1,54 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class KeyComparatorsTest {
+
+    private static <Key extends Comparable<Key>> void assertAgreesWithCompareTo(List<Key> keys){
+        for (Key one : keys){
+            for (Key two : keys){
+                assertEquals(one + " vs " + two, Integer.signum(one.compareTo(two)), Integer.signum(KeyComparators.compareNaturally(one, two)));
+            }
+        }
+    }
+
+    @Test
+    public void compareNaturally_agreesWithCompareTo(){
+        assertAgreesWithCompareTo(Arrays.asList(Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE));
+        assertAgreesWithCompareTo(Arrays.asList(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE));
+        assertAgreesWithCompareTo(Arrays.asList("", "a", "ab", "b", "\uD800", "\uFFFF"));
+        // Other types fall back to compareTo.
+        assertAgreesWithCompareTo(Arrays.asList(-1.5, 0.0, Double.NaN, 2.5));
+        assertAgreesWithCompareTo(Arrays.asList(new UUID(-1, 0), new UUID(0, 0), new UUID(1, -1)));
+    }
+
+    @Test
+    public void prebuiltComparators_agreeWithCompareTo(){
+        assertTrue(KeyComparators.INTEGERS.compare(Integer.MIN_VALUE, Integer.MAX_VALUE) < 0);
+        assertTrue(KeyComparators.LONGS.compare(Long.MAX_VALUE, Long.MIN_VALUE) > 0);
+        assertEquals(0, KeyComparators.STRINGS.compare("a", "a"));
+    }
+
+    /**
+     * Comparators equivalent to natural order take the natural-order path, and so freeze into primitive arrays.
+     */
+    @Test
+    public void tree_detectsNaturalOrder(){
+        assertTrue(new AVLTree<Integer>().isNaturalOrder());
+        assertTrue(new AVLTree<>(Comparator.<Integer>naturalOrder()).isNaturalOrder());
+        assertTrue(new AVLTree<>(KeyComparators.INTEGERS).isNaturalOrder());
+        assertTrue(new AVLTree<>(KeyComparators.STRINGS).insert("a").isNaturalOrder());
+        assertFalse(new AVLTree<>(Comparator.<Integer>reverseOrder()).isNaturalOrder());
+        assertFalse(new AVLTree<Integer>(Integer::compare).isNaturalOrder());
+
+        assertTrue(new AVLTree<>(KeyComparators.INTEGERS).insert(1).freeze() instanceof FrozenIntSortedSet);
+        assertTrue(new AVLTree<>(KeyComparators.LONGS).insert(1L).freeze() instanceof FrozenLongSortedSet);
+    }
+}
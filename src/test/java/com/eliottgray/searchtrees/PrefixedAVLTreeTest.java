@@ -0,0 +1,137 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class PrefixedAVLTreeTest extends TreeTestSkeleton {
+
+    @Override
+    public PrefixedAVLTree<Integer> buildEmptyTree(Comparator<Integer> comparator){
+        return new PrefixedAVLTree<>(KeyPrefixer.fromCodec(KeyCodec.INTEGERS), comparator);
+    }
+
+    /**
+     * A prefix may tie where Keys differ, but must never order two Keys against their compareTo method.
+     */
+    private static <Key extends Comparable<Key>> void assertConsistent(KeyPrefixer<Key> prefixer, List<Key> keys){
+        for (Key one : keys){
+            for (Key two : keys){
+                int prefixComparison = Long.compareUnsigned(prefixer.prefix(one), prefixer.prefix(two));
+                if (prefixComparison != 0){
+                    assertEquals(one + " vs " + two, Integer.signum(prefixComparison), Integer.signum(one.compareTo(two)));
+                }
+            }
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength){
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++){
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void prefixers_neverContradictCompareTo(){
+        // ASCII and wider units, surrogates and the extremes, in short Strings so that prefixes often tie.
+        String alphabet = "\u0000\u0001a\u007F\u0080\u00E9\u3042\uD800\uDC00\uFFFF";
+        Random random = new Random(3);
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 300; i++){
+            strings.add(randomString(random, alphabet, 10));
+        }
+        assertConsistent(KeyPrefixer.STRINGS, strings);
+        assertConsistent(KeyPrefixer.fromCodec(KeyCodec.STRINGS), strings);
+
+        String leadIn = "a\u00E9";
+        List<String> withLeadIn = new ArrayList<>(strings);
+        for (int i = 0; i < 300; i++){
+            withLeadIn.add(leadIn + randomString(random, alphabet, 10));
+        }
+        withLeadIn.add(leadIn);
+        withLeadIn.add("a");
+        assertConsistent(KeyPrefixer.stringsAfter(leadIn), withLeadIn);
+
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 100; i++){
+            uuids.add(new UUID(random.nextInt(5) - 2, random.nextInt(5) - 2));
+            uuids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        assertConsistent(KeyPrefixer.UUIDS, uuids);
+
+        List<Integer> integers = Arrays.asList(Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE);
+        assertConsistent(KeyPrefixer.fromCodec(KeyCodec.INTEGERS), integers);
+    }
+
+    /**
+     * Eight ASCII characters fit in a prefix, so Strings differing within them never tie.
+     */
+    @Test
+    public void strings_packEightAsciiCharacters(){
+        assertTrue(Long.compareUnsigned(KeyPrefixer.STRINGS.prefix("abcdefgh"), KeyPrefixer.STRINGS.prefix("abcdefgi")) < 0);
+        assertEquals(KeyPrefixer.STRINGS.prefix("abcdefghX"), KeyPrefixer.STRINGS.prefix("abcdefghY"));
+        assertEquals(0x6162000000000000L, KeyPrefixer.STRINGS.prefix("ab"));
+        assertEquals(0L, KeyPrefixer.STRINGS.prefix(""));
+    }
+
+    /**
+     * URL-like Keys sharing a long lead-in, against a TreeSet, with prefixes cached through inserts, deletes and
+     * rotations.
+     */
+    @Test
+    public void sharedLeadIn_matchesTreeSet() throws InvalidSearchTreeException {
+        String leadIn = "https://example.com/items/";
+        Random random = new Random(5);
+        for (KeyPrefixer<String> prefixer : Arrays.asList(KeyPrefixer.STRINGS, KeyPrefixer.stringsAfter(leadIn))){
+            PrefixedAVLTree<String> tree = new PrefixedAVLTree<>(prefixer);
+            TreeSet<String> expected = new TreeSet<>();
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < 2000; i++){
+                String key = (random.nextInt(10) == 0 ? "https://example.com/" : leadIn) + randomString(random, "ab/\u00E9", 12);
+                queries.add(key);
+                if (random.nextInt(4) == 0){
+                    tree = tree.delete(key);
+                    expected.remove(key);
+                } else {
+                    tree = tree.insert(key);
+                    expected.add(key);
+                }
+            }
+            tree.validate();
+            assertEquals(new ArrayList<>(expected), tree.toAscendingList());
+            queries.add("");
+            queries.add(leadIn);
+            queries.add("zzz");
+            for (String query : queries){
+                assertEquals(expected.contains(query), tree.contains(query));
+                assertEquals(expected.floor(query), tree.floor(query));
+                assertEquals(expected.ceiling(query), tree.ceiling(query));
+                assertEquals(expected.higher(query), tree.higher(query));
+                assertEquals(expected.lower(query), tree.lower(query));
+            }
+        }
+    }
+
+    @Test
+    public void validate_detectsStalePrefix(){
+        PrefixedAVLTree<Integer> tree = new PrefixedAVLTree<Integer>(KeyPrefixer.fromCodec(KeyCodec.INTEGERS)).insert(1).insert(2);
+        PrefixedAVLTree<Integer> corrupt = new PrefixedAVLTree<>(new PrefixedNode<>(2, tree.getRoot().left, null, 0L), tree.comparator, tree.prefixer);
+        try {
+            corrupt.validate();
+            fail();
+        } catch (InvalidSearchTreeException e){
+            assertTrue(e.getMessage().contains("prefix"));
+        }
+    }
+}
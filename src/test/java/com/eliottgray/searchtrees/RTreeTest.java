@@ -0,0 +1,102 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.eliottgray.searchtrees.KDTreeTest.*;
+import static org.junit.Assert.*;
+
+public class RTreeTest {
+
+    @Test
+    public void emptyTree() throws InvalidSearchTreeException{
+        RTree tree = RTree.build(2, new ArrayList<>());
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+        assertTrue(tree.getRange(new double[]{0, 0}, new double[]{1, 1}).isEmpty());
+        assertTrue(tree.getNearest(new double[]{0, 0}, 3).isEmpty());
+        tree.validate();
+    }
+
+    /**
+     * An overflowing leaf is split along the axis on which its points are widest, counting the point which overflowed it.
+     */
+    @Test
+    public void splitAlongWidestAxisOfEntries() throws InvalidSearchTreeException{
+        // Before the last insert the leaf is wider along x; the last point makes it far wider along y.
+        RTree tree = new RTree(2, 4);
+        for (double[] point : new double[][]{{0, 0}, {10, 0}, {0, 1}, {10, 1}, {5, 1000}}){
+            tree = tree.insert(point);
+        }
+        tree.validate();
+        assertEquals(2, tree.root.children.length);
+        RTreeNode low = tree.root.children[0];
+        RTreeNode high = tree.root.children[1];
+        if (low.min[1] > high.min[1]){
+            RTreeNode swap = low;
+            low = high;
+            high = swap;
+        }
+        // Split along y, the halves do not overlap along y.
+        assertTrue(low.max[1] < high.min[1]);
+    }
+
+    /**
+     * Packed and incrementally-built trees should answer range and nearest-neighbor queries as a brute-force scan does.
+     */
+    @Test
+    public void queriesMatchBruteForce() throws InvalidSearchTreeException{
+        for (int dimensions = 2; dimensions <= 3; dimensions++){
+            Random random = new Random(dimensions);
+            List<double[]> points = randomPoints(random, 5000, dimensions);
+            RTree packed = RTree.build(dimensions, 8, points);
+            RTree inserted = new RTree(dimensions, 8);
+            for (double[] point : points){
+                inserted = inserted.insert(point);
+            }
+            packed.validate();
+            inserted.validate();
+            assertEquals(points.size(), packed.size());
+            assertEquals(points.size(), inserted.size());
+            assertSamePoints(points, packed.toList());
+            assertSamePoints(points, inserted.toList());
+
+            for (int i = 0; i < 100; i++){
+                double[] min = randomPoints(random, 1, dimensions).get(0);
+                double[] max = min.clone();
+                for (int j = 0; j < dimensions; j++){
+                    max[j] += random.nextInt(40);
+                }
+                List<double[]> expected = bruteForceRange(points, min, max);
+                assertSamePoints(expected, packed.getRange(min, max));
+                assertSamePoints(expected, inserted.getRange(min, max));
+
+                int k = 1 + random.nextInt(10);
+                assertNearest(points, min, k, packed.getNearest(min, k));
+                assertNearest(points, min, k, inserted.getNearest(min, k));
+            }
+        }
+    }
+
+    /**
+     * Insertion leaves older versions of the tree unchanged.
+     */
+    @Test
+    public void immutability() throws InvalidSearchTreeException{
+        Random random = new Random(23);
+        List<double[]> points = randomPoints(random, 500, 2);
+        RTree packed = RTree.build(2, 4, points);
+        RTree updated = packed;
+        for (double[] point : randomPoints(random, 500, 2)){
+            updated = updated.insert(point);
+        }
+        updated.validate();
+        packed.validate();
+        assertEquals(1000, updated.size());
+        assertEquals(500, packed.size());
+        assertSamePoints(points, packed.toList());
+    }
+}
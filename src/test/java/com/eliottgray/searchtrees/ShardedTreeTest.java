@@ -0,0 +1,159 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ShardedTreeTest extends TreeTestSkeleton {
+
+    /**
+     * Four shards from the start, so that the shared tests cross shard boundaries.
+     */
+    @Override
+    public ShardedTree<Integer> buildEmptyTree(Comparator<Integer> comparator){
+        List<Integer> sample = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        return ShardedTree.fromSample(sample, 4, comparator);
+    }
+
+    @Test
+    public void fromSample_boundaries() throws InvalidSearchTreeException {
+        ShardedTree<Integer> tree = buildEmptyTree(Integer::compareTo);
+        assertEquals(4, tree.getShardCount());
+        assertArrayEquals(new Integer[]{25, 50, 75}, tree.boundaries);
+
+        // Duplicate sample Keys yield fewer shards.
+        assertEquals(2, ShardedTree.fromSample(Collections.nCopies(10, 7), 4).getShardCount());
+
+        // Point operations touch a single shard.
+        tree = tree.insert(10).insert(60);
+        assertSame(tree.shards[1], tree.insert(20).shards[1]);
+        assertEquals(1, tree.shards[0].size());
+        assertEquals(1, tree.shards[2].size());
+        tree.validate();
+    }
+
+    /**
+     * A growing tree splits its one shard as it passes twice its share; a shrinking tree merges them again.
+     */
+    @Test
+    public void splitAndMerge() throws InvalidSearchTreeException {
+        ShardedTree<Integer> tree = new ShardedTree<>(Integer::compareTo, 8);
+        for (int i = 0; i < 40000; i++){
+            tree = tree.insert(i);
+        }
+        tree.validate();
+        assertTrue(tree.getShardCount() >= 8);
+        for (AVLTree<Integer> shard : tree.shards){
+            assertTrue(shard.size() <= Math.max(ShardedTree.MIN_SPLIT_SIZE, 2 * tree.size() / 8));
+        }
+
+        for (int i = 0; i < 39000; i++){
+            tree = tree.delete(i);
+        }
+        tree.validate();
+        assertEquals(1000, tree.size());
+        assertEquals(IntStream.range(39000, 40000).boxed().collect(Collectors.toList()), tree.toAscendingList());
+        assertTrue(tree.getShardCount() < 8);
+    }
+
+    /**
+     * Ranges spanning many shards and Keys are gathered in parallel, in order.
+     */
+    @Test
+    public void parallelRange_reduce(){
+        List<Integer> sample = IntStream.range(0, 100000).boxed().collect(Collectors.toList());
+        ShardedTree<Integer> tree = ShardedTree.fromSample(sample, 8);
+        for (int i = 0; i < 100000; i += 2){
+            tree = tree.insert(i);
+        }
+        List<Integer> expected = IntStream.rangeClosed(5000, 90000).filter(i -> i % 2 == 0).boxed().collect(Collectors.toList());
+        assertEquals(expected, tree.getRange(5000, 90000));
+        assertEquals(expected.size(), tree.rangeCount(5000, 90000));
+
+        long sum = tree.reduceRange(5000, 90000, 0L, (total, key) -> total + key, Long::sum);
+        assertEquals(expected.stream().mapToLong(Integer::longValue).sum(), sum);
+        String joined = tree.reduceRange(10, 16, "", (text, key) -> text + key + ",", String::concat);
+        assertEquals("10,12,14,16,", joined);
+    }
+
+    /**
+     * Writers to every shard concurrently lose no update, and the holder splits shards as it grows.
+     */
+    @Test
+    public void concurrentWriters() throws Exception {
+        ConcurrentShardedTree<Integer> holder = new ConcurrentShardedTree<>(new ShardedTree<>(Integer::compareTo, 4));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++){
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < 20000; i += 4){
+                        holder.insert(i);
+                        if (i % 3 == 0){
+                            holder.delete(i);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures){
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        ShardedTree<Integer> snapshot = holder.snapshot();
+        snapshot.validate();
+        List<Integer> expected = IntStream.range(0, 20000).filter(i -> i % 3 != 0).boxed().collect(Collectors.toList());
+        assertEquals(expected, snapshot.toAscendingList());
+        assertEquals(expected.size(), holder.size());
+        assertTrue(holder.getShardCount() > 1);
+        assertTrue(holder.contains(1));
+        assertFalse(holder.contains(3));
+        assertFalse(holder.delete(3));
+
+        // Overwriting a Key leaves the counted size alone.
+        holder.insert(1);
+        assertEquals(expected.size(), holder.size());
+        assertEquals(holder.snapshot().size(), holder.size());
+    }
+
+    /**
+     * Navigation crosses empty shards.
+     */
+    @Test
+    public void navigation_acrossShards(){
+        ShardedTree<Integer> tree = buildEmptyTree(Integer::compareTo).insert(10).insert(90);
+        assertEquals(Integer.valueOf(10), tree.floor(60));
+        assertEquals(Integer.valueOf(10), tree.lower(90));
+        assertEquals(Integer.valueOf(90), tree.ceiling(30));
+        assertEquals(Integer.valueOf(90), tree.higher(10));
+        assertEquals(1, tree.rank(60));
+        assertEquals(Integer.valueOf(90), tree.select(1));
+
+        Random random = new Random(3);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 200; i++){
+            int key = random.nextInt(100);
+            tree = tree.insert(key);
+            expected.add(key);
+        }
+        expected.add(10);
+        expected.add(90);
+        List<Integer> descending = new ArrayList<>();
+        tree.descendingRange(20, 80).forEach(descending::add);
+        assertEquals(new ArrayList<>(expected.subSet(20, true, 80, true).descendingSet()), descending);
+    }
+}
@@ -0,0 +1,171 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class SortedMultisetTest {
+
+    /**
+     * Occurrences accumulate in a single Node, and count towards size.
+     */
+    @Test
+    public void add_count() throws InvalidSearchTreeException {
+        SortedMultiset<Integer> multiset = new SortedMultiset<>();
+        assertEquals(0, multiset.count(5));
+
+        multiset = multiset.insert(5).insert(5).add(7, 3).add(3, 0);
+        assertEquals(2, multiset.count(5));
+        assertEquals(3, multiset.count(7));
+        assertEquals(0, multiset.count(3));
+        assertEquals(5, multiset.size());
+        assertEquals(2, multiset.getRoot().height);
+        assertEquals(Arrays.asList(5, 5, 7, 7, 7), multiset.toAscendingList());
+        multiset.validate();
+    }
+
+    /**
+     * Removing some occurrences keeps the Node; removing the rest deletes it.
+     */
+    @Test
+    public void remove() throws InvalidSearchTreeException {
+        SortedMultiset<Integer> multiset = new SortedMultiset<Integer>().add(1, 2).add(2, 4).add(3, 1);
+        assertSame(multiset, multiset.remove(9, 1));
+        assertSame(multiset, multiset.remove(2, 0));
+
+        SortedMultiset<Integer> removed = multiset.remove(2, 3);
+        assertEquals(1, removed.count(2));
+        assertEquals(4, removed.size());
+        removed.validate();
+
+        removed = removed.remove(2, 5);
+        assertFalse(removed.contains(2));
+        assertEquals(Arrays.asList(1, 1, 3), removed.toAscendingList());
+        removed.validate();
+
+        // Delete removes every occurrence.
+        assertEquals(Arrays.asList(1, 1, 3), multiset.delete(2).toAscendingList());
+
+        // The original multiset is unchanged.
+        assertEquals(4, multiset.count(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_negative(){
+        new SortedMultiset<Integer>().add(1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void remove_negative(){
+        new SortedMultiset<Integer>().remove(1, -1);
+    }
+
+    /**
+     * Counts must survive rotations, path copies and deletions relocating Nodes; compare against a TreeMap of counts.
+     */
+    @Test
+    public void randomOperations_matchCounts() throws InvalidSearchTreeException {
+        Random random = new Random(17);
+        SortedMultiset<Integer> multiset = new SortedMultiset<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 3000; i++){
+            int key = random.nextInt(200);
+            int occurrences = 1 + random.nextInt(3);
+            if (random.nextInt(3) == 0){
+                multiset = multiset.remove(key, occurrences);
+                int remaining = expected.getOrDefault(key, 0) - occurrences;
+                if (remaining > 0){
+                    expected.put(key, remaining);
+                } else {
+                    expected.remove(key);
+                }
+            } else {
+                multiset = multiset.add(key, occurrences);
+                expected.merge(key, occurrences, Integer::sum);
+            }
+        }
+        multiset.validate();
+
+        List<Integer> expectedList = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()){
+            expectedList.addAll(Collections.nCopies(entry.getValue(), entry.getKey()));
+            assertEquals((int) entry.getValue(), multiset.count(entry.getKey()));
+        }
+        assertEquals(expectedList, multiset.toAscendingList());
+        assertEquals(expectedList.size(), multiset.size());
+
+        // One Node per distinct Key.
+        assertEquals(expected.size(), countNodes(multiset.getRoot()));
+    }
+
+    /**
+     * Rank, select, range counts, ranges and iteration all count every occurrence.
+     */
+    @Test
+    public void ranks_ranges_iteration(){
+        SortedMultiset<Integer> multiset = new SortedMultiset<Integer>().add(10, 3).add(20, 2).add(30, 4);
+
+        assertEquals(0, multiset.rank(10));
+        assertEquals(3, multiset.rank(20));
+        assertEquals(5, multiset.rank(25));
+        assertEquals(9, multiset.rank(31));
+        assertEquals(Integer.valueOf(10), multiset.select(2));
+        assertEquals(Integer.valueOf(20), multiset.select(3));
+        assertEquals(Integer.valueOf(30), multiset.select(8));
+
+        assertEquals(6, multiset.rangeCount(20, 30));
+        assertEquals(5, multiset.rangeCount(10, 20));
+        assertArrayEquals(new int[]{9, 2, 0}, multiset.rangeCountBatch(new Integer[]{0, 15, 21}, new Integer[]{40, 20, 29}));
+
+        assertEquals(Arrays.asList(20, 20, 30, 30, 30, 30), multiset.getRange(15, 35));
+        assertEquals(Arrays.asList(30, 30, 30, 30, 20, 20), toList(multiset.descendingRange(15, 35)));
+        assertEquals(Arrays.asList(30, 30, 30), toList(multiset.topK(3)));
+
+        // Pages may begin and end part way through the occurrences of a Key.
+        assertEquals(Arrays.asList(10, 20, 20, 30), multiset.getRange(0, 40, 2, 4));
+        assertEquals(Arrays.asList(30, 30), multiset.getRange(20, false, 30, true, 1, 2));
+
+        List<Integer> scanned = new ArrayList<>();
+        multiset.forEachInRange(20, 20, scanned::add);
+        assertEquals(Arrays.asList(20, 20), scanned);
+    }
+
+    /**
+     * The NavigableSet view holds each Key once, however many occurrences it has.
+     */
+    @Test
+    public void asNavigableSet_distinctKeys(){
+        SortedMultiset<Integer> multiset = new SortedMultiset<Integer>().add(10, 1).add(20, 2).add(30, 3).add(40, 1);
+        NavigableSet<Integer> view = multiset.asNavigableSet();
+        assertEquals(4, view.size());
+        assertEquals(Arrays.asList(10, 20, 30, 40), new ArrayList<>(view));
+        assertEquals(Arrays.asList(40, 30, 20, 10), new ArrayList<>(view.descendingSet()));
+        assertEquals(new TreeSet<>(Arrays.asList(10, 20, 30, 40)), view);
+        assertEquals(2, view.subSet(20, true, 30, true).size());
+        assertEquals(Arrays.asList(30, 20), new ArrayList<>(view.headSet(30, true).tailSet(20, true).descendingSet()));
+        assertEquals(Integer.valueOf(30), view.higher(20));
+        assertEquals(Integer.valueOf(20), view.floor(29));
+        assertTrue(view.contains(30));
+        assertEquals(0, new SortedMultiset<Integer>().asNavigableSet().size());
+    }
+
+    private static int countNodes(BinarySearchNode<Integer> node){
+        return node == null ? 0 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable){
+        List<Integer> result = new ArrayList<>();
+        iterable.forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,277 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TombstoneAVLTreeTest extends TreeTestSkeleton {
+
+    @Override
+    public TombstoneAVLTree<Integer> buildEmptyTree(Comparator<Integer> comparator){
+        return new TombstoneAVLTree<>(TombstoneAVLTree.DEFAULT_COMPACTION_THRESHOLD, comparator);
+    }
+
+    /**
+     * Reads against a TreeSet, through deletes, revivals and compactions, with tombstones throughout the tree.
+     */
+    @Test
+    public void randomUpdates_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(13);
+        for (double threshold : new double[]{0.25, 0.5, 1.0}){
+            TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(threshold);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < 6000; i++){
+                int key = random.nextInt(1000);
+                if (random.nextInt(5) < 2){
+                    tree = tree.delete(key);
+                    expected.remove(key);
+                } else {
+                    tree = tree.insert(key);
+                    expected.add(key);
+                }
+                assertTrue(tree.getTombstoneCount() <= threshold * (tree.size() + tree.getTombstoneCount()));
+            }
+            tree.validate();
+            assertEquals(expected.size(), tree.size());
+            assertEquals(new ArrayList<>(expected), tree.toAscendingList());
+            assertEquals(expected.first(), tree.getMin());
+            assertEquals(expected.last(), tree.getMax());
+            for (int key = -1; key <= 1000; key++){
+                assertEquals(expected.contains(key), tree.contains(key));
+                assertEquals(expected.floor(key), tree.floor(key));
+                assertEquals(expected.ceiling(key), tree.ceiling(key));
+                assertEquals(expected.higher(key), tree.higher(key));
+                assertEquals(expected.lower(key), tree.lower(key));
+                assertEquals(expected.headSet(key).size(), tree.rank(key));
+            }
+            List<Integer> descending = new ArrayList<>();
+            for (Integer key : tree.descendingRange(null, null)){
+                descending.add(key);
+            }
+            assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+            assertEquals(new ArrayList<>(expected.subSet(100, true, 200, true)), tree.getRange(100, 200));
+        }
+    }
+
+    /**
+     * A delete copies only its path, leaving the shape of the tree alone.
+     */
+    @Test
+    public void delete_leavesTombstoneInPlace() throws InvalidSearchTreeException {
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 100; key++){
+            tree = tree.insert(key);
+        }
+        int height = tree.getRoot().getHeight();
+        Integer rootKey = tree.getRoot().key;
+        TombstoneAVLTree<Integer> deleted = tree.delete(rootKey).delete(0).delete(1).delete(2);
+        deleted.validate();
+        assertEquals(4, deleted.getTombstoneCount());
+        assertEquals(96, deleted.size());
+        assertSame(rootKey, deleted.getRoot().key);
+        assertEquals(height, deleted.getRoot().getHeight());
+        assertFalse(deleted.contains(rootKey));
+        assertEquals(Integer.valueOf(3), deleted.getMin());
+        assertEquals(Integer.valueOf(3), deleted.select(0));
+
+        // Deleting again, or deleting an absent Key, changes nothing.
+        assertSame(deleted, deleted.delete(0));
+        assertSame(deleted, deleted.delete(1000));
+
+        TombstoneAVLTree<Integer> revived = deleted.insert(rootKey);
+        revived.validate();
+        assertEquals(3, revived.getTombstoneCount());
+        assertTrue(revived.contains(rootKey));
+
+        // The older version is untouched.
+        tree.validate();
+        assertEquals(100, tree.size());
+        assertEquals(0, tree.getTombstoneCount());
+    }
+
+    @Test
+    public void compact_rebuildsLiveKeys() throws InvalidSearchTreeException {
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 1000; key++){
+            tree = tree.insert(key);
+        }
+        for (int key = 0; key < 1000; key += 3){
+            tree = tree.delete(key);
+        }
+        assertEquals(334, tree.getTombstoneCount());
+        TombstoneAVLTree<Integer> compacted = tree.compact();
+        compacted.validate();
+        assertEquals(0, compacted.getTombstoneCount());
+        assertEquals(tree.toAscendingList(), compacted.toAscendingList());
+        assertEquals(Node.sizeOf(compacted.getRoot()), compacted.size());
+        assertSame(compacted, compacted.compact());
+    }
+
+    /**
+     * Deleting every Key leaves an empty tree, compacted or not.
+     */
+    @Test
+    public void deleteAll_leavesEmptyTree() throws InvalidSearchTreeException {
+        for (double threshold : new double[]{0.5, 1.0}){
+            TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(threshold);
+            for (int key = 0; key < 50; key++){
+                tree = tree.insert(key);
+            }
+            for (int key = 0; key < 50; key++){
+                tree = tree.delete(key);
+            }
+            tree.validate();
+            tree.validateSampled(1.0);
+            assertTrue(tree.isEmpty());
+            assertNull(tree.getMin());
+            assertNull(tree.getMax());
+            assertNull(tree.floor(10));
+            assertTrue(tree.toAscendingList().isEmpty());
+            assertSame(tree, tree.pollFirst());
+        }
+    }
+
+    /**
+     * Appending past a buried maximum must not place the new Key out of order.
+     */
+    @Test
+    public void append_belowBuriedMaximum() throws InvalidSearchTreeException {
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<Integer>(1.0).appendAll(Arrays.asList(1, 2, 3, 10));
+        tree = tree.delete(10).append(5).appendAll(Arrays.asList(6, 7));
+        tree.validate();
+        assertEquals(Arrays.asList(1, 2, 3, 5, 6, 7), tree.toAscendingList());
+        tree = tree.append(11);
+        tree.validate();
+        assertEquals(Integer.valueOf(11), tree.getMax());
+        try {
+            tree.append(8);
+            fail();
+        } catch (IllegalArgumentException e){
+            // Expected: 8 is below the live maximum.
+        }
+    }
+
+    /**
+     * Tombstones have depths and balance factors like any other Node, without counting as Keys.
+     */
+    @Test
+    public void stats_countTombstoneNodes() throws InvalidSearchTreeException {
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 7; key++){
+            tree = tree.insert(key);
+        }
+        TreeStats full = TreeStats.exact(tree);
+        for (int key = 0; key < 7; key += 2){
+            tree = tree.delete(key);
+        }
+        tree.validateSampled(1.0);
+        TreeStats buried = TreeStats.exact(tree);
+        assertEquals(3, buried.getSize());
+        assertEquals(7, buried.getNodeCount());
+        assertEquals(full.getAverageDepth(), buried.getAverageDepth(), 1e-9);
+        assertEquals(full.getBalanceFactors(), buried.getBalanceFactors());
+        assertEquals(full.getHeightBound(), buried.getHeightBound(), 1e-9);
+    }
+
+    @Test
+    public void containsBatch_skipsTombstones(){
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<Integer>(1.0).insert(1).insert(2).insert(3).delete(2);
+        BitSet result = tree.containsBatch(new Integer[]{3, 2, 1, 4});
+        assertTrue(result.get(0));
+        assertFalse(result.get(1));
+        assertTrue(result.get(2));
+        assertFalse(result.get(3));
+    }
+
+    @Test
+    public void splits_compactFirst() throws InvalidSearchTreeException {
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 100; key++){
+            tree = tree.insert(key);
+        }
+        tree = tree.delete(10).delete(60);
+        TombstoneAVLTree<Integer> head = tree.headTree(50);
+        TombstoneAVLTree<Integer> tail = tree.tailTree(50);
+        head.validate();
+        tail.validate();
+        assertEquals(49, head.size());
+        assertEquals(49, tail.size());
+        TombstoneAVLTree<Integer> joined = head.concat(tail.delete(70));
+        joined.validate();
+        assertEquals(97, joined.size());
+        assertFalse(joined.contains(70));
+    }
+
+    /**
+     * Cursors step over tombstones in either direction, without compacting the tree.
+     */
+    @Test
+    public void cursor_skipsTombstones(){
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 10; key++){
+            tree = tree.insert(key);
+        }
+        tree = tree.delete(0).delete(3).delete(4).delete(7).delete(9);
+        TreeSet<Integer> expected = new TreeSet<>(tree.toAscendingList());
+
+        for (int key = -1; key <= 10; key++){
+            TreeCursor<Integer> cursor = tree.seek(key);
+            List<Integer> ascending = new ArrayList<>();
+            while (cursor.isValid()){
+                ascending.add(cursor.getKey());
+                cursor.next();
+            }
+            assertEquals(new ArrayList<>(expected.tailSet(key, true)), ascending);
+        }
+
+        TreeCursor<Integer> cursor = tree.seek(3);
+        assertEquals(Integer.valueOf(5), cursor.getKey());
+        assertTrue(cursor.prev());
+        assertEquals(Integer.valueOf(2), cursor.getKey());
+        assertTrue(cursor.seekFirst());
+        assertEquals(Integer.valueOf(1), cursor.getKey());
+        assertFalse(cursor.prev());
+        assertTrue(cursor.seekLast());
+        assertEquals(Integer.valueOf(8), cursor.getKey());
+        assertFalse(cursor.next());
+        assertFalse(tree.seek(9).isValid());
+
+        List<Integer> descending = new ArrayList<>();
+        for (boolean valid = cursor.seekLast(); valid; valid = cursor.prev()){
+            descending.add(cursor.getKey());
+        }
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+
+        // A tree of tombstones alone has no Keys to visit.
+        TombstoneAVLTree<Integer> buried = tree.delete(1).delete(2).delete(5).delete(6).delete(8);
+        assertEquals(10, buried.getTombstoneCount());
+        assertFalse(buried.seek(0).isValid());
+        assertFalse(buried.seek(0).seekFirst());
+        assertFalse(buried.seek(0).seekLast());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compactionThreshold_outOfRange(){
+        new TombstoneAVLTree<Integer>(0);
+    }
+
+    @Test
+    public void validate_detectsMiscountedTombstones(){
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<Integer>(1.0).insert(1).insert(2).delete(1);
+        TombstoneAVLTree<Integer> corrupt = new TombstoneAVLTree<>(tree.getRoot(), tree.comparator, 1.0, 0);
+        try {
+            corrupt.validate();
+            fail();
+        } catch (InvalidSearchTreeException e){
+            assertTrue(e.getMessage().contains("tombstone"));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TreapTest extends TreeTestSkeleton {
+
+    @Override
+    public Treap<Integer> buildEmptyTree(Comparator<Integer> comparator){
+        return new Treap<>(comparator);
+    }
+
+    private static Treap<Integer> treapOf(Iterable<Integer> keys){
+        Treap<Integer> treap = new Treap<>();
+        for (int key : keys){
+            treap = treap.insert(key);
+        }
+        return treap;
+    }
+
+    private static TreeSet<Integer> randomSet(Random random, int size, int bound){
+        TreeSet<Integer> set = new TreeSet<>();
+        while (set.size() < size){
+            set.add(random.nextInt(bound));
+        }
+        return set;
+    }
+
+    private static void assertSameShape(BinarySearchNode<Integer> one, BinarySearchNode<Integer> two){
+        if (one == null || two == null){
+            assertSame(one, two);
+            return;
+        }
+        assertEquals(one.key, two.key);
+        assertSameShape(one.left, two.left);
+        assertSameShape(one.right, two.right);
+    }
+
+    /**
+     * Hashed priorities give a set of Keys one shape, whatever order it was built in.
+     */
+    @Test
+    public void shape_independentOfInsertionOrder() throws InvalidSearchTreeException {
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 0; key < 2000; key++){
+            keys.add(key);
+        }
+        Treap<Integer> ascending = treapOf(keys);
+        Collections.shuffle(keys, new Random(1));
+        Treap<Integer> shuffled = treapOf(keys);
+        Treap<Integer> withDeletes = shuffled;
+        for (int key = 2000; key < 2500; key++){
+            withDeletes = withDeletes.insert(key);
+        }
+        for (int key = 2499; key >= 2000; key--){
+            withDeletes = withDeletes.delete(key);
+        }
+        ascending.validate();
+        shuffled.validate();
+        withDeletes.validate();
+        assertSameShape(ascending.getRoot(), shuffled.getRoot());
+        assertSameShape(ascending.getRoot(), withDeletes.getRoot());
+        // Ascending inserts would make a plain BST a list; the treap stays logarithmic.
+        assertTrue(ascending.getRoot().getHeight() < 40);
+    }
+
+    @Test
+    public void randomUpdates_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(3);
+        Treap<Integer> treap = new Treap<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++){
+            int key = random.nextInt(3000);
+            if (random.nextInt(3) == 0){
+                treap = treap.delete(key);
+                expected.remove(key);
+            } else {
+                treap = treap.insert(key);
+                expected.add(key);
+            }
+        }
+        treap.validate();
+        assertEquals(new ArrayList<>(expected), treap.toAscendingList());
+    }
+
+    @Test
+    public void splitAndConcat() throws InvalidSearchTreeException {
+        TreeSet<Integer> keys = randomSet(new Random(5), 1000, 5000);
+        Treap<Integer> treap = treapOf(keys);
+        for (int splitKey : new int[]{-1, 0, 17, 2500, 4999, 5000, keys.first(), keys.last(), keys.ceiling(1234)}){
+            Treap<Integer> head = treap.headTree(splitKey);
+            Treap<Integer> tail = treap.tailTree(splitKey);
+            head.validate();
+            tail.validate();
+            assertEquals(new ArrayList<>(keys.headSet(splitKey)), head.toAscendingList());
+            assertEquals(new ArrayList<>(keys.tailSet(splitKey)), tail.toAscendingList());
+            Treap<Integer> joined = head.concat(tail);
+            joined.validate();
+            assertSameShape(treap.getRoot(), joined.getRoot());
+        }
+        // The original is untouched.
+        treap.validate();
+        assertEquals(new ArrayList<>(keys), treap.toAscendingList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concat_overlappingKeys(){
+        treapOf(Collections.singletonList(5)).concat(treapOf(Collections.singletonList(5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void union_differentComparators(){
+        new Treap<Integer>().union(new Treap<>(Comparator.<Integer>reverseOrder()));
+    }
+
+    @Test
+    public void setOperations_matchTreeSet() throws InvalidSearchTreeException {
+        Random random = new Random(7);
+        int[][] sizes = {{0, 100}, {100, 0}, {1000, 1000}, {10, 2000}, {2000, 10}, {500, 1500}};
+        for (int[] size : sizes){
+            TreeSet<Integer> one = randomSet(random, size[0], 4000);
+            TreeSet<Integer> two = randomSet(random, size[1], 4000);
+            Treap<Integer> treapOne = treapOf(one);
+            Treap<Integer> treapTwo = treapOf(two);
+
+            TreeSet<Integer> union = new TreeSet<>(one);
+            union.addAll(two);
+            TreeSet<Integer> intersection = new TreeSet<>(one);
+            intersection.retainAll(two);
+            TreeSet<Integer> difference = new TreeSet<>(one);
+            difference.removeAll(two);
+
+            Treap<Integer> unionTreap = treapOne.union(treapTwo);
+            Treap<Integer> intersectionTreap = treapOne.intersection(treapTwo);
+            Treap<Integer> differenceTreap = treapOne.difference(treapTwo);
+            unionTreap.validate();
+            intersectionTreap.validate();
+            differenceTreap.validate();
+            assertEquals(new ArrayList<>(union), unionTreap.toAscendingList());
+            assertEquals(new ArrayList<>(intersection), intersectionTreap.toAscendingList());
+            assertEquals(new ArrayList<>(difference), differenceTreap.toAscendingList());
+            // Results have the one shape of their Keys.
+            assertSameShape(treapOf(union).getRoot(), unionTreap.getRoot());
+        }
+    }
+
+    /**
+     * Versions of one tree share most subtrees, which union, intersection and difference pass over untouched.
+     */
+    @Test
+    public void setOperations_skipSharedSubtrees() throws InvalidSearchTreeException {
+        int[] comparisons = new int[1];
+        Comparator<Integer> counting = (one, two) -> {
+            comparisons[0]++;
+            return one.compareTo(two);
+        };
+        Treap<Integer> base = new Treap<>(counting);
+        for (int key = 0; key < 10000; key += 2){
+            base = base.insert(key);
+        }
+        Treap<Integer> one = base.insert(1).insert(5001);
+        Treap<Integer> two = base.insert(3).delete(5000);
+
+        comparisons[0] = 0;
+        Treap<Integer> union = one.union(two);
+        assertEquals(base.size() + 3, union.size());
+        assertEquals(base.size() - 1, one.intersection(two).size());
+        assertEquals(3, one.difference(two).size());
+        // Far fewer than the 5000 Keys of each tree.
+        assertTrue(comparisons[0] < 2000);
+        union.validate();
+    }
+
+    /**
+     * Replacing a Key keeps the treap valid even where a comparator calls Keys with different hashCodes equal.
+     */
+    @Test
+    public void insert_replacesKeyEqualUnderComparator() throws InvalidSearchTreeException {
+        Comparator<Integer> byTens = Comparator.comparing(key -> key / 10);
+        Treap<Integer> treap = new Treap<>(byTens);
+        Random random = new Random(9);
+        for (int i = 0; i < 5000; i++){
+            treap = treap.insert(random.nextInt(5000));
+        }
+        treap.validate();
+        Treap<Integer> union = new Treap<>(byTens).insert(1234).insert(4321).union(treap);
+        union.validate();
+        assertTrue(union.toAscendingList().contains(1234));
+        assertTrue(union.toAscendingList().contains(4321));
+    }
+
+    @Test
+    public void validate_detectsHeapViolation(){
+        Treap<Integer> treap = new Treap<Integer>().insert(1).insert(2);
+        BinarySearchNode<Integer> root = treap.getRoot();
+        BinarySearchNode<Integer> child = root.left != null ? root.left : root.right;
+        int priority = ((TreapNode<Integer>) root).priority;
+        BinarySearchNode<Integer> corrupt = root.left != null
+                ? new TreapNode<>(child.key, null, new TreapNode<>(root.key, null, null, priority), ((TreapNode<Integer>) child).priority)
+                : new TreapNode<>(child.key, new TreapNode<>(root.key, null, null, priority), null, ((TreapNode<Integer>) child).priority);
+        try {
+            new Treap<>(corrupt, treap.comparator).validate();
+            fail();
+        } catch (InvalidSearchTreeException e){
+            assertTrue(e.getMessage().contains("priority"));
+        }
+    }
+}
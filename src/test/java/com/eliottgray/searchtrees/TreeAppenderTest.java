@@ -0,0 +1,62 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TreeAppenderTest {
+
+    /**
+     * Keys are buffered until a block fills, and every Key appears in the tree after a flush.
+     */
+    @Test
+    public void append_flush() throws InvalidSearchTreeException {
+        AVLTree<Integer> tree = new AVLTree<Integer>().insert(-1);
+        TreeAppender<Integer> appender = new TreeAppender<>(tree, 16);
+        List<Integer> expected = new ArrayList<>();
+        expected.add(-1);
+        for (int key = 0; key < 1000; key++){
+            appender.append(key);
+            expected.add(key);
+        }
+        assertEquals(1000 % 16, appender.getBufferedCount());
+
+        AVLTree<Integer> flushed = appender.flush();
+        assertEquals(0, appender.getBufferedCount());
+        flushed.validate();
+        assertEquals(expected, flushed.toAscendingList());
+
+        // The original tree is unchanged.
+        assertEquals(1, tree.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void append_notGreaterThanTree(){
+        new TreeAppender<>(new AVLTree<Integer>().insert(5)).append(5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void append_notGreaterThanBuffer(){
+        TreeAppender<Integer> appender = new TreeAppender<>(new AVLTree<Integer>());
+        appender.append(2);
+        appender.append(1);
+    }
+
+    /**
+     * Augmented trees built by appending keep their aggregates.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void append_augmentedTree() throws InvalidSearchTreeException {
+        TreeAppender<Integer> appender = new TreeAppender<>(new AugmentedAVLTree<>(Monoid.summing((Integer key) -> key)), 7);
+        for (int key = 1; key <= 100; key++){
+            appender.append(key);
+        }
+        AugmentedAVLTree<Integer, Long> tree = (AugmentedAVLTree<Integer, Long>) appender.flush();
+        tree.validate();
+        assertEquals(Long.valueOf(5050), tree.aggregate());
+    }
+}
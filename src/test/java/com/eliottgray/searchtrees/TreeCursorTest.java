@@ -0,0 +1,124 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TreeCursorTest {
+
+    private AVLTree<Integer> tree;
+    private TreeSet<Integer> expected;
+
+    @Before
+    public void setUp(){
+        Random random = new Random(11);
+        tree = new AVLTree<>();
+        expected = new TreeSet<>();
+        for (int i = 0; i < 1000; i++){
+            int key = random.nextInt(5000);
+            tree = tree.insert(key);
+            expected.add(key);
+        }
+    }
+
+    /**
+     * Seeking from the root positions the cursor at the ceiling of the Key.
+     */
+    @Test
+    public void seekFromRoot(){
+        for (int key = -1; key <= 5001; key += 13){
+            TreeCursor<Integer> cursor = tree.seek(key);
+            Integer ceiling = expected.ceiling(key);
+            assertEquals(ceiling != null, cursor.isValid());
+            if (ceiling != null){
+                assertEquals(ceiling, cursor.getKey());
+            }
+        }
+    }
+
+    /**
+     * Walking forward and backward from the ends visits every Key in order.
+     */
+    @Test
+    public void walkForwardAndBackward(){
+        TreeCursor<Integer> cursor = tree.seek(Integer.MIN_VALUE);
+        for (Integer key : expected){
+            assertTrue(cursor.isValid());
+            assertEquals(key, cursor.getKey());
+            cursor.next();
+        }
+        assertFalse(cursor.isValid());
+
+        assertTrue(cursor.seekLast());
+        for (Integer key : expected.descendingSet()){
+            assertEquals(key, cursor.getKey());
+            cursor.prev();
+        }
+        assertFalse(cursor.isValid());
+    }
+
+    /**
+     * Changing direction mid-walk returns to the previous Key.
+     */
+    @Test
+    public void changeDirection(){
+        TreeCursor<Integer> cursor = tree.seek(2500);
+        Integer start = cursor.getKey();
+        for (int i = 0; i < 20; i++){
+            assertTrue(cursor.next());
+        }
+        assertEquals(expected.tailSet(start).stream().skip(20).findFirst().get(), cursor.getKey());
+        for (int i = 0; i < 20; i++){
+            assertTrue(cursor.prev());
+        }
+        assertEquals(start, cursor.getKey());
+    }
+
+    /**
+     * Seeking relative to the current position, in either direction, matches seeking from the root.
+     */
+    @Test
+    public void relativeSeek(){
+        Random random = new Random(3);
+        TreeCursor<Integer> cursor = tree.seek(0);
+        for (int i = 0; i < 2000; i++){
+            int key;
+            if (cursor.isValid() && random.nextBoolean()){
+                // Seek nearby.
+                key = cursor.getKey() + random.nextInt(40) - 20;
+            } else {
+                key = random.nextInt(5200) - 100;
+            }
+            boolean valid = cursor.seek(key);
+            Integer ceiling = expected.ceiling(key);
+            assertEquals(ceiling != null, valid);
+            if (ceiling != null){
+                assertEquals(ceiling, cursor.getKey());
+            }
+        }
+    }
+
+    /**
+     * A cursor into an empty tree is never valid.
+     */
+    @Test
+    public void emptyTree(){
+        TreeCursor<Integer> cursor = new AVLTree<Integer>().seek(1);
+        assertFalse(cursor.isValid());
+        assertFalse(cursor.seekFirst());
+        assertFalse(cursor.seekLast());
+        assertFalse(cursor.next());
+        assertFalse(cursor.prev());
+        assertFalse(cursor.seek(1));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void getKeyOfInvalidCursor(){
+        tree.seek(Integer.MAX_VALUE).getKey();
+    }
+}
@@ -0,0 +1,151 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class TreeNavigableSetTest {
+
+    private NavigableSet<Integer> expected;
+    private NavigableSet<Integer> actual;
+
+    @Before
+    public void setUp(){
+        Random random = new Random(7);
+        Tree<Integer> tree = new AVLTree<>();
+        expected = new TreeSet<>();
+        for (int i = 0; i < 500; i++){
+            int key = random.nextInt(1000);
+            tree = tree.insert(key);
+            expected.add(key);
+        }
+        actual = tree.asNavigableSet();
+    }
+
+    /**
+     * The view of the whole tree should behave as a TreeSet with the same Keys.
+     */
+    @Test
+    public void wholeTree(){
+        assertNavigableEquals(expected, actual);
+    }
+
+    /**
+     * Sub-set, head-set and tail-set views should match TreeSet views with the same bounds.
+     */
+    @Test
+    public void boundedViews(){
+        assertNavigableEquals(expected.subSet(100, true, 700, false), actual.subSet(100, true, 700, false));
+        assertNavigableEquals(expected.subSet(100, false, 700, true), actual.subSet(100, false, 700, true));
+        assertNavigableEquals(expected.headSet(300, true), actual.headSet(300, true));
+        assertNavigableEquals(expected.tailSet(300, false), actual.tailSet(300, false));
+
+        // Nested views narrow their parent.
+        assertNavigableEquals(
+                expected.subSet(100, true, 700, true).headSet(500, false).tailSet(200, true),
+                actual.subSet(100, true, 700, true).headSet(500, false).tailSet(200, true));
+    }
+
+    /**
+     * Descending views, and views of descending views, should match TreeSet.
+     */
+    @Test
+    public void descendingViews(){
+        assertNavigableEquals(expected.descendingSet(), actual.descendingSet());
+        assertNavigableEquals(
+                expected.descendingSet().subSet(800, true, 200, false),
+                actual.descendingSet().subSet(800, true, 200, false));
+        assertNavigableEquals(
+                expected.descendingSet().headSet(400, true).descendingSet(),
+                actual.descendingSet().headSet(400, true).descendingSet());
+        assertEquals(new ArrayList<>(expected.descendingSet().tailSet(600)), new ArrayList<>(actual.descendingSet().tailSet(600)));
+    }
+
+    /**
+     * Views of an empty range should be empty.
+     */
+    @Test
+    public void emptyViews(){
+        NavigableSet<Integer> empty = new AVLTree<Integer>().asNavigableSet();
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.size());
+        assertFalse(empty.iterator().hasNext());
+        assertNull(empty.floor(1));
+
+        NavigableSet<Integer> emptyRange = actual.subSet(5000, true, 6000, true);
+        assertTrue(emptyRange.isEmpty());
+        assertEquals(0, emptyRange.size());
+    }
+
+    /**
+     * As with TreeSet, natural ordering is reported as a null comparator.
+     */
+    @Test
+    public void comparators(){
+        assertNull(actual.comparator());
+        assertNull(actual.headSet(100, true).comparator());
+        assertEquals(Collections.reverseOrder(), actual.descendingSet().comparator());
+        assertNull(actual.descendingSet().descendingSet().comparator());
+
+        Comparator<Integer> byLastDigit = Comparator.comparing(key -> key % 10);
+        NavigableSet<Integer> custom = new AVLTree<>(byLastDigit).insert(12).insert(7).asNavigableSet();
+        assertSame(byLastDigit, custom.comparator());
+        assertTrue(custom.descendingSet().comparator().compare(12, 7) > 0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void firstOfEmptyView(){
+        new AVLTree<Integer>().asNavigableSet().first();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundOutOfRange(){
+        actual.headSet(100, true).tailSet(200, true);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unmodifiable(){
+        actual.add(5);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void pollUnsupported(){
+        actual.pollFirst();
+    }
+
+    private static void assertNavigableEquals(NavigableSet<Integer> expected, NavigableSet<Integer> actual){
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(toList(expected.descendingIterator()), toList(actual.descendingIterator()));
+        assertEquals(expected, actual);
+        if (!expected.isEmpty()){
+            assertEquals(expected.first(), actual.first());
+            assertEquals(expected.last(), actual.last());
+        }
+        for (int key = -10; key <= 1010; key += 7){
+            assertEquals(expected.contains(key), actual.contains(key));
+            assertEquals(expected.floor(key), actual.floor(key));
+            assertEquals(expected.ceiling(key), actual.ceiling(key));
+            assertEquals(expected.higher(key), actual.higher(key));
+            assertEquals(expected.lower(key), actual.lower(key));
+        }
+    }
+
+    private static List<Integer> toList(Iterator<Integer> iterator){
+        List<Integer> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
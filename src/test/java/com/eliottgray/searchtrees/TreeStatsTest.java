@@ -0,0 +1,200 @@
+package com.eliottgray.searchtrees;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TreeStatsTest {
+
+    /**
+     * Exact statistics of a small, hand-built tree.
+     *
+     *        4
+     *       / \
+     *      2   5
+     *       \   \
+     *        3   6
+     *             \
+     *              7
+     */
+    @Test
+    public void exactStats(){
+        BinarySearchTree<Integer> tree = new BinarySearchTree<>();
+        for (int key : new int[]{4, 2, 5, 3, 6, 7}){
+            tree = tree.insert(key);
+        }
+        TreeStats stats = TreeStats.exact(tree);
+        assertFalse(stats.isSampled());
+        assertEquals(6, stats.getSize());
+        assertEquals(6, stats.getNodeCount());
+        assertEquals(4, stats.getHeight());
+        assertEquals((1 + 2 + 2 + 3 + 3 + 4) / 6.0, stats.getAverageDepth(), 1e-9);
+
+        // Balance factors: 4 => +1, 2 => +1, 5 => +2, 6 => +1, 3 and 7 => 0.
+        Map<Integer, Long> balanceFactors = stats.getBalanceFactors();
+        assertEquals(Long.valueOf(2), balanceFactors.get(0));
+        assertEquals(Long.valueOf(3), balanceFactors.get(1));
+        assertEquals(Long.valueOf(1), balanceFactors.get(2));
+    }
+
+    @Test
+    public void emptyTree(){
+        TreeStats stats = TreeStats.compute(new AVLTree<Integer>());
+        assertEquals(0, stats.getSize());
+        assertEquals(0, stats.getHeight());
+        assertTrue(stats.getBalanceFactors().isEmpty());
+        assertEquals(0, TreeStats.sampled(new AVLTree<Integer>(), 100, new Random()).getSize());
+    }
+
+    /**
+     * Sampled statistics of a large AVL tree should be close to the exact statistics, and within the AVL bound.
+     */
+    @Test
+    public void sampledStats(){
+        AVLTree<Integer> tree = new AVLTree<>();
+        Random random = new Random(29);
+        for (int i = 0; i < 200_000; i++){
+            tree = tree.insert(random.nextInt());
+        }
+        TreeStats exact = TreeStats.exact(tree);
+        TreeStats sampled = TreeStats.sampled(tree, 20_000, random);
+
+        assertTrue(sampled.isSampled());
+        assertEquals(exact.getSize(), sampled.getSize());
+        assertEquals(exact.getHeight(), sampled.getHeight());
+        assertTrue(exact.getHeight() <= exact.getHeightBound());
+        assertEquals(exact.getAverageDepth(), sampled.getAverageDepth(), exact.getAverageDepth() * 0.02);
+
+        // AVL trees only hold balance factors from -1 to 1.
+        for (Map<Integer, Long> balanceFactors : new ArrayList<Map<Integer, Long>>(){{ add(exact.getBalanceFactors()); add(sampled.getBalanceFactors()); }}){
+            for (Integer balanceFactor : balanceFactors.keySet()){
+                assertTrue(Math.abs(balanceFactor) <= 1);
+            }
+        }
+        long exactBalanced = exact.getBalanceFactors().get(0);
+        assertEquals(exactBalanced, sampled.getBalanceFactors().get(0), exactBalanced * 0.05);
+    }
+
+    /**
+     * Depth and balance factors describe Nodes, however many occurrences each Node counts.
+     */
+    @Test
+    public void multisetStats(){
+        SortedMultiset<Integer> single = new SortedMultiset<Integer>().add(7, 100);
+        for (TreeStats stats : new TreeStats[]{TreeStats.exact(single), TreeStats.sampled(single, 1000, new Random(3))}){
+            assertEquals(100, stats.getSize());
+            assertEquals(1, stats.getNodeCount());
+            assertEquals(1.0, stats.getAverageDepth(), 1e-9);
+            assertEquals(Collections.singletonMap(0, 1L), stats.getBalanceFactors());
+        }
+
+        // Counts skewed towards the highest Keys, which AVL rotations leave deepest on the right spine.
+        SortedMultiset<Integer> multiset = new SortedMultiset<>();
+        for (int key = 0; key < 20_000; key++){
+            multiset = multiset.add(key, 1 + key / 1000);
+        }
+        TreeStats exact = TreeStats.exact(multiset);
+        TreeStats sampled = TreeStats.sampled(multiset, 50_000, new Random(31));
+        assertEquals(20_000, exact.getNodeCount());
+        assertEquals(exact.getNodeCount(), sampled.getNodeCount(), exact.getNodeCount() * 0.05);
+        assertEquals(exact.getAverageDepth(), sampled.getAverageDepth(), exact.getAverageDepth() * 0.02);
+        long exactBalanced = exact.getBalanceFactors().get(0);
+        assertEquals(exactBalanced, sampled.getBalanceFactors().get(0), exactBalanced * 0.05);
+        assertTrue(exact.getHeight() <= exact.getHeightBound());
+    }
+
+    /**
+     * A tree holding only tombstones has Nodes but no Keys; sampling, which picks Keys, walks it instead.
+     */
+    @Test
+    public void tombstoneStats(){
+        TombstoneAVLTree<Integer> tree = new TombstoneAVLTree<>(1.0);
+        for (int key = 0; key < 5; key++){
+            tree = tree.insert(key);
+        }
+        for (int key = 0; key < 5; key++){
+            tree = tree.delete(key);
+        }
+        for (TreeStats stats : new TreeStats[]{TreeStats.compute(tree), TreeStats.exact(tree), TreeStats.sampled(tree, 100, new Random(5))}){
+            assertEquals(0, stats.getSize());
+            assertEquals(5, stats.getNodeCount());
+            assertEquals(3, stats.getHeight());
+            assertEquals((1 + 2 + 2 + 3 + 3) / 5.0, stats.getAverageDepth(), 1e-9);
+            assertTrue(stats.getHeight() <= stats.getHeightBound());
+        }
+    }
+
+    /**
+     * The monitor reports statistics for the current version, and counts every version still reachable.
+     */
+    @Test
+    public void monitorVersions(){
+        List<AVLTree<Integer>> versions = new ArrayList<>();
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeMonitor monitor = new TreeMonitor(tree);
+        for (int i = 0; i < 10; i++){
+            tree = tree.insert(i);
+            versions.add(tree);
+            monitor.publish(tree);
+        }
+        assertEquals(10, monitor.getSize());
+        assertEquals(4, monitor.getHeight());
+        assertEquals(10, monitor.getVersionsRetained());
+        assertSame(monitor.getStats(), monitor.getStats());
+        assertEquals(1, versions.get(0).size());
+    }
+
+    /**
+     * Statistics cached for a superseded version do not keep that version reachable.
+     */
+    @Test
+    public void monitorCacheHeldWeakly() throws InterruptedException {
+        AVLTree<Integer> tree = new AVLTree<Integer>().insert(1);
+        TreeMonitor monitor = new TreeMonitor(tree);
+        assertEquals(1, monitor.getStats().getSize());
+        tree = tree.insert(2);
+        monitor.publish(tree);
+        for (int attempt = 0; attempt < 50 && monitor.getVersionsRetained() > 1; attempt++){
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, monitor.getVersionsRetained());
+        assertEquals(2, monitor.getStats().getSize());
+        assertSame(monitor.getStats(), monitor.getStats());
+
+        monitor.publish(new AVLTree<>());
+        assertEquals(0, monitor.getStats().getSize());
+        assertSame(monitor.getStats(), monitor.getStats());
+    }
+
+    /**
+     * Registered monitors are readable over JMX.
+     */
+    @Test
+    public void exportOverJmx() throws Exception{
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        TreeStatsExporter exporter = new TreeStatsExporter(server);
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++){
+            tree = tree.insert(i);
+        }
+        ObjectName name = exporter.register("test", new TreeMonitor(tree));
+        try {
+            assertEquals(100, server.getAttribute(name, "Size"));
+            assertEquals(7, server.getAttribute(name, "Height"));
+            assertEquals(false, server.getAttribute(name, "Sampled"));
+        } finally {
+            exporter.unregister("test");
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -4,9 +4,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
@@ -215,13 +218,260 @@ public abstract class TreeTestSkeleton {
         assertEquals(Integer.valueOf(3), testTree.getMax());
     }
 
+    /**
+     * Test navigation to the nearest Keys around a given Key, whether or not the Key is contained.
+     */
+    @Test
+    public void testFloorCeilingHigherLower(){
+        // Empty tree returns null values.
+        assertNull(testTree.floor(1));
+        assertNull(testTree.ceiling(1));
+        assertNull(testTree.higher(1));
+        assertNull(testTree.lower(1));
+
+        for (int key = 0; key <= 100; key += 10){
+            testTree = testTree.insert(key);
+        }
+
+        // Contained Key.
+        assertEquals(Integer.valueOf(50), testTree.floor(50));
+        assertEquals(Integer.valueOf(50), testTree.ceiling(50));
+        assertEquals(Integer.valueOf(60), testTree.higher(50));
+        assertEquals(Integer.valueOf(40), testTree.lower(50));
+
+        // Key not contained.
+        assertEquals(Integer.valueOf(50), testTree.floor(55));
+        assertEquals(Integer.valueOf(60), testTree.ceiling(55));
+        assertEquals(Integer.valueOf(60), testTree.higher(55));
+        assertEquals(Integer.valueOf(50), testTree.lower(55));
+
+        // Keys beyond either end of the tree.
+        assertNull(testTree.floor(-1));
+        assertNull(testTree.lower(0));
+        assertNull(testTree.ceiling(101));
+        assertNull(testTree.higher(100));
+        assertEquals(Integer.valueOf(100), testTree.floor(1000));
+        assertEquals(Integer.valueOf(0), testTree.ceiling(-1000));
+    }
+
+    /**
+     * Test ranking of Keys, whether or not the Key is contained.
+     */
+    @Test
+    public void testRank(){
+        assertEquals(0, testTree.rank(5));
+
+        for (int key = 0; key < 100; key += 2){
+            testTree = testTree.insert(key);
+        }
+
+        assertEquals(0, testTree.rank(-1));
+        assertEquals(0, testTree.rank(0));
+        assertEquals(1, testTree.rank(1));
+        assertEquals(1, testTree.rank(2));
+        assertEquals(25, testTree.rank(50));
+        assertEquals(26, testTree.rank(51));
+        assertEquals(50, testTree.rank(1000));
+    }
+
+    /**
+     * Selecting by rank should invert rank for every contained Key.
+     */
+    @Test
+    public void testSelect(){
+        for (int key = 0; key < 100; key += 2){
+            testTree = testTree.insert(key);
+        }
+        for (int index = 0; index < 50; index++){
+            Integer key = testTree.select(index);
+            assertEquals(Integer.valueOf(2 * index), key);
+            assertEquals(index, testTree.rank(key));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSelect_outOfBounds(){
+        testTree.insert(1).select(1);
+    }
+
+    /**
+     * Inclusive and exclusive bounds, and open bounds, should each select the corresponding Keys.
+     */
+    @Test
+    public void testGetRange_bounds(){
+        for (int key = 0; key < 20; key++){
+            testTree = testTree.insert(key);
+        }
+        assertEquals(Arrays.asList(5, 6, 7), testTree.getRange(5, true, 7, true));
+        assertEquals(Arrays.asList(6, 7), testTree.getRange(5, false, 7, true));
+        assertEquals(Arrays.asList(5, 6), testTree.getRange(5, true, 7, false));
+        assertEquals(Collections.emptyList(), testTree.getRange(5, false, 6, false));
+        assertEquals(Arrays.asList(0, 1, 2), testTree.getRange(null, true, 3, false));
+        assertEquals(Arrays.asList(18, 19), testTree.getRange(17, false, null, true));
+    }
+
+    /**
+     * Pages of a range should concatenate to the whole range.
+     */
+    @Test
+    public void testGetRange_offsetLimit(){
+        for (int key = 0; key < 200; key += 2){
+            testTree = testTree.insert(key);
+        }
+        List<Integer> expected = testTree.getRange(31, 151);
+        List<Integer> pages = new ArrayList<>();
+        for (int offset = 0; offset < expected.size() + 7; offset += 7){
+            List<Integer> page = testTree.getRange(31, 151, offset, 7);
+            assertTrue(page.size() <= 7);
+            pages.addAll(page);
+        }
+        assertEquals(expected, pages);
+
+        assertEquals(Arrays.asList(34, 36), testTree.getRange(32, false, 150, true, 0, 2));
+        assertEquals(Collections.emptyList(), testTree.getRange(31, 151, 0, 0));
+        assertEquals(Collections.emptyList(), testTree.getRange(31, 151, 1000, 10));
+        assertEquals(Collections.emptyList(), testTree.getRange(151, 31, 0, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetRange_negativeOffset(){
+        testTree.getRange(0, 10, -1, 10);
+    }
+
+    /**
+     * Visiting a range should see the same Keys as getRange, and a scan should stop as soon as its visitor declines.
+     */
+    @Test
+    public void testForEachInRange_testScanWhile(){
+        for (int key = 0; key < 100; key++){
+            testTree = testTree.insert(key);
+        }
+        List<Integer> visited = new ArrayList<>();
+        testTree.forEachInRange(10, 20, visited::add);
+        assertEquals(testTree.getRange(10, 20), visited);
+
+        visited.clear();
+        assertFalse(testTree.scanWhile(10, 90, key -> visited.add(key) && key < 15));
+        assertEquals(Arrays.asList(10, 11, 12, 13, 14, 15), visited);
+
+        visited.clear();
+        assertTrue(testTree.scanWhile(95, false, null, true, visited::add));
+        assertEquals(Arrays.asList(96, 97, 98, 99), visited);
+    }
+
+    /**
+     * Descending ranges, and the greatest or least k Keys, should be iterated in order and bounded in length.
+     */
+    @Test
+    public void testDescendingRange_testTopK_testBottomK_testLastN(){
+        assertFalse(testTree.topK(5).iterator().hasNext());
+
+        for (int key = 0; key < 100; key += 2){
+            testTree = testTree.insert(key);
+        }
+        assertEquals(Arrays.asList(20, 18, 16, 14, 12, 10), toList(testTree.descendingRange(9, 20)));
+        assertEquals(Arrays.asList(4, 2, 0), toList(testTree.descendingRange(null, 5)));
+        assertEquals(Arrays.asList(98, 96, 94), toList(testTree.topK(3)));
+        assertEquals(Arrays.asList(0, 2, 4), toList(testTree.bottomK(3)));
+        assertEquals(Arrays.asList(48, 46), toList(testTree.lastN(50, 2)));
+        assertEquals(Arrays.asList(2, 0), toList(testTree.lastN(3, 10)));
+        assertEquals(Collections.emptyList(), toList(testTree.topK(0)));
+        assertEquals(testTree.size(), toList(testTree.bottomK(1000)).size());
+
+        // Iterables may be iterated more than once.
+        Iterable<Integer> topTwo = testTree.topK(2);
+        assertEquals(toList(topTwo), toList(topTwo));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopK_negative(){
+        testTree.topK(-1);
+    }
+
+    private static List<Integer> toList(Iterable<Integer> iterable){
+        List<Integer> result = new ArrayList<>();
+        iterable.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Batched lookups should match individual lookups, including for duplicated Keys within a batch.
+     */
+    @Test
+    public void testContainsBatch(){
+        assertTrue(testTree.containsBatch(new Integer[]{1, 2}).isEmpty());
+
+        for (int key = 0; key < 200; key += 3){
+            testTree = testTree.insert(key);
+        }
+        Random random = new Random(11);
+        Integer[] keys = new Integer[1000];
+        for (int i = 0; i < keys.length; i++){
+            keys[i] = random.nextInt(250) - 25;
+        }
+        BitSet result = testTree.containsBatch(keys);
+        for (int i = 0; i < keys.length; i++){
+            assertEquals(testTree.contains(keys[i]), result.get(i));
+        }
+        assertTrue(testTree.containsBatch(new Integer[0]).isEmpty());
+    }
+
+    /**
+     * Batched range counts should match the sizes of the corresponding ranges, and be zero for inverted ranges.
+     */
+    @Test
+    public void testRangeCountBatch(){
+        for (int key = 0; key < 200; key += 3){
+            testTree = testTree.insert(key);
+        }
+        Random random = new Random(13);
+        Integer[] starts = new Integer[500];
+        Integer[] ends = new Integer[500];
+        for (int i = 0; i < starts.length; i++){
+            starts[i] = random.nextInt(250) - 25;
+            ends[i] = random.nextInt(250) - 25;
+        }
+        int[] result = testTree.rangeCountBatch(starts, ends);
+        for (int i = 0; i < starts.length; i++){
+            int expected = starts[i] <= ends[i] ? testTree.getRange(starts[i], ends[i]).size() : 0;
+            assertEquals(expected, result[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeCountBatch_mismatchedBounds(){
+        testTree.rangeCountBatch(new Integer[]{1, 2}, new Integer[]{3});
+    }
+
+    /**
+     * Polling the first or last Key should return a new Tree without that Key.
+     */
+    @Test
+    public void testPollFirst_testPollLast() throws InvalidSearchTreeException{
+        // Polling an empty tree returns the same tree.
+        assertSame(testTree, testTree.pollFirst());
+        assertSame(testTree, testTree.pollLast());
+
+        testTree = testTree.insert(2);
+        testTree = testTree.insert(1);
+        testTree = testTree.insert(3);
+
+        Tree<Integer> polled = testTree.pollFirst().pollLast();
+        assertEquals(1, polled.size());
+        assertEquals(Integer.valueOf(2), polled.getMin());
+        polled.validate();
+
+        // Original tree is unchanged.
+        assertEquals(3, testTree.size());
+    }
+
     /**
      * Test overriding default comparator with a custom one.
      *
      * The comparator in this example stores and sorts Integers based on Absolute Value, instead of actual value.
      */
     @Test
-    public void testCustomComparator(){
+    public void testCustomComparator() throws InvalidSearchTreeException{
         // Create comparator that compares all Integers by their absolute value.
         Comparator<Integer> customComparator = (one, two) -> {
             Integer absoluteValueOne = Math.abs(one);
@@ -243,5 +493,8 @@ public abstract class TreeTestSkeleton {
         List<Integer> actualOrder = testTree.toAscendingList();
 
         assertEquals(expectedOrder, actualOrder);
+
+        // Validation must order keys by the custom comparator as well.
+        testTree.validate();
     }
 }